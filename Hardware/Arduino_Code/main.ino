@@ -15,6 +15,31 @@ LiquidCrystal_I2C lcd(0x27, 16, 2);
 // ========== 샘플링 설정 ==========
 const int SAMPLE_DELAY = 2;  // 2ms = 500Hz 샘플링
 
+// ========== 블루투스 전송 형식 ==========
+// 0: 기존 텍스트 (샘플마다 "512\r\n", 9600bps에서는 500Hz를 유지할 수 없음)
+// 1: 바이너리 프레임 (앱이 자동 판별, 500Hz 유지)
+//    프레임 24바이트 = sync(0xA5 0x5A) + counter(1) + 10비트 샘플 16개(20) + CRC-8(1)
+//    500Hz / 16 x 24바이트 = 750바이트/초 < 9600bps(약 960바이트/초)
+#define LINK_BINARY 1
+
+const uint8_t FRAME_SYNC_0 = 0xA5;
+const uint8_t FRAME_SYNC_1 = 0x5A;
+const int FRAME_SAMPLES = 16;
+const int FRAME_PAYLOAD = FRAME_SAMPLES * 10 / 8;  // 20바이트
+const int FRAME_SIZE = 2 + 1 + FRAME_PAYLOAD + 1;  // 24바이트
+
+// 타이머 인터럽트가 채우는 샘플 링 버퍼 (SoftwareSerial 전송이 블로킹되어도 샘플링 주기 유지)
+const uint8_t SAMPLE_QUEUE_SIZE = 64;  // 2의 거듭제곱
+volatile uint16_t sampleQueue[SAMPLE_QUEUE_SIZE];
+volatile uint8_t sampleHead = 0;
+volatile uint8_t sampleTail = 0;
+volatile uint16_t latestSample = 0;
+
+uint8_t frameBuffer[FRAME_SIZE];
+uint16_t frameSamples[FRAME_SAMPLES];
+uint8_t frameFill = 0;
+uint8_t frameCounter = 0;
+
 // ========== LCD 업데이트 설정 ==========
 unsigned long lastLcdUpdate = 0;
 const int LCD_UPDATE_INTERVAL = 100;  // LCD는 100ms마다 업데이트 (너무 빠르면 깜빡임)
@@ -47,8 +72,104 @@ void setup() {
   lcd.clear();
   lcd.setCursor(0, 0);
   lcd.print("ECG:");
+
+#if LINK_BINARY
+  startSampleTimer();
+#endif
+}
+
+#if LINK_BINARY
+
+// Timer1 CTC 모드로 500Hz 인터럽트 (16MHz / 64 / 500 = 500 카운트)
+void startSampleTimer() {
+  noInterrupts();
+  TCCR1A = 0;
+  TCCR1B = 0;
+  TCNT1 = 0;
+  OCR1A = (F_CPU / 64 / 500) - 1;
+  TCCR1B |= (1 << WGM12);               // CTC
+  TCCR1B |= (1 << CS11) | (1 << CS10);  // 분주비 64
+  TIMSK1 |= (1 << OCIE1A);
+  interrupts();
+}
+
+// 2ms마다 샘플 하나를 큐에 넣음 (큐가 가득 차면 가장 최근 샘플을 버림)
+ISR(TIMER1_COMPA_vect) {
+  uint16_t value = analogRead(ECG_OUTPUT);
+  latestSample = value;
+  uint8_t next = (sampleHead + 1) & (SAMPLE_QUEUE_SIZE - 1);
+  if (next != sampleTail) {
+    sampleQueue[sampleHead] = value;
+    sampleHead = next;
+  }
+}
+
+bool popSample(uint16_t *value) {
+  bool available = false;
+  noInterrupts();
+  if (sampleTail != sampleHead) {
+    *value = sampleQueue[sampleTail];
+    sampleTail = (sampleTail + 1) & (SAMPLE_QUEUE_SIZE - 1);
+    available = true;
+  }
+  interrupts();
+  return available;
+}
+
+// CRC-8 (다항식 0x07, 초기값 0) - 앱의 BinarySampleDecoder와 동일
+uint8_t crc8(const uint8_t *data, int length) {
+  uint8_t crc = 0;
+  for (int i = 0; i < length; i++) {
+    crc ^= data[i];
+    for (int bit = 0; bit < 8; bit++) {
+      crc = (crc & 0x80) ? (uint8_t)((crc << 1) ^ 0x07) : (uint8_t)(crc << 1);
+    }
+  }
+  return crc;
 }
 
+// 10비트 샘플 16개를 20바이트로 압축해 프레임 전송
+void sendFrame() {
+  frameBuffer[0] = FRAME_SYNC_0;
+  frameBuffer[1] = FRAME_SYNC_1;
+  frameBuffer[2] = frameCounter++;
+  uint8_t *p = &frameBuffer[3];
+  for (int i = 0; i < FRAME_SAMPLES; i += 4, p += 5) {
+    uint16_t s0 = frameSamples[i] & 0x3FF;
+    uint16_t s1 = frameSamples[i + 1] & 0x3FF;
+    uint16_t s2 = frameSamples[i + 2] & 0x3FF;
+    uint16_t s3 = frameSamples[i + 3] & 0x3FF;
+    p[0] = s0 >> 2;
+    p[1] = ((s0 & 0x03) << 6) | (s1 >> 4);
+    p[2] = ((s1 & 0x0F) << 4) | (s2 >> 6);
+    p[3] = ((s2 & 0x3F) << 2) | (s3 >> 8);
+    p[4] = s3 & 0xFF;
+  }
+  frameBuffer[FRAME_SIZE - 1] = crc8(&frameBuffer[2], 1 + FRAME_PAYLOAD);
+  bluetooth.write(frameBuffer, FRAME_SIZE);
+}
+
+void loop() {
+  // 타이머가 쌓아둔 샘플을 프레임으로 모아 전송
+  uint16_t value;
+  while (popSample(&value)) {
+    frameSamples[frameFill++] = value;
+    if (frameFill == FRAME_SAMPLES) {
+      frameFill = 0;
+      sendFrame();
+    }
+  }
+
+  noInterrupts();
+  int ecgValue = latestSample;
+  interrupts();
+  if (ecgValue < minValue) minValue = ecgValue;
+  if (ecgValue > maxValue) maxValue = ecgValue;
+  updateLcd(ecgValue);
+}
+
+#else
+
 void loop() {
   // ECG 데이터 읽기
   int ecgValue = analogRead(ECG_OUTPUT);
@@ -63,7 +184,16 @@ void loop() {
   if (ecgValue < minValue) minValue = ecgValue;
   if (ecgValue > maxValue) maxValue = ecgValue;
   
-  // LCD 업데이트 (100ms마다)
+  updateLcd(ecgValue);
+  
+  // 샘플링 주기 유지 (500Hz = 2ms 간격)
+  delay(SAMPLE_DELAY);
+}
+
+#endif
+
+// LCD 업데이트 (100ms마다)
+void updateLcd(int ecgValue) {
   unsigned long currentTime = millis();
   if (currentTime - lastLcdUpdate >= LCD_UPDATE_INTERVAL) {
     lastLcdUpdate = currentTime;
@@ -89,7 +219,4 @@ void loop() {
       maxValue = 0;
     }
   }
-  
-  // 샘플링 주기 유지 (500Hz = 2ms 간격)
-  delay(SAMPLE_DELAY);
 }
\ No newline at end of file
@@ -39,10 +39,18 @@ android {
     buildFeatures {
         compose = true
     }
+    testOptions {
+        // 로컬 JVM 테스트에서 MPAndroidChart가 호출하는 android.* 메서드는 기본값 반환
+        unitTests.isReturnDefaultValues = true
+    }
 }
 
 dependencies {
 
+    implementation(project(":core")) {
+        // 안드로이드 프레임워크가 org.json 을 제공
+        exclude(group = "org.json", module = "json")
+    }
     implementation("com.github.PhilJay:MPAndroidChart:v3.1.0")
     implementation("com.google.android.material:material:1.13.0") // 또는 최신 버전
     implementation("androidx.appcompat:appcompat:1.6.1")
@@ -1,36 +1,28 @@
 package com.example.ecgapp;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
-import java.io.PrintWriter;
-import java.net.InetSocketAddress;
-import java.net.Socket;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.TimeUnit;
-import java.util.Base64;
 
 import android.Manifest;
-import android.annotation.SuppressLint;
 import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.bluetooth.BluetoothManager;
 import android.bluetooth.BluetoothSocket;
 import android.content.Context;
+import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
+import android.graphics.Typeface;
 import android.util.Log;
 import android.app.AlertDialog;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.LinearLayout;
+import android.widget.ScrollView;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -42,25 +34,67 @@ import androidx.core.content.ContextCompat;
 
 import com.github.mikephil.charting.charts.LineChart;
 import com.github.mikephil.charting.components.XAxis;
-import com.github.mikephil.charting.data.Entry;
 import com.github.mikephil.charting.data.LineData;
 import com.github.mikephil.charting.data.LineDataSet;
 
+import com.example.ecgapp.chart.ChartRenderScheduler;
+import com.example.ecgapp.chart.RingLineDataSet;
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.client.EcgClientListener;
+import com.example.ecgapp.client.EcgStreamingClient;
+import com.example.ecgapp.client.Verdict;
+import com.example.ecgapp.log.AsyncLogger;
+import com.example.ecgapp.log.LogRateLimiter;
+import com.example.ecgapp.metrics.LatencyHistogram;
+import com.example.ecgapp.metrics.MetricsRegistry;
+import com.example.ecgapp.net.NioEventLoop;
+import com.example.ecgapp.record.CaptureRecorder;
+import com.example.ecgapp.sensor.SensorLinkDecoder;
+import com.example.ecgapp.signal.FilterChain;
+import com.example.ecgapp.signal.SignalQualityMonitor;
+import com.example.ecgapp.signal.StreamingRPeakDetector;
+import com.example.ecgapp.sim.SyntheticEcgSource;
+import com.example.ecgapp.spool.OfflineCapture;
+import com.example.ecgapp.spool.SpoolStore;
+import com.example.ecgapp.spool.SpoolUploader;
+import com.example.ecgapp.spool.SpooledCapture;
+import com.example.ecgapp.station.SensorHub;
+import com.example.ecgapp.station.SensorStation;
+import com.example.ecgapp.stream.SamplePacer;
+import com.example.ecgapp.stream.SampleSink;
+import com.example.ecgapp.trace.LatencyBreakdown;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-
-import org.json.JSONException;
-import org.json.JSONObject;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
 
 public class MainActivity extends AppCompatActivity {
 
-    private TcpClientSender tcpSender;
+    // 화면의 등록/로그인/사용자 관리가 쓰는 연결: 고른 센서의 연결, 센서가 없으면 serverClient
+    private volatile EcgStreamingClient ecgClient;
+    private volatile EcgStreamingClient serverClient; // 서버 버튼으로 연 기본 연결 (센서별 연결도 이것이 열려 있을 때만)
+    private NioEventLoop clientLoop; // 모든 서버 연결이 공유 (onDestroy 에서 닫음)
     private final String PYTHON_SERVER_IP = "172.30.1.100";  // 여기 파이썬 서버가 열어준 IP로 변경
     private final int PYTHON_SERVER_PORT = 9999;
 
     private static final String TAG = "ECG_APP_CLASSIC";
+    // 수신 스레드(핫 패스) 로그: 레벨을 먼저 확인하고 포맷/출력은 로거 스레드에서 (릴리스 빌드는 INFO 이상만)
+    private static final AsyncLogger HOT_LOG = new AsyncLogger("ECG-Log", 1024, AsyncLogger.INFO, MainActivity::writeLog);
     private static final int REQUEST_ALL_PERMISSIONS = 1;
 
     private static final String TARGET_DEVICE_NAME = "HC-06";
@@ -69,6 +103,7 @@ public class MainActivity extends AppCompatActivity {
     private TextView statusTextView;
     private TextView connectionBadge;
     private Button scanButton;
+    private Button sensorButton;
     private Button serverButton;
     private Button registerButton;
     private Button loginButton;
@@ -76,8 +111,11 @@ public class MainActivity extends AppCompatActivity {
     private Button dummyDataButton;
     private Button listUsersButton;
     private Button deleteUserButton;
+    private Button diagnosticsButton;
     private EditText userIdEditText;
     private TextView ecgValueTextView;
+    private TextView heartRateTextView;
+    private TextView beatCountTextView;
     private TextView resultTextView;
     private TextView authStatusTextView;
     private LinearLayout progressLayout;
@@ -85,16 +123,59 @@ public class MainActivity extends AppCompatActivity {
     private ProgressBar progressBar;
     private TextView progressStatusTextView;
     private LineChart ecgChart;
-    private LineDataSet dataSet;
-    private int dataIndex = 0;
     private static final int MAX_DATA_POINTS = 500;
-    // ECG 신호 스무딩을 위한 이동 평균 필터
-    private final List<Float> smoothingBuffer = new ArrayList<>();
-    private static final int SMOOTHING_WINDOW = 5; // 5개 샘플 이동 평균
+    // 프레임 단위 그래프 갱신 (샘플마다 handler.post 하지 않음)
+    private static final int CHART_RENDER_CAPACITY = 4096;
+    // 그래프 선: 기본 선(더미 데이터) + 센서마다 하나. R-peak/품질 분석과 값 표시는 고른 선만 (메인 스레드 전용)
+    private static final int[] TRACE_COLORS = {0xFF00E5FF, 0xFFFFB74D, 0xFF81C784, 0xFFF06292, 0xFFBA68C8};
+    private SensorTrace mainTrace;
+    private SensorTrace analyzedTrace;
+    private final Map<String, SensorTrace> sensorTraces = new HashMap<>(); // 센서 id → 선
+    private final Runnable chartRefresh = this::refreshChart;
+    private boolean chartRefreshPosted = false;
+    private static final int SAMPLING_RATE = 500;
+    private static final float CHART_BASELINE = 512f; // 필터 출력(0 중심)을 ADC 중앙에 그림
+    // true 이면 서버 preprocessing.py 와 같은 필터를 앱에서 적용한 샘플을 전송 (서버가 PREFILTER 명령을 지원할 때만)
+    private static final boolean SEND_PREFILTERED = false;
+    // true 이면 측정마다 서버와 시계 차이를 재고 단계별 지연(수신/큐/전송/서버 처리)을 로그와 진단 화면에 남김
+    // 디버그 빌드에서만 켬 (측정마다 CMD:TIME 왕복과 서버의 샘플별 기록이 추가됨)
+    private boolean traceLatency;
+    // true 이면 측정마다 전송한 샘플과 결과를 녹화 파일(captures/*.ecgr)로 남김 (실패 재현용, 최근 MAX_CAPTURE_FILES 개)
+    // 생체 신호와 사용자 ID가 담기므로 디버그 빌드에서만 켜고, 앱 전용 내부 저장소에만 기록
+    private boolean recordCaptures;
+    private static final int MAX_CAPTURE_FILES = 20;
+    // 녹화 파일 열기/닫기/정리 전용 (이벤트 루프와 메인 스레드에서 파일 I/O 를 하지 않음)
+    private final ExecutorService captureExecutor = Executors.newSingleThreadExecutor();
+    private CaptureRecorder spareRecorder;   // 다음 측정용으로 미리 열어 둔 파일 (captureExecutor 에서 준비)
+    private CaptureRecorder captureRecorder; // 녹화 중인 파일 (startRecording/finishRecording 으로만)
+    private String captureFileName;          // 녹화를 마치면 붙일 이름 (측정 시작 시각 + 모드)
+    private EcgStreamingClient recordingClient; // 녹화 중인 측정의 연결
+    // true 이면 서버에 연결되지 않은 동안의 측정을 기기(spool/)에 보관했다가 연결되면 별도 연결로 다시 보냄
+    private static final boolean SPOOL_OFFLINE_CAPTURES = true;
+    private final ExecutorService spoolExecutor = Executors.newSingleThreadExecutor(); // 보관소 파일 I/O 전용
+    private volatile SpoolStore spoolStore;
+    private volatile SpoolUploader spoolUploader;
+    private volatile OfflineCapture offlineCapture; // 오프라인 측정 중이면 샘플을 받는 곳
+    // 실시간 R-peak 검출 (그래프와 같은 메인 스레드에서 샘플마다 실행) - 전극 상태를 바로 확인하기 위함
+    private final StreamingRPeakDetector rPeakDetector = new StreamingRPeakDetector(SAMPLING_RATE, null);
+    private long shownBeatCount = -1;
+    private int shownHeartRate = -1;
+    // 실시간 신호 품질 검사 (최근 2초, 메인 스레드) - 서버 품질 검사 전에 잘못된 측정을 미리 중단
+    private final SignalQualityMonitor qualityMonitor =
+            new SignalQualityMonitor(SAMPLING_RATE, 2.0, SignalQualityMonitor.Thresholds.DEFAULT);
+    private static final long QUALITY_ABORT_MILLIS = 1000; // 수집 중 품질 불량이 이 시간 이상 계속되면 중단
+    private static final int MAX_QUALITY_RESTARTS = 1; // 품질 불량 시 자동 재측정 횟수 (초과하면 취소)
+    private static final int MAX_QUALITY_WAIT_SECONDS = 30; // 안정화 중 품질이 좋아지기를 기다리는 최대 시간
+    private volatile SignalQualityMonitor.Issue signalIssue = SignalQualityMonitor.Issue.NONE;
+    private long qualityBadSinceMillis = 0;
+    private int qualityRestarts = 0;
+    private String captureMode = null;
+    private volatile String captureUserId = null;
     private BluetoothAdapter bluetoothAdapter;
-    private BluetoothSocket bluetoothSocket;
-    private BluetoothDevice targetDevice;
-    private ConnectedThread connectedThread;
+    // 여러 센서 동시 수신 (등록 스테이션 여러 곳을 태블릿 하나로): 센서마다 파서/통계/서버 연결/그래프 선을 따로 둠
+    private static final int MAX_SENSORS = 4;
+    private final SensorHub sensorHub = new SensorHub(MAX_SENSORS, MetricsRegistry.global(), new StationListener());
+    private volatile SensorStation selectedStation; // 운영자가 고른 센서 (등록/로그인, 분석, 오프라인 측정 대상)
     private final Handler handler = new Handler(Looper.getMainLooper());
     private boolean isBluetoothConnected = false;
     private boolean isServerConnected = false;
@@ -102,29 +183,42 @@ public class MainActivity extends AppCompatActivity {
     private String loggedInUserId = null;
     private Thread dummyDataThread = null;
     private volatile boolean isDummyDataRunning = false;
-    private volatile int dummyDataSampleCount = 0;
-    private volatile boolean isRegisterMode = false;
-    private volatile boolean isLoginMode = false;
-    private volatile int requiredSamples = 3000; // 서버에서 받은 값으로 업데이트됨 (기본: 3000개, 약 6초)
     private static final int STABILIZATION_SECONDS = 5; // 심박 안정화 대기 시간
     private volatile boolean isStabilizing = false; // 안정화 중 플래그
     
-    // 더미 데이터 자연스러움을 위한 변수들
-    private volatile double currentHeartRate = 72.0; // 현재 심박수 (서서히 변동)
-    private volatile double baselineDrift = 0.0; // 베이스라인 드리프트
-    private volatile double baselineTarget = 0.0; // 베이스라인 목표값
-    private volatile int beatCounter = 0; // 비트 카운터
-    private volatile double heartRateVelocity = 0.0; // 심박수 변화 속도
+    // 더미 데이터: 20ms(10샘플)씩 생성 후 대기 (샘플마다 깨어나지 않음)
+    private static final int DUMMY_CHUNK_SAMPLES = 10;
+
+    // 진단 지표 (앱 전체 공유). UI 스레드 지연은 1초마다 예약한 작업이 늦게 실행된 시간으로 측정
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private static final long UI_PROBE_INTERVAL_MILLIS = 1000;
+    private final LatencyHistogram uiDelayHistogram = METRICS.histogram("ui.main_thread_delay");
+    private long uiProbeDueMillis;
+    private final Runnable uiProbe = new Runnable() {
+        @Override
+        public void run() {
+            uiDelayHistogram.recordNanos((SystemClock.uptimeMillis() - uiProbeDueMillis) * 1_000_000L);
+            uiProbeDueMillis = SystemClock.uptimeMillis() + UI_PROBE_INTERVAL_MILLIS;
+            handler.postAtTime(this, uiProbeDueMillis);
+        }
+    };
+    private static final long DIAGNOSTICS_REFRESH_MILLIS = 1000;
 
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
+        boolean debuggable = (getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        HOT_LOG.setMinLevel(debuggable ? AsyncLogger.DEBUG : AsyncLogger.INFO);
+        traceLatency = debuggable;
+        recordCaptures = debuggable;
+        METRICS.gauge("log.dropped", HOT_LOG::getDropped);
         setContentView(R.layout.activity_main);
 
         statusTextView = findViewById(R.id.statusTextView);
         connectionBadge = findViewById(R.id.connectionBadge);
         scanButton = findViewById(R.id.scanButton);
+        sensorButton = findViewById(R.id.sensorButton);
         serverButton = findViewById(R.id.serverButton);
         registerButton = findViewById(R.id.registerButton);
         loginButton = findViewById(R.id.loginButton);
@@ -132,8 +226,11 @@ public class MainActivity extends AppCompatActivity {
         dummyDataButton = findViewById(R.id.dummyDataButton);
         listUsersButton = findViewById(R.id.listUsersButton);
         deleteUserButton = findViewById(R.id.deleteUserButton);
+        diagnosticsButton = findViewById(R.id.diagnosticsButton);
         userIdEditText = findViewById(R.id.userIdEditText);
         ecgValueTextView = findViewById(R.id.ecgValueTextView);
+        heartRateTextView = findViewById(R.id.heartRateTextView);
+        beatCountTextView = findViewById(R.id.beatCountTextView);
         resultTextView = findViewById(R.id.resultTextView);
         authStatusTextView = findViewById(R.id.authStatusTextView);
         progressLayout = findViewById(R.id.progressLayout);
@@ -156,6 +253,7 @@ public class MainActivity extends AppCompatActivity {
         });
 
         serverButton.setOnClickListener(v -> toggleTcpConnection());
+        sensorButton.setOnClickListener(v -> showSensorPicker());
         
         registerButton.setOnClickListener(v -> startRegister());
         loginButton.setOnClickListener(v -> startLogin());
@@ -163,12 +261,15 @@ public class MainActivity extends AppCompatActivity {
         dummyDataButton.setOnClickListener(v -> toggleDummyData());
         listUsersButton.setOnClickListener(v -> listUsers());
         deleteUserButton.setOnClickListener(v -> deleteUser());
+        diagnosticsButton.setOnClickListener(v -> showDiagnostics());
 
         // 테스트 모드: 서버 버튼 시작부터 활성화
         serverButton.setEnabled(true);
         updateServerButtonState();
         updateAuthButtonState();
         updateUserManagementButtonState();
+        startCaptureRecording();
+        openSpool();
     }
     
     // ========== 인증 관련 메서드 ==========
@@ -180,7 +281,7 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -191,7 +292,7 @@ public class MainActivity extends AppCompatActivity {
             .setMessage("ECG 데이터를 받으시겠습니까?\n\n등록을 위해 ECG 데이터를 측정합니다.\n(5초 안정화 후 6초간 측정)")
             .setPositiveButton("YES", (dialog, which) -> {
                 // YES 선택 시 안정화 후 등록 모드 시작
-                startStabilizationCountdown("REGISTER", userId);
+                beginCapture("REGISTER", userId);
             })
             .setNegativeButton("NO", (dialog, which) -> {
                 // NO 선택 시 취소
@@ -203,7 +304,7 @@ public class MainActivity extends AppCompatActivity {
     private void startLogin() {
         String userId = userIdEditText.getText().toString().trim();
         
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -218,7 +319,7 @@ public class MainActivity extends AppCompatActivity {
             .setMessage(message)
             .setPositiveButton("YES", (dialog, which) -> {
                 // YES 선택 시 안정화 후 로그인 모드 시작
-                startStabilizationCountdown("LOGIN", userId);
+                beginCapture("LOGIN", userId);
             })
             .setNegativeButton("NO", (dialog, which) -> {
                 // NO 선택 시 취소
@@ -227,17 +328,48 @@ public class MainActivity extends AppCompatActivity {
             .show();
     }
     
+    // 사용자가 등록/로그인을 확인했을 때 (품질 불량 재측정 횟수 초기화)
+    private void beginCapture(String mode, String userId) {
+        captureMode = mode;
+        captureUserId = userId;
+        qualityRestarts = 0;
+        startStabilizationCountdown(mode, userId);
+    }
+
     // 심박 안정화 카운트다운 후 데이터 수집 시작
     private void startStabilizationCountdown(String mode, String userId) {
         isStabilizing = true;
-        dummyDataSampleCount = 0; // 카운트 초기화
         
         String modeText = mode.equals("REGISTER") ? "등록" : "로그인";
+        // 카운트다운 중 다른 센서를 골라도 시작한 센서의 연결로 측정
+        EcgStreamingClient captureClient = ecgClient;
         
         // 카운트다운 스레드
         new Thread(() -> {
             try {
+                int qualityWaitSeconds = 0;
                 for (int i = STABILIZATION_SECONDS; i > 0; i--) {
+                    // 신호 품질이 나쁘면 카운트다운을 멈추고 좋아지면 처음부터 다시 셈
+                    SignalQualityMonitor.Issue issue = signalIssue;
+                    if (issue != SignalQualityMonitor.Issue.NONE) {
+                        String reason = describeSignalIssue(issue);
+                        if (++qualityWaitSeconds > MAX_QUALITY_WAIT_SECONDS) {
+                            handler.post(() -> {
+                                isStabilizing = false;
+                                hideProgress();
+                                statusTextView.setText("❌ 신호 품질 불량으로 측정 취소: " + reason);
+                                Toast.makeText(MainActivity.this, "❌ " + reason, Toast.LENGTH_LONG).show();
+                            });
+                            return;
+                        }
+                        handler.post(() -> {
+                            showProgress(modeText, "⚠️ " + reason, 0, "전극 연결을 확인하세요");
+                            statusTextView.setText("신호 품질 확인 중: " + reason);
+                        });
+                        i = STABILIZATION_SECONDS + 1;
+                        Thread.sleep(1000);
+                        continue;
+                    }
                     final int remaining = i;
                     handler.post(() -> {
                         showProgress(modeText, "💓 심박 안정화 중... " + remaining + "초", 0, "편안하게 호흡하세요");
@@ -246,26 +378,32 @@ public class MainActivity extends AppCompatActivity {
                     Thread.sleep(1000);
                 }
                 
-                // 카운트다운 완료 - 실제 데이터 수집 시작
+                // 카운트다운 완료 - 실제 데이터 수집 시작 (서버가 ready 로 응답하면 샘플 전송 시작)
                 handler.post(() -> {
                     isStabilizing = false;
+                    EcgStreamingClient client = captureClient;
+                    if (client == null || !client.isConnected()) {
+                        // 재연결 중이면 기기에 측정을 보관했다가 나중에 전송
+                        CaptureMode offlineMode = mode.equals("REGISTER") ? CaptureMode.REGISTER : CaptureMode.LOGIN;
+                        if (client != null && startOfflineCapture(offlineMode, userId)) {
+                            return;
+                        }
+                        hideProgress();
+                        statusTextView.setText("❌ 서버 연결이 끊겨 측정을 시작하지 못했습니다.");
+                        return;
+                    }
                     
                     if (mode.equals("REGISTER")) {
-                        isRegisterMode = true;
-                        isLoginMode = false;
                         showProgress("등록", "📊 ECG 데이터 수집 중...", 0, "");
-                        tcpSender.sendCommand("REGISTER:" + userId);
+                        client.register(userId);
                         statusTextView.setText("등록 데이터 수집 중: " + userId);
                     } else {
-                        isLoginMode = true;
-                        isRegisterMode = false;
                         if (userId.isEmpty()) {
                             showProgress("로그인", "📊 ECG 데이터 수집 중... (전체 검색)", 0, "");
-                            tcpSender.sendCommand("LOGIN");
                         } else {
                             showProgress("로그인", "📊 ECG 데이터 수집 중... (사용자: " + userId + ")", 0, "");
-                            tcpSender.sendCommand("LOGIN:" + userId);
                         }
+                        client.login(userId);
                         statusTextView.setText("로그인 데이터 수집 중");
                     }
                     Toast.makeText(MainActivity.this, "📊 데이터 수집을 시작합니다!", Toast.LENGTH_SHORT).show();
@@ -282,7 +420,7 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void doLogout() {
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -292,14 +430,12 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
         
-        // 로그아웃 명령 전송
-        tcpSender.sendCommand("LOGOUT");
+        // 로그아웃 명령 전송 (진행 중인 측정도 종료)
+        ecgClient.logout();
         
         // 즉시 로컬 상태 업데이트
         currentSessionId = null;
         loggedInUserId = null;
-        isRegisterMode = false;
-        isLoginMode = false;
         stopDummyData();
         hideProgress();
         
@@ -339,17 +475,17 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void listUsers() {
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
         
-        tcpSender.sendCommand("USERS");
+        ecgClient.requestUserList();
         statusTextView.setText("사용자 목록 요청 중...");
     }
     
     private void deleteUser() {
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -365,7 +501,7 @@ public class MainActivity extends AppCompatActivity {
             .setTitle("사용자 삭제 확인")
             .setMessage("정말로 사용자 '" + userId + "'를 삭제하시겠습니까?\n\n이 작업은 되돌릴 수 없습니다.")
             .setPositiveButton("삭제", (dialog, which) -> {
-                tcpSender.sendCommand("DELETE:" + userId);
+                ecgClient.deleteUser(userId);
                 statusTextView.setText("사용자 삭제 요청 중: " + userId);
                 Toast.makeText(this, "🗑️ 사용자 삭제 요청 전송", Toast.LENGTH_SHORT).show();
             })
@@ -375,70 +511,40 @@ public class MainActivity extends AppCompatActivity {
             .show();
     }
     
-    private void handleUserListResponse(JSONObject json) {
-        try {
-            String status = json.optString("status", "");
-            String message = json.optString("message", "");
-            
-            if ("success".equals(status) && json.has("users")) {
-                // 사용자 목록 표시
-                org.json.JSONArray usersArray = json.optJSONArray("users");
-                if (usersArray != null && usersArray.length() > 0) {
-                    StringBuilder userList = new StringBuilder("등록된 사용자 목록:\n\n");
-                    for (int i = 0; i < usersArray.length(); i++) {
-                        String userId = usersArray.getString(i);
-                        userList.append("• ").append(userId).append("\n");
-                    }
-                    
-                    handler.post(() -> {
-                        resultTextView.setText(userList.toString());
-                        statusTextView.setText("사용자 목록 조회 완료 (" + usersArray.length() + "명)");
-                        Toast.makeText(this, "👥 사용자 목록 조회 완료", Toast.LENGTH_SHORT).show();
-                    });
-                } else {
-                    handler.post(() -> {
-                        resultTextView.setText("등록된 사용자가 없습니다.");
-                        statusTextView.setText("사용자 목록 조회 완료 (0명)");
-                        Toast.makeText(this, "등록된 사용자가 없습니다.", Toast.LENGTH_SHORT).show();
-                    });
-                }
-            } else {
-                handler.post(() -> {
-                    resultTextView.setText("사용자 목록 조회 실패: " + message);
-                    Toast.makeText(this, "❌ " + message, Toast.LENGTH_SHORT).show();
-                });
+    private void showUserList(List<String> userIds) {
+        if (!userIds.isEmpty()) {
+            StringBuilder userList = new StringBuilder("등록된 사용자 목록:\n\n");
+            for (String userId : userIds) {
+                userList.append("• ").append(userId).append("\n");
             }
-        } catch (Exception e) {
-            Log.e(TAG, "사용자 목록 응답 처리 실패", e);
+            
             handler.post(() -> {
-                Toast.makeText(this, "사용자 목록 처리 중 오류 발생", Toast.LENGTH_SHORT).show();
+                resultTextView.setText(userList.toString());
+                statusTextView.setText("사용자 목록 조회 완료 (" + userIds.size() + "명)");
+                Toast.makeText(this, "👥 사용자 목록 조회 완료", Toast.LENGTH_SHORT).show();
+            });
+        } else {
+            handler.post(() -> {
+                resultTextView.setText("등록된 사용자가 없습니다.");
+                statusTextView.setText("사용자 목록 조회 완료 (0명)");
+                Toast.makeText(this, "등록된 사용자가 없습니다.", Toast.LENGTH_SHORT).show();
             });
         }
     }
     
-    private void handleUserDeleteResponse(JSONObject json) {
-        try {
-            String status = json.optString("status", "");
-            String message = json.optString("message", "");
-            
-            if ("success".equals(status)) {
-                handler.post(() -> {
-                    statusTextView.setText("✅ 사용자 삭제 완료");
-                    resultTextView.setText("✅ 사용자 삭제 완료\n" + message);
-                    Toast.makeText(this, "✅ 사용자 삭제 완료", Toast.LENGTH_LONG).show();
-                    userIdEditText.setText(""); // 입력 필드 초기화
-                });
-            } else {
-                handler.post(() -> {
-                    statusTextView.setText("❌ 사용자 삭제 실패");
-                    resultTextView.setText("❌ 사용자 삭제 실패\n" + message);
-                    Toast.makeText(this, "❌ " + message, Toast.LENGTH_LONG).show();
-                });
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "사용자 삭제 응답 처리 실패", e);
+    private void showUserDeleteResult(boolean success, String message) {
+        if (success) {
+            handler.post(() -> {
+                statusTextView.setText("✅ 사용자 삭제 완료");
+                resultTextView.setText("✅ 사용자 삭제 완료\n" + message);
+                Toast.makeText(this, "✅ 사용자 삭제 완료", Toast.LENGTH_LONG).show();
+                userIdEditText.setText(""); // 입력 필드 초기화
+            });
+        } else {
             handler.post(() -> {
-                Toast.makeText(this, "사용자 삭제 처리 중 오류 발생", Toast.LENGTH_SHORT).show();
+                statusTextView.setText("❌ 사용자 삭제 실패");
+                resultTextView.setText("❌ 사용자 삭제 실패\n" + message);
+                Toast.makeText(this, "❌ " + message, Toast.LENGTH_LONG).show();
             });
         }
     }
@@ -596,240 +702,150 @@ public class MainActivity extends AppCompatActivity {
         });
     }
     
-    private void handleAuthResponse(JSONObject json) {
-        try {
-            String status = json.optString("status", "");
-            String message = json.optString("message", "");
-            
-            if ("success".equals(status)) {
-                // 등록 성공 체크 (우선)
-                if (message.contains("등록") || (json.has("user_id") && json.has("registered_at"))) {
-                    String userId = json.optString("user_id", "unknown");
-                    
-                    // 등록 모드 종료 및 더미 데이터 중지
-                    isRegisterMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    // 등록 완료 배너 표시
-                    showProgress("등록", "등록 완료 ✅", 100, message);
-                    
-                    handler.post(() -> {
-                        // "샘플 데이터 수집 완료 - 서버 처리 대기 중..." 메시지 제거
-                        statusTextView.setText("✅ 등록 완료: " + userId);
-                        Toast.makeText(this, "✅ 샘플 데이터 수집 완료하였습니다. 등록 완료! 이제 로그인하세요.", Toast.LENGTH_LONG).show();
-                        resultTextView.setText("✅ 등록 완료\n사용자: " + userId + "\n" + message + "\n\n이제 로그인 버튼을 눌러 로그인하세요.");
-                    });
-                    
-                    // 자동 로그인 제거 (사용자가 직접 로그인하도록)
-                    // 등록 후에는 로그아웃 상태 유지
-                    currentSessionId = null;
-                    loggedInUserId = null;
-                    updateAuthButtonState();
-                    
-                    // 3초 후 진행 상태 숨기기 (완료 메시지는 유지)
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> {
-                            statusTextView.setText("✅ 등록 완료: " + userId + " (로그인하세요)");
-                        });
-                    }, 3000);
-                }
-                // 로그인 성공
-                else if (json.has("session_id") || message.contains("로그인")) {
-                    currentSessionId = json.optString("session_id", null);
-                    loggedInUserId = json.optString("user_id", "unknown");
-                    
-                    // 로그인 모드 종료 및 더미 데이터 중지
-                    isLoginMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    double similarity = json.optDouble("similarity", 0);
-                    
-                    // 로그인 완료 배너 표시
-                    showProgress("로그인", "로그인 완료 ✅", 100, "유사도: " + String.format("%.1f%%", similarity * 100));
-                    
-                    handler.post(() -> {
-                        // "샘플 데이터 수집 완료 - 서버 처리 대기 중..." 메시지 제거
-                        statusTextView.setText("✅ 로그인 완료: " + loggedInUserId + " (유사도: " + String.format("%.1f%%", similarity * 100) + ")");
-                        resultTextView.setText("✅ 로그인 완료\n사용자: " + loggedInUserId + "\n유사도: " + String.format("%.1f%%", similarity * 100));
-                        
-                        // 로그인 성공 팝업 표시
-                        showLoginSuccessDialog(loggedInUserId, similarity);
-                    });
-                    
-                    updateAuthButtonState();
-                    
-                    // 3초 후 진행 상태 숨기기 (완료 메시지는 유지)
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> {
-                            statusTextView.setText("✅ 로그인: " + loggedInUserId);
-                        });
-                    }, 3000);
-                }
-            } 
-            else if ("auth_failed".equals(status)) {
-                double bestSimilarity = json.optDouble("best_similarity", 0);
-                double threshold = json.optDouble("threshold", 0.90);
+    // 측정 결과 표시 (등록/로그인 성공·실패, 측정 중 오류)
+    private void showVerdict(Verdict verdict) {
+        // 측정 종료 - 더미 데이터 중지
+        stopDummyData();
+        String message = verdict.getMessage();
+        boolean login = verdict.getMode() == CaptureMode.LOGIN;
+        
+        switch (verdict.getKind()) {
+            case REGISTERED: {
+                String userId = verdict.getUserId() != null ? verdict.getUserId() : "unknown";
                 
-                // 로그인 모드 종료 및 더미 데이터 중지
-                isLoginMode = false;
-                dummyDataSampleCount = 0;
-                stopDummyData();
+                // 등록 완료 배너 표시
+                showProgress("등록", "등록 완료 ✅", 100, message);
                 
-                // 로그인 실패 배너 표시
-                showProgress("로그인", "로그인 실패 ❌", 100, "유사도: " + String.format("%.1f%%", bestSimilarity * 100));
+                handler.post(() -> {
+                    statusTextView.setText("✅ 등록 완료: " + userId);
+                    Toast.makeText(this, "✅ 샘플 데이터 수집 완료하였습니다. 등록 완료! 이제 로그인하세요.", Toast.LENGTH_LONG).show();
+                    resultTextView.setText("✅ 등록 완료\n사용자: " + userId + "\n" + message + "\n\n이제 로그인 버튼을 눌러 로그인하세요.");
+                });
+                
+                // 자동 로그인 없음 (등록 후에는 로그아웃 상태 유지)
+                currentSessionId = null;
+                loggedInUserId = null;
+                updateAuthButtonState();
+                
+                // 3초 후 진행 상태 숨기기 (완료 메시지는 유지)
+                handler.postDelayed(() -> {
+                    hideProgress();
+                    statusTextView.setText("✅ 등록 완료: " + userId + " (로그인하세요)");
+                }, 3000);
+                break;
+            }
+            case LOGGED_IN: {
+                String userId = verdict.getUserId() != null ? verdict.getUserId() : "unknown";
+                currentSessionId = verdict.getSessionId();
+                loggedInUserId = userId;
+                double similarity = verdict.getSimilarity();
+                String similarityText = String.format("%.1f%%", similarity * 100);
+                
+                // 로그인 완료 배너 표시
+                showProgress("로그인", "로그인 완료 ✅", 100, "유사도: " + similarityText);
                 
                 handler.post(() -> {
-                    statusTextView.setText("❌ 로그인 실패: 인증 실패 (유사도: " + String.format("%.1f%%", bestSimilarity * 100) + ")");
-                    resultTextView.setText("❌ 로그인 실패\n인증 실패\n유사도: " + String.format("%.1f%%", bestSimilarity * 100));
-                    
-                    // 로그인 실패 팝업 표시
-                    showLoginFailedDialog("auth_failed", bestSimilarity, threshold, "ECG 패턴이 일치하지 않습니다.");
+                    statusTextView.setText("✅ 로그인 완료: " + userId + " (유사도: " + similarityText + ")");
+                    resultTextView.setText("✅ 로그인 완료\n사용자: " + userId + "\n유사도: " + similarityText);
+                    showLoginSuccessDialog(userId, similarity);
                 });
                 
-                // 3초 후 진행 상태 숨기기 (실패 메시지는 유지)
+                updateAuthButtonState();
+                
                 handler.postDelayed(() -> {
                     hideProgress();
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 로그인 실패");
-                    });
+                    statusTextView.setText("✅ 로그인: " + userId);
                 }, 3000);
+                break;
             }
-            // R-peak 부족 (insufficient_peaks)
-            else if ("insufficient_peaks".equals(status) || "low_quality".equals(status)) {
-                // 로그인/등록 모드 종료
-                if (isLoginMode) {
-                    isLoginMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    showProgress("로그인", "로그인 실패 ❌", 100, "ECG 신호 품질 문제");
-                    
-                    final String errorMsg = message;
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 로그인 실패: ECG 신호 품질 문제");
-                        resultTextView.setText("❌ 로그인 실패\n" + errorMsg);
-                        
-                        // 로그인 실패 팝업 표시
-                        showLoginFailedDialog("insufficient_peaks", 0, 0.90, errorMsg);
-                    });
-                    
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> statusTextView.setText("❌ 로그인 실패"));
-                    }, 3000);
-                } else if (isRegisterMode) {
-                    isRegisterMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    showProgress("등록", "등록 실패 ❌", 100, "ECG 신호 품질 문제");
-                    
-                    final String errorMsg = message;
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 등록 실패: ECG 신호 품질 문제");
-                        resultTextView.setText("❌ 등록 실패\n" + errorMsg);
-                        
-                        // 등록 실패 팝업 표시
-                        showLoginFailedDialog("insufficient_peaks", 0, 0.90, errorMsg);
-                    });
-                    
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> statusTextView.setText("❌ 등록 실패"));
-                    }, 3000);
-                }
+            case AUTH_FAILED: {
+                double bestSimilarity = verdict.getSimilarity();
+                String similarityText = String.format("%.1f%%", bestSimilarity * 100);
+                
+                // 로그인 실패 배너 표시
+                showProgress("로그인", "로그인 실패 ❌", 100, "유사도: " + similarityText);
+                
+                handler.post(() -> {
+                    statusTextView.setText("❌ 로그인 실패: 인증 실패 (유사도: " + similarityText + ")");
+                    resultTextView.setText("❌ 로그인 실패\n인증 실패\n유사도: " + similarityText);
+                    showLoginFailedDialog("auth_failed", bestSimilarity, verdict.getThreshold(), "ECG 패턴이 일치하지 않습니다.");
+                });
+                
+                handler.postDelayed(() -> {
+                    hideProgress();
+                    statusTextView.setText("❌ 로그인 실패");
+                }, 3000);
+                break;
             }
-            // 로그아웃
-            else if (message.contains("로그아웃") || "success".equals(status) && message.contains("로그아웃")) {
-                currentSessionId = null;
-                loggedInUserId = null;
-                isRegisterMode = false;
-                isLoginMode = false;
-                stopDummyData();
-                hideProgress();
+            case POOR_SIGNAL: {
+                // R-peak 부족 / 신호 품질 낮음
+                String modeText = login ? "로그인" : "등록";
+                showProgress(modeText, modeText + " 실패 ❌", 100, "ECG 신호 품질 문제");
+                
                 handler.post(() -> {
-                    statusTextView.setText("로그아웃 완료");
-                    Toast.makeText(this, "👋 로그아웃 완료", Toast.LENGTH_SHORT).show();
-                    resultTextView.setText("로그아웃 완료");
-                    updateAuthButtonState();
+                    statusTextView.setText("❌ " + modeText + " 실패: ECG 신호 품질 문제");
+                    resultTextView.setText("❌ " + modeText + " 실패\n" + message);
+                    showLoginFailedDialog("insufficient_peaks", 0, 0.90, message);
                 });
+                
+                handler.postDelayed(() -> {
+                    hideProgress();
+                    statusTextView.setText("❌ " + modeText + " 실패");
+                }, 3000);
+                break;
             }
-            // 에러 처리 (등록 실패, 로그인 실패 등)
-            else if ("error".equals(status)) {
-                // 등록 모드에서 에러 발생
-                if (isRegisterMode) {
-                    isRegisterMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    // 등록 실패 배너 표시
-                    showProgress("등록", "등록 실패 ❌", 100, message);
-                    
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 등록 실패: " + message);
+            case FAILED: {
+                // 측정 중 오류 (이미 등록된 사용자, 데이터 부족, 연결 끊김 등)
+                String modeText = login ? "로그인" : "등록";
+                showProgress(modeText, modeText + " 실패 ❌", 100, message);
+                
+                handler.post(() -> {
+                    statusTextView.setText("❌ " + modeText + " 실패: " + message);
+                    resultTextView.setText("❌ " + modeText + " 실패\n" + message);
+                    if (login) {
+                        showLoginFailedDialog("error", 0, 0.90, message);
+                    } else {
                         Toast.makeText(this, "❌ 등록 실패: " + message, Toast.LENGTH_LONG).show();
-                        resultTextView.setText("❌ 등록 실패\n" + message);
-                    });
-                    
-                    // 3초 후 진행 상태 숨기기
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> {
-                            statusTextView.setText("❌ 등록 실패");
-                        });
-                    }, 3000);
-                }
-                // 로그인 모드에서 에러 발생
-                else if (isLoginMode) {
-                    isLoginMode = false;
-                    dummyDataSampleCount = 0;
-                    stopDummyData();
-                    
-                    // 로그인 실패 배너 표시
-                    showProgress("로그인", "로그인 실패 ❌", 100, message);
-                    
-                    final String errorMessage = message;
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 로그인 실패: " + errorMessage);
-                        resultTextView.setText("❌ 로그인 실패\n" + errorMessage);
-                        
-                        // 로그인 실패 팝업 표시 (에러)
-                        showLoginFailedDialog("error", 0, 0.90, errorMessage);
-                    });
-                    
-                    // 3초 후 진행 상태 숨기기
-                    handler.postDelayed(() -> {
-                        hideProgress();
-                        handler.post(() -> {
-                            statusTextView.setText("❌ 로그인 실패");
-                        });
-                    }, 3000);
-                }
-                // 일반 에러
-                else {
-                    handler.post(() -> {
-                        statusTextView.setText("❌ 오류: " + message);
-                        Toast.makeText(this, "❌ " + message, Toast.LENGTH_LONG).show();
-                        resultTextView.setText("❌ 오류\n" + message);
-                        hideProgress();
-                    });
-                }
+                    }
+                });
+                
+                handler.postDelayed(() -> {
+                    hideProgress();
+                    statusTextView.setText("❌ " + modeText + " 실패");
+                }, 3000);
+                break;
+            }
+            default: {
+                // 일반 ECG 처리 성공 (인증과 무관한 경우)
+                String signatureHash = verdict.getSignatureHash();
+                handler.post(() -> {
+                    String resultText = "✅ ECG 처리 완료\n";
+                    resultText += "심박수: " + String.format("%.1f", verdict.getHeartRate()) + " BPM\n";
+                    resultText += "비트 수: " + verdict.getNumBeats() + "\n";
+                    resultText += "품질: " + String.format("%.0f", verdict.getQualityScore()) + "점\n";
+                    if (!signatureHash.isEmpty()) {
+                        resultText += "서명: " + signatureHash.substring(0, Math.min(16, signatureHash.length())) + "...";
+                    }
+                    resultTextView.setText(resultText);
+                });
+                break;
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "인증 응답 처리 실패", e);
-            // 예외 발생 시에도 진행 상태 정리
-            isRegisterMode = false;
-            isLoginMode = false;
-            stopDummyData();
-            hideProgress();
         }
     }
     
+    private void showLoggedOut() {
+        currentSessionId = null;
+        loggedInUserId = null;
+        stopDummyData();
+        hideProgress();
+        handler.post(() -> {
+            statusTextView.setText("로그아웃 완료");
+            Toast.makeText(this, "👋 로그아웃 완료", Toast.LENGTH_SHORT).show();
+            resultTextView.setText("로그아웃 완료");
+            updateAuthButtonState();
+        });
+    }
+    
     // ========== 더미 데이터 생성 ==========
     
     private void toggleDummyData() {
@@ -841,7 +857,7 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void startDummyData() {
-        if (tcpSender == null) {
+        if (ecgClient == null) {
             Toast.makeText(this, "서버에 먼저 연결하세요.", Toast.LENGTH_SHORT).show();
             return;
         }
@@ -851,7 +867,7 @@ public class MainActivity extends AppCompatActivity {
         }
         
         isDummyDataRunning = true;
-        dummyDataSampleCount = 0;
+        resetSignalAnalysis();
         dummyDataThread = new Thread(this::generateDummyECGData);
         dummyDataThread.start();
         
@@ -875,25 +891,23 @@ public class MainActivity extends AppCompatActivity {
     }
     
     private void generateDummyECGData() {
-        // ECG 파형 시뮬레이션 (심박수 변동, 500Hz 샘플링)
-        final int samplingRate = 500; // 500Hz
-        
-        // 초기화
-        currentHeartRate = 72.0 + (Math.random() - 0.5) * 10; // 67-77 BPM 범위
-        baselineDrift = 0.0;
-        baselineTarget = (Math.random() - 0.5) * 30; // 베이스라인 목표값
-        beatCounter = 0;
-        heartRateVelocity = (Math.random() - 0.5) * 0.5; // 심박수 변화 속도
-        
-        int sampleIndex = 0;
-        double time = 0;
-        double beatStartTime = 0.0;
-        double currentBeatDuration = 60.0 / currentHeartRate;
+        // ECG 파형 시뮬레이션 (심박수 변동, 500Hz 샘플링) - 시드는 로그로 남겨 같은 파형을 재현할 수 있게 함
+        long seed = System.nanoTime();
+        Log.d(TAG, "더미 ECG 생성 시작 (seed=" + seed + ")");
+        SyntheticEcgSource source = new SyntheticEcgSource(seed, SAMPLING_RATE);
+        // 청크마다 sleep 하면 늦게 깨어난 만큼 500Hz 보다 느려지므로 누적 기한으로 맞춤 (늦으면 밀린 샘플을 한 번에)
+        SamplePacer pacer = new SamplePacer(SAMPLING_RATE, DUMMY_CHUNK_SAMPLES);
+        pacer.setLatenessHistogram(METRICS.histogram("dummy.pacer_lateness"));
+        LongSupplier rateGauge = () -> Math.round(pacer.getAchievedRateHz());
+        METRICS.gauge("dummy.rate_hz", rateGauge);
+        int[] chunk = new int[pacer.getMaxBatchSamples()];
         
         while (isDummyDataRunning && !Thread.currentThread().isInterrupted()) {
             try {
-                // 등록/로그인 모드가 아니면 데이터 수집 중지
-                if (!isRegisterMode && !isLoginMode) {
+                // 등록/로그인 중이 아니면 데이터 생성 중지 (오프라인 측정 포함)
+                EcgStreamingClient client = ecgClient;
+                OfflineCapture offline = offlineCapture;
+                if (offline == null && (client == null || client.getCaptureMode() == null)) {
                     isDummyDataRunning = false;
                     handler.post(() -> {
                         dummyDataButton.setText("🧪 더미 ECG 데이터 생성 (테스트용)");
@@ -901,82 +915,28 @@ public class MainActivity extends AppCompatActivity {
                     break;
                 }
                 
-                // 심박수 변동성 추가 (서서히 변동, 60-85 BPM 범위)
-                heartRateVelocity += (Math.random() - 0.5) * 0.1;
-                heartRateVelocity = Math.max(-1.0, Math.min(1.0, heartRateVelocity)); // 제한
-                currentHeartRate += heartRateVelocity * 0.01;
-                currentHeartRate = Math.max(60.0, Math.min(85.0, currentHeartRate)); // 범위 제한
-                
-                // 베이스라인 드리프트 시뮬레이션
-                if (Math.random() < 0.005) { // 가끔 베이스라인 목표 변경
-                    baselineTarget = (Math.random() - 0.5) * 30;
-                }
-                // 베이스라인을 목표값으로 서서히 이동
-                baselineDrift += (baselineTarget - baselineDrift) * 0.002;
+                // 500Hz 기준 다음 청크 시각까지 대기
+                int n = pacer.awaitNext();
                 
-                // 비트 주기 완료 체크 (RR 간격 변동성 포함)
-                double timeSinceBeatStart = time - beatStartTime;
-                if (timeSinceBeatStart >= currentBeatDuration) {
-                    // 다음 비트 시작
-                    beatStartTime = time;
-                    beatCounter++;
-                    
-                    // RR 간격 변동성 (부정맥 같은 느낌)
-                    double rrVariation = 1.0 + (Math.random() - 0.5) * 0.15; // ±7.5% 변동
-                    currentBeatDuration = (60.0 / currentHeartRate) * rrVariation;
+                // ECG 파형 생성 (P, QRS, T 파 + 노이즈)
+                source.fill(chunk, 0, n);
+                if (client != null) {
+                    client.onChunkReceived(System.nanoTime());
                 }
                 
-                // ECG 파형 생성 (P, QRS, T 파 포함)
-                int ecgValue = generateECGWaveform(timeSinceBeatStart, currentBeatDuration, beatCounter, time);
-                
-                // 그래프에 추가
-                handler.post(() -> {
-                    ecgValueTextView.setText(ecgValue + " mV");
-                    addEntry(ecgValue);
-                });
-                
-                // TCP로 전송 (등록/로그인 모드일 때만, 안정화 완료 후)
-                if (tcpSender != null && (isRegisterMode || isLoginMode) && !isStabilizing) {
-                    tcpSender.sendData(ecgValue);
-                    dummyDataSampleCount++;
+                for (int i = 0; i < n; i++) {
+                    int ecgValue = chunk[i];
+                    // 그래프에 추가 (다음 화면 프레임에서 한 번에 그림)
+                    mainTrace.scheduler.submit(ecgValue);
                     
-                    // 진행률 업데이트 (100개마다)
-                    if (dummyDataSampleCount % 100 == 0) {
-                        int progress = (int) ((dummyDataSampleCount * 100.0) / requiredSamples);
-                        progress = Math.min(95, progress); // 최대 95%까지 (수집 중)
-                        updateProgress(progress, dummyDataSampleCount + " / " + requiredSamples + " 샘플");
+                    // 서버로 전송 (클라이언트가 수집 중일 때만 받음, 필요한 샘플을 다 보내면 onCaptureCollected 에서 중지)
+                    if (client != null) {
+                        client.onSample(ecgValue);
                     }
-                    
-                    // 필요한 샘플 수를 모두 수집했으면
-                    if (dummyDataSampleCount >= requiredSamples) {
-                        // 샘플 수집 완료 표시
-                        handler.post(() -> {
-                            if (isRegisterMode) {
-                                showProgress("등록", "샘플 데이터 수집 완료 - 서버 처리 대기 중...", 100, requiredSamples + " / " + requiredSamples + " 샘플");
-                                statusTextView.setText("샘플 데이터 수집 완료 - 서버에서 등록 처리 중...");
-                                Toast.makeText(MainActivity.this, "📊 샘플 데이터 수집 완료하였습니다. 서버 처리 중...", Toast.LENGTH_SHORT).show();
-                            } else if (isLoginMode) {
-                                showProgress("로그인", "샘플 데이터 수집 완료 - 서버 처리 대기 중...", 100, requiredSamples + " / " + requiredSamples + " 샘플");
-                                statusTextView.setText("샘플 데이터 수집 완료 - 서버에서 로그인 처리 중...");
-                                Toast.makeText(MainActivity.this, "📊 샘플 데이터 수집 완료하였습니다. 서버 처리 중...", Toast.LENGTH_SHORT).show();
-                            }
-                        });
-                        // 더미 데이터 전송 중지 (서버가 이미 충분한 데이터를 받았을 수 있음)
-                        // 서버가 1000개를 받으면 자동으로 처리 시작
-                        isDummyDataRunning = false;
-                        handler.post(() -> {
-                            dummyDataButton.setText("🧪 더미 ECG 데이터 생성 (테스트용)");
-                        });
-                        break;
+                    if (offline != null) {
+                        offline.onSample(ecgValue);
                     }
                 }
-                // 모드가 아니면 서버로 전송하지 않음 (그래프만 표시)
-                
-                // 500Hz = 2ms 간격
-                Thread.sleep(2);
-                
-                time += 2.0 / 1000.0; // 초 단위
-                sampleIndex++;
                 
             } catch (InterruptedException e) {
                 isDummyDataRunning = false;
@@ -994,6 +954,9 @@ public class MainActivity extends AppCompatActivity {
             }
         }
         
+        METRICS.removeGauge("dummy.rate_hz", rateGauge);
+        Log.d(TAG, "더미 ECG 생성 종료: " + pacer);
+        
         // 루프 종료 시 버튼 텍스트 업데이트
         isDummyDataRunning = false;
         handler.post(() -> {
@@ -1001,76 +964,6 @@ public class MainActivity extends AppCompatActivity {
         });
     }
     
-    private int generateECGWaveform(double timeSinceBeatStart, double beatDuration, int beatNumber, double absoluteTime) {
-        // 정규화된 시간 (0~1, 한 비트 주기)
-        double normalizedTime = timeSinceBeatStart / beatDuration;
-        
-        // 베이스라인 (드리프트 포함)
-        double baseline = 512.0 + baselineDrift;
-        
-        // 비트마다 진폭 변동성 추가 (약간씩 다른 파형)
-        double amplitudeVariation = 1.0 + (Math.random() - 0.5) * 0.1; // ±5% 변동
-        
-        // P파 (0.0 ~ 0.15) - 진폭 변동성 포함
-        double pWave = 0;
-        if (normalizedTime >= 0.0 && normalizedTime < 0.15) {
-            double pPhase = (normalizedTime - 0.0) / 0.15;
-            double pAmplitude = 20 * amplitudeVariation * (0.9 + Math.random() * 0.2); // ±10% 추가 변동
-            pWave = pAmplitude * Math.sin(Math.PI * pPhase);
-        }
-        
-        // QRS 복합체 (0.15 ~ 0.25) - 가장 중요한 파형, 약간의 변동
-        double qrsWave = 0;
-        if (normalizedTime >= 0.15 && normalizedTime < 0.25) {
-            double qrsPhase = (normalizedTime - 0.15) / 0.1;
-            // QRS 진폭 변동성 (±3%)
-            double qrsAmplitudeFactor = 1.0 + (Math.random() - 0.5) * 0.06;
-            // Q, R, S 파 시뮬레이션
-            if (qrsPhase < 0.2) {
-                qrsWave = -30 * qrsAmplitudeFactor * qrsPhase; // Q파
-            } else if (qrsPhase < 0.5) {
-                qrsWave = (200 * qrsAmplitudeFactor) * (qrsPhase - 0.2) - 6; // R파 (상승)
-            } else if (qrsPhase < 0.8) {
-                qrsWave = (200 * qrsAmplitudeFactor) * (0.5 - qrsPhase) + 54; // R파 (하강)
-            } else {
-                qrsWave = -20 * qrsAmplitudeFactor * (qrsPhase - 0.8); // S파
-            }
-        }
-        
-        // T파 (0.25 ~ 0.7) - 진폭 변동성 포함
-        double tWave = 0;
-        if (normalizedTime >= 0.25 && normalizedTime < 0.7) {
-            double tPhase = (normalizedTime - 0.25) / 0.45;
-            double tAmplitude = 40 * amplitudeVariation * (0.85 + Math.random() * 0.3); // ±15% 변동
-            tWave = tAmplitude * Math.sin(Math.PI * tPhase);
-        }
-        
-        // 다양한 노이즈 추가
-        // 1. 백색 노이즈 (항상 존재)
-        double whiteNoise = (Math.random() - 0.5) * 8;
-        
-        // 2. 전원 노이즈 시뮬레이션 (60Hz hum) - 절대 시간 기반으로 연속적
-        double powerlineNoise = 2.0 * Math.sin(2 * Math.PI * 60.0 * absoluteTime);
-        
-        // 3. 근육 노이즈 (가끔 발생하는 큰 노이즈)
-        double muscleNoise = 0;
-        if (Math.random() < 0.02) { // 2% 확률로 큰 노이즈
-            muscleNoise = (Math.random() - 0.5) * 25;
-        }
-        
-        // 4. 베이스라인 고주파 노이즈
-        double baselineNoise = (Math.random() - 0.5) * 3;
-        
-        // 최종 노이즈 합성
-        double totalNoise = whiteNoise + powerlineNoise * 0.5 + muscleNoise + baselineNoise;
-        
-        // 최종 값 계산
-        double value = baseline + pWave + qrsWave + tWave + totalNoise;
-        
-        // 0~1023 범위로 클리핑
-        return (int) Math.max(0, Math.min(1023, value));
-    }
-
     @Override
     protected void onResume() {
         super.onResume();
@@ -1079,27 +972,19 @@ public class MainActivity extends AppCompatActivity {
 
     //그래프 초기화 메서드
     private void initChart() {
-        dataSet = new LineDataSet(new ArrayList<Entry>(), "ECG Signal");
-
-        dataSet.setDrawCircles(false);
-        dataSet.setDrawValues(false);
-
-        // ECG 라인 색상 - 시안 색상
-        dataSet.setColor(0xFF00E5FF);
-        dataSet.setLineWidth(2f);
-        dataSet.setMode(LineDataSet.Mode.LINEAR);
-        
-        // 그라데이션 채우기
-        dataSet.setDrawFilled(true);
-        dataSet.setFillColor(0xFF00E5FF);
-        dataSet.setFillAlpha(30);
+        // 기본 선 (더미 데이터, ECG 라인 색상 - 시안 색상). 센서 선은 연결할 때 추가
+        mainTrace = new SensorTrace(null, "ECG Signal", TRACE_COLORS[0]);
+        mainTrace.setHighlighted(true);
+        analyzedTrace = mainTrace;
 
-        LineData lineData = new LineData(dataSet);
+        LineData lineData = new LineData(mainTrace.dataSet);
         ecgChart.setData(lineData);
 
         ecgChart.getDescription().setEnabled(false);
         ecgChart.setTouchEnabled(false);
+        // 범례는 센서 선이 있을 때만 (어느 선이 어느 센서인지)
         ecgChart.getLegend().setEnabled(false);
+        ecgChart.getLegend().setTextColor(0xFF94A3B8);
 
         // 배경 투명
         ecgChart.setBackgroundColor(0x00000000);
@@ -1111,6 +996,9 @@ public class MainActivity extends AppCompatActivity {
         xAxis.setDrawGridLines(true);
         xAxis.setGridColor(0xFF1E3A5F);
         xAxis.setAxisLineColor(0xFF334155);
+        // X축은 버퍼 내 위치 (0 = 가장 오래된 샘플) 이므로 범위 고정
+        xAxis.setAxisMinimum(0f);
+        xAxis.setAxisMaximum(MAX_DATA_POINTS - 1);
 
         // Y축 스타일 - 0~1024 범위 (Arduino ADC 전체 범위)
         ecgChart.getAxisLeft().setAxisMinimum(0f);
@@ -1122,72 +1010,506 @@ public class MainActivity extends AppCompatActivity {
         ecgChart.getAxisRight().setEnabled(false);
 
         ecgChart.invalidate();
-    }
 
-    //데이터 추가 및 그래프 갱신 메서드 (스무딩 적용)
-    private void addEntry(int value) {
-        // 이동 평균 필터로 스무딩 적용 (노이즈 제거)
-        smoothingBuffer.add((float) value);
-        if (smoothingBuffer.size() > SMOOTHING_WINDOW) {
-            smoothingBuffer.remove(0);
-        }
-        
-        // 이동 평균 계산
-        float smoothedValue = value;
-        if (smoothingBuffer.size() >= SMOOTHING_WINDOW) {
-            float sum = 0;
-            for (float v : smoothingBuffer) {
-                sum += v;
-            }
-            smoothedValue = sum / smoothingBuffer.size();
-        }
-        
-        //(X축: dataIndex, Y축: smoothedValue) - 스무딩된 값 사용
-        Entry newEntry = new Entry(dataIndex, smoothedValue);
-        dataSet.addEntry(newEntry);
+        mainTrace.scheduler.start();
 
-        if (dataSet.getEntryCount() > MAX_DATA_POINTS) {
-            dataSet.removeFirst();
+        // 그래프 갱신 대기열 / UI 스레드 지연 지표 (기본 선)
+        ChartRenderScheduler scheduler = mainTrace.scheduler;
+        METRICS.gauge("ui.chart_backlog", scheduler::getBacklog);
+        METRICS.gauge("ui.chart_dropped", scheduler::getDroppedSamples);
+        uiProbeDueMillis = SystemClock.uptimeMillis() + UI_PROBE_INTERVAL_MILLIS;
+        handler.postAtTime(uiProbe, uiProbeDueMillis);
+    }
 
-            for (Entry e : dataSet.getValues()) {
-                e.setX(e.getX() - 1);
+    // 진단 화면: 지표를 1초마다 갱신해 보여주고 JSON 으로 저장
+    private void showDiagnostics() {
+        TextView text = new TextView(this);
+        text.setTypeface(Typeface.MONOSPACE);
+        text.setTextSize(11);
+        text.setTextIsSelectable(true);
+        int padding = (int) (16 * getResources().getDisplayMetrics().density);
+        text.setPadding(padding, padding, padding, padding);
+        ScrollView scroll = new ScrollView(this);
+        scroll.addView(text);
+
+        Runnable refresh = new Runnable() {
+            @Override
+            public void run() {
+                text.setText(METRICS.format());
+                handler.postDelayed(this, DIAGNOSTICS_REFRESH_MILLIS);
             }
-        }
-
-        ecgChart.getData().notifyDataChanged();
-        ecgChart.notifyDataSetChanged();
-
-        ecgChart.setVisibleXRangeMaximum(MAX_DATA_POINTS);
-        ecgChart.moveViewToX(dataIndex);
-
-        dataIndex++;
+        };
+        AlertDialog dialog = new AlertDialog.Builder(this)
+                .setTitle("진단 정보")
+                .setView(scroll)
+                .setPositiveButton("JSON 저장", (d, which) -> dumpMetrics())
+                .setNeutralButton("초기화", (d, which) -> METRICS.reset())
+                .setNegativeButton("닫기", null)
+                .create();
+        dialog.setOnDismissListener(d -> handler.removeCallbacks(refresh));
+        dialog.show();
+        refresh.run();
     }
 
-    //권한 요청
-    private void requestPermissionsIfNeeded() {
-        List<String> perms = new ArrayList<>();
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED)
-                perms.add(Manifest.permission.BLUETOOTH_SCAN);
-            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_CONNECT) != PackageManager.PERMISSION_GRANTED)
-                perms.add(Manifest.permission.BLUETOOTH_CONNECT);
+    // 현재 지표를 앱 전용 외부 저장소에 JSON 파일로 저장 (권한 불필요), 로그에도 남김
+    private void dumpMetrics() {
+        String json = METRICS.toJson().toString();
+        Log.i(TAG, "metrics " + json);
+        File dir = getExternalFilesDir(null);
+        if (dir == null) {
+            dir = getFilesDir();
         }
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED)
-            perms.add(Manifest.permission.ACCESS_FINE_LOCATION);
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        File file = new File(dir, "metrics-" + stamp + ".json");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(json.getBytes(StandardCharsets.UTF_8));
+            Toast.makeText(this, "저장됨: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "지표 저장 실패", e);
+            Toast.makeText(this, "지표 저장 실패: " + e.getMessage(), Toast.LENGTH_SHORT).show();
+        }
+    }
 
-        if (!perms.isEmpty()) {
-            ActivityCompat.requestPermissions(this, perms.toArray(new String[0]), REQUEST_ALL_PERMISSIONS);
+    // ========== 오프라인 측정 보관 ==========
+
+    // 보관소를 열고 남은 측정이 있으면 서버 연결 후 전송 (앱 전용 내부 저장소)
+    private void openSpool() {
+        if (!SPOOL_OFFLINE_CAPTURES) {
             return;
         }
-
-        initBluetooth();
+        File dir = new File(getFilesDir(), "spool");
+        spoolExecutor.execute(() -> {
+            try {
+                SpoolStore store = SpoolStore.open(dir);
+                spoolUploader = new SpoolUploader(store, PYTHON_SERVER_IP, PYTHON_SERVER_PORT, newSendFilter(), new SpoolListener());
+                spoolStore = store;
+                Log.d(TAG, "측정 보관소 열림 (전송 대기 " + store.pendingCount() + "개)");
+                kickSpoolUploader();
+            } catch (IOException e) {
+                Log.e(TAG, "측정 보관소 열기 실패", e);
+            }
+        });
     }
 
-    @Override
-    public void onRequestPermissionsResult(int requestCode,
-                                           @NonNull String[] permissions,
-                                           @NonNull int[] grantResults) {
-        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
+    private void closeSpool() {
+        offlineCapture = null;
+        SpoolUploader uploader = spoolUploader;
+        spoolUploader = null;
+        if (uploader != null) {
+            uploader.close();
+        }
+        spoolExecutor.execute(() -> {
+            SpoolStore store = spoolStore;
+            spoolStore = null;
+            if (store != null) {
+                try {
+                    store.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "측정 보관소 닫기 실패", e);
+                }
+            }
+        });
+        spoolExecutor.shutdown();
+    }
+
+    // 주 연결이 살아 있을 때만 업로드 시도 (실패하면 다음 연결 때 다시)
+    private void kickSpoolUploader() {
+        SpoolUploader uploader = spoolUploader;
+        EcgStreamingClient client = serverClient;
+        if (uploader != null && client != null && client.isConnected()) {
+            uploader.kick();
+        }
+    }
+
+    // 서버 없이 측정 하나 분량을 모음 (샘플은 블루투스/더미 데이터 스레드가 넘김). 보관소가 없으면 false
+    private boolean startOfflineCapture(CaptureMode mode, String userId) {
+        if (!SPOOL_OFFLINE_CAPTURES || spoolStore == null) {
+            return false;
+        }
+        offlineCapture = new OfflineCapture(mode, userId, EcgStreamingClient.DEFAULT_REQUIRED_SAMPLES,
+                this::onOfflineCaptureComplete);
+        String modeText = mode == CaptureMode.REGISTER ? "등록" : "로그인";
+        Log.d(TAG, "서버 연결 없음 - 오프라인 " + modeText + " 측정 시작");
+        handler.post(() -> {
+            showProgress(modeText, "📴 서버 연결 없음 - 측정을 기기에 저장합니다...", 0, "");
+            statusTextView.setText("📴 오프라인 " + modeText + " 데이터 수집 중 (연결되면 자동 전송)");
+        });
+        return true;
+    }
+
+    // 오프라인 측정 완료 (샘플 스레드) - 보관소에 저장하고 연결되어 있으면 바로 전송
+    private void onOfflineCaptureComplete(OfflineCapture capture) {
+        if (offlineCapture != capture) {
+            return;
+        }
+        offlineCapture = null;
+        isDummyDataRunning = false;
+        try {
+            spoolExecutor.execute(() -> {
+                SpoolStore store = spoolStore;
+                if (store == null) {
+                    return;
+                }
+                try {
+                    store.append(capture.getMode(), capture.getUserId(), SAMPLING_RATE,
+                            capture.getSamples(), capture.getCount());
+                    int pending = store.pendingCount();
+                    Log.d(TAG, "오프라인 측정 보관 (전송 대기 " + pending + "개)");
+                    handler.post(() -> {
+                        hideProgress();
+                        statusTextView.setText("📴 측정을 기기에 저장했습니다. 서버 연결 시 자동 전송 (대기 " + pending + "개)");
+                        Toast.makeText(MainActivity.this, "📴 측정 저장 완료 - 서버에 연결되면 전송합니다.", Toast.LENGTH_LONG).show();
+                        dummyDataButton.setText("🧪 더미 ECG 데이터 생성 (테스트용)");
+                    });
+                } catch (IOException e) {
+                    Log.e(TAG, "오프라인 측정 보관 실패", e);
+                    handler.post(() -> {
+                        hideProgress();
+                        statusTextView.setText("❌ 측정을 기기에 저장하지 못했습니다: " + e.getMessage());
+                    });
+                }
+                kickSpoolUploader();
+            });
+        } catch (RejectedExecutionException e) {
+            // 화면 종료 중
+        }
+    }
+
+    // 보관한 측정의 전송 결과 (업로더 스레드). 뒤늦은 로그인 결과는 알림만 하고 로그인 상태는 바꾸지 않음
+    private class SpoolListener implements SpoolUploader.Listener {
+        @Override
+        public void onUploaded(SpooledCapture capture, Verdict verdict) {
+            Log.i(TAG, "보관한 측정 전송: " + capture + " → " + verdict);
+            String modeText = capture.getMode() == CaptureMode.REGISTER ? "등록" : "로그인";
+            handler.post(() -> Toast.makeText(MainActivity.this,
+                    "📤 저장된 " + modeText + " 측정 전송 완료: " + verdict.getMessage(), Toast.LENGTH_LONG).show());
+        }
+
+        @Override
+        public void onPendingChanged(int pending) {
+            Log.d(TAG, "측정 보관소 전송 대기 " + pending + "개");
+        }
+    }
+
+    // ========== 측정 녹화 ==========
+
+    // 측정 시작(ready)마다 미리 열어 둔 녹화 파일로 전환 (이벤트 루프 스레드) - 클라이언트가 전송 큐에 넣은 샘플을 그대로 받음 (화면의 측정만)
+    private synchronized void startRecording(EcgStreamingClient client, CaptureMode mode, int requiredSamples) {
+        if (client == null || client != ecgClient) {
+            return;
+        }
+        finishRecording(null, null);
+        if (!recordCaptures) {
+            return;
+        }
+        CaptureRecorder recorder = spareRecorder;
+        spareRecorder = null;
+        prepareSpareRecorder();
+        if (recorder == null) {
+            Log.w(TAG, "녹화 파일이 아직 준비되지 않아 이번 측정은 녹화하지 않음");
+            return;
+        }
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss", Locale.US).format(new Date());
+        captureFileName = "capture-" + stamp + "-" + mode.name().toLowerCase(Locale.US) + ".ecgr";
+        recorder.recordSession(mode, captureUserId, requiredSamples);
+        captureRecorder = recorder;
+        recordingClient = client;
+        client.setCaptureTap(recorder);
+    }
+
+    // 결과(없으면 취소/중단)를 남기고 녹화를 멈춤. 파일 닫기와 정리는 captureExecutor 에서
+    // client 가 null 이 아니면 그 연결의 측정을 녹화 중일 때만
+    private synchronized void finishRecording(EcgStreamingClient client, Verdict verdict) {
+        CaptureRecorder recorder = captureRecorder;
+        if (recorder == null || (client != null && client != recordingClient)) {
+            return;
+        }
+        captureRecorder = null;
+        if (recordingClient != null) {
+            recordingClient.setCaptureTap(null);
+            recordingClient = null;
+        }
+        String name = captureFileName;
+        runCaptureTask(() -> saveRecording(recorder, verdict, name));
+    }
+
+    // 이전 실행에서 남은 예비 파일을 지우고 첫 녹화 파일을 미리 엶
+    private void startCaptureRecording() {
+        if (!recordCaptures) {
+            return;
+        }
+        File dir = captureDirectory();
+        runCaptureTask(() -> deleteSpareFiles(dir));
+        prepareSpareRecorder();
+    }
+
+    // 다음 측정용 녹화 파일을 미리 열어 둠 (이미 있으면 그대로)
+    private void prepareSpareRecorder() {
+        if (!recordCaptures) {
+            return;
+        }
+        File dir = captureDirectory();
+        runCaptureTask(() -> {
+            synchronized (this) {
+                if (spareRecorder != null) {
+                    return;
+                }
+            }
+            try {
+                if (!dir.isDirectory() && !dir.mkdirs()) {
+                    throw new IOException("폴더를 만들 수 없음: " + dir);
+                }
+                CaptureRecorder recorder = CaptureRecorder.create(File.createTempFile("capture-", ".part", dir), SAMPLING_RATE);
+                synchronized (this) {
+                    spareRecorder = recorder;
+                }
+            } catch (IOException e) {
+                Log.w(TAG, "녹화 파일 준비 실패", e);
+            }
+        });
+    }
+
+    // 녹화 파일을 닫고 최종 이름으로 바꾼 뒤 오래된 녹화를 삭제 (captureExecutor)
+    private void saveRecording(CaptureRecorder recorder, Verdict verdict, String name) {
+        if (verdict != null) {
+            recorder.recordVerdict(verdict.toJson());
+        }
+        File file = recorder.getFile();
+        try {
+            recorder.close();
+            File target = new File(file.getParentFile(), name);
+            if (file.renameTo(target)) {
+                file = target;
+            }
+            Log.d(TAG, "측정 녹화 저장: " + file.getName() + " (" + recorder.getSamples() + "샘플)");
+        } catch (IOException e) {
+            Log.w(TAG, "측정 녹화 저장 실패", e);
+        }
+        if (recorder.getError() != null) {
+            Log.w(TAG, "측정 녹화 중 오류", recorder.getError());
+        }
+        File[] files = file.getParentFile().listFiles((dir, fileName) -> fileName.endsWith(".ecgr"));
+        if (files != null && files.length > MAX_CAPTURE_FILES) {
+            Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+            for (int i = 0; i < files.length - MAX_CAPTURE_FILES; i++) {
+                if (!files[i].delete()) {
+                    Log.w(TAG, "오래된 녹화 삭제 실패: " + files[i].getName());
+                }
+            }
+        }
+    }
+
+    // 종료 시 녹화를 마치고 쓰지 않은 예비 파일을 닫아 지움 (앞서 넣은 저장 작업이 먼저 끝남)
+    private void stopCaptureRecording() {
+        finishRecording(null, null);
+        File dir = captureDirectory();
+        runCaptureTask(() -> {
+            CaptureRecorder spare;
+            synchronized (this) {
+                spare = spareRecorder;
+                spareRecorder = null;
+            }
+            if (spare != null) {
+                try {
+                    spare.close();
+                } catch (IOException e) {
+                    Log.w(TAG, "예비 녹화 파일 닫기 실패", e);
+                }
+            }
+            deleteSpareFiles(dir);
+        });
+        captureExecutor.shutdown();
+    }
+
+    // 종료 후 늦게 도착한 측정 이벤트는 녹화하지 않음
+    private void runCaptureTask(Runnable task) {
+        try {
+            captureExecutor.execute(task);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "녹화 작업 무시 (앱 종료 중)");
+        }
+    }
+
+    private static void deleteSpareFiles(File dir) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".part"));
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    Log.w(TAG, "예비 녹화 파일 삭제 실패: " + file.getName());
+                }
+            }
+        }
+    }
+
+    // 앱 전용 내부 저장소 (다른 앱이 읽을 수 없음)
+    private File captureDirectory() {
+        return new File(getFilesDir(), "captures");
+    }
+
+    // HOT_LOG 출력 (로거 스레드) - 레벨 값은 android.util.Log 우선순위와 같음
+    private static void writeLog(int level, String tag, String message, Throwable error) {
+        if (error != null) {
+            message = message + '\n' + Log.getStackTraceString(error);
+        }
+        Log.println(level, tag, message);
+    }
+
+    // 화면 프레임마다 선별로 호출 (메인 스레드): 그동안 쌓인 샘플을 추가하고 그래프는 프레임당 한 번만 갱신
+    private void renderSamples(SensorTrace trace, int[] samples, int count) {
+        for (int i = 0; i < count; i++) {
+            // 베이스라인/전원 노이즈 제거 후 스무딩 (샘플당 할당 없음), 가득 차면 가장 오래된 값을 덮어씀
+            trace.dataSet.append(CHART_BASELINE + trace.displayFilter.process(samples[i]));
+        }
+        requestChartRefresh();
+        if (trace != analyzedTrace) {
+            return;
+        }
+
+        // 그래프에 그리지 못한 샘플만큼 검출기 샘플 번호를 맞추고 품질 창에 끊김을 알림
+        long missed = trace.getMissedSamples();
+        if (missed != trace.detectorMissedSamples) {
+            rPeakDetector.skip(missed - trace.detectorMissedSamples);
+            qualityMonitor.skip(missed - trace.detectorMissedSamples);
+            trace.detectorMissedSamples = missed;
+        }
+
+        for (int i = 0; i < count; i++) {
+            rPeakDetector.process(samples[i]);
+            qualityMonitor.add(samples[i]);
+        }
+        checkSignalQuality();
+
+        int lastValue = samples[count - 1];
+        ecgValueTextView.setText(isDummyDataRunning ? lastValue + " mV" : "ECG 값: " + lastValue);
+        updateHeartRate();
+    }
+
+    // 심박수/비트 수 표시 (값이 바뀐 경우에만 텍스트 갱신)
+    private void updateHeartRate() {
+        int heartRate = (int) Math.round(rPeakDetector.getHeartRate());
+        if (heartRate != shownHeartRate) {
+            shownHeartRate = heartRate;
+            heartRateTextView.setText(heartRate > 0 ? "💓 " + heartRate + " BPM" : "💓 --- BPM");
+        }
+        long beats = rPeakDetector.getBeatCount();
+        if (beats != shownBeatCount) {
+            shownBeatCount = beats;
+            beatCountTextView.setText("비트 " + beats);
+        }
+    }
+
+    // 새 신호원(블루투스 연결/더미 데이터)이 시작되면 검출기/품질 창을 처음부터 다시 시작 (메인 스레드)
+    private void resetSignalAnalysis() {
+        rPeakDetector.reset();
+        qualityMonitor.reset();
+        signalIssue = SignalQualityMonitor.Issue.NONE;
+        qualityBadSinceMillis = 0;
+        updateHeartRate();
+    }
+
+    // 수집 중 품질 불량이 계속되면 서버 처리 전에 중단 (재측정 또는 취소)
+    private void checkSignalQuality() {
+        SignalQualityMonitor.Issue issue = qualityMonitor.getIssue();
+        signalIssue = issue;
+
+        EcgStreamingClient client = ecgClient;
+        boolean collecting = client != null && client.isCollecting();
+        if (!collecting || issue == SignalQualityMonitor.Issue.NONE) {
+            qualityBadSinceMillis = 0;
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (qualityBadSinceMillis == 0) {
+            qualityBadSinceMillis = now;
+            return;
+        }
+        if (now - qualityBadSinceMillis >= QUALITY_ABORT_MILLIS) {
+            qualityBadSinceMillis = 0;
+            abortCaptureForQuality(issue);
+        }
+    }
+
+    private void abortCaptureForQuality(SignalQualityMonitor.Issue issue) {
+        String reason = describeSignalIssue(issue);
+        Log.w(TAG, "신호 품질 불량으로 수집 중단: " + issue + " (포화 " + qualityMonitor.getSaturationRatio()
+                + ", 표준편차 " + qualityMonitor.getStd() + ", SNR " + qualityMonitor.getSnrDb() + "dB)");
+
+        // 서버 버퍼에 쌓인 불량 샘플 폐기
+        EcgStreamingClient client = ecgClient;
+        if (client != null) {
+            client.cancelCapture();
+        }
+
+        if (captureMode != null && qualityRestarts < MAX_QUALITY_RESTARTS) {
+            qualityRestarts++;
+            statusTextView.setText("⚠️ " + reason + " - 다시 측정합니다");
+            Toast.makeText(this, "⚠️ " + reason + "\n안정화 후 다시 측정합니다.", Toast.LENGTH_LONG).show();
+            startStabilizationCountdown(captureMode, captureUserId);
+        } else {
+            hideProgress();
+            statusTextView.setText("❌ 신호 품질 불량으로 측정 취소: " + reason);
+            Toast.makeText(this, "❌ " + reason + "\n전극을 확인한 후 다시 시도하세요.", Toast.LENGTH_LONG).show();
+        }
+    }
+
+    private static String describeSignalIssue(SignalQualityMonitor.Issue issue) {
+        switch (issue) {
+            case LEAD_OFF:
+                return "전극이 떨어졌습니다 (센서 출력 포화)";
+            case FLAT:
+                return "신호가 평탄합니다 (센서 연결 확인)";
+            case SATURATED:
+                return "신호가 포화되었습니다 (움직임/전극 접촉 확인)";
+            case NOISY:
+                return "잡음이 너무 큽니다 (움직이지 말고 전극 접촉 확인)";
+            default:
+                return "신호 품질 정상";
+        }
+    }
+
+    // 같은 프레임에 여러 선이 그려져도 갱신은 한 번 (프레임 콜백이 모두 끝난 뒤 실행됨)
+    private void requestChartRefresh() {
+        if (!chartRefreshPosted) {
+            chartRefreshPosted = true;
+            handler.post(chartRefresh);
+        }
+    }
+
+    //그래프 갱신 메서드 (프레임당 한 번)
+    private void refreshChart() {
+        chartRefreshPosted = false;
+        ecgChart.getData().notifyDataChanged();
+        ecgChart.notifyDataSetChanged();
+
+        ecgChart.setVisibleXRangeMaximum(MAX_DATA_POINTS);
+        ecgChart.invalidate();
+    }
+
+    //권한 요청
+    private void requestPermissionsIfNeeded() {
+        List<String> perms = new ArrayList<>();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_SCAN) != PackageManager.PERMISSION_GRANTED)
+                perms.add(Manifest.permission.BLUETOOTH_SCAN);
+            if (ActivityCompat.checkSelfPermission(this, Manifest.permission.BLUETOOTH_CONNECT) != PackageManager.PERMISSION_GRANTED)
+                perms.add(Manifest.permission.BLUETOOTH_CONNECT);
+        }
+        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED)
+            perms.add(Manifest.permission.ACCESS_FINE_LOCATION);
+
+        if (!perms.isEmpty()) {
+            ActivityCompat.requestPermissions(this, perms.toArray(new String[0]), REQUEST_ALL_PERMISSIONS);
+            return;
+        }
+
+        initBluetooth();
+    }
+
+    @Override
+    public void onRequestPermissionsResult(int requestCode,
+                                           @NonNull String[] permissions,
+                                           @NonNull int[] grantResults) {
+        super.onRequestPermissionsResult(requestCode, permissions, grantResults);
         if (requestCode == REQUEST_ALL_PERMISSIONS) {
             boolean allGranted = true;
             for (int result : grantResults) if (result != PackageManager.PERMISSION_GRANTED) allGranted = false;
@@ -1234,9 +1556,11 @@ public class MainActivity extends AppCompatActivity {
             scanButton.setEnabled(false);
         });
 
+        // 같은 모듈 여러 개 (HC-06, HC-06-2 ...) - 아직 연결하지 않은 것만
+        List<BluetoothDevice> targets = new ArrayList<>();
+        List<String> targetNames = new ArrayList<>();
         try {
             Set<BluetoothDevice> pairedDevices = bluetoothAdapter.getBondedDevices();
-            targetDevice = null;
 
             Log.d(TAG, "페어링된 장치 개수: " + pairedDevices.size());
             
@@ -1246,10 +1570,11 @@ public class MainActivity extends AppCompatActivity {
                 String deviceAddress = device.getAddress();
                 Log.d(TAG, "페어링된 장치: 이름=" + deviceName + ", 주소=" + deviceAddress);
                 
-                if (TARGET_DEVICE_NAME.equals(deviceName)) {
-                    targetDevice = device;
+                if (deviceName != null && deviceName.startsWith(TARGET_DEVICE_NAME)
+                        && sensorHub.get(deviceAddress) == null) {
+                    targets.add(device);
+                    targetNames.add(deviceName);
                     Log.d(TAG, "타겟 장치 발견: " + deviceName);
-                    break;
                 }
             }
         } catch (SecurityException e) {
@@ -1261,9 +1586,19 @@ public class MainActivity extends AppCompatActivity {
             return;
         }
 
-        if (targetDevice != null) {
-            Log.d(TAG, "장치 연결 시도: " + targetDevice.getName() + " (" + targetDevice.getAddress() + ")");
-            connectToDevice();
+        if (!targets.isEmpty()) {
+            handler.post(() -> {
+                for (int i = 0; i < targets.size(); i++) {
+                    connectToDevice(targets.get(i), targetNames.get(i));
+                }
+                scanButton.setEnabled(true);
+            });
+        } else if (sensorHub.size() > 0) {
+            handler.post(() -> {
+                statusTextView.setText("새로 연결할 " + TARGET_DEVICE_NAME + " 모듈이 없습니다. (연결됨 "
+                        + sensorHub.size() + "/" + MAX_SENSORS + ")");
+                scanButton.setEnabled(true);
+            });
         } else {
             Log.w(TAG, "타겟 장치를 찾을 수 없음: " + TARGET_DEVICE_NAME);
             handler.post(() -> {
@@ -1273,44 +1608,201 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    //장치 연결
-    private void connectToDevice() {
-        if (targetDevice == null || !checkConnectPermission()) return;
+    //장치 연결 (메인 스레드) - 연결과 수신은 SensorHub 작업 스레드에서
+    private void connectToDevice(BluetoothDevice device, String name) {
+        if (!checkConnectPermission()) return;
 
-        new Thread(() -> {
+        SensorStation station;
+        try {
+            station = sensorHub.attach(device.getAddress(), name, new BluetoothLink(device));
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "센서 추가 실패: " + name + " - " + e.getMessage());
+            Toast.makeText(this, "❌ " + name + ": " + e.getMessage(), Toast.LENGTH_LONG).show();
+            return;
+        }
+        Log.d(TAG, "장치 연결 시도: " + station);
+        addTrace(station);
+        statusTextView.setText("장치 연결 중... (" + station.getLabel() + " " + name + ")");
+    }
+
+    // 블루투스 SPP 소켓 (open 은 SensorHub 작업 스레드, close 는 아무 스레드)
+    private static final class BluetoothLink implements SensorStation.Link {
+        private final BluetoothDevice device;
+        private volatile BluetoothSocket socket;
+        private volatile boolean closed;
+
+        BluetoothLink(BluetoothDevice device) {
+            this.device = device;
+        }
+
+        @Override
+        public InputStream open() throws IOException {
             try {
-                bluetoothSocket = targetDevice.createRfcommSocketToServiceRecord(SPP_UUID);
+                BluetoothSocket s = device.createRfcommSocketToServiceRecord(SPP_UUID);
+                socket = s;
+                if (closed) {
+                    close(); // 연결 전에 닫힘 - connect 가 바로 실패함
+                }
+                s.connect();
+                return s.getInputStream();
+            } catch (SecurityException e) {
+                throw new IOException("연결 권한 오류", e);
+            }
+        }
 
-                handler.post(() -> statusTextView.setText("장치 연결 중..."));
+        @Override
+        public void close() {
+            closed = true;
+            BluetoothSocket s = socket;
+            if (s != null) {
+                try { s.close(); } catch (IOException e) { Log.e(TAG, "소켓 닫기 실패", e); }
+            }
+        }
+    }
 
-                bluetoothSocket.connect();
-                setBluetoothConnected(true);
+    // 센서 선 추가 (메인 스레드) - 색은 센서 번호로
+    private void addTrace(SensorStation station) {
+        SensorTrace old = sensorTraces.get(station.getId());
+        if (old != null) {
+            if (old.station == station) {
+                return;
+            }
+            removeTrace(old.station);
+        }
+        SensorTrace trace = new SensorTrace(station, station.getLabel() + " " + station.getName(),
+                TRACE_COLORS[station.getIndex() % TRACE_COLORS.length]);
+        sensorTraces.put(station.getId(), trace);
+        ecgChart.getData().addDataSet(trace.dataSet);
+        ecgChart.getLegend().setEnabled(true);
+        trace.scheduler.start();
+        station.setTap(new StationTap(station, trace));
+        applySelection();
+    }
 
-                Log.d(TAG, "블루투스 소켓 연결 성공");
-                handler.post(() -> {
-                    statusTextView.setText("✅ 블루투스 연결 성공. 데이터 수신 대기 중...");
-                });
+    // 센서 선 제거 (메인 스레드). 같은 주소로 다시 연결된 센서의 선은 그대로 둠
+    private void removeTrace(SensorStation station) {
+        SensorTrace trace = sensorTraces.get(station.getId());
+        if (trace == null || trace.station != station) {
+            return;
+        }
+        station.setTap(null);
+        trace.scheduler.stop();
+        sensorTraces.remove(station.getId());
+        ecgChart.getData().removeDataSet(trace.dataSet);
+        ecgChart.getLegend().setEnabled(!sensorTraces.isEmpty());
+        applySelection();
+        refreshChart();
+    }
 
-                connectedThread = new ConnectedThread(bluetoothSocket);
-                connectedThread.start();
-                Log.d(TAG, "블루투스 데이터 수신 스레드 시작됨");
+    // 고른 센서를 화면에 반영 (메인 스레드): 선 강조, 분석 대상 선, 센서 버튼
+    private void applySelection() {
+        SensorStation station = selectedStation;
+        SensorTrace trace = station != null ? sensorTraces.get(station.getId()) : null;
+        if (trace == null) {
+            trace = mainTrace;
+        }
+        mainTrace.setHighlighted(trace == mainTrace);
+        for (SensorTrace t : sensorTraces.values()) {
+            t.setHighlighted(t == trace);
+        }
+        if (trace != analyzedTrace) {
+            analyzedTrace = trace;
+            trace.detectorMissedSamples = trace.getMissedSamples();
+            resetSignalAnalysis();
+        }
+        sensorButton.setText(station != null
+                ? "🎛 센서: " + station.getLabel() + " " + station.getName() + " (" + sensorHub.size() + "/" + MAX_SENSORS + ")"
+                : "🎛 센서 선택");
+        requestChartRefresh();
+    }
 
-            } catch (SecurityException e) {
-                Log.e(TAG, "연결 권한 오류", e);
-                closeAllConnections(); // 연결 실패 시 모든 연결 닫기 (복원됨)
-                handler.post(() -> {
-                    statusTextView.setText("연결 권한 오류");
-                    scanButton.setEnabled(true);
-                });
-            } catch (IOException e) {
-                Log.e(TAG, "소켓 연결 실패", e);
-                closeAllConnections(); // 연결 실패 시 모든 연결 닫기 (복원됨)
-                handler.post(() -> {
-                    statusTextView.setText("❌ 블루투스 연결 실패: " + e.getMessage());
-                    scanButton.setEnabled(true);
-                });
+    // 연결된 센서 중 등록/로그인/분석 대상을 고름
+    private void showSensorPicker() {
+        List<SensorStation> stations = sensorHub.getStations();
+        if (stations.isEmpty()) {
+            Toast.makeText(this, "연결된 센서가 없습니다. 스캔 버튼으로 연결하세요.", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String[] labels = new String[stations.size()];
+        int checked = -1;
+        for (int i = 0; i < labels.length; i++) {
+            SensorStation station = stations.get(i);
+            EcgStreamingClient client = station.getClient();
+            String session;
+            if (client == null) {
+                session = "서버 연결 없음";
+            } else if (client.getCaptureMode() != null) {
+                session = "측정 중";
+            } else if (client.getLoggedInUserId() != null) {
+                session = "로그인: " + client.getLoggedInUserId();
+            } else {
+                session = "대기";
             }
-        }).start();
+            labels[i] = station.getLabel() + " " + station.getName() + " · "
+                    + (station.isConnected() ? station.getRateHz() + " Hz" : "연결 중") + " · " + session;
+            if (station == selectedStation) {
+                checked = i;
+            }
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("센서 선택 (" + stations.size() + "/" + MAX_SENSORS + ")")
+                .setSingleChoiceItems(labels, checked, (d, which) -> {
+                    sensorHub.select(stations.get(which).getId());
+                    d.dismiss();
+                })
+                .setNeutralButton("선택 센서 연결 해제", (d, which) -> {
+                    SensorStation station = selectedStation;
+                    if (station != null) {
+                        sensorHub.detach(station.getId());
+                    }
+                })
+                .setNegativeButton("닫기", null)
+                .show();
+    }
+
+    // 화면이 쓰는 연결을 고른 센서의 연결로 (센서가 없으면 기본 연결), 로그인 표시도 그 연결 기준
+    private void updateSelectedClient() {
+        SensorStation station = selectedStation;
+        EcgStreamingClient client = station != null && station.getClient() != null ? station.getClient() : serverClient;
+        ecgClient = client;
+        currentSessionId = client != null ? client.getSessionId() : null;
+        loggedInUserId = client != null ? client.getLoggedInUserId() : null;
+        updateAuthButtonState();
+    }
+
+    // 센서마다 서버 세션을 따로 엶 (기본 연결이 열려 있을 때만, 이벤트 루프는 공유)
+    private synchronized void attachStationClient(SensorStation station) {
+        if (serverClient == null || station.getClient() != null || sensorHub.get(station.getId()) != station) {
+            return;
+        }
+        ClientListener listener = new ClientListener();
+        EcgStreamingClient client = new EcgStreamingClient(clientLoop, PYTHON_SERVER_IP, PYTHON_SERVER_PORT,
+                newSendFilter(), listener);
+        listener.client = client;
+        listener.station = station;
+        client.setMetricPrefix("tcp." + station.getLabel() + ".");
+        client.setTracingEnabled(traceLatency);
+        station.setClient(client);
+        client.start();
+        if (station == selectedStation) {
+            updateSelectedClient();
+        }
+    }
+
+    private synchronized void detachStationClient(SensorStation station) {
+        EcgStreamingClient client = station.getClient();
+        if (client == null) {
+            return;
+        }
+        station.setClient(null);
+        client.close();
+        if (client == ecgClient) {
+            updateSelectedClient();
+        }
+    }
+
+    private static FilterChain newSendFilter() {
+        return SEND_PREFILTERED ? FilterChain.forConditioning(SAMPLING_RATE) : null;
     }
 
     private void toggleTcpConnection() {
@@ -1320,7 +1812,7 @@ public class MainActivity extends AppCompatActivity {
         //     return;
         // }
 
-        if (tcpSender != null) {
+        if (serverClient != null) {
             stopTcpClient();
         } else {
             startTcpClient();
@@ -1328,28 +1820,56 @@ public class MainActivity extends AppCompatActivity {
     }
 
     private void startTcpClient() {
-        if (tcpSender != null) return;
+        if (serverClient != null) return;
 
         if ("PC의_IP_주소".equals(PYTHON_SERVER_IP)) {
             Toast.makeText(this, "TCP 서버 IP를 MainActivity에 설정하세요.", Toast.LENGTH_LONG).show();
             return;
         }
 
-        tcpSender = new TcpClientSender(PYTHON_SERVER_IP, PYTHON_SERVER_PORT);
-        tcpSender.start();
+        if (clientLoop == null) {
+            try {
+                clientLoop = new NioEventLoop("TCP-Client");
+            } catch (IOException e) {
+                Log.e(TAG, "이벤트 루프 생성 실패", e);
+                Toast.makeText(this, "❌ TCP 연결 준비 실패: " + e.getMessage(), Toast.LENGTH_LONG).show();
+                return;
+            }
+        }
+        ClientListener listener = new ClientListener();
+        EcgStreamingClient client = new EcgStreamingClient(clientLoop, PYTHON_SERVER_IP, PYTHON_SERVER_PORT,
+                newSendFilter(), listener);
+        listener.client = client;
+        synchronized (this) {
+            serverClient = client;
+        }
+        client.setTracingEnabled(traceLatency);
+        client.start();
+        // 이미 연결된 센서도 각자 세션을 엶
+        for (SensorStation station : sensorHub.getStations()) {
+            if (station.isConnected()) {
+                attachStationClient(station);
+            }
+        }
+        updateSelectedClient();
         handler.post(() -> statusTextView.setText("TCP 서버 연결 시도 중..."));
         updateServerButtonState();
     }
 
     private void stopTcpClient() {
-        TcpClientSender sender = tcpSender;
-        if (sender == null) return;
+        EcgStreamingClient client;
+        synchronized (this) {
+            client = serverClient;
+            serverClient = null;
+        }
+        if (client == null) return;
 
-        tcpSender = null;
-        sender.closeConnection();
+        for (SensorStation station : sensorHub.getStations()) {
+            detachStationClient(station);
+        }
+        client.close();
+        updateSelectedClient();
         setServerConnected(false);
-        currentSessionId = null;
-        loggedInUserId = null;
         handler.post(() -> statusTextView.setText("TCP 서버 연결이 중지되었습니다."));
         updateServerButtonState();
         updateAuthButtonState();
@@ -1373,565 +1893,345 @@ public class MainActivity extends AppCompatActivity {
         // 테스트 모드: 항상 활성화
         serverButton.setEnabled(true);
         // serverButton.setEnabled(isBluetoothConnected);
-        serverButton.setText(tcpSender != null ? "TCP 연결 해제" : "TCP 서버 연결");
+        serverButton.setText(serverClient != null ? "TCP 연결 해제" : "TCP 서버 연결");
     }
 
-    private void onTcpThreadStopped(TcpClientSender sender) {
-        if (tcpSender == sender) {
-            tcpSender = null;
+    private void onTcpThreadStopped(EcgStreamingClient client) {
+        boolean stopped;
+        synchronized (this) {
+            stopped = serverClient == client;
+            if (stopped) {
+                serverClient = null;
+            }
+        }
+        if (stopped) {
+            for (SensorStation station : sensorHub.getStations()) {
+                detachStationClient(station);
+            }
+            updateSelectedClient();
             handler.post(() -> statusTextView.setText("TCP 서버 연결이 종료되었습니다."));
             updateServerButtonState();
         }
     }
 
-    // 데이터 수신 스레드 (Bluetooth로부터 ECG 값 수신)
-    private class ConnectedThread extends Thread {
-        private final InputStream mmInStream;
-        private final BufferedReader mmBufferReader;
-        private final BluetoothSocket mmSocket;
-
-        public ConnectedThread(BluetoothSocket socket) {
-            this.mmSocket = socket;
-            InputStream tmpIn = null;
-            BufferedReader tmpReader = null;
-            try {
-                if (socket == null) {
-                    Log.e(TAG, "BluetoothSocket이 null입니다.");
-                } else if (!socket.isConnected()) {
-                    Log.e(TAG, "BluetoothSocket이 연결되지 않았습니다.");
-                } else {
-                    Log.d(TAG, "BluetoothSocket 연결 상태 확인: 연결됨");
-                    tmpIn = socket.getInputStream();
-                    if (tmpIn == null) {
-                        Log.e(TAG, "InputStream을 가져올 수 없습니다.");
-                    } else {
-                        Log.d(TAG, "InputStream 생성 성공, BufferedReader 생성 중...");
-                        // 최소 버퍼 크기(1바이트)로 설정하여 즉시 처리되도록 함
-                        tmpReader = new BufferedReader(new InputStreamReader(tmpIn, "UTF-8"), 1);
-                        Log.d(TAG, "블루투스 InputStream 및 BufferedReader 생성 성공");
-                    }
-                }
-            }
-            catch (IOException e) {
-                Log.e(TAG, "Input Stream 생성 실패", e);
-            }
-            mmInStream = tmpIn;
-            mmBufferReader = tmpReader;
+    // 그래프 선 하나 (기본 선 또는 센서 하나): 표시 필터와 프레임 스케줄러를 선마다 둠 (메인 스레드에서 생성)
+    private final class SensorTrace {
+        final SensorStation station; // 기본 선이면 null
+        final RingLineDataSet dataSet;
+        // 베이스라인 제거 + 60Hz 노치 + 5샘플 이동 평균 (선마다 상태가 따로)
+        final FilterChain displayFilter = FilterChain.forDisplay(SAMPLING_RATE);
+        final ChartRenderScheduler scheduler;
+        long detectorMissedSamples = 0; // 그래프 갱신에서 건너뛰거나 버린 샘플 (검출기/품질 창 끊김 보정용)
+
+        SensorTrace(SensorStation station, String label, int color) {
+            this.station = station;
+            // 고정 용량 원형 버퍼 데이터셋 (추가 O(1), 샘플당 Entry 할당 없음)
+            dataSet = new RingLineDataSet(MAX_DATA_POINTS, label);
+            dataSet.setDrawCircles(false);
+            dataSet.setDrawValues(false);
+            dataSet.setColor(color);
+            dataSet.setMode(LineDataSet.Mode.LINEAR);
+            // 그라데이션 채우기 (강조한 선만)
+            dataSet.setFillColor(color);
+            dataSet.setFillAlpha(30);
+            scheduler = new ChartRenderScheduler(CHART_RENDER_CAPACITY, MAX_DATA_POINTS,
+                    (samples, count) -> renderSamples(this, samples, count));
         }
 
-        @SuppressLint("SetTextI18n")
-        public void run() {
-            if (mmBufferReader == null) {
-                Log.e(TAG, "블루투스 InputStream이 null입니다. 연결을 확인하세요.");
-                handler.post(() -> statusTextView.setText("❌ 블루투스 스트림 생성 실패"));
-                return;
-            }
-
-            if (mmSocket == null || !mmSocket.isConnected()) {
-                Log.e(TAG, "블루투스 소켓이 연결되지 않았습니다.");
-                handler.post(() -> statusTextView.setText("❌ 블루투스 소켓 연결 안됨"));
-                return;
-            }
-
-            Log.d(TAG, "블루투스 데이터 수신 스레드 시작 (소켓 연결됨: " + mmSocket.isConnected() + ")");
-            handler.post(() -> statusTextView.setText("📡 블루투스 데이터 수신 대기 중..."));
-
-            String line;
-            int receivedCount = 0;
-            int errorCount = 0;
-            long lastLogTime = System.currentTimeMillis();
-            long startTime = System.currentTimeMillis();
-            long lastHeartbeat = System.currentTimeMillis();
+        // 분석 중인 선은 굵게 채워서, 나머지는 가늘게
+        void setHighlighted(boolean highlighted) {
+            dataSet.setLineWidth(highlighted ? 2f : 1f);
+            dataSet.setDrawFilled(highlighted);
+        }
 
-            while (!Thread.currentThread().isInterrupted()) {
-                try {
-                    // 소켓 연결 상태 확인
-                    if (!mmSocket.isConnected()) {
-                        Log.w(TAG, "블루투스 소켓 연결이 끊어졌습니다.");
-                        // 등록/로그인 모드 중이면 모드 종료
-                        if (isRegisterMode || isLoginMode) {
-                            isRegisterMode = false;
-                            isLoginMode = false;
-                            dummyDataSampleCount = 0;
-                            stopDummyData();
-                            handler.post(() -> {
-                                hideProgress();
-                                statusTextView.setText("❌ 블루투스 연결 끊김 - 등록/로그인 중단");
-                                Toast.makeText(MainActivity.this, "❌ 블루투스 연결이 끊겨 등록/로그인이 중단되었습니다.", Toast.LENGTH_LONG).show();
-                            });
-                        }
-                        break;
-                    }
+        long getMissedSamples() {
+            return scheduler.getSkippedSamples() + scheduler.getDroppedSamples();
+        }
+    }
 
-                    // 하트비트 로그 (10초마다, 데이터가 없어도)
-                    long currentTime = System.currentTimeMillis();
-                    if (currentTime - lastHeartbeat > 10000) {
-                        double elapsed = (currentTime - startTime) / 1000.0;
-                        Log.d(TAG, String.format("블루투스 수신 대기 중... (%.1f초 경과, 수신: %d개, 오류: %d개)", 
-                            elapsed, receivedCount, errorCount));
-                        lastHeartbeat = currentTime;
-                    }
+    // 센서 수신 스레드에서 샘플마다: 그 센서의 선에 그리고, 고른 센서면 오프라인 측정에도 넘김
+    // (서버 전송은 SensorStation 이 센서의 클라이언트로 직접)
+    private final class StationTap implements SampleSink {
+        private final SensorStation station;
+        private final SensorTrace trace;
+        private final LogRateLimiter outOfRangeLog = new LogRateLimiter(1, TimeUnit.SECONDS);
+        private long reportedBannerLines = 0;
+        private long reportedErrorLines = 0;
+        private long reportedLostFrames = 0;
+        private int reportedModeChanges = 0;
+
+        StationTap(SensorStation station, SensorTrace trace) {
+            this.station = station;
+            this.trace = trace;
+        }
 
-                    // readLine()은 블로킹되므로, 데이터가 오지 않으면 여기서 대기
-                    // Arduino에서 데이터를 보내지 않으면 이 부분에서 멈춤
-                    line = mmBufferReader.readLine();
-
-                    if (line != null && !line.isEmpty()) {
-                        receivedCount++;
-                        String trimmedLine = line.trim();
-                        
-                        // 시작 메시지 무시
-                        if (trimmedLine.contains("AD8232") || trimmedLine.contains("Started")) {
-                            Log.d(TAG, "Arduino 시작 메시지 수신: " + trimmedLine);
-                            continue;
-                        }
-                        
-                        try {
-                            // 문자열에서 정수로 변환
-                            int ecgValue = Integer.parseInt(trimmedLine);
-                            
-                            // 데이터 범위 검증 (일반적인 ECG ADC 범위: 0-1023)
-                            if (ecgValue < 0 || ecgValue > 4095) {
-                                Log.w(TAG, "ECG 값이 범위를 벗어남: " + ecgValue + " (수신된 라인: " + trimmedLine + ")");
-                                // 범위를 벗어나도 처리 (센서에 따라 다를 수 있음)
-                            }
+        @Override
+        public void onSample(int ecgValue) {
+            // 데이터 범위 검증 (일반적인 ECG ADC 범위: 0-1023) - 로그는 1초에 한 번, 생략한 수를 붙임
+            if ((ecgValue < 0 || ecgValue > 4095) && HOT_LOG.isLoggable(AsyncLogger.WARN)
+                    && outOfRangeLog.tryAcquire(System.nanoTime())) {
+                HOT_LOG.at(AsyncLogger.WARN, TAG, "[{}] ECG 값이 범위를 벗어남: {} (이전 1초간 생략 {}개)")
+                        .arg(station.getLabel()).arg(ecgValue).arg(outOfRangeLog.takeSuppressed()).log();
+                // 범위를 벗어나도 처리 (센서에 따라 다를 수 있음)
+            }
 
-                            handler.post(() -> {
-                                ecgValueTextView.setText("ECG 값: " + ecgValue);
-                                addEntry(ecgValue);
-                            });
+            trace.scheduler.submit(ecgValue);
 
-                            // TCP로 전송 (등록/로그인 모드일 때만, 안정화 완료 후, 아직 수집 중일 때만)
-                            if (tcpSender != null && (isRegisterMode || isLoginMode) && !isStabilizing && dummyDataSampleCount < requiredSamples) {
-                                tcpSender.sendData(ecgValue);
-                                dummyDataSampleCount++; // 블루투스 데이터도 카운트
-                                
-                                // 진행률 업데이트 (100개마다)
-                                if (dummyDataSampleCount % 100 == 0) {
-                                    int progress = (int) ((dummyDataSampleCount * 100.0) / requiredSamples);
-                                    progress = Math.min(95, progress); // 최대 95%까지 (수집 중)
-                                    updateProgress(progress, dummyDataSampleCount + " / " + requiredSamples + " 샘플");
-                                }
-                                
-                                // 필요한 샘플 수를 모두 수집했으면
-                                if (dummyDataSampleCount >= requiredSamples) {
-                                    // 샘플 수집 완료 표시
-                                    handler.post(() -> {
-                                        if (isRegisterMode) {
-                                            showProgress("등록", "샘플 데이터 수집 완료 - 서버 처리 대기 중...", 100, requiredSamples + " / " + requiredSamples + " 샘플");
-                                            statusTextView.setText("샘플 데이터 수집 완료 - 서버에서 등록 처리 중...");
-                                            Toast.makeText(MainActivity.this, "📊 샘플 데이터 수집 완료하였습니다. 서버 처리 중...", Toast.LENGTH_SHORT).show();
-                                        } else if (isLoginMode) {
-                                            showProgress("로그인", "샘플 데이터 수집 완료 - 서버 처리 대기 중...", 100, requiredSamples + " / " + requiredSamples + " 샘플");
-                                            statusTextView.setText("샘플 데이터 수집 완료 - 서버에서 로그인 처리 중...");
-                                            Toast.makeText(MainActivity.this, "📊 샘플 데이터 수집 완료하였습니다. 서버 처리 중...", Toast.LENGTH_SHORT).show();
-                                        }
-                                    });
-                                    // 수집 완료 후 서버에 완료 신호 전송 (딜레이 추가하여 마지막 데이터가 도착할 시간 확보)
-                                    handler.postDelayed(() -> {
-                                        if (tcpSender != null) {
-                                            tcpSender.sendCommand("COMPLETE");
-                                            Log.d(TAG, "블루투스 데이터 수집 완료 (" + requiredSamples + "개). 서버에 완료 신호 전송.");
-                                        }
-                                    }, 500); // 500ms 딜레이
-                                }
-                            }
-                            // 모드가 아니면 서버로 전송하지 않음 (그래프만 표시)
-                            // 등록/로그인 모드이고 이미 1000개 수집 완료했으면 전송하지 않음
-                            
-                            // 주기적으로 로그 출력 (5초마다)
-                            currentTime = System.currentTimeMillis();
-                            if (currentTime - lastLogTime > 5000) {
-                                double elapsed = (currentTime - startTime) / 1000.0;
-                                double rate = receivedCount / elapsed;
-                                String modeInfo = "";
-                                if (isRegisterMode || isLoginMode) {
-                                    modeInfo = String.format(", 등록/로그인 모드: %d/%d 샘플", dummyDataSampleCount, requiredSamples);
-                                }
-                                Log.d(TAG, String.format("블루투스 데이터 수신 중... (총 %d개, %.1f초 경과, %.1f개/초, 현재 값: %d%s)", 
-                                    receivedCount, elapsed, rate, ecgValue, modeInfo));
-                                lastLogTime = currentTime;
-                            }
-
-                        } catch (NumberFormatException e) {
-                            errorCount++;
-                            Log.w(TAG, "수신된 데이터가 숫자가 아님: [" + trimmedLine + "] (길이: " + trimmedLine.length() + ", 오류 횟수: " + errorCount + ")");
-                            
-                            // 너무 많은 오류가 발생하면 경고
-                            if (errorCount > 10 && receivedCount == 0) {
-                                Log.e(TAG, "데이터 수신 실패: 숫자가 아닌 데이터만 수신되고 있습니다. Arduino 코드를 확인하세요.");
-                                handler.post(() -> statusTextView.setText("⚠️ 데이터 포맷 오류: 숫자가 아닌 데이터 수신"));
-                            }
-                        }
-                    } else if (line == null) {
-                        // 스트림이 닫혔을 때
-                        Log.w(TAG, "블루투스 스트림이 null을 반환했습니다. 연결이 끊어진 것 같습니다.");
-                        // 등록/로그인 모드 중이면 모드 종료
-                        if (isRegisterMode || isLoginMode) {
-                            isRegisterMode = false;
-                            isLoginMode = false;
-                            dummyDataSampleCount = 0;
-                            stopDummyData();
-                            handler.post(() -> {
-                                hideProgress();
-                                statusTextView.setText("❌ 블루투스 연결 끊김 - 등록/로그인 중단");
-                                Toast.makeText(MainActivity.this, "❌ 블루투스 연결이 끊겨 등록/로그인이 중단되었습니다.", Toast.LENGTH_LONG).show();
-                            });
-                        }
-                        break;
-                    } else {
-                        // 빈 라인 - 정상일 수 있음
-                        Log.v(TAG, "빈 라인 수신 (정상)");
-                    }
-                } catch (IOException e) {
-                    Log.e(TAG, "블루투스 읽기 오류", e);
-                    errorCount++;
-                    
-                    // 일시적 오류인지 확인 (연결 끊김인지)
-                    if (!mmSocket.isConnected()) {
-                        Log.e(TAG, "블루투스 연결이 끊어졌습니다.");
-                        // 등록/로그인 모드 중이면 모드 종료
-                        if (isRegisterMode || isLoginMode) {
-                            isRegisterMode = false;
-                            isLoginMode = false;
-                            dummyDataSampleCount = 0;
-                            stopDummyData();
-                            handler.post(() -> {
-                                hideProgress();
-                                statusTextView.setText("❌ 블루투스 연결 끊김 - 등록/로그인 중단");
-                                Toast.makeText(MainActivity.this, "❌ 블루투스 연결이 끊겨 등록/로그인이 중단되었습니다.", Toast.LENGTH_LONG).show();
-                            });
-                        }
-                        closeAllConnections();
-                        handler.post(() -> statusTextView.setText("❌ 블루투스 연결 끊김: " + e.getMessage()));
-                        break;
-                    }
-                    
-                    // 일시적 오류인 경우 잠시 대기 후 재시도
-                    if (errorCount < 5) {
-                        try {
-                            Thread.sleep(100);
-                        } catch (InterruptedException ie) {
-                            break;
-                        }
-                    } else {
-                        Log.e(TAG, "너무 많은 오류 발생. 연결을 종료합니다.");
-                        // 등록/로그인 모드 중이면 모드 종료
-                        if (isRegisterMode || isLoginMode) {
-                            isRegisterMode = false;
-                            isLoginMode = false;
-                            dummyDataSampleCount = 0;
-                            stopDummyData();
-                            handler.post(() -> {
-                                hideProgress();
-                                statusTextView.setText("❌ 블루투스 오류 - 등록/로그인 중단");
-                                Toast.makeText(MainActivity.this, "❌ 블루투스 오류로 등록/로그인이 중단되었습니다.", Toast.LENGTH_LONG).show();
-                            });
-                        }
-                        closeAllConnections();
-                        handler.post(() -> statusTextView.setText("❌ 블루투스 오류가 너무 많습니다."));
-                        break;
-                    }
+            if (station == selectedStation) {
+                OfflineCapture offline = offlineCapture;
+                if (offline != null) {
+                    offline.onSample(ecgValue);
                 }
             }
-            
-            double totalTime = (System.currentTimeMillis() - startTime) / 1000.0;
-            Log.d(TAG, String.format("블루투스 데이터 수신 스레드 종료 (총 %d개 수신, 오류 %d개, %.1f초 실행)", 
-                receivedCount, errorCount, totalTime));
-            
-            if (receivedCount == 0) {
-                handler.post(() -> statusTextView.setText("⚠️ 블루투스 연결됨, 하지만 데이터 수신 없음"));
+        }
+
+        // 읽기마다 (파싱 전): 링크 형식/시작 메시지/형식 오류는 직전 읽기까지의 값이 바뀔 때만 로그
+        @Override
+        public void onChunkReceived(long receivedNanos) {
+            SensorLinkDecoder decoder = station.getDecoder();
+            if (decoder.getModeChanges() != reportedModeChanges) {
+                reportedModeChanges = decoder.getModeChanges();
+                HOT_LOG.at(AsyncLogger.DEBUG, TAG, "[{}] 센서 링크 형식 감지: {}")
+                        .arg(station.getLabel()).arg(decoder.getMode()).log();
+            }
+            if (decoder.getBannerLines() != reportedBannerLines) {
+                reportedBannerLines = decoder.getBannerLines();
+                HOT_LOG.at(AsyncLogger.DEBUG, TAG, "[{}] Arduino 시작 메시지 수신 ({}회)")
+                        .arg(station.getLabel()).arg(reportedBannerLines).log();
+            }
+            if (decoder.getBinaryDecoder().getLostFrames() != reportedLostFrames) {
+                reportedLostFrames = decoder.getBinaryDecoder().getLostFrames();
+                HOT_LOG.at(AsyncLogger.WARN, TAG, "[{}] 센서 프레임 누락 (누적 {}프레임, {}샘플)").arg(station.getLabel())
+                        .arg(reportedLostFrames).arg(decoder.getBinaryDecoder().getLostSamples()).log();
+            }
+            if (decoder.getErrorCount() != reportedErrorLines) {
+                reportedErrorLines = decoder.getErrorCount();
+                HOT_LOG.at(AsyncLogger.WARN, TAG, "[{}] 수신된 데이터 형식 오류 (오류 횟수: {})")
+                        .arg(station.getLabel()).arg(reportedErrorLines).log();
+
+                // 너무 많은 오류가 발생하면 경고
+                if (reportedErrorLines > 10 && station.getSamples() == 0) {
+                    Log.e(TAG, "데이터 수신 실패: 숫자가 아닌 데이터만 수신되고 있습니다. Arduino 코드를 확인하세요. (" + station + ")");
+                    handler.post(() -> statusTextView.setText("⚠️ " + station.getLabel() + " 데이터 포맷 오류: 숫자가 아닌 데이터 수신"));
+                }
             }
         }
     }
 
-    // ✨ TCP 클라이언트 스레드 (Python 서버와 통신 및 응답 수신) - 송/수신 분리 구조 (복원됨)
-    private class TcpClientSender extends Thread {
-        private final String SERVER_IP;
-        private final int SERVER_PORT;
-        private Socket tcpSocket;
-        private PrintWriter out;
-        private BufferedReader in;
-        private volatile boolean isRunning = true;
-        // 큐 크기를 제한하지 않는 LinkedBlockingQueue 사용
-        private final BlockingQueue<Integer> dataQueue = new LinkedBlockingQueue<>();
-        private static final String TCP_TAG = "ECG_TCP_CLIENT";
-
-        public TcpClientSender(String ip, int port) {
-            this.SERVER_IP = ip;
-            this.SERVER_PORT = port;
+    // 센서 연결/종료/선택 (SensorHub 작업 스레드에서 호출)
+    private class StationListener implements SensorHub.Listener {
+        @Override
+        public void onStationConnected(SensorStation station) {
+            Log.d(TAG, "블루투스 소켓 연결 성공: " + station);
+            attachStationClient(station);
+            setBluetoothConnected(true);
+            handler.post(() -> {
+                statusTextView.setText("✅ " + station.getLabel() + " 블루투스 연결 성공. 데이터 수신 대기 중...");
+                if (station == selectedStation) {
+                    resetSignalAnalysis();
+                }
+            });
         }
 
-        public void sendData(int data) {
-            // offer를 사용하여 큐에 데이터를 추가합니다.
-            dataQueue.offer(data);
-            
-            // 큐 크기 모니터링 (딜레이 확인용)
-            int queueSize = dataQueue.size();
-            if (queueSize > 100) {
-                Log.w(TCP_TAG, "큐 크기 경고: " + queueSize + "개 대기 중 (네트워크 딜레이 발생 가능)");
+        @Override
+        public void onStationEnded(SensorStation station, IOException error) {
+            if (error != null) {
+                Log.e(TAG, "블루투스 연결 실패/끊김: " + station, error);
             }
-        }
-        
-        public void sendCommand(String command) {
-            // 명령어 전송 (CMD: 접두사 추가) - 별도 스레드에서 실행
-            new Thread(() -> {
-                try {
-                    if (out != null) {
-                        out.println("CMD:" + command);
-                        Log.d(TCP_TAG, "Sent command: CMD:" + command);
-                    } else {
-                        Log.w(TCP_TAG, "Cannot send command - output stream is null");
-                    }
-                } catch (Exception e) {
-                    Log.e(TCP_TAG, "Error sending command: " + e.getMessage());
+            Log.d(TAG, "블루투스 데이터 수신 종료: " + station + " (총 " + station.getSamples() + "개 수신, 형식 오류 "
+                    + station.getDecoder().getErrorCount() + "개)");
+
+            // 이 센서로 진행 중인 등록/로그인 중단 (다른 센서는 그대로)
+            EcgStreamingClient client = station.getClient();
+            if (client != null && client.getCaptureMode() != null) {
+                client.cancelCapture();
+                handler.post(() -> {
+                    hideProgress();
+                    statusTextView.setText("❌ " + station.getLabel() + " 블루투스 연결 끊김 - 등록/로그인 중단");
+                    Toast.makeText(MainActivity.this, "❌ " + station.getLabel()
+                            + " 블루투스 연결이 끊겨 등록/로그인이 중단되었습니다.", Toast.LENGTH_LONG).show();
+                });
+            }
+            detachStationClient(station);
+            setBluetoothConnected(sensorHub.size() > 0);
+            handler.post(() -> {
+                removeTrace(station);
+                if (error != null) {
+                    statusTextView.setText("❌ " + station.getLabel() + " 블루투스 연결 실패: " + error.getMessage());
+                } else if (station.getSamples() == 0) {
+                    statusTextView.setText("⚠️ " + station.getLabel() + " 블루투스 연결됨, 하지만 데이터 수신 없음");
+                } else {
+                    statusTextView.setText(station.getLabel() + " 블루투스 연결 해제됨");
                 }
-            }).start();
+            });
         }
 
         @Override
-        public void run() {
-            while (isRunning) {
-                try {
-                    // 1. 연결이 끊겼거나 닫혔으면 새로 연결 시도
-                    if (tcpSocket == null || tcpSocket.isClosed()) {
-                        attemptConnection();
-                    }
-
-                    // 2. 연결이 성공하면 송신 및 수신 스레드 시작
-                    if (tcpSocket != null && tcpSocket.isConnected()) {
-                        setServerConnected(true);
-                        handler.post(() -> statusTextView.setText("✅ TCP 서버 연결 성공. 데이터 스트리밍 시작."));
+        public void onSelectionChanged(SensorStation selected) {
+            selectedStation = selected;
+            updateSelectedClient();
+            handler.post(() -> applySelection());
+        }
+    }
 
-                        // 송신 및 수신 스레드 시작 (메인 스레드를 블로킹하지 않음)
-                        Thread senderThread = new Thread(this::dataSender, "TCP-Sender");
-                        Thread receiverThread = new Thread(this::resultReceiver, "TCP-Receiver");
+    // 서버 클라이언트 이벤트 → 화면 (클라이언트 스레드에서 호출되므로 UI 갱신은 handler 로 넘김)
+    // 센서별 연결은 고른 센서의 것만 화면(진행률, 사용자 목록 등)을 갱신하고, 나머지는 결과만 알림으로
+    private class ClientListener implements EcgClientListener {
+        private EcgStreamingClient client;
+        private SensorStation station; // 센서별 연결이면 그 센서, 기본 연결이면 null
 
-                        senderThread.start();
-                        receiverThread.start();
+        private boolean isShown() {
+            return client == ecgClient;
+        }
 
-                        // 두 스레드가 종료될 때까지 대기
-                        senderThread.join();
-                        receiverThread.join();
-                    }
+        private String prefix() {
+            return station != null ? "[" + station.getLabel() + "] " : "";
+        }
 
-                } catch (InterruptedException e) {
-                    Log.w(TCP_TAG, "TCP 메인 스레드 인터럽트됨.");
-                    Thread.currentThread().interrupt();
-                    isRunning = false;
-                } catch (Exception e) {
-                    Log.e(TCP_TAG, "TCP 메인 루프 오류: " + e.getMessage());
-                    handler.post(() -> statusTextView.setText("❌ TCP 연결 실패. 재시도 중..."));
-                    // 오류 발생 시 연결을 닫고, 잠시 후 재시도를 위해 루프를 계속함
-                    closeConnectionInternal();
-                    try { TimeUnit.SECONDS.sleep(3); } catch (InterruptedException ignore) { }
-                }
+        @Override
+        public void onConnectionChanged(boolean connected) {
+            if (station != null) {
+                Log.d(TAG, prefix() + "TCP " + (connected ? "연결됨" : "연결 끊김"));
+                return; // 연결 상태 표시는 기본 연결 기준
             }
-            MainActivity.this.onTcpThreadStopped(TcpClientSender.this);
+            setServerConnected(connected);
+            if (client != serverClient) {
+                return; // 사용자가 연결을 해제함
+            }
+            if (connected) {
+                kickSpoolUploader();
+            }
+            handler.post(() -> statusTextView.setText(connected
+                    ? "✅ TCP 서버 연결 성공. 데이터 스트리밍 시작."
+                    : "TCP 연결 끊김. 재연결 시도 중..."));
         }
 
-        // 연결 시도 로직 분리
-        private void attemptConnection() throws IOException {
-            handler.post(() -> statusTextView.setText("TCP 연결 시도 중..."));
-            Log.d(TCP_TAG, "Attempting to connect to " + SERVER_IP + ":" + SERVER_PORT);
-
-            tcpSocket = new Socket();
-            // 5초 타임아웃 설정
-            tcpSocket.connect(new InetSocketAddress(SERVER_IP, SERVER_PORT), 5000);
-
-            out = new PrintWriter(new BufferedWriter(new OutputStreamWriter(tcpSocket.getOutputStream())), true);
-            in = new BufferedReader(new InputStreamReader(tcpSocket.getInputStream()));
-            Log.d(TCP_TAG, "Connection established.");
+        @Override
+        public void onConnectionError(String message) {
+            Log.e(TAG, prefix() + "TCP 연결 실패: " + message);
+            if (station != null) {
+                return;
+            }
+            handler.post(() -> statusTextView.setText("❌ TCP 연결 실패. 재시도 중..."));
         }
 
-
-        // 데이터를 Python 서버로 보내는 서브 루틴
-        private void dataSender() {
-            while (!Thread.currentThread().isInterrupted() && tcpSocket != null && tcpSocket.isConnected() && isRunning) {
-                try {
-                    // 큐에서 데이터 꺼내기 (데이터가 들어올 때까지 대기 - Blocking)
-                    int dataToSend = dataQueue.take();
-
-                    // 데이터를 줄바꿈 문자와 함께 전송
-                    out.println(dataToSend);
-                    Log.v(TCP_TAG, "Sent raw ECG: " + dataToSend + " (큐 크기: " + dataQueue.size() + ")");
-
-                } catch (InterruptedException e) {
-                    Log.w(TCP_TAG, "Data sender interrupted.");
-                    Thread.currentThread().interrupt();
-                    break;
-                }
+        @Override
+        public void onCaptureStarted(CaptureMode mode, int requiredSamples) {
+            startRecording(client, mode, requiredSamples);
+            if (!isShown()) {
+                return;
             }
-            Log.d(TCP_TAG, "Data sender stopped.");
+            String modeText = mode == CaptureMode.REGISTER ? "등록" : "로그인";
+            handler.post(() -> {
+                statusTextView.setText(modeText + " 모드 시작 - ECG 데이터 수집 중...");
+                showProgress(modeText, modeText + " 모드 시작 - ECG 데이터 수집 중...", 0, "0 / " + requiredSamples + " 샘플");
+            });
         }
 
-        // 처리된 결과(JSON)를 Python 서버로부터 받는 서브 루틴
-        private void resultReceiver() {
-            try {
-                String processedLine;
-                while (!Thread.currentThread().isInterrupted() && in != null && tcpSocket.isConnected() && isRunning) {
-                    processedLine = in.readLine();
-
-                    if (processedLine == null) {
-                        // 서버에서 연결을 닫았을 때
-                        Log.d(TCP_TAG, "Server closed the connection gracefully.");
-                        break;
-                    }
-
-                    if (!processedLine.isEmpty()) {
-                        handleServerResponse(processedLine); // ✨ 서버 응답 처리 함수 호출
-                    }
-                }
-            } catch (IOException e) {
-                Log.e(TCP_TAG, "Result receiver I/O error: " + e.getMessage());
-            } finally {
-                Log.d(TCP_TAG, "Result receiver stopped. Attempting reconnection...");
-                // 수신 스레드가 종료되면 전체 TCP 연결을 닫고 재연결 루프를 다시 돌게 함
-                closeConnectionInternal();
+        @Override
+        public void onCaptureProgress(CaptureMode mode, int samples, int requiredSamples) {
+            if (!isShown()) {
+                return;
             }
+            int progress = (int) ((samples * 100.0) / requiredSamples);
+            progress = Math.min(95, progress); // 최대 95%까지 (수집 중)
+            updateProgress(progress, samples + " / " + requiredSamples + " 샘플");
         }
 
-        // 서버 응답 (JSON) 처리
-        private void handleServerResponse(String jsonResponse) {
-            try {
-                Log.d(TCP_TAG, "서버 응답 수신: " + jsonResponse);
-                JSONObject json = new JSONObject(jsonResponse);
-
-                String status = json.optString("status", "error");
-                String message = json.optString("message", "No message");
-                Log.d(TCP_TAG, "응답 상태: " + status + ", 메시지: " + message);
-
-                // 사용자 목록 응답 처리 (JSON에 users 배열이 있는 경우)
-                if (json.has("users")) {
-                    handleUserListResponse(json);
-                    return;
-                }
-                
-                // 사용자 삭제 응답 처리 (명시적으로 "삭제"와 "사용자"가 모두 포함된 경우만)
-                if (message.contains("삭제") && message.contains("사용자")) {
-                    handleUserDeleteResponse(json);
-                    return;
-                }
-                
-                // 인증 관련 응답 처리 (우선 처리)
-                if (json.has("session_id") || "auth_failed".equals(status) || 
-                    message.contains("등록") || message.contains("로그") || 
-                    "connected".equals(status)) {
-                    handleAuthResponse(json);
-                    return;
-                }
-
-                // 일반 ECG 처리 성공 (인증과 무관한 경우)
-                if ("success".equals(status)) {
-                    // 서버에서 생성된 서명 또는 특징 벡터를 추출
-                    String signatureHash = json.optString("signature_hash", "");
-                    double qualityScore = json.optDouble("quality_score", 0);
-
-                    // 요약 정보 가져오기
-                    JSONObject summary = json.optJSONObject("summary");
-                    double heartRate = summary != null ? summary.optDouble("heart_rate", 0) : 0;
-                    int numBeats = summary != null ? summary.optInt("num_beats", 0) : 0;
+        @Override
+        public void onCaptureCollected(CaptureMode mode, int samples) {
+            Log.d(TAG, prefix() + "데이터 수집 완료 (" + samples + "개). 서버에 완료 신호 전송.");
+            if (!isShown()) {
+                return;
+            }
+            // 더미 데이터 전송 중지 (서버 처리 결과를 기다림)
+            isDummyDataRunning = false;
+            String modeText = mode == CaptureMode.REGISTER ? "등록" : "로그인";
+            handler.post(() -> {
+                showProgress(modeText, "샘플 데이터 수집 완료 - 서버 처리 대기 중...", 100, samples + " / " + samples + " 샘플");
+                statusTextView.setText("샘플 데이터 수집 완료 - 서버에서 " + modeText + " 처리 중...");
+                Toast.makeText(MainActivity.this, "📊 샘플 데이터 수집 완료하였습니다. 서버 처리 중...", Toast.LENGTH_SHORT).show();
+                dummyDataButton.setText("🧪 더미 ECG 데이터 생성 (테스트용)");
+            });
+        }
 
-                    handler.post(() -> {
-                        String resultText = "✅ ECG 처리 완료\n";
-                        resultText += "심박수: " + String.format("%.1f", heartRate) + " BPM\n";
-                        resultText += "비트 수: " + numBeats + "\n";
-                        resultText += "품질: " + String.format("%.0f", qualityScore) + "점\n";
-                        if (!signatureHash.isEmpty()) {
-                            resultText += "서명: " + signatureHash.substring(0, Math.min(16, signatureHash.length())) + "...";
-                        }
-                        resultTextView.setText(resultText);
-                    });
+        @Override
+        public void onLatencyBreakdown(CaptureMode mode, LatencyBreakdown breakdown) {
+            // 단계별 누적 분포는 진단 화면의 trace.* 항목
+            Log.d(TAG, prefix() + "측정 지연 (" + mode + "): " + breakdown);
+        }
 
-                } else if ("ready".equals(status)) {
-                    // 등록/로그인 준비 상태 - 데이터 수집 시작
-                    String mode = json.optString("mode", "");
-                    int serverRequiredSamples = json.optInt("required_samples", 3000);
-                    // 서버에서 받은 값과 3000 중 큰 값을 사용 (최소 3000개 보장)
-                    requiredSamples = Math.max(3000, serverRequiredSamples);
-                    dummyDataSampleCount = 0; // 샘플 카운터 리셋
-                    
-                    // 모드 플래그 설정
-                    if ("register".equals(mode)) {
-                        isRegisterMode = true;
-                        isLoginMode = false;
-                    } else if ("login".equals(mode)) {
-                        isLoginMode = true;
-                        isRegisterMode = false;
-                    }
-                    
-                    handler.post(() -> {
-                        if ("register".equals(mode)) {
-                            statusTextView.setText("등록 모드 시작 - ECG 데이터 수집 중...");
-                            showProgress("등록", "등록 모드 시작 - ECG 데이터 수집 중...", 0, "0 / " + requiredSamples + " 샘플");
-                        } else if ("login".equals(mode)) {
-                            statusTextView.setText("로그인 모드 시작 - ECG 데이터 수집 중...");
-                            showProgress("로그인", "로그인 모드 시작 - ECG 데이터 수집 중...", 0, "0 / " + requiredSamples + " 샘플");
-                        }
-                    });
-                } else if (!"error".equals(status)) {
-                    handler.post(() -> resultTextView.setText(message));
-                } else {
-                    // 에러 발생 시 진행 상태 숨기기
-                    hideProgress();
-                    handler.post(() -> Toast.makeText(MainActivity.this, "❌ " + message, Toast.LENGTH_LONG).show());
-                }
+        @Override
+        public void onVerdict(Verdict verdict) {
+            Log.d(TAG, prefix() + "측정 결과: " + verdict);
+            finishRecording(client, verdict);
+            if (!isShown()) {
+                // 고르지 않은 센서의 결과는 알림만 (로그인 상태는 그 센서를 고르면 표시됨)
+                handler.post(() -> Toast.makeText(MainActivity.this, prefix() + verdict.getMessage(),
+                        Toast.LENGTH_LONG).show());
+                return;
+            }
+            // 측정 중 서버 연결이 끊김 - 처음부터 다시 모아 기기에 보관
+            if (verdict.getKind() == Verdict.Kind.FAILED && verdict.getMode() != null
+                    && !client.isConnected()
+                    && startOfflineCapture(verdict.getMode(), captureUserId)) {
+                return;
+            }
+            showVerdict(verdict);
+        }
 
-            } catch (JSONException e) {
-                Log.e(TAG, "JSON 파싱 실패", e);
-                handler.post(() -> Toast.makeText(MainActivity.this, "응답 JSON 파싱 실패", Toast.LENGTH_LONG).show());
+        @Override
+        public void onUserList(List<String> userIds) {
+            if (isShown()) {
+                showUserList(userIds);
             }
         }
 
-        // 실제 암호화 로직 (Placeholder) (복원됨)
-        private String encryptData(String data) {
-            // Java 8 이상에서 Base64 인코딩 사용
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                return Base64.getEncoder().encodeToString(data.getBytes());
-            } else {
-                // 하위 버전 호환을 위해 Toast 대신 기본 로직만 유지
-                return "Base64 not supported below API 26";
+        @Override
+        public void onUserDeleted(boolean success, String message) {
+            if (isShown()) {
+                showUserDeleteResult(success, message);
             }
         }
 
-        // 내부적으로 연결을 정리하고 루프를 계속 유지 (재연결 시도용)
-        private void closeConnectionInternal() {
-            try {
-                if (out != null) out.close();
-                if (in != null) in.close();
-                if (tcpSocket != null && !tcpSocket.isClosed()) tcpSocket.close();
-            } catch (IOException e) {
-                Log.e(TCP_TAG, "TCP 소켓 내부 닫기 실패", e);
-            } finally {
-                tcpSocket = null;
-                out = null;
-                in = null;
+        @Override
+        public void onLoggedOut(String message) {
+            if (isShown()) {
+                showLoggedOut();
             }
         }
 
-        // 외부에서 호출되는 최종 종료 메서드
-        public void closeConnection() {
-            isRunning = false;
-            closeConnectionInternal();
-            // 큐에 대기 중인 take()를 해제하기 위해 인터럽트 호출
-            this.interrupt();
+        @Override
+        public void onServerMessage(String status, String message) {
+            if (isShown()) {
+                handler.post(() -> resultTextView.setText(message));
+            }
         }
-    }
 
+        @Override
+        public void onServerError(String message) {
+            // 에러 발생 시 진행 상태 숨기기
+            if (isShown()) {
+                hideProgress();
+            }
+            handler.post(() -> Toast.makeText(MainActivity.this, "❌ " + prefix() + message, Toast.LENGTH_LONG).show());
+        }
 
-    private void closeSocket() {
-        if (bluetoothSocket != null) {
-            try { bluetoothSocket.close(); } catch (IOException e) { Log.e(TAG, "소켓 닫기 실패", e); }
-            bluetoothSocket = null;
+        @Override
+        public void onStopped() {
+            if (station == null) {
+                onTcpThreadStopped(client);
+            } else if (station.getClient() == client) {
+                detachStationClient(station);
+            }
         }
     }
 
-    // 모든 연결 (블루투스, TCP 스레드)을 닫는 함수 (복원됨)
+
+    // 모든 연결 (블루투스 센서, TCP)을 닫는 함수 (센서 목록에서는 작업 스레드가 끝날 때 빠짐)
     private void closeAllConnections() {
-        closeSocket();
-        if (connectedThread != null) {
-            connectedThread.interrupt();
-            connectedThread = null;
+        for (SensorStation station : sensorHub.getStations()) {
+            sensorHub.detach(station.getId());
         }
         stopTcpClient();
         setBluetoothConnected(false);
@@ -1953,7 +2253,21 @@ public class MainActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        handler.removeCallbacks(uiProbe);
+        handler.removeCallbacks(chartRefresh);
+        if (mainTrace != null) {
+            mainTrace.scheduler.stop();
+        }
+        for (SensorTrace trace : sensorTraces.values()) {
+            trace.scheduler.stop();
+        }
         stopDummyData();
         closeAllConnections(); // 모든 연결 정리 (복원됨)
+        sensorHub.close();
+        stopCaptureRecording();
+        closeSpool();
+        if (clientLoop != null) {
+            clientLoop.close();
+        }
     }
 }
\ No newline at end of file
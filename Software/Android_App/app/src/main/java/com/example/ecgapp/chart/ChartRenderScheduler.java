@@ -0,0 +1,126 @@
+package com.example.ecgapp.chart;
+
+import android.view.Choreographer;
+
+import com.example.ecgapp.stream.IntRingBuffer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 샘플 단위 handler.post 대신 디스플레이 프레임마다 한 번씩 그래프를 갱신하는 스케줄러.
+ * - 생산자 스레드(블루투스 수신, 더미 데이터)는 submit()으로 샘플만 쌓음
+ * - 다음 vsync에서 쌓인 샘플을 한 번에 Renderer로 넘김 (메인 스레드)
+ * - 프레임이 밀리면 다음 프레임에서 그동안의 샘플을 모아 처리하며, 화면에 보이는 개수만 그림
+ *
+ * 생성과 start/stop은 메인 스레드에서 호출해야 함.
+ */
+public final class ChartRenderScheduler implements Choreographer.FrameCallback {
+
+    // 메인 스레드에서 프레임마다 호출됨. samples[0..count) 는 시간 순서
+    public interface Renderer {
+        void render(int[] samples, int count);
+    }
+
+    private final Choreographer choreographer = Choreographer.getInstance();
+    private final Renderer renderer;
+    private final int maxSamplesPerFrame;
+    // 생산자가 둘 이상일 수 있어 offer는 직렬화 (소비자는 메인 스레드 하나)
+    private final IntRingBuffer pending;
+    private final Object producerLock = new Object();
+    private final int[] drainBuffer;
+    private final AtomicBoolean frameScheduled = new AtomicBoolean(false);
+
+    private volatile boolean running = false;
+    private long droppedSamples = 0;
+    private long skippedSamples = 0;
+    private long lastFrameTimeNanos = 0;
+    private long lateFrames = 0;
+
+    /**
+     * @param capacity           프레임 사이에 쌓아둘 수 있는 최대 샘플 수
+     * @param maxSamplesPerFrame 한 프레임에 그릴 최대 샘플 수 (보통 그래프에 보이는 포인트 수)
+     */
+    public ChartRenderScheduler(int capacity, int maxSamplesPerFrame, Renderer renderer) {
+        this.pending = new IntRingBuffer(capacity);
+        this.maxSamplesPerFrame = maxSamplesPerFrame;
+        this.drainBuffer = new int[this.pending.capacity()];
+        this.renderer = renderer;
+    }
+
+    public void start() {
+        running = true;
+        if (!pending.isEmpty() && frameScheduled.compareAndSet(false, true)) {
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    public void stop() {
+        running = false;
+        choreographer.removeFrameCallback(this);
+        frameScheduled.set(false);
+        pending.clear();
+        lastFrameTimeNanos = 0;
+    }
+
+    // 생산자 스레드에서 호출. 다음 프레임이 예약되어 있지 않으면 예약함
+    public void submit(int sample) {
+        synchronized (producerLock) {
+            if (!pending.offer(sample)) {
+                droppedSamples++;
+            }
+        }
+        if (running && frameScheduled.compareAndSet(false, true)) {
+            // Choreographer는 다른 스레드에서의 예약을 내부적으로 루퍼 스레드로 넘김
+            choreographer.postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        // 드레인 전에 플래그를 내려야 그 사이 들어온 샘플이 다음 프레임을 예약함
+        frameScheduled.set(false);
+        if (!running) {
+            return;
+        }
+
+        // 프레임 간격이 50ms를 넘으면 밀린 프레임으로 집계
+        if (lastFrameTimeNanos != 0 && frameTimeNanos - lastFrameTimeNanos > 50_000_000L) {
+            lateFrames++;
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        int count = pending.drainTo(drainBuffer);
+        if (count == 0) {
+            return;
+        }
+
+        // 화면에 보일 수 있는 개수보다 많이 밀렸으면 오래된 샘플은 건너뜀
+        int skip = Math.max(0, count - maxSamplesPerFrame);
+        skippedSamples += skip;
+        if (skip > 0) {
+            System.arraycopy(drainBuffer, skip, drainBuffer, 0, count - skip);
+        }
+        renderer.render(drainBuffer, count - skip);
+    }
+
+    // 프레임 사이 버퍼가 가득 차서 버린 샘플 수
+    public long getDroppedSamples() {
+        synchronized (producerLock) {
+            return droppedSamples;
+        }
+    }
+
+    // 메인 스레드에서만 읽을 것
+    public long getSkippedSamples() {
+        return skippedSamples;
+    }
+
+    // 메인 스레드에서만 읽을 것
+    public long getLateFrames() {
+        return lateFrames;
+    }
+
+    public int getBacklog() {
+        return pending.size();
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.ecgapp.chart;
+
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 고정 용량 원형 버퍼 기반 LineDataSet (MPAndroidChart).
+ * - y 값은 float[]에 저장하고 head 인덱스만 이동하므로 추가가 O(1)이며 할당이 없음
+ * - x 값은 저장하지 않고 "가장 오래된 샘플부터의 위치"(0 ~ size-1)로 계산
+ *   (기존 addEntry의 removeFirst + 전체 setX(x - 1) 루프가 필요 없음)
+ * - Entry 객체는 인덱스별로 미리 만들어 두고 조회 시 값만 채워 재사용
+ *
+ * 렌더러가 사용하는 조회 메서드(getEntryForIndex, getEntryForXValue, getEntryIndex 등)를
+ * 모두 원형 버퍼 기준으로 재정의한다. 메인 스레드 전용.
+ */
+public class RingLineDataSet extends LineDataSet {
+
+    private final float[] values;
+    private final Entry[] entryPool;
+    private int head = 0;   // 가장 오래된 샘플 위치
+    private int size = 0;
+
+    public RingLineDataSet(int capacity, String label) {
+        super(new ArrayList<Entry>(), label);
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be >= 1: " + capacity);
+        }
+        this.values = new float[capacity];
+        this.entryPool = new Entry[capacity];
+        for (int i = 0; i < capacity; i++) {
+            entryPool[i] = new Entry(i, 0f);
+        }
+        calcMinMax();
+    }
+
+    public int getCapacity() {
+        return values.length;
+    }
+
+    // 샘플 추가. 가득 찬 경우 가장 오래된 샘플을 덮어씀
+    public void append(float y) {
+        int tail = head + size;
+        if (tail >= values.length) {
+            tail -= values.length;
+        }
+        values[tail] = y;
+        if (size < values.length) {
+            size++;
+        } else {
+            head++;
+            if (head == values.length) {
+                head = 0;
+            }
+        }
+    }
+
+    // i번째(0 = 가장 오래된) 샘플의 y 값
+    public float getY(int index) {
+        int pos = head + index;
+        if (pos >= values.length) {
+            pos -= values.length;
+        }
+        return values[pos];
+    }
+
+    @Override
+    public int getEntryCount() {
+        // 상위 클래스 생성자에서 호출될 때는 아직 배열이 없음
+        return values == null ? 0 : size;
+    }
+
+    @Override
+    public Entry getEntryForIndex(int index) {
+        Entry e = entryPool[index];
+        e.setX(index);
+        e.setY(getY(index));
+        return e;
+    }
+
+    @Override
+    public int getEntryIndex(Entry e) {
+        int index = (int) e.getX();
+        return (index >= 0 && index < size && entryPool[index] == e) ? index : -1;
+    }
+
+    @Override
+    public int getEntryIndex(float xValue, float closestToY, Rounding rounding) {
+        if (size == 0) {
+            return -1;
+        }
+        int index;
+        if (rounding == Rounding.UP) {
+            index = (int) Math.ceil(xValue);
+        } else if (rounding == Rounding.DOWN) {
+            index = (int) Math.floor(xValue);
+        } else {
+            index = Math.round(xValue);
+        }
+        return Math.max(0, Math.min(size - 1, index));
+    }
+
+    @Override
+    public Entry getEntryForXValue(float xValue, float closestToY, Rounding rounding) {
+        int index = getEntryIndex(xValue, closestToY, rounding);
+        return index < 0 ? null : getEntryForIndex(index);
+    }
+
+    @Override
+    public Entry getEntryForXValue(float xValue, float closestToY) {
+        return getEntryForXValue(xValue, closestToY, Rounding.CLOSEST);
+    }
+
+    @Override
+    public List<Entry> getEntriesForXValue(float xValue) {
+        int index = Math.round(xValue);
+        if (index < 0 || index >= size || index != xValue) {
+            return Collections.emptyList();
+        }
+        return Collections.singletonList(getEntryForIndex(index));
+    }
+
+    @Override
+    public boolean addEntry(Entry e) {
+        if (e == null) {
+            return false;
+        }
+        append(e.getY());
+        return true;
+    }
+
+    @Override
+    public void addEntryOrdered(Entry e) {
+        addEntry(e);
+    }
+
+    @Override
+    public boolean removeFirst() {
+        if (size == 0) {
+            return false;
+        }
+        head++;
+        if (head == values.length) {
+            head = 0;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public boolean removeLast() {
+        if (size == 0) {
+            return false;
+        }
+        size--;
+        return true;
+    }
+
+    @Override
+    public void clear() {
+        head = 0;
+        size = 0;
+        notifyDataSetChanged();
+    }
+
+    // 원형 버퍼 내용을 Entry 리스트로 복사 (디버깅/복사용, 할당 발생)
+    @Override
+    public List<Entry> getValues() {
+        List<Entry> copy = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            copy.add(new Entry(i, getY(i)));
+        }
+        return copy;
+    }
+
+    @Override
+    public void calcMinMax() {
+        mXMin = Float.MAX_VALUE;
+        mXMax = -Float.MAX_VALUE;
+        mYMin = Float.MAX_VALUE;
+        mYMax = -Float.MAX_VALUE;
+        if (values == null || size == 0) {
+            return;
+        }
+        mXMin = 0;
+        mXMax = size - 1;
+        for (int i = 0; i < size; i++) {
+            float y = getY(i);
+            if (y < mYMin) mYMin = y;
+            if (y > mYMax) mYMax = y;
+        }
+    }
+
+    @Override
+    public void calcMinMaxY(float fromX, float toX) {
+        mYMin = Float.MAX_VALUE;
+        mYMax = -Float.MAX_VALUE;
+        if (values == null || size == 0) {
+            return;
+        }
+        int from = getEntryIndex(fromX, Float.NaN, Rounding.DOWN);
+        int to = getEntryIndex(toX, Float.NaN, Rounding.UP);
+        for (int i = from; i <= to; i++) {
+            float y = getY(i);
+            if (y < mYMin) mYMin = y;
+            if (y > mYMax) mYMax = y;
+        }
+    }
+
+    @Override
+    public RingLineDataSet copy() {
+        RingLineDataSet copied = new RingLineDataSet(values.length, getLabel());
+        for (int i = 0; i < size; i++) {
+            copied.append(getY(i));
+        }
+        copy(copied);
+        copied.calcMinMax();
+        return copied;
+    }
+}
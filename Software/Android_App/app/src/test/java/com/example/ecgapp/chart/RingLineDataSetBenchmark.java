@@ -0,0 +1,80 @@
+package com.example.ecgapp.chart;
+
+import com.github.mikephil.charting.data.Entry;
+import com.github.mikephil.charting.data.LineDataSet;
+
+import java.util.ArrayList;
+
+/**
+ * 기존 LineDataSet 경로(Entry 할당 + removeFirst + 전체 X 시프트)와 RingLineDataSet 추가 비용 비교.
+ * 수동 실행용 마이크로벤치마크 (IDE에서 main 실행, 단위 테스트에는 포함되지 않음).
+ */
+public final class RingLineDataSetBenchmark {
+
+    private static final int CAPACITY = 500;       // MainActivity.MAX_DATA_POINTS
+    private static final int SAMPLES = 500 * 60;   // 500Hz x 60초
+    private static final int ROUNDS = 10;
+
+    private RingLineDataSetBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        // JIT 워밍업
+        for (int i = 0; i < 3; i++) {
+            runShiftingLineDataSet();
+            runRingLineDataSet();
+        }
+
+        long shifting = Long.MAX_VALUE;
+        long ring = Long.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; i++) {
+            shifting = Math.min(shifting, runShiftingLineDataSet());
+            ring = Math.min(ring, runRingLineDataSet());
+        }
+
+        System.out.printf("LineDataSet (shift) : %8.1f ns/sample%n", shifting / (double) SAMPLES);
+        System.out.printf("RingLineDataSet     : %8.1f ns/sample%n", ring / (double) SAMPLES);
+        System.out.printf("speedup             : %8.1fx%n", shifting / (double) ring);
+    }
+
+    // MainActivity.addEntry 의 기존 구현과 동일한 경로
+    private static long runShiftingLineDataSet() {
+        LineDataSet dataSet = new LineDataSet(new ArrayList<Entry>(), "shift");
+        int dataIndex = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            dataSet.addEntry(new Entry(dataIndex, sample(i)));
+            if (dataSet.getEntryCount() > CAPACITY) {
+                dataSet.removeFirst();
+                for (Entry e : dataSet.getValues()) {
+                    e.setX(e.getX() - 1);
+                }
+            }
+            dataIndex++;
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole(dataSet.getEntryForIndex(dataSet.getEntryCount() - 1).getY());
+        return elapsed;
+    }
+
+    private static long runRingLineDataSet() {
+        RingLineDataSet dataSet = new RingLineDataSet(CAPACITY, "ring");
+        long start = System.nanoTime();
+        for (int i = 0; i < SAMPLES; i++) {
+            dataSet.append(sample(i));
+        }
+        long elapsed = System.nanoTime() - start;
+        blackhole(dataSet.getEntryForIndex(dataSet.getEntryCount() - 1).getY());
+        return elapsed;
+    }
+
+    private static float sample(int i) {
+        return 512f + (i * 31 % 200) - 100f;
+    }
+
+    private static volatile float sink;
+
+    private static void blackhole(float value) {
+        sink = value;
+    }
+}
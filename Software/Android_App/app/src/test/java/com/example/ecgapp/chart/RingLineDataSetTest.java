@@ -0,0 +1,142 @@
+package com.example.ecgapp.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import com.github.mikephil.charting.data.DataSet;
+import com.github.mikephil.charting.data.Entry;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RingLineDataSet 순서/인덱스 검증 (로컬 JVM 테스트)
+ */
+public class RingLineDataSetTest {
+
+    @Test
+    public void keepsInsertionOrderBeforeWrap() {
+        RingLineDataSet set = new RingLineDataSet(5, "test");
+        for (int i = 0; i < 3; i++) {
+            set.append(i * 10f);
+        }
+
+        assertEquals(3, set.getEntryCount());
+        for (int i = 0; i < 3; i++) {
+            Entry e = set.getEntryForIndex(i);
+            assertEquals(i, e.getX(), 0f);
+            assertEquals(i * 10f, e.getY(), 0f);
+        }
+    }
+
+    @Test
+    public void overwritesOldestAfterWrap() {
+        RingLineDataSet set = new RingLineDataSet(4, "test");
+        for (int i = 0; i < 11; i++) {
+            set.append(i);
+        }
+
+        // 마지막 4개(7, 8, 9, 10)만 오래된 순서대로 남아야 함
+        assertEquals(4, set.getEntryCount());
+        for (int i = 0; i < 4; i++) {
+            Entry e = set.getEntryForIndex(i);
+            assertEquals(i, e.getX(), 0f);
+            assertEquals(7 + i, e.getY(), 0f);
+        }
+    }
+
+    @Test
+    public void matchesShiftingLineDataSetBehaviour() {
+        // 기존 addEntry 경로: removeFirst 후 모든 Entry의 X를 1씩 감소
+        int capacity = 50;
+        RingLineDataSet ring = new RingLineDataSet(capacity, "ring");
+        List<Entry> reference = new ArrayList<>();
+        for (int i = 0; i < 173; i++) {
+            float y = (i * 37) % 1024;
+            ring.append(y);
+            reference.add(new Entry(reference.size(), y));
+            if (reference.size() > capacity) {
+                reference.remove(0);
+                for (Entry e : reference) {
+                    e.setX(e.getX() - 1);
+                }
+            }
+        }
+
+        assertEquals(reference.size(), ring.getEntryCount());
+        for (int i = 0; i < reference.size(); i++) {
+            assertEquals(reference.get(i).getX(), ring.getEntryForIndex(i).getX(), 0f);
+            assertEquals(reference.get(i).getY(), ring.getEntryForIndex(i).getY(), 0f);
+        }
+    }
+
+    @Test
+    public void reusesEntriesPerIndex() {
+        RingLineDataSet set = new RingLineDataSet(3, "test");
+        set.append(1f);
+        set.append(2f);
+
+        Entry first = set.getEntryForIndex(0);
+        Entry second = set.getEntryForIndex(1);
+        assertNotSame(first, second);
+        assertEquals(0, set.getEntryIndex(first));
+        assertEquals(1, set.getEntryIndex(second));
+
+        set.append(3f);
+        set.append(4f);
+        // 같은 인덱스는 같은 객체를 재사용하되 값은 현재 내용으로 갱신됨
+        assertSame(first, set.getEntryForIndex(0));
+        assertEquals(2f, first.getY(), 0f);
+    }
+
+    @Test
+    public void lookupByXValueClampsAndRounds() {
+        RingLineDataSet set = new RingLineDataSet(10, "test");
+        for (int i = 0; i < 6; i++) {
+            set.append(i);
+        }
+
+        assertEquals(2, set.getEntryIndex(2.4f, Float.NaN, DataSet.Rounding.CLOSEST));
+        assertEquals(3, set.getEntryIndex(2.4f, Float.NaN, DataSet.Rounding.UP));
+        assertEquals(2, set.getEntryIndex(2.6f, Float.NaN, DataSet.Rounding.DOWN));
+        assertEquals(0, set.getEntryIndex(-3f, Float.NaN, DataSet.Rounding.CLOSEST));
+        assertEquals(5, set.getEntryIndex(40f, Float.NaN, DataSet.Rounding.CLOSEST));
+        assertEquals(1, set.getEntriesForXValue(4f).size());
+        assertEquals(0, set.getEntriesForXValue(4.5f).size());
+    }
+
+    @Test
+    public void minMaxTracksCurrentWindow() {
+        RingLineDataSet set = new RingLineDataSet(3, "test");
+        set.append(900f);
+        set.append(10f);
+        set.append(500f);
+        set.append(400f); // 900 밀려남
+        set.calcMinMax();
+
+        assertEquals(10f, set.getYMin(), 0f);
+        assertEquals(500f, set.getYMax(), 0f);
+        assertEquals(0f, set.getXMin(), 0f);
+        assertEquals(2f, set.getXMax(), 0f);
+    }
+
+    @Test
+    public void removeFirstAndClear() {
+        RingLineDataSet set = new RingLineDataSet(3, "test");
+        set.append(1f);
+        set.append(2f);
+        set.append(3f);
+
+        assertTrue(set.removeFirst());
+        assertEquals(2, set.getEntryCount());
+        assertEquals(2f, set.getEntryForIndex(0).getY(), 0f);
+
+        set.clear();
+        assertEquals(0, set.getEntryCount());
+        assertEquals(-1, set.getEntryIndex(1f, Float.NaN, DataSet.Rounding.CLOSEST));
+    }
+}
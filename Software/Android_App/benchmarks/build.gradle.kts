@@ -0,0 +1,31 @@
+// 클라이언트 샘플 경로(500Hz) JMH 벤치마크 (JVM 전용)
+// 실행: ./gradlew :benchmarks:jmh
+// 결과: build/results/jmh/results.json (GC 프로파일러의 gc.alloc.rate.norm = 호출당 할당 바이트)
+// 일부만: ./gradlew :benchmarks:jmh -PjmhIncludes=Smoothing
+plugins {
+    java
+    alias(libs.plugins.jmh)
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(17)
+    }
+}
+
+dependencies {
+    // 측정 대상은 코어 모듈의 순수 자바 코드 (org.json 포함)
+    jmh(project(":core"))
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    profilers.add("gc")
+    fork = 1
+    warmupIterations = 3
+    warmup = "2s"
+    iterations = 5
+    timeOnIteration = "2s"
+    resultFormat = "JSON"
+    providers.gradleProperty("jmhIncludes").orNull?.let { includes.add(it) }
+}
@@ -0,0 +1,167 @@
+package com.example.ecgapp.net;
+
+import com.example.ecgapp.protocol.ServerMessage;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 서버 응답 처리 (TcpClientSender.handleServerResponse): 한 줄 JSON 파싱 + status/message 분기.
+ * UI 갱신(handler.post)은 제외하고 같은 순서로 필드를 읽는다. 응답은 ecg_server.py 가 보내는 형태.
+ * dispatchTyped: 같은 응답에 type/id 가 붙은 줄을 ServerMessage(풀 파서, 필요한 필드만)로 읽고 type 으로 분기.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ServerResponseDispatchBenchmark {
+
+    // 분기 결과
+    static final int FRAMING = 1;
+    static final int PREFILTER = 2;
+    static final int USERS = 3;
+    static final int DELETE = 4;
+    static final int AUTH = 5;
+    static final int RESULT = 6;
+    static final int READY = 7;
+    static final int MESSAGE = 8;
+    static final int ERROR = 9;
+
+    @Param({"ready", "framing", "result", "login", "users", "error"})
+    public String response;
+
+    private String line;
+    // 요청 번호를 지원하는 서버의 같은 응답
+    private String typedLine;
+
+    @Setup
+    public void setUp() {
+        switch (response) {
+            case "ready":
+                line = "{\"status\": \"ready\", \"message\": \"로그인 모드 시작 (전체 검색). ECG 데이터를 전송하세요.\", "
+                        + "\"mode\": \"login\", \"user_id\": null, \"required_samples\": 3000}";
+                break;
+            case "framing":
+                line = "{\"status\": \"framing\", \"framing\": \"BIN1\", \"message\": \"바이너리 프레임 전송 모드\"}";
+                break;
+            case "result":
+                line = "{\"status\": \"success\", \"message\": \"ECG 처리 완료\", \"quality_score\": 87.5, "
+                        + "\"signature_hash\": \"9f2c4e81a07b3d55c1e6f0a2b4d8e9c3\", "
+                        + "\"summary\": {\"heart_rate\": 72.4, \"num_beats\": 7, \"quality\": \"good\"}}";
+                break;
+            case "login":
+                line = "{\"status\": \"success\", \"message\": \"로그인 성공\", \"user_id\": \"alice\", "
+                        + "\"session_id\": \"3f0b6c1e-8a8e-4c55-9d0f-2b7e1f4a9c21\", \"similarity\": 0.9321, "
+                        + "\"expires_at\": \"2026-01-01T12:00:00\"}";
+                break;
+            case "users":
+                line = "{\"status\": \"success\", \"message\": \"등록된 사용자 3명\", \"users\": ["
+                        + "{\"user_id\": \"alice\", \"registered_at\": \"2025-11-02T10:11:12\"}, "
+                        + "{\"user_id\": \"bob\", \"registered_at\": \"2025-11-03T09:00:00\"}, "
+                        + "{\"user_id\": \"carol\", \"registered_at\": \"2025-11-04T18:30:45\"}]}";
+                break;
+            default:
+                line = "{\"status\": \"error\", \"message\": \"신호 품질이 너무 낮습니다 (SNR 2.1dB)\"}";
+                break;
+        }
+        String type;
+        switch (response) {
+            case "ready":
+            case "login":
+                type = "login";
+                break;
+            case "framing":
+            case "users":
+                type = response;
+                break;
+            default:
+                type = "process";
+                break;
+        }
+        typedLine = "{\"type\": \"" + type + "\", \"id\": 42, " + line.substring(1);
+    }
+
+    @Benchmark
+    public int dispatch() throws JSONException {
+        JSONObject json = new JSONObject(line);
+        String status = json.optString("status", "error");
+        String message = json.optString("message", "No message");
+
+        if ("framing".equals(status)) {
+            return SampleFrameEncoder.FRAMING_NAME.equalsIgnoreCase(json.optString("framing", "")) ? FRAMING : FRAMING + 100;
+        }
+        if ("prefilter".equals(status)) {
+            return json.optBoolean("prefilter", false) ? PREFILTER : PREFILTER + 100;
+        }
+        if (json.has("users")) {
+            return USERS + json.getJSONArray("users").length() * 100;
+        }
+        if (message.contains("삭제") && message.contains("사용자")) {
+            return DELETE;
+        }
+        if (json.has("session_id") || "auth_failed".equals(status)
+                || message.contains("등록") || message.contains("로그") || "connected".equals(status)) {
+            return AUTH + json.optString("user_id", "").length() * 100;
+        }
+        if ("success".equals(status)) {
+            String signatureHash = json.optString("signature_hash", "");
+            double qualityScore = json.optDouble("quality_score", 0);
+            JSONObject summary = json.optJSONObject("summary");
+            double heartRate = summary != null ? summary.optDouble("heart_rate", 0) : 0;
+            int numBeats = summary != null ? summary.optInt("num_beats", 0) : 0;
+            return RESULT + (int) (heartRate + qualityScore) + numBeats + signatureHash.length();
+        } else if ("ready".equals(status)) {
+            String mode = json.optString("mode", "");
+            int required = Math.max(3000, json.optInt("required_samples", 3000));
+            return READY + mode.length() + required;
+        } else if (!"error".equals(status)) {
+            return MESSAGE;
+        }
+        return ERROR + message.length();
+    }
+
+    @Benchmark
+    public int dispatchTyped() throws IOException {
+        ServerMessage msg = ServerMessage.parse(typedLine);
+        String status = msg.getStatus();
+        switch (msg.getType()) {
+            case FRAMING:
+                return SampleFrameEncoder.FRAMING_NAME.equalsIgnoreCase(msg.getFraming()) ? FRAMING : FRAMING + 100;
+            case PREFILTER:
+                return msg.isPrefilter() ? PREFILTER : PREFILTER + 100;
+            case USERS:
+                return USERS + msg.getUsers().size() * 100;
+            case DELETE:
+                return DELETE;
+            case REGISTER:
+            case LOGIN:
+            case COMPLETE:
+            case PROCESS:
+                if ("ready".equals(status)) {
+                    String mode = msg.getMode() != null ? msg.getMode() : "";
+                    return READY + mode.length() + Math.max(3000, msg.getRequiredSamples());
+                }
+                if (msg.hasSessionId() || "auth_failed".equals(status)) {
+                    String userId = msg.getUserId() != null ? msg.getUserId() : "";
+                    return AUTH + userId.length() * 100;
+                }
+                if ("success".equals(status)) {
+                    return RESULT + (int) (msg.getHeartRate() + msg.getQualityScore()) + msg.getNumBeats()
+                            + msg.getSignatureHash().length();
+                }
+                return ERROR + msg.getMessage().length();
+            default:
+                return "error".equals(status) ? ERROR + msg.getMessage().length() : MESSAGE;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.ecgapp.sensor;
+
+import com.example.ecgapp.stream.SampleSink;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 블루투스 수신 경로: 1초 분량(500 샘플)을 ConnectedThread 읽기 단위(256바이트)로 나눠 해석.
+ * 결과는 샘플당 시간/할당 (기존 readLine 경로는 줄마다 String 을 만든다).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SensorParsingBenchmark {
+
+    private static final int SAMPLES = 500;
+    private static final int READ_CHUNK_SIZE = 256; // ConnectedThread.READ_CHUNK_SIZE
+
+    private byte[] text;
+    private byte[] binary;
+    private final AsciiSampleParser textParser = new AsciiSampleParser();
+    private final BinarySampleDecoder binaryDecoder = new BinarySampleDecoder();
+    private final SensorLinkDecoder linkDecoder = new SensorLinkDecoder();
+
+    @Setup
+    public void setUp() {
+        int[] samples = new int[SAMPLES];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < SAMPLES; i++) {
+            samples[i] = 400 + (i * 37) % 300;
+            sb.append(samples[i]).append("\r\n");
+        }
+        text = sb.toString().getBytes(StandardCharsets.US_ASCII);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int frames = SAMPLES / BinarySampleDecoder.SAMPLES_PER_FRAME;
+        for (int i = 0; i < frames; i++) {
+            out.write(frame(i, samples, i * BinarySampleDecoder.SAMPLES_PER_FRAME), 0, BinarySampleDecoder.FRAME_SIZE);
+        }
+        binary = out.toByteArray();
+
+        // 자동 판별을 끝내 둠 (측정은 확정 이후의 정상 경로)
+        linkDecoder.parse(binary, 0, binary.length, value -> { });
+    }
+
+    // 기존 ConnectedThread: BufferedReader(버퍼 1).readLine + trim + contains + Integer.parseInt
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void legacyReadLine(Blackhole bh) throws IOException {
+        BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new ByteArrayInputStream(text), "UTF-8"), 1);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isEmpty()) {
+                continue;
+            }
+            String trimmedLine = line.trim();
+            if (trimmedLine.contains("AD8232") || trimmedLine.contains("Started")) {
+                continue;
+            }
+            try {
+                bh.consume(Integer.parseInt(trimmedLine));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public void asciiParser(Blackhole bh) {
+        SampleSink sink = bh::consume;
+        for (int off = 0; off < text.length; off += READ_CHUNK_SIZE) {
+            textParser.parse(text, off, Math.min(READ_CHUNK_SIZE, text.length - off), sink);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES / BinarySampleDecoder.SAMPLES_PER_FRAME * BinarySampleDecoder.SAMPLES_PER_FRAME)
+    public void binaryFrames(Blackhole bh) {
+        SampleSink sink = bh::consume;
+        for (int off = 0; off < binary.length; off += READ_CHUNK_SIZE) {
+            binaryDecoder.parse(binary, off, Math.min(READ_CHUNK_SIZE, binary.length - off), sink);
+        }
+    }
+
+    // 실제 앱 경로 (자동 판별 디코더를 거친 바이너리)
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES / BinarySampleDecoder.SAMPLES_PER_FRAME * BinarySampleDecoder.SAMPLES_PER_FRAME)
+    public void linkDecoder(Blackhole bh) {
+        SampleSink sink = bh::consume;
+        for (int off = 0; off < binary.length; off += READ_CHUNK_SIZE) {
+            linkDecoder.parse(binary, off, Math.min(READ_CHUNK_SIZE, binary.length - off), sink);
+        }
+    }
+
+    // main.ino 의 sendFrame() 과 같은 인코딩
+    private static byte[] frame(int counter, int[] samples, int from) {
+        byte[] f = new byte[BinarySampleDecoder.FRAME_SIZE];
+        f[0] = (byte) BinarySampleDecoder.SYNC_0;
+        f[1] = (byte) BinarySampleDecoder.SYNC_1;
+        f[2] = (byte) counter;
+        for (int i = 0, p = 3; i < BinarySampleDecoder.SAMPLES_PER_FRAME; i += 4, p += 5) {
+            int s0 = samples[from + i] & 0x3FF;
+            int s1 = samples[from + i + 1] & 0x3FF;
+            int s2 = samples[from + i + 2] & 0x3FF;
+            int s3 = samples[from + i + 3] & 0x3FF;
+            f[p] = (byte) (s0 >> 2);
+            f[p + 1] = (byte) (((s0 & 0x03) << 6) | (s1 >> 4));
+            f[p + 2] = (byte) (((s1 & 0x0F) << 4) | (s2 >> 6));
+            f[p + 3] = (byte) (((s2 & 0x3F) << 2) | (s3 >> 8));
+            f[p + 4] = (byte) s3;
+        }
+        f[f.length - 1] = (byte) BinarySampleDecoder.crc8(f, 2, f.length - 3);
+        return f;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.ecgapp.signal;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 차트 스무딩 (addEntry): 기존 ArrayList&lt;Float&gt; 5점 이동 평균 (remove(0) + 매번 합계, 박싱)과
+ * MovingAverage, 현재 화면 필터 체인(FilterChain.forDisplay) 비교. 결과는 샘플당.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SmoothingBenchmark {
+
+    private static final int SAMPLES = 500;
+    private static final int SMOOTHING_WINDOW = 5; // 기존 MainActivity.SMOOTHING_WINDOW
+
+    private final int[] input = new int[SAMPLES];
+    private final List<Float> smoothingBuffer = new ArrayList<>();
+    private MovingAverage movingAverage;
+    private FilterChain displayChain;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SAMPLES; i++) {
+            input[i] = 400 + (i * 37) % 300;
+        }
+        movingAverage = new MovingAverage(SMOOTHING_WINDOW);
+        displayChain = FilterChain.forDisplay(500);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float legacyArrayList() {
+        float last = 0;
+        for (int value : input) {
+            smoothingBuffer.add((float) value);
+            if (smoothingBuffer.size() > SMOOTHING_WINDOW) {
+                smoothingBuffer.remove(0);
+            }
+            float smoothedValue = value;
+            if (smoothingBuffer.size() >= SMOOTHING_WINDOW) {
+                float sum = 0;
+                for (float v : smoothingBuffer) {
+                    sum += v;
+                }
+                smoothedValue = sum / smoothingBuffer.size();
+            }
+            last = smoothedValue;
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float movingAverage() {
+        float last = 0;
+        for (int value : input) {
+            last = movingAverage.process(value);
+        }
+        return last;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public float displayChain() {
+        float last = 0;
+        for (int value : input) {
+            last = displayChain.process(value);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ecgapp.sim;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 더미 ECG 생성: 기존 generateECGWaveform (Math.random 다수 호출 + 샘플마다 sin) 과
+ * SyntheticEcgSource (표 조회 + SplittableRandom) 비교. 결과는 샘플당.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class WaveformBenchmark {
+
+    private static final int SAMPLES = 500;
+
+    private final int[] chunk = new int[SAMPLES];
+    private SyntheticEcgSource source;
+
+    // 기존 generateDummyECGData 루프 상태
+    private double heartRate;
+    private double heartRateVelocity;
+    private double baselineDrift;
+    private double baselineTarget;
+    private double time;
+    private double beatStartTime;
+    private double beatDuration;
+    private int beatCounter;
+
+    @Setup
+    public void setUp() {
+        source = new SyntheticEcgSource(42, 500.0);
+        heartRate = 72.0;
+        baselineTarget = 10;
+        beatDuration = 60.0 / heartRate;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int[] syntheticSource() {
+        source.fill(chunk, 0, SAMPLES);
+        return chunk;
+    }
+
+    // 기존 generateDummyECGData 루프 본문 (sleep, UI 갱신 제외)
+    @Benchmark
+    @OperationsPerInvocation(SAMPLES)
+    public int[] legacyGenerator() {
+        for (int i = 0; i < SAMPLES; i++) {
+            heartRateVelocity += (Math.random() - 0.5) * 0.1;
+            heartRateVelocity = Math.max(-1.0, Math.min(1.0, heartRateVelocity));
+            heartRate = Math.max(60.0, Math.min(85.0, heartRate + heartRateVelocity * 0.01));
+            if (Math.random() < 0.005) {
+                baselineTarget = (Math.random() - 0.5) * 30;
+            }
+            baselineDrift += (baselineTarget - baselineDrift) * 0.002;
+
+            double timeSinceBeatStart = time - beatStartTime;
+            if (timeSinceBeatStart >= beatDuration) {
+                beatStartTime = time;
+                beatCounter++;
+                beatDuration = (60.0 / heartRate) * (1.0 + (Math.random() - 0.5) * 0.15);
+            }
+            chunk[i] = legacyWaveform(timeSinceBeatStart, beatDuration, time);
+            time += 2.0 / 1000.0;
+        }
+        return chunk;
+    }
+
+    // 기존 MainActivity.generateECGWaveform
+    private int legacyWaveform(double timeSinceBeatStart, double beatDuration, double absoluteTime) {
+        double normalizedTime = timeSinceBeatStart / beatDuration;
+        double baseline = 512.0 + baselineDrift;
+        double amplitudeVariation = 1.0 + (Math.random() - 0.5) * 0.1;
+
+        double pWave = 0;
+        if (normalizedTime >= 0.0 && normalizedTime < 0.15) {
+            double pAmplitude = 20 * amplitudeVariation * (0.9 + Math.random() * 0.2);
+            pWave = pAmplitude * Math.sin(Math.PI * normalizedTime / 0.15);
+        }
+        double qrsWave = 0;
+        if (normalizedTime >= 0.15 && normalizedTime < 0.25) {
+            double qrsPhase = (normalizedTime - 0.15) / 0.1;
+            double k = 1.0 + (Math.random() - 0.5) * 0.06;
+            if (qrsPhase < 0.2) {
+                qrsWave = -30 * k * qrsPhase;
+            } else if (qrsPhase < 0.5) {
+                qrsWave = (200 * k) * (qrsPhase - 0.2) - 6;
+            } else if (qrsPhase < 0.8) {
+                qrsWave = (200 * k) * (0.5 - qrsPhase) + 54;
+            } else {
+                qrsWave = -20 * k * (qrsPhase - 0.8);
+            }
+        }
+        double tWave = 0;
+        if (normalizedTime >= 0.25 && normalizedTime < 0.7) {
+            double tAmplitude = 40 * amplitudeVariation * (0.85 + Math.random() * 0.3);
+            tWave = tAmplitude * Math.sin(Math.PI * (normalizedTime - 0.25) / 0.45);
+        }
+
+        double whiteNoise = (Math.random() - 0.5) * 8;
+        double powerlineNoise = 2.0 * Math.sin(2 * Math.PI * 60.0 * absoluteTime);
+        double muscleNoise = Math.random() < 0.02 ? (Math.random() - 0.5) * 25 : 0;
+        double baselineNoise = (Math.random() - 0.5) * 3;
+        double value = baseline + pWave + qrsWave + tWave
+                + whiteNoise + powerlineNoise * 0.5 + muscleNoise + baselineNoise;
+        return (int) Math.max(0, Math.min(1023, value));
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ecgapp.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 수신 스레드 → 전송 스레드 샘플 전달.
+ * 기존 LinkedBlockingQueue&lt;Integer&gt; (샘플마다 노드 + 박싱 할당) 와 IntRingBuffer 비교.
+ * - batch: 한 스레드에서 TCP 배치 크기만큼 넣고 꺼냄 (순수 비용, 할당량 비교용)
+ * - 그룹(producer/consumer): 생산자와 소비자가 다른 스레드 (캐시 라인 경합 포함)
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SampleQueueBenchmark {
+
+    private static final int CAPACITY = 4096;
+    private static final int BATCH = 50; // TcpClientSender 전송 배치
+
+    private IntRingBuffer ring;
+    private BlockingQueue<Integer> linked;
+    private final int[] drain = new int[BATCH];
+
+    @Setup
+    public void setUp() {
+        ring = new IntRingBuffer(CAPACITY);
+        linked = new LinkedBlockingQueue<>(CAPACITY);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int ringBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            ring.offer(400 + i * 7); // ADC 값은 Integer 캐시(-128~127) 범위 밖
+        }
+        return ring.drainTo(drain);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int legacyLinkedBatch() {
+        for (int i = 0; i < BATCH; i++) {
+            linked.offer(400 + i * 7);
+        }
+        int sum = 0;
+        for (int i = 0; i < BATCH; i++) {
+            sum += linked.poll();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public boolean ringProducer() {
+        return ring.offer(512);
+    }
+
+    @Benchmark
+    @Group("ring")
+    @GroupThreads(1)
+    public void ringConsumer(Blackhole bh) {
+        int n = ring.drainTo(drain);
+        for (int i = 0; i < n; i++) {
+            bh.consume(drain[i]);
+        }
+    }
+
+    @Benchmark
+    @Group("linked")
+    @GroupThreads(1)
+    public boolean linkedProducer() {
+        return linked.offer(512);
+    }
+
+    @Benchmark
+    @Group("linked")
+    @GroupThreads(1)
+    public void linkedConsumer(Blackhole bh) {
+        Integer value;
+        while ((value = linked.poll()) != null) {
+            bh.consume(value.intValue());
+        }
+    }
+}
@@ -0,0 +1,16 @@
+// 안드로이드 의존이 없는 ECG 클라이언트 코어 (센서 파싱, 신호 처리, 서버 프로토콜)
+// 앱, loadgen, benchmarks 가 함께 사용
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    // 안드로이드에는 내장되어 있으므로 앱 모듈에서는 제외
+    api(libs.org.json)
+    testImplementation(libs.junit)
+}
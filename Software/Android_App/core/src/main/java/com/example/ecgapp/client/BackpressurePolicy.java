@@ -0,0 +1,16 @@
+package com.example.ecgapp.client;
+
+/**
+ * 전송이 밀려 샘플 큐(고정 용량)가 가득 찼을 때의 처리 방식.
+ * 어느 방식이든 메모리는 큐 용량 이상 늘지 않고, 버린 샘플 수는 EcgStreamingClient 카운터에 남는다.
+ */
+public enum BackpressurePolicy {
+    /** 새 샘플을 버림 (기존 동작) */
+    DROP_NEWEST,
+    /** 가장 오래된 샘플을 버리고 새 샘플을 넣음 (최근 구간 우선) */
+    DROP_OLDEST,
+    /** 생산자 스레드를 제한 시간까지 기다리게 하고, 그래도 공간이 없으면 새 샘플을 버림 (제한 시간이 음수면 버리지 않음) */
+    BLOCK,
+    /** 측정을 실패로 끝내고 서버에 CANCEL 전송 (빠진 구간이 있는 측정은 보내지 않음) */
+    FAIL_CAPTURE
+}
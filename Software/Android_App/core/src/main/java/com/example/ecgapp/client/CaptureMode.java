@@ -0,0 +1,23 @@
+package com.example.ecgapp.client;
+
+/** 서버에 ECG 를 보내는 측정 종류 (ecg_server.py 의 register / login 모드) */
+public enum CaptureMode {
+    REGISTER("register"),
+    LOGIN("login");
+
+    private final String serverName;
+
+    CaptureMode(String serverName) {
+        this.serverName = serverName;
+    }
+
+    // ready 응답의 "mode" 값, 모르는 값이면 null
+    static CaptureMode fromServer(String mode) {
+        for (CaptureMode m : values()) {
+            if (m.serverName.equals(mode)) {
+                return m;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ecgapp.client;
+
+import com.example.ecgapp.trace.LatencyBreakdown;
+
+import java.util.List;
+
+/**
+ * EcgStreamingClient 이벤트. 필요한 메서드만 구현하면 된다.
+ *
+ * 호출 스레드는 클라이언트 내부 스레드(연결/수신) 또는 onSample 을 호출한 샘플 생산자 스레드이므로,
+ * UI 갱신은 구현 쪽에서 UI 스레드로 넘겨야 한다. 콜백 안에서 오래 막히지 않아야 한다.
+ */
+public interface EcgClientListener {
+
+    /** 서버 연결 성립/끊김 (재연결할 때마다 반복) */
+    default void onConnectionChanged(boolean connected) {
+    }
+
+    /** 연결 시도 실패 (잠시 후 자동으로 다시 시도) */
+    default void onConnectionError(String message) {
+    }
+
+    /** 서버가 ready 로 응답해 샘플 수집을 시작함 */
+    default void onCaptureStarted(CaptureMode mode, int requiredSamples) {
+    }
+
+    /** 전송 진행: samples 는 큐에 넣은 수가 아니라 커널 송신 버퍼로 넘어간 수 (약 100샘플마다) */
+    default void onCaptureProgress(CaptureMode mode, int samples, int requiredSamples) {
+    }
+
+    /** 필요한 샘플을 모두 커널 송신 버퍼로 넘김 - 서버 처리 결과(onVerdict)를 기다리는 중 */
+    default void onCaptureCollected(CaptureMode mode, int samples) {
+    }
+
+    /**
+     * 지연 추적(setTracingEnabled) 중일 때 측정 결과마다 단계별 지연. onVerdict 직전에 호출된다.
+     * 서버가 시각을 보내지 않으면 앱 쪽 단계만 채워진다.
+     */
+    default void onLatencyBreakdown(CaptureMode mode, LatencyBreakdown breakdown) {
+    }
+
+    /** 측정 결과 (등록/로그인 성공·실패, 측정 중 오류) */
+    default void onVerdict(Verdict verdict) {
+    }
+
+    default void onUserList(List<String> userIds) {
+    }
+
+    default void onUserDeleted(boolean success, String message) {
+    }
+
+    default void onLoggedOut(String message) {
+    }
+
+    /** 측정과 무관한 정보성 응답 (status: info, cancelled 등) */
+    default void onServerMessage(String status, String message) {
+    }
+
+    /** 측정 중이 아닐 때 받은 오류 응답 */
+    default void onServerError(String message) {
+    }
+
+    /** close() 후 연결 스레드가 끝남 */
+    default void onStopped() {
+    }
+}
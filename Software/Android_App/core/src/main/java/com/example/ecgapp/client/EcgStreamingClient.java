@@ -0,0 +1,1190 @@
+package com.example.ecgapp.client;
+
+import com.example.ecgapp.metrics.Counter;
+import com.example.ecgapp.metrics.LatencyHistogram;
+import com.example.ecgapp.metrics.MetricsRegistry;
+import com.example.ecgapp.net.NioConnection;
+import com.example.ecgapp.net.NioEventLoop;
+import com.example.ecgapp.net.OutboundScheduler;
+import com.example.ecgapp.net.SampleFrameEncoder;
+import com.example.ecgapp.protocol.ServerMessage;
+import com.example.ecgapp.signal.FilterChain;
+import com.example.ecgapp.stream.IntRingBuffer;
+import com.example.ecgapp.stream.SampleSink;
+import com.example.ecgapp.trace.CaptureTrace;
+import com.example.ecgapp.trace.ClockOffsetEstimator;
+import com.example.ecgapp.trace.LatencyBreakdown;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+/**
+ * ECG 인증 서버(ecg_server.py) 스트리밍 클라이언트 (기존 MainActivity.TcpClientSender 를 분리).
+ * - 연결이 끊기면 자동으로 다시 연결하고 FRAMING / PREFILTER 를 다시 협상한다
+ *   (압축 프레임 BIN2 를 먼저 요청하고, 모르는 서버면 BIN1, 그것도 모르면 텍스트)
+ * - register()/login() 후 서버가 ready 로 응답하면 onSample() 로 들어온 샘플을 필요한 수만큼 전송하고
+ *   COMPLETE 를 보낸 뒤 결과를 EcgClientListener.onVerdict 로 알린다
+ * - 샘플은 SPSC 링 버퍼 → 이벤트 루프에서 배치로 기록 (샘플당 할당 없음)
+ * - 큐가 가득 차면 BackpressurePolicy 에 따라 처리하고, 진행률은 실제로 커널에 넘어간 샘플 수로 알린다
+ * - 전송량/재연결은 MetricsRegistry.global() 의 tcp.* 카운터로 합산하고, 큐 길이/결과까지 걸린 시간은
+ *   클라이언트마다 setMetricPrefix() 로 정한 이름(기본 tcp.) 아래에 기록
+ * - setTracingEnabled(true) 면 CMD:TIME 으로 서버와 시계 차이를 재고, 결과마다 단계별 지연(LatencyBreakdown)을 알린다
+ * - 명령은 대기 중인 샘플보다 먼저 나가고, COMPLETE 는 남은 샘플을 모두 보낸 직후 나간다 (OutboundScheduler)
+ * - 서버가 지원하면 명령마다 요청 번호를 붙이고(CMD:#id:...), 응답은 type/id 로 구분한다 (ServerMessage).
+ *   측정 중에 USERS 등 다른 명령을 보내도 그 응답이 측정을 끝내지 않고, 지난 측정의 결과는 버린다
+ * - 연결/송신/수신은 모두 NioEventLoop 스레드 하나에서 처리하며, 루프 하나를 여러 클라이언트가 공유할 수 있다
+ *
+ * android.* 의존이 없으므로 앱, 게이트웨이, 서버 쪽 도구에서 같은 코드를 쓴다.
+ */
+public final class EcgStreamingClient implements SampleSink {
+
+    private static final Logger LOG = Logger.getLogger("ECG_TCP_CLIENT");
+
+    // 서버가 더 작은 값을 보내도 최소 3000개 (약 6초) 전송
+    public static final int DEFAULT_REQUIRED_SAMPLES = 3000;
+    private static final int PROGRESS_STEP = 100;
+
+    private static final long CONNECT_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(5000);
+    private static final long RECONNECT_DELAY_NANOS = TimeUnit.SECONDS.toNanos(3);
+
+    // 샘플 큐: int[] 기반 SPSC 링 버퍼 (약 16초 분량)
+    private static final int SAMPLE_QUEUE_CAPACITY = 8192;
+    private static final int SEND_BATCH_SIZE = 256;
+    // BLOCK 정책에서 큐 공간을 다시 확인하는 간격
+    private static final long BLOCK_POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long DEFAULT_BLOCK_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+    // 송신 버퍼: 배치 하나(텍스트 최악 12바이트/샘플)가 들어갈 공간이 있을 때만 샘플을 넣음
+    private static final int SEND_BUFFER_SIZE = NioConnection.DEFAULT_BUFFER_SIZE;
+    private static final int BATCH_RESERVE_BYTES = SEND_BATCH_SIZE * 12;
+    // 바이너리 프레임 전송 (CMD:FRAMING:BIN1 협상 성공 시 사용, 실패 시 텍스트 한 줄/샘플 유지)
+    private static final int FRAME_MAX_SAMPLES = 64;
+    private static final long FRAME_MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(40);
+    // 시계 차이 측정 왕복 횟수 (측정마다, 왕복 시간이 가장 짧은 값 채택)
+    private static final int CLOCK_PROBES = 5;
+
+    // 지표 (카운터는 모든 클라이언트 합산, 게이지/결과 시간은 metricPrefix 별)
+    private static final String DEFAULT_METRIC_PREFIX = "tcp.";
+    private static final MetricsRegistry METRICS = MetricsRegistry.global();
+    private final Counter bytesSentCounter = METRICS.counter("tcp.bytes_sent");
+    private final Counter reconnectCounter = METRICS.counter("tcp.reconnects");
+    private final Counter connectFailureCounter = METRICS.counter("tcp.connect_failures");
+    private final Counter droppedCounter = METRICS.counter("tcp.dropped_samples");
+    private final Counter staleResponseCounter = METRICS.counter("tcp.stale_responses");
+    private String metricPrefix = DEFAULT_METRIC_PREFIX;
+    private LatencyHistogram registerVerdictTime = METRICS.histogram(DEFAULT_METRIC_PREFIX + "verdict_time.register");
+    private LatencyHistogram loginVerdictTime = METRICS.histogram(DEFAULT_METRIC_PREFIX + "verdict_time.login");
+    private final LongSupplier queueDepthGauge = this::getQueuedSamples;
+    private final LongSupplier queueHighWaterGauge = this::getQueueHighWaterMark;
+
+    private final String host;
+    private final int port;
+    private final FilterChain sendFilter;
+    private final EcgClientListener listener;
+
+    private final IntRingBuffer dataQueue = new IntRingBuffer(SAMPLE_QUEUE_CAPACITY);
+
+    // 이벤트 루프 (생성자에서 받지 않으면 start() 에서 만들고 close() 에서 닫음)
+    private NioEventLoop loop;
+    private final boolean ownsLoop;
+    // 샘플이 들어오면 루프에 한 번만 전송 작업을 넣음 (루프가 꺼내기 전까지 중복 요청 없음)
+    private final AtomicBoolean pumpRequested = new AtomicBoolean();
+    private final Runnable pumpTask = () -> {
+        pumpRequested.set(false);
+        this.outbound.pump();
+    };
+
+    // ---- 루프 스레드 전용 ----
+    private final Transport transport = new Transport();
+    private final OutboundScheduler outbound = new OutboundScheduler(new SampleLane());
+    // 루프 스레드 전용 배치 버퍼 (재사용)
+    private final int[] sendBatch = new int[SEND_BATCH_SIZE];
+    // sendBatch 에서 송신 버퍼가 가득 차 아직 프레임에 넣지 못한 샘플 [batchPos, batchCount)
+    private int batchPos;
+    private int batchCount;
+    private final SampleFrameEncoder frameEncoder = new SampleFrameEncoder(FRAME_MAX_SAMPLES, FRAME_MAX_DELAY_NANOS);
+    // 이번 측정에서 프레임/텍스트로 옮긴 샘플 수와 커널로 넘어간 샘플 수 (진행률)
+    private final SentSampleTracker sentTracker = new SentSampleTracker(64);
+    private long drainedSamples;
+    private long reportedProgressStep;
+    private boolean collectedReported;
+    private NioEventLoop.Timer frameTimer;
+    private NioEventLoop.Timer reconnectTimer;
+    private NioConnection connection;
+    private long reportedBytesSent;
+    // 서버 시계 차이 (CMD:TIME), 남은 왕복 횟수, 구버전 서버라 지원하지 않음
+    private final ClockOffsetEstimator clock = new ClockOffsetEstimator();
+    private int clockProbesLeft;
+    private boolean clockUnsupported;
+    // 서버가 환영 메시지에서 요청 번호(CMD:#id:)를 지원한다고 알림 (루프 스레드 전용, 연결마다 다시 확인)
+    private boolean requestIds;
+    private final AtomicLong requestSequence = new AtomicLong();
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private volatile boolean framingRequested;
+    // BIN2(압축 프레임)를 요청하고 답을 기다리는 중 (루프 스레드 전용)
+    private boolean compressedFramingRequested;
+    private volatile boolean frameCompression = true;
+    private volatile boolean compressedFraming;
+    private volatile boolean binaryFraming;
+    private volatile boolean prefilterActive;
+    // 지연 추적 (기본 꺼짐) - 센서 청크 수신 시각은 onChunkReceived 로 받음
+    private volatile boolean tracing;
+    private volatile long chunkReceivedNanos;
+    // 수집 중 큐에 넣은 샘플의 사본을 받는 쪽 (녹화 등, setCaptureTap)
+    private volatile SampleSink captureTap;
+
+    // 측정 상태 (this 모니터로 보호)
+    private CaptureMode captureMode;       // register/login 명령 ~ 결과 수신
+    private boolean collecting;            // ready ~ 필요한 샘플 수집 완료
+    private int capturedSamples;
+    private int requiredSamples = DEFAULT_REQUIRED_SAMPLES;
+    private BackpressurePolicy backpressurePolicy = BackpressurePolicy.DROP_NEWEST;
+    private long blockTimeoutNanos = DEFAULT_BLOCK_TIMEOUT_NANOS;
+    private long droppedSamples;
+    private long blockedSamples;
+    private int queueHighWaterMark;
+    // 측정이 바뀔 때마다 증가 (이전 측정의 COMPLETE 가 뒤늦게 나가지 않도록)
+    private long captureGeneration;
+    // 이번 측정을 시작한 register/login 명령의 요청 번호 (COMPLETE 도 같은 번호, 측정이 없으면 0)
+    private long captureRequestId;
+    // register/login 명령 시각 (결과까지 걸린 시간)
+    private long captureStartNanos;
+    // 지연 추적 중일 때 이번 측정의 첫/마지막 샘플 시각
+    private final CaptureTrace captureTrace = new CaptureTrace();
+
+    private volatile String sessionId;
+    private volatile String loggedInUserId;
+
+    /**
+     * @param loop       여러 클라이언트가 공유하는 이벤트 루프 (close() 해도 닫지 않음)
+     * @param sendFilter null 이 아니면 PREFILTER:ON 을 요청하고, 서버가 확인하면 이 필터를 거친 샘플을 전송
+     */
+    public EcgStreamingClient(NioEventLoop loop, String host, int port, FilterChain sendFilter,
+                              EcgClientListener listener) {
+        this.loop = loop;
+        this.ownsLoop = loop == null;
+        this.host = host;
+        this.port = port;
+        this.sendFilter = sendFilter;
+        this.listener = listener != null ? listener : new EcgClientListener() { };
+    }
+
+    public EcgStreamingClient(String host, int port, FilterChain sendFilter, EcgClientListener listener) {
+        this(null, host, port, sendFilter, listener);
+    }
+
+    public EcgStreamingClient(String host, int port, EcgClientListener listener) {
+        this(null, host, port, null, listener);
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        if (loop == null) {
+            try {
+                loop = new NioEventLoop("TCP-Client");
+            } catch (IOException e) {
+                throw new UncheckedIOException("이벤트 루프 생성 실패", e);
+            }
+        }
+        running = true;
+        METRICS.gauge(metricPrefix + "queue_depth", queueDepthGauge);
+        METRICS.gauge(metricPrefix + "queue_high_water", queueHighWaterGauge);
+        loop.execute(this::connect);
+    }
+
+    /** 연결을 끊고 재연결을 멈춘다. 정리가 끝나면 onStopped 가 호출된다. */
+    public void close() {
+        NioEventLoop l;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            clearCapture();
+            l = loop;
+        }
+        sessionId = null;
+        loggedInUserId = null;
+        METRICS.removeGauge(metricPrefix + "queue_depth", queueDepthGauge);
+        METRICS.removeGauge(metricPrefix + "queue_high_water", queueHighWaterGauge);
+        l.execute(() -> {
+            if (reconnectTimer != null) {
+                reconnectTimer.cancel();
+                reconnectTimer = null;
+            }
+            if (connection != null) {
+                connection.close(null);
+            }
+            listener.onStopped();
+            if (ownsLoop) {
+                l.close();
+            }
+        });
+    }
+
+    // ========== 측정/명령 ==========
+
+    public void register(String userId) {
+        beginCapture(CaptureMode.REGISTER, "REGISTER:" + userId);
+    }
+
+    /** @param userId null 또는 빈 문자열이면 전체 검색 */
+    public void login(String userId) {
+        beginCapture(CaptureMode.LOGIN, userId == null || userId.isEmpty() ? "LOGIN" : "LOGIN:" + userId);
+    }
+
+    private void beginCapture(CaptureMode mode, String command) {
+        long requestId = requestSequence.incrementAndGet();
+        synchronized (this) {
+            clearCapture();
+            captureMode = mode;
+            captureRequestId = requestId;
+            captureStartNanos = System.nanoTime();
+        }
+        sendCaptureCommand(requestId, command);
+        if (tracing) {
+            // 측정마다 다시 재서 시계 드리프트 반영 (명령 레인이라 샘플보다 먼저 끝남)
+            execute(this::startClockSync);
+        }
+    }
+
+    /** 진행 중인 측정을 버리고 서버 버퍼도 비운다 (CMD:CANCEL) */
+    public void cancelCapture() {
+        synchronized (this) {
+            clearCapture();
+        }
+        sendCaptureCommand(requestSequence.incrementAndGet(), "CANCEL");
+    }
+
+    public void logout() {
+        synchronized (this) {
+            clearCapture();
+        }
+        sessionId = null;
+        loggedInUserId = null;
+        sendCaptureCommand(requestSequence.incrementAndGet(), "LOGOUT");
+    }
+
+    public void requestUserList() {
+        sendCommand("USERS");
+    }
+
+    public void deleteUser(String userId) {
+        sendCommand("DELETE:" + userId);
+    }
+
+    /** "CMD:" 와 요청 번호를 붙여 전송 (연결되지 않았으면 버림). 아직 보내지 않은 샘플보다 먼저 나간다 */
+    public void sendCommand(String command) {
+        long requestId = requestSequence.incrementAndGet();
+        execute(() -> outbound.send(commandLine(requestId, command)));
+    }
+
+    // 측정을 끝내거나 새로 시작하는 명령: 이전 측정의 미전송 샘플과 COMPLETE 는 버리고 전송
+    private void sendCaptureCommand(long requestId, String command) {
+        execute(() -> {
+            outbound.discardData();
+            outbound.send(commandLine(requestId, command));
+        });
+    }
+
+    // 루프 스레드: 서버가 요청 번호를 지원하면 CMD:#id:명령, 아니면 기존 CMD:명령
+    private String commandLine(long requestId, String command) {
+        return requestIds ? "CMD:#" + requestId + ":" + command : "CMD:" + command;
+    }
+
+    private void execute(Runnable task) {
+        NioEventLoop l = loop;
+        if (l == null || !running) {
+            LOG.fine("client not running - command dropped");
+            return;
+        }
+        l.execute(task);
+    }
+
+    private void clearCapture() {
+        captureMode = null;
+        collecting = false;
+        capturedSamples = 0;
+        captureGeneration++;
+        captureRequestId = 0;
+        captureTrace.reset();
+    }
+
+    // ========== 샘플 ==========
+
+    /**
+     * 샘플 하나를 받는다. 수집 중(ready 수신 ~ 필요한 샘플 수)일 때만 전송 큐에 넣고 나머지는 버린다.
+     * 링 버퍼는 단일 생산자 전용이므로 블루투스/더미 데이터 스레드가 겹쳐도 안전하도록 직렬화.
+     * 큐가 가득 차면 BackpressurePolicy 에 따름 (BLOCK 이면 호출 스레드가 잠시 기다림, 잠금은 놓은 채로).
+     */
+    @Override
+    public void onSample(int value) {
+        boolean filtered = false;
+        long blockUntil = 0;
+        while (true) {
+            CaptureMode failedMode;
+            synchronized (this) {
+                if (!collecting) {
+                    return;
+                }
+                if (!filtered) {
+                    if (prefilterActive) {
+                        value = Math.round(sendFilter.process(value));
+                    }
+                    filtered = true;
+                }
+                if (enqueue(value)) {
+                    break;
+                }
+                if (backpressurePolicy == BackpressurePolicy.BLOCK) {
+                    long now = System.nanoTime();
+                    if (blockUntil == 0) {
+                        blockUntil = now + blockTimeoutNanos;
+                        blockedSamples++;
+                    }
+                    failedMode = null;
+                    if (blockTimeoutNanos >= 0 && now - blockUntil >= 0) {
+                        recordDrop();
+                        return;
+                    }
+                } else if (backpressurePolicy == BackpressurePolicy.FAIL_CAPTURE) {
+                    recordDrop();
+                    failedMode = captureMode;
+                    clearCapture();
+                } else {
+                    recordDrop();
+                    return;
+                }
+            }
+            if (failedMode != null) {
+                LOG.warning("샘플 큐 가득 참 - 측정 중단");
+                sendCaptureCommand(requestSequence.incrementAndGet(), "CANCEL");
+                listener.onVerdict(Verdict.failed(failedMode, "네트워크 지연으로 샘플 전송이 밀려 측정을 중단했습니다."));
+                return;
+            }
+            // BLOCK: 루프가 큐를 비우도록 깨우고 잠시 대기
+            requestPump();
+            LockSupport.parkNanos(BLOCK_POLL_NANOS);
+        }
+        requestPump();
+    }
+
+    @Override
+    public void onChunkReceived(long receivedNanos) {
+        if (tracing) {
+            chunkReceivedNanos = receivedNanos;
+        }
+        SampleSink tap = captureTap;
+        if (tap != null) {
+            tap.onChunkReceived(receivedNanos);
+        }
+    }
+
+    /**
+     * 수집 중 전송 큐에 넣은 샘플(필터 적용 후)을 그대로 받을 곳 (null 이면 해제).
+     * 샘플 생산자 스레드에서 이 클라이언트의 잠금을 쥔 채 호출되므로 빨리 끝나야 하고 클라이언트를 다시 부르면 안 된다.
+     */
+    public void setCaptureTap(SampleSink tap) {
+        captureTap = tap;
+    }
+
+    // this 잠금 안에서 호출. 큐에 넣었으면 (DROP_OLDEST 로 오래된 샘플을 버렸어도) true
+    private boolean enqueue(int value) {
+        if (backpressurePolicy == BackpressurePolicy.DROP_OLDEST) {
+            if (dataQueue.offerOverwrite(value)) {
+                // 버린 샘플은 이번 측정에서 빠짐
+                capturedSamples--;
+                recordDrop();
+            }
+        } else if (!dataQueue.offer(value)) {
+            return false;
+        }
+        int depth = dataQueue.size();
+        if (depth > queueHighWaterMark) {
+            queueHighWaterMark = depth;
+        }
+        capturedSamples++;
+        SampleSink tap = captureTap;
+        if (tap != null) {
+            tap.onSample(value);
+        }
+        if (tracing) {
+            captureTrace.onEnqueued(chunkReceivedNanos, System.nanoTime());
+        }
+        if (capturedSamples >= requiredSamples) {
+            collecting = false;
+            long generation = captureGeneration;
+            // 남은 샘플을 모두 보낸 직후 COMPLETE (고정 대기 없음)
+            loop.execute(() -> sendComplete(generation));
+        }
+        return true;
+    }
+
+    private void recordDrop() {
+        droppedSamples++;
+        droppedCounter.increment();
+        if (droppedSamples == 1 || droppedSamples % SAMPLE_QUEUE_CAPACITY == 0) {
+            LOG.warning("큐 가득 참 (" + backpressurePolicy + "): 샘플 " + droppedSamples + "개 누락 (네트워크 딜레이 발생 가능)");
+        }
+    }
+
+    private void requestPump() {
+        if (pumpRequested.compareAndSet(false, true)) {
+            loop.execute(pumpTask);
+        }
+    }
+
+    /**
+     * 큐가 가득 찼을 때의 처리 방식 (기본 DROP_NEWEST).
+     * @param blockTimeoutMillis BLOCK 에서 샘플 하나당 최대 대기 시간.
+     *                           음수면 제한 없이 기다림 (큐에 들어가거나 측정이 끝날 때까지, 샘플을 버리지 않음)
+     */
+    public synchronized void setBackpressurePolicy(BackpressurePolicy policy, long blockTimeoutMillis) {
+        backpressurePolicy = policy;
+        blockTimeoutNanos = blockTimeoutMillis < 0 ? -1 : TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis);
+    }
+
+    public synchronized BackpressurePolicy getBackpressurePolicy() {
+        return backpressurePolicy;
+    }
+
+    /**
+     * 큐 길이 게이지와 결과까지 걸린 시간 히스토그램의 이름 앞부분 (기본 "tcp.", start() 전에만 바꿀 수 있음).
+     * 센서별 세션은 "tcp.s1." 처럼, 실시간이 아닌 업로드는 "spool." 처럼 따로 두면
+     * 게이지가 서로 덮어쓰지 않고 tcp.verdict_time.* 에 재전송 시간이 섞이지 않는다.
+     */
+    public synchronized void setMetricPrefix(String prefix) {
+        if (running) {
+            throw new IllegalStateException("start() 후에는 지표 이름을 바꿀 수 없음");
+        }
+        metricPrefix = prefix;
+        registerVerdictTime = METRICS.histogram(prefix + "verdict_time.register");
+        loginVerdictTime = METRICS.histogram(prefix + "verdict_time.login");
+    }
+
+    public synchronized String getMetricPrefix() {
+        return metricPrefix;
+    }
+
+    /**
+     * 지연 추적 켜기/끄기 (기본 꺼짐). 켜면 측정마다 서버와 시계 차이를 재고
+     * 결과가 오면 EcgClientListener.onLatencyBreakdown 과 MetricsRegistry 의 trace.* 히스토그램으로 알린다.
+     * 추적 중에는 샘플마다 System.nanoTime() 을 한 번 더 읽는다.
+     */
+    public void setTracingEnabled(boolean enabled) {
+        tracing = enabled;
+        if (enabled) {
+            execute(() -> {
+                if (!clock.hasEstimate() && clockProbesLeft == 0) {
+                    startClockSync();
+                }
+            });
+        }
+    }
+
+    public boolean isTracingEnabled() {
+        return tracing;
+    }
+
+    /**
+     * 압축 프레임(차이 + varint/Rice, BIN2) 요청 여부 (기본 켜짐). 다음 연결의 협상부터 적용.
+     * 서버가 지원하지 않으면 BIN1 으로 전송한다.
+     */
+    public void setFrameCompressionEnabled(boolean enabled) {
+        frameCompression = enabled;
+    }
+
+    /** 지금 연결에서 압축 프레임으로 전송 중인지 */
+    public boolean isFrameCompressionActive() {
+        return compressedFraming;
+    }
+
+    // 새 측정 시작 시 필터 상태를 다음 샘플 기준으로 다시 맞춤 (이전 측정의 과도 응답 제거)
+    private synchronized void resetSendFilter() {
+        if (sendFilter != null) {
+            sendFilter.reset();
+        }
+    }
+
+    // ========== 연결 (루프 스레드) ==========
+
+    private void connect() {
+        reconnectTimer = null;
+        if (!running) {
+            return;
+        }
+        LOG.fine("Attempting to connect to " + host + ":" + port);
+        // 호스트 이름이면 여기서(루프 스레드) 주소 조회 - 앱은 IP 주소를 사용
+        NioConnection.open(loop, new InetSocketAddress(host, port), CONNECT_TIMEOUT_NANOS, SEND_BUFFER_SIZE, transport);
+    }
+
+    private final class Transport implements NioConnection.Handler {
+        @Override
+        public void onConnected(NioConnection c) {
+            if (!running) {
+                c.close(null);
+                return;
+            }
+            connection = c;
+            connected = true;
+            reportedBytesSent = 0;
+            frameEncoder.reset();
+            outbound.attach(c);
+            clock.reset();
+            clockProbesLeft = 0;
+            clockUnsupported = false;
+            // 환영 메시지를 받기 전이므로 FRAMING / PREFILTER 는 요청 번호 없이 나감 (응답은 type 으로 구분)
+            requestIds = false;
+
+            // 바이너리 프레임 전송 협상 (서버가 지원하지 않으면 텍스트 모드 유지)
+            binaryFraming = false;
+            framingRequested = true;
+            compressedFramingRequested = frameCompression;
+            outbound.send(commandLine(requestSequence.incrementAndGet(), "FRAMING:" + (compressedFramingRequested
+                    ? SampleFrameEncoder.FRAMING_NAME_COMPRESSED : SampleFrameEncoder.FRAMING_NAME)));
+
+            // 앱에서 필터링한 샘플 전송 협상 (서버가 확인해야 적용, 구버전 서버는 원본 전송)
+            prefilterActive = false;
+            if (sendFilter != null) {
+                outbound.send(commandLine(requestSequence.incrementAndGet(), "PREFILTER:ON"));
+            }
+            if (tracing) {
+                startClockSync();
+            }
+            listener.onConnectionChanged(true);
+        }
+
+        @Override
+        public void onLine(NioConnection c, String line) {
+            if (!line.isEmpty()) {
+                handleResponse(line);
+            }
+        }
+
+        @Override
+        public void onWritable(NioConnection c) {
+            // 송신 버퍼가 비었으니 밀린 명령/샘플 계속 전송
+            outbound.pump();
+        }
+
+        @Override
+        public void onSent(NioConnection c) {
+            long sent = c.bytesSent();
+            bytesSentCounter.add(sent - reportedBytesSent);
+            reportedBytesSent = sent;
+            reportSent(c);
+        }
+
+        @Override
+        public void onClosed(NioConnection c, IOException cause) {
+            if (c == null || c != connection) {
+                // 연결 시도 실패 (잠시 후 재시도)
+                if (running) {
+                    String message = cause != null ? cause.getMessage() : "connection closed";
+                    LOG.warning("TCP 연결 실패: " + message);
+                    listener.onConnectionError(message);
+                    connectFailureCounter.increment();
+                    reconnectTimer = loop.schedule(RECONNECT_DELAY_NANOS, EcgStreamingClient.this::connect);
+                }
+                return;
+            }
+            if (cause != null && running) {
+                LOG.warning("TCP I/O error: " + cause.getMessage());
+            }
+            connection = null;
+            connected = false;
+            outbound.detach();
+            binaryFraming = false;
+            compressedFraming = false;
+            framingRequested = false;
+            prefilterActive = false;
+            if (frameTimer != null) {
+                frameTimer.cancel();
+                frameTimer = null;
+            }
+            failCaptureOnDisconnect();
+            listener.onConnectionChanged(false);
+            if (running) {
+                reconnectCounter.increment();
+                loop.execute(EcgStreamingClient.this::connect);
+            }
+        }
+    }
+
+    // 서버의 측정 상태는 연결마다 따로이므로 연결이 끊기면 진행 중인 측정은 실패로 처리
+    private void failCaptureOnDisconnect() {
+        CaptureMode mode;
+        synchronized (this) {
+            mode = captureMode;
+            clearCapture();
+        }
+        if (mode != null && running) {
+            listener.onVerdict(Verdict.failed(mode, "서버 연결이 끊겨 측정이 중단되었습니다."));
+        }
+    }
+
+    // ========== 전송 (루프 스레드) ==========
+
+    // 데이터 레인: 큐의 샘플을 송신 버퍼로 옮김. 공간이 모자라면 멈추고 OutboundScheduler 가 이어서 호출
+    private final class SampleLane implements OutboundScheduler.DataLane {
+        @Override
+        public boolean writeTo(ByteBuffer out) {
+            while (batchPos < batchCount || !dataQueue.isEmpty()) {
+                if (batchPos == batchCount) {
+                    if (out.remaining() < BATCH_RESERVE_BYTES) {
+                        return true;
+                    }
+                    batchCount = dataQueue.drainTo(sendBatch);
+                    batchPos = 0;
+                }
+                if (binaryFraming) {
+                    // 프레임이 가득 차면 송신 버퍼에 기록, 자리가 없으면 남은 배치는 다음 pump 에서
+                    long now = System.nanoTime();
+                    int start = batchPos;
+                    boolean blocked = false;
+                    while (batchPos < batchCount) {
+                        if (frameEncoder.isFull() && frameEncoder.writeTo(out) == 0) {
+                            blocked = true;
+                            break;
+                        }
+                        frameEncoder.add(sendBatch[batchPos++], now);
+                    }
+                    if (!blocked && frameEncoder.isFull() && frameEncoder.writeTo(out) == 0) {
+                        blocked = true;
+                    }
+                    drainedSamples += batchPos - start;
+                    recordWritten();
+                    if (blocked) {
+                        return true;
+                    }
+                } else {
+                    // 텍스트 한 줄/샘플 (문자열 생성 없음)
+                    for (int i = batchPos; i < batchCount; i++) {
+                        NioConnection.writeIntLine(out, sendBatch[i]);
+                    }
+                    drainedSamples += batchCount - batchPos;
+                    batchPos = batchCount;
+                    recordWritten();
+                }
+            }
+            // 미완성 프레임은 첫 샘플 후 최대 지연 안에 전송
+            if (frameEncoder.pendingSamples() > 0 && frameTimer == null) {
+                frameTimer = loop.schedule(FRAME_MAX_DELAY_NANOS, EcgStreamingClient.this::flushPendingFrame);
+            }
+            return false;
+        }
+
+        @Override
+        public boolean writePartialTo(ByteBuffer out) {
+            if (frameEncoder.pendingSamples() == 0) {
+                return true;
+            }
+            if (frameEncoder.writeTo(out) == 0) {
+                return false;
+            }
+            recordWritten();
+            return true;
+        }
+
+        @Override
+        public void discard() {
+            dataQueue.clear();
+            batchPos = 0;
+            batchCount = 0;
+            frameEncoder.discardPending();
+            sentTracker.reset();
+            drainedSamples = 0;
+            reportedProgressStep = 0;
+            collectedReported = false;
+        }
+    }
+
+    // 송신 버퍼에 들어간 샘플 수 기록 (미완성 프레임에 남은 샘플은 제외)
+    private void recordWritten() {
+        NioConnection c = connection;
+        if (c != null) {
+            sentTracker.record(drainedSamples - frameEncoder.pendingSamples(), c.bytesQueued());
+        }
+    }
+
+    // 커널로 넘어간 샘플 수로 진행률 / 수집 완료 알림
+    private void reportSent(NioConnection c) {
+        long sent = sentTracker.acknowledge(c.bytesSent());
+        if (tracing && sent > 0 && !collectedReported) {
+            traceWritten(sent);
+        }
+        if (collectedReported || sent / PROGRESS_STEP <= reportedProgressStep) {
+            return;
+        }
+        CaptureMode mode;
+        int required;
+        synchronized (this) {
+            mode = captureMode;
+            required = requiredSamples;
+        }
+        if (mode == null) {
+            return;
+        }
+        if (sent >= required) {
+            collectedReported = true;
+            listener.onCaptureCollected(mode, (int) sent);
+        } else {
+            reportedProgressStep = sent / PROGRESS_STEP;
+            listener.onCaptureProgress(mode, (int) sent, required);
+        }
+    }
+
+    private synchronized void traceWritten(long sent) {
+        // 이번 측정에서 큐에 넣은 샘플이 있을 때만 (이전 측정의 송신 완료 알림 제외)
+        if (captureMode != null && !captureTrace.isEmpty()) {
+            captureTrace.onWritten(System.nanoTime(), sent >= requiredSamples);
+        }
+    }
+
+    // 기한이 된 미완성 프레임을 스케줄러 순서대로 전송 (송신 버퍼가 가득 차면 onWritable 에서 이어서)
+    private void flushPendingFrame() {
+        frameTimer = null;
+        outbound.flushPartial();
+    }
+
+    // ========== 시계 차이 (루프 스레드) ==========
+
+    // 왕복 측정을 CLOCK_PROBES 번 (응답을 받을 때마다 다음 요청, 명령 레인으로 샘플보다 먼저 나감)
+    private void startClockSync() {
+        if (connection == null || clockUnsupported) {
+            return;
+        }
+        clock.reset();
+        clockProbesLeft = CLOCK_PROBES;
+        sendClockProbe();
+    }
+
+    private void sendClockProbe() {
+        clockProbesLeft--;
+        outbound.send(commandLine(requestSequence.incrementAndGet(), "TIME:" + System.nanoTime()));
+    }
+
+    private void onClockProbe(ServerMessage msg, long receivedNanos) {
+        if (!clock.add(msg.getT0(), msg.getT1(), msg.getT2(), receivedNanos)) {
+            LOG.fine("시계 차이 측정 버림: t0=" + msg.getT0() + " t1=" + msg.getT1() + " t2=" + msg.getT2());
+        }
+        if (clockProbesLeft > 0) {
+            sendClockProbe();
+        } else if (clock.hasEstimate()) {
+            LOG.fine("서버 시계 차이: " + clock.getOffsetNanos() / 1000 + "us (rtt " + clock.getRttNanos() / 1000 + "us)");
+        }
+    }
+
+    // 결과를 받은 측정의 단계별 지연을 지표와 리스너로 알림
+    private void reportBreakdown(CaptureMode mode, CaptureTrace trace, ServerMessage msg, long verdictNanos) {
+        LatencyBreakdown breakdown = LatencyBreakdown.compute(trace, msg.getServerLastSampleNanos(),
+                msg.getServerProcessStartNanos(), msg.getServerReplyNanos(), clock, verdictNanos);
+        for (LatencyBreakdown.Stage stage : LatencyBreakdown.Stage.values()) {
+            if (breakdown.isKnown(stage)) {
+                METRICS.histogram("trace." + stage.key()).recordNanos(breakdown.getNanos(stage));
+            }
+        }
+        LOG.fine("지연 (" + mode + "): " + breakdown);
+        listener.onLatencyBreakdown(mode, breakdown);
+    }
+
+    // 수집이 끝난 측정이 그대로면 남은 샘플(미완성 프레임 포함) 뒤에 COMPLETE
+    private void sendComplete(long generation) {
+        long requestId;
+        synchronized (this) {
+            if (generation != captureGeneration || captureMode == null) {
+                // 그 사이 취소되었거나 새 측정이 시작됨
+                return;
+            }
+            requestId = captureRequestId;
+        }
+        outbound.sendAfterData(commandLine(requestId, "COMPLETE"));
+    }
+
+    // ========== 수신 (루프 스레드) ==========
+
+    // 서버 응답 한 줄 (JSON) 처리: type 이 있으면 명령별로, 없으면(구버전 서버) 내용으로 구분
+    void handleResponse(String line) {
+        long receivedNanos = System.nanoTime();
+        ServerMessage msg;
+        try {
+            msg = ServerMessage.parse(line);
+        } catch (IOException e) {
+            LOG.warning("JSON 파싱 실패: " + line);
+            listener.onServerError("응답 JSON 파싱 실패");
+            return;
+        }
+        if (msg.getType() != null) {
+            dispatch(msg, receivedNanos);
+        } else {
+            handleLegacyResponse(msg, receivedNanos);
+        }
+    }
+
+    // type 으로 어떤 명령의 응답인지 알 수 있음 - 측정과 무관한 명령의 응답(오류 포함)은 측정을 건드리지 않음
+    private void dispatch(ServerMessage msg, long receivedNanos) {
+        String status = msg.getStatus();
+        String message = msg.getMessage();
+        switch (msg.getType()) {
+            case WELCOME:
+                // 연결 알림은 onConnectionChanged 로 이미 전달, 이후 명령부터 요청 번호를 붙임
+                requestIds = msg.isRequestIdsSupported();
+                return;
+            case FRAMING:
+                if ("framing".equals(status)) {
+                    onFraming(msg.getFraming());
+                } else {
+                    framingRequested = false;
+                    compressedFramingRequested = false;
+                    LOG.info("프레임 협상 실패 - 텍스트 모드 유지: " + message);
+                }
+                return;
+            case PREFILTER:
+                resetSendFilter();
+                prefilterActive = sendFilter != null && "prefilter".equals(status) && msg.isPrefilter();
+                return;
+            case TIME:
+                if ("time".equals(status)) {
+                    onClockProbe(msg, receivedNanos);
+                } else {
+                    disableClockSync();
+                }
+                return;
+            case REGISTER:
+            case LOGIN:
+            case COMPLETE:
+            case PROCESS:
+                onCaptureResponse(msg, receivedNanos);
+                return;
+            case USERS:
+                if (msg.getUsers() != null) {
+                    listener.onUserList(msg.getUsers());
+                } else {
+                    listener.onServerError(message);
+                }
+                return;
+            case DELETE:
+                listener.onUserDeleted("success".equals(status), message);
+                return;
+            case LOGOUT:
+                // 측정은 logout() 에서 이미 정리함 (그 뒤 시작한 측정은 그대로 둠)
+                if ("success".equals(status)) {
+                    sessionId = null;
+                    loggedInUserId = null;
+                    listener.onLoggedOut(message);
+                } else {
+                    listener.onServerError(message);
+                }
+                return;
+            default:
+                if ("error".equals(status)) {
+                    listener.onServerError(message);
+                } else {
+                    listener.onServerMessage(status, message);
+                }
+        }
+    }
+
+    // 측정 명령(REGISTER/LOGIN/COMPLETE)의 응답과 버퍼가 차서 나온 결과
+    private void onCaptureResponse(ServerMessage msg, long receivedNanos) {
+        if ("ready".equals(msg.getStatus())) {
+            onReady(msg);
+            return;
+        }
+        Verdict.Kind kind;
+        if ("success".equals(msg.getStatus())) {
+            kind = msg.getType() == ServerMessage.Type.REGISTER ? Verdict.Kind.REGISTERED
+                    : msg.getType() == ServerMessage.Type.LOGIN ? Verdict.Kind.LOGGED_IN
+                    : Verdict.Kind.PROCESSED;
+        } else {
+            kind = failureKind(msg.getStatus());
+        }
+        if (kind == null) {
+            listener.onServerMessage(msg.getStatus(), msg.getMessage());
+            return;
+        }
+        CaptureMode fallbackMode = msg.getType() == ServerMessage.Type.REGISTER ? CaptureMode.REGISTER
+                : msg.getType() == ServerMessage.Type.LOGIN ? CaptureMode.LOGIN
+                : modeOf(kind);
+        finishCapture(kind, fallbackMode, msg, receivedNanos);
+    }
+
+    // 구버전 서버 (type/id 없음): 상태와 메시지 내용으로 응답 종류를 추측
+    private void handleLegacyResponse(ServerMessage msg, long receivedNanos) {
+        String status = msg.getStatus();
+        String message = msg.getMessage();
+
+        switch (status) {
+            case "connected":
+                // 환영 메시지 (연결 알림은 onConnectionChanged 로 이미 전달)
+                return;
+            case "framing":
+                onFraming(msg.getFraming());
+                return;
+            case "prefilter":
+                resetSendFilter();
+                prefilterActive = sendFilter != null && msg.isPrefilter();
+                return;
+            case "ready":
+                onReady(msg);
+                return;
+            case "time":
+                onClockProbe(msg, receivedNanos);
+                return;
+            default:
+                break;
+        }
+
+        if ("error".equals(status)) {
+            // 구버전 서버는 FRAMING / PREFILTER 명령을 모름 (사용자에게 오류 표시하지 않음)
+            if (framingRequested && !binaryFraming && message.contains("FRAMING")) {
+                framingRequested = false;
+                LOG.info("서버가 바이너리 프레임을 지원하지 않음 - 텍스트 모드 유지");
+                return;
+            }
+            if (sendFilter != null && message.contains("PREFILTER")) {
+                LOG.info("서버가 PREFILTER 를 지원하지 않음 - 원본 샘플 전송");
+                return;
+            }
+            if (message.endsWith("명령어: TIME")) {
+                disableClockSync();
+                return;
+            }
+        }
+
+        if (msg.getUsers() != null) {
+            listener.onUserList(msg.getUsers());
+            return;
+        }
+        if (message.contains("삭제") && message.contains("사용자")) {
+            listener.onUserDeleted("success".equals(status), message);
+            return;
+        }
+        if (message.contains("로그아웃")) {
+            synchronized (this) {
+                clearCapture();
+            }
+            sessionId = null;
+            loggedInUserId = null;
+            listener.onLoggedOut(message);
+            return;
+        }
+
+        Verdict.Kind kind = classify(status, message, msg);
+        if (kind == null) {
+            listener.onServerMessage(status, message);
+            return;
+        }
+        finishCapture(kind, modeOf(kind), msg, receivedNanos);
+    }
+
+    // 측정 결과를 알리고 측정을 끝냄. 요청 번호가 지금 측정의 것이 아니면(취소 후 뒤늦게 온 결과 등) 버림
+    private void finishCapture(Verdict.Kind kind, CaptureMode fallbackMode, ServerMessage msg, long receivedNanos) {
+        boolean stale;
+        CaptureMode mode = null;
+        long startNanos = 0;
+        CaptureTrace trace = null;
+        synchronized (this) {
+            stale = !isCurrentCapture(msg.getRequestId());
+            if (!stale) {
+                mode = captureMode;
+                startNanos = captureStartNanos;
+                if (tracing && mode != null && !captureTrace.isEmpty()) {
+                    trace = captureTrace.copy();
+                }
+                clearCapture();
+            }
+        }
+        if (stale) {
+            dropStale(msg);
+            return;
+        }
+        if (mode != null) {
+            (mode == CaptureMode.REGISTER ? registerVerdictTime : loginVerdictTime).recordSince(startNanos);
+        }
+        if (kind == Verdict.Kind.FAILED && mode == null) {
+            // 측정과 무관한 오류 (잘못된 명령 등)
+            listener.onServerError(msg.getMessage());
+            return;
+        }
+        if (mode == null) {
+            mode = fallbackMode;
+        }
+        if (trace != null) {
+            reportBreakdown(mode, trace, msg, receivedNanos);
+        }
+        Verdict verdict = Verdict.from(kind, mode, msg);
+        if (kind == Verdict.Kind.LOGGED_IN) {
+            sessionId = verdict.getSessionId();
+            loggedInUserId = verdict.getUserId() != null ? verdict.getUserId() : "unknown";
+        }
+        listener.onVerdict(verdict);
+    }
+
+    // this 모니터 안에서 호출: 요청 번호가 없거나(구버전 서버, 측정 없이 처리된 결과) 지금 측정의 번호
+    private boolean isCurrentCapture(long requestId) {
+        return requestId == 0 || requestId == captureRequestId;
+    }
+
+    private void dropStale(ServerMessage msg) {
+        staleResponseCounter.increment();
+        LOG.fine("지난 측정의 응답 버림: " + msg);
+    }
+
+    private void disableClockSync() {
+        clockUnsupported = true;
+        clockProbesLeft = 0;
+        LOG.info("서버가 TIME 을 지원하지 않음 - 앱 쪽 지연만 추적");
+    }
+
+    // 구버전 서버의 측정 결과 응답 분류 (기존 handleAuthResponse 와 같은 조건), 결과가 아니면 null
+    private static Verdict.Kind classify(String status, String message, ServerMessage msg) {
+        if ("success".equals(status)) {
+            if (message.contains("등록") || (msg.hasUserId() && msg.hasRegisteredAt())) {
+                return Verdict.Kind.REGISTERED;
+            }
+            if (msg.hasSessionId() || message.contains("로그인")) {
+                return Verdict.Kind.LOGGED_IN;
+            }
+            return Verdict.Kind.PROCESSED;
+        }
+        return failureKind(status);
+    }
+
+    private static Verdict.Kind failureKind(String status) {
+        switch (status) {
+            case "auth_failed":
+                return Verdict.Kind.AUTH_FAILED;
+            case "insufficient_peaks":
+            case "low_quality":
+                return Verdict.Kind.POOR_SIGNAL;
+            case "error":
+                return Verdict.Kind.FAILED;
+            default:
+                return null;
+        }
+    }
+
+    // 측정 중이 아닐 때 받은 결과의 측정 종류
+    private static CaptureMode modeOf(Verdict.Kind kind) {
+        return kind == Verdict.Kind.REGISTERED ? CaptureMode.REGISTER
+                : kind == Verdict.Kind.LOGGED_IN || kind == Verdict.Kind.AUTH_FAILED ? CaptureMode.LOGIN
+                : null;
+    }
+
+    // 프레임 협상 응답: 압축을 모르는 서버(텍스트로 응답)면 BIN1 로 한 번 더 요청
+    private void onFraming(String framing) {
+        boolean compressed = SampleFrameEncoder.FRAMING_NAME_COMPRESSED.equalsIgnoreCase(framing);
+        binaryFraming = compressed || SampleFrameEncoder.FRAMING_NAME.equalsIgnoreCase(framing);
+        compressedFraming = compressed;
+        frameEncoder.setCompression(compressed
+                ? SampleFrameEncoder.Compression.DELTA_RICE : SampleFrameEncoder.Compression.NONE);
+        if (!binaryFraming && compressedFramingRequested) {
+            compressedFramingRequested = false;
+            LOG.info("서버가 압축 프레임을 지원하지 않음 - BIN1 요청");
+            outbound.send(commandLine(requestSequence.incrementAndGet(), "FRAMING:" + SampleFrameEncoder.FRAMING_NAME));
+            return;
+        }
+        compressedFramingRequested = false;
+        LOG.fine("샘플 전송 방식: " + (compressed ? "압축 프레임" : binaryFraming ? "바이너리 프레임" : "텍스트"));
+    }
+
+    // ready: 요청 번호가 지금 측정의 것일 때만 수집 시작
+    private void onReady(ServerMessage msg) {
+        CaptureMode mode = CaptureMode.fromServer(msg.getMode());
+        int required = Math.max(DEFAULT_REQUIRED_SAMPLES, msg.getRequiredSamples());
+        boolean stale;
+        synchronized (this) {
+            stale = !isCurrentCapture(msg.getRequestId());
+            if (!stale) {
+                if (mode == null) {
+                    mode = captureMode;
+                }
+                if (mode == null) {
+                    return;
+                }
+                captureMode = mode;
+                collecting = true;
+                capturedSamples = 0;
+                requiredSamples = required;
+                captureGeneration++;
+                if (sendFilter != null) {
+                    sendFilter.reset();
+                }
+            }
+        }
+        if (stale) {
+            dropStale(msg);
+            return;
+        }
+        listener.onCaptureStarted(mode, required);
+    }
+
+    // ========== 상태 ==========
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /** 서버가 ready 로 응답한 뒤 아직 필요한 샘플을 다 보내지 않은 상태 */
+    public synchronized boolean isCollecting() {
+        return collecting;
+    }
+
+    /** register/login 명령 후 결과를 받기 전이면 그 측정 종류, 아니면 null */
+    public synchronized CaptureMode getCaptureMode() {
+        return captureMode;
+    }
+
+    /** 지금 측정의 요청 번호 (측정이 없으면 0) */
+    synchronized long getCaptureRequestId() {
+        return captureRequestId;
+    }
+
+    public synchronized int getCapturedSamples() {
+        return capturedSamples;
+    }
+
+    public synchronized int getRequiredSamples() {
+        return requiredSamples;
+    }
+
+    /** 큐가 가득 차 버린 샘플 수 (모든 정책, 누적) */
+    public synchronized long getDroppedSamples() {
+        return droppedSamples;
+    }
+
+    /** BLOCK 정책에서 생산자 스레드가 기다린 샘플 수 (누적) */
+    public synchronized long getBlockedSamples() {
+        return blockedSamples;
+    }
+
+    /** 샘플 큐에 동시에 쌓였던 최대 샘플 수 (큐 용량 이하) */
+    public synchronized int getQueueHighWaterMark() {
+        return queueHighWaterMark;
+    }
+
+    /** 지금 큐에 쌓인 샘플 수 (근사치) */
+    public int getQueuedSamples() {
+        return dataQueue.size();
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public String getLoggedInUserId() {
+        return loggedInUserId;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.ecgapp.client;
+
+/**
+ * 송신 버퍼에 넣은 샘플 수를 그때의 누적 바이트 위치와 함께 기록해 두고,
+ * 커널로 넘어간 누적 바이트(NioConnection.bytesSent)로 실제 전송된 샘플 수를 계산한다.
+ * 표시 배열이 가득 차면 마지막 표시를 늘려 쓰므로 할당이 없다 (보고가 조금 늦어질 뿐).
+ *
+ * 루프 스레드 전용.
+ */
+final class SentSampleTracker {
+
+    private final long[] markBytes;
+    private final long[] markSamples;
+    private int first;
+    private int count;
+    private long lastSamples;
+    private long sent;
+
+    SentSampleTracker(int marks) {
+        markBytes = new long[marks];
+        markSamples = new long[marks];
+    }
+
+    /** 새 측정 / 새 연결 */
+    void reset() {
+        first = 0;
+        count = 0;
+        lastSamples = 0;
+        sent = 0;
+    }
+
+    /** 송신 버퍼에 들어간 누적 샘플 수와, 그 마지막 바이트까지의 누적 바이트 위치 */
+    void record(long samplesInBuffer, long queuedBytes) {
+        if (samplesInBuffer <= lastSamples) {
+            return;
+        }
+        lastSamples = samplesInBuffer;
+        if (count == markBytes.length) {
+            int last = (first + count - 1) % markBytes.length;
+            markBytes[last] = queuedBytes;
+            markSamples[last] = samplesInBuffer;
+            return;
+        }
+        int i = (first + count) % markBytes.length;
+        markBytes[i] = queuedBytes;
+        markSamples[i] = samplesInBuffer;
+        count++;
+    }
+
+    /** 커널로 넘어간 누적 바이트까지 확인된 전송 샘플 수 */
+    long acknowledge(long sentBytes) {
+        while (count > 0 && markBytes[first] <= sentBytes) {
+            sent = markSamples[first];
+            first = (first + 1) % markBytes.length;
+            count--;
+        }
+        return sent;
+    }
+
+    long sent() {
+        return sent;
+    }
+}
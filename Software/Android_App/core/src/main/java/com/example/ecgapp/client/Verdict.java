@@ -0,0 +1,134 @@
+package com.example.ecgapp.client;
+
+import com.example.ecgapp.protocol.ServerMessage;
+
+import org.json.JSONObject;
+
+/**
+ * 측정 한 번에 대한 서버의 최종 응답 (등록/로그인 결과, 처리 실패 등).
+ * 서버 응답(ServerMessage)에서 화면에 필요한 값만 꺼내 둔 불변 객체.
+ */
+public final class Verdict {
+
+    public enum Kind {
+        REGISTERED,   // 등록 완료
+        LOGGED_IN,    // 로그인 성공 (세션 발급)
+        AUTH_FAILED,  // 일치하는 사용자 없음
+        POOR_SIGNAL,  // R-peak 부족 등 신호 품질 문제
+        FAILED,       // 측정 중 오류 (서버 오류, 연결 끊김)
+        PROCESSED     // 인증과 무관한 ECG 처리 결과
+    }
+
+    private final Kind kind;
+    private final CaptureMode mode;
+    private final String message;
+    private final String userId;
+    private final String sessionId;
+    private final double similarity;
+    private final double threshold;
+    private final double heartRate;
+    private final int numBeats;
+    private final double qualityScore;
+    private final String signatureHash;
+
+    private Verdict(Kind kind, CaptureMode mode, String message, String userId, String sessionId,
+                    double similarity, double threshold, double heartRate, int numBeats,
+                    double qualityScore, String signatureHash) {
+        this.kind = kind;
+        this.mode = mode;
+        this.message = message;
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.similarity = similarity;
+        this.threshold = threshold;
+        this.heartRate = heartRate;
+        this.numBeats = numBeats;
+        this.qualityScore = qualityScore;
+        this.signatureHash = signatureHash;
+    }
+
+    static Verdict from(Kind kind, CaptureMode mode, ServerMessage msg) {
+        // 로그인 실패는 best_similarity 로 옴 (auth_manager.login)
+        double similarity = kind == Kind.AUTH_FAILED ? msg.getBestSimilarity() : msg.getSimilarity();
+        double threshold = Double.isNaN(msg.getThreshold()) ? 0.90 : msg.getThreshold();
+        return new Verdict(kind, mode,
+                msg.getMessage(),
+                msg.getUserId(),
+                msg.getSessionId(),
+                similarity,
+                threshold,
+                msg.getHeartRate(),
+                msg.getNumBeats(),
+                msg.getQualityScore(),
+                msg.getSignatureHash());
+    }
+
+    static Verdict failed(CaptureMode mode, String message) {
+        return new Verdict(Kind.FAILED, mode, message, null, null, 0, 0.90, 0, 0, 0, "");
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** 이 응답이 끝낸 측정 종류 (측정과 무관한 응답이면 null) */
+    public CaptureMode getMode() {
+        return mode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getHeartRate() {
+        return heartRate;
+    }
+
+    public int getNumBeats() {
+        return numBeats;
+    }
+
+    public double getQualityScore() {
+        return qualityScore;
+    }
+
+    public String getSignatureHash() {
+        return signatureHash;
+    }
+
+    /** 녹화/로그용 JSON (화면에 쓰는 값만) */
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("kind", kind.name());
+        json.put("mode", mode != null ? mode.name() : JSONObject.NULL);
+        json.put("message", message);
+        json.put("user_id", userId != null ? userId : JSONObject.NULL);
+        json.put("similarity", similarity);
+        json.put("threshold", threshold);
+        json.put("heart_rate", heartRate);
+        json.put("num_beats", numBeats);
+        json.put("quality_score", qualityScore);
+        return json;
+    }
+
+    @Override
+    public String toString() {
+        return "Verdict{" + kind + ", mode=" + mode + ", user=" + userId + ", message=" + message + "}";
+    }
+}
@@ -0,0 +1,270 @@
+package com.example.ecgapp.log;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 비동기 로거 (샘플 수신/전송 같은 핫 패스용).
+ * - 레벨이 꺼져 있으면 at() 이 공유 빈 이벤트를 돌려줘 문자열 생성/포맷/할당이 전혀 없음
+ * - 켜져 있으면 미리 할당한 이벤트 링의 칸 하나에 템플릿과 인자(원시값)만 담고, 포맷과 출력은 전용 스레드에서
+ * - 링이 가득 차면 기다리지 않고 버림 (getDropped)
+ *
+ * 사용: LOG.at(AsyncLogger.WARN, TAG, "값 범위 벗어남: {} (생략 {}개)").arg(value).arg(skipped).log();
+ * at() 으로 받은 이벤트는 반드시 같은 스레드에서 log() 까지 호출해야 한다 (그 전까지 출력 스레드가 기다림).
+ * 레벨 값은 android.util.Log 의 우선순위와 같다.
+ */
+public final class AsyncLogger implements AutoCloseable {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    /** 포맷이 끝난 로그를 실제로 출력 (출력 스레드 하나에서만 호출) */
+    public interface Writer {
+        void write(int level, String tag, String message, Throwable error);
+    }
+
+    private static final int MAX_ARGS = 4;
+    private static final byte KIND_LONG = 0;
+    private static final byte KIND_DOUBLE = 1;
+    private static final byte KIND_OBJECT = 2;
+    // 출력 스레드가 할 일이 없을 때 최대 대기 (로그가 들어오면 바로 깨움)
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    /** 링의 칸 하나. at() 이 돌려주며 arg() 로 인자를 채우고 log() 로 게시한다 */
+    public static final class Event {
+        private final AsyncLogger owner;
+        volatile long published = -1;
+        long sequence;
+        int level;
+        String tag;
+        String template;
+        int argCount;
+        final byte[] kinds = new byte[MAX_ARGS];
+        final long[] values = new long[MAX_ARGS];
+        final Object[] objects = new Object[MAX_ARGS];
+        Throwable error;
+
+        Event(AsyncLogger owner) {
+            this.owner = owner;
+        }
+
+        public Event arg(long value) {
+            if (owner != null && argCount < MAX_ARGS) {
+                kinds[argCount] = KIND_LONG;
+                values[argCount++] = value;
+            }
+            return this;
+        }
+
+        /** 소수점 한 자리로 출력 */
+        public Event arg(double value) {
+            if (owner != null && argCount < MAX_ARGS) {
+                kinds[argCount] = KIND_DOUBLE;
+                values[argCount++] = Double.doubleToRawLongBits(value);
+            }
+            return this;
+        }
+
+        /** 출력 스레드에서 String.valueOf 로 변환 (이미 있는 객체만 넘겨야 할당이 없음) */
+        public Event arg(Object value) {
+            if (owner != null && argCount < MAX_ARGS) {
+                kinds[argCount] = KIND_OBJECT;
+                objects[argCount++] = value;
+            }
+            return this;
+        }
+
+        public Event error(Throwable t) {
+            if (owner != null) {
+                error = t;
+            }
+            return this;
+        }
+
+        public void log() {
+            if (owner != null) {
+                owner.publish(this);
+            }
+        }
+    }
+
+    // 레벨이 꺼졌거나 링이 가득 찼을 때 돌려주는 빈 이벤트 (모든 메서드가 아무것도 하지 않음)
+    private static final Event NOOP = new Event(null);
+
+    private final Writer writer;
+    private final Event[] ring;
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread thread;
+    private final StringBuilder text = new StringBuilder(256); // 출력 스레드 전용
+    private volatile int minLevel;
+    private volatile boolean waiting;
+    private volatile boolean running = true;
+
+    /** @param capacity 링 크기 (2의 거듭제곱으로 올림) */
+    public AsyncLogger(String name, int capacity, int minLevel, Writer writer) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new Event[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Event(this);
+        }
+        this.mask = size - 1;
+        this.minLevel = minLevel;
+        this.writer = writer;
+        this.thread = new Thread(this::drainLoop, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isLoggable(int level) {
+        return level >= minLevel;
+    }
+
+    public void setMinLevel(int level) {
+        minLevel = level;
+    }
+
+    public int getMinLevel() {
+        return minLevel;
+    }
+
+    /** 레벨이 꺼져 있거나 링이 가득 차면 빈 이벤트 (arg/log 해도 아무 일 없음) */
+    public Event at(int level, String tag, String template) {
+        if (level < minLevel) {
+            return NOOP;
+        }
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() >= ring.length) {
+                dropped.increment();
+                return NOOP;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+        Event e = ring[(int) (seq & mask)];
+        e.sequence = seq;
+        e.level = level;
+        e.tag = tag;
+        e.template = template;
+        e.argCount = 0;
+        e.error = null;
+        return e;
+    }
+
+    /** 인자 없는 로그 */
+    public void log(int level, String tag, String message) {
+        at(level, tag, message).log();
+    }
+
+    public void log(int level, String tag, String message, Throwable error) {
+        at(level, tag, message).error(error).log();
+    }
+
+    private void publish(Event e) {
+        e.published = e.sequence;
+        if (waiting) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    /** 링이 가득 차 버린 로그 수 (누적) */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /** 지금까지 넣은 로그가 모두 출력될 때까지 기다림 (최대 timeoutMillis). 다 출력했으면 true */
+    public boolean flush(long timeoutMillis) {
+        long target = claimed.get();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        while (consumed.get() < target) {
+            if (System.nanoTime() - deadline >= 0 || !thread.isAlive()) {
+                return false;
+            }
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        return true;
+    }
+
+    /** 남은 로그를 출력하고 스레드 종료 */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drainLoop() {
+        long next = 0;
+        while (true) {
+            Event e = ring[(int) (next & mask)];
+            if (e.published != next) {
+                if (!running && claimed.get() == next) {
+                    return;
+                }
+                // 잠들기 전에 한 번 더 확인 (게시 직후 waiting 을 보는 생산자와 엇갈리지 않도록)
+                waiting = true;
+                if (e.published != next) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                waiting = false;
+                continue;
+            }
+            try {
+                writer.write(e.level, e.tag, format(e), e.error);
+            } catch (RuntimeException ex) {
+                // 출력 실패는 로그를 버리는 것으로 끝냄 (로거 스레드는 계속)
+            }
+            e.tag = null;
+            e.template = null;
+            e.error = null;
+            for (int i = 0; i < e.argCount; i++) {
+                e.objects[i] = null;
+            }
+            next++;
+            consumed.set(next);
+        }
+    }
+
+    // "{}" 를 인자로 차례대로 바꿈 (남는 {} 는 그대로, 남는 인자는 버림)
+    private String format(Event e) {
+        String template = e.template;
+        if (e.argCount == 0 || template == null) {
+            return template;
+        }
+        text.setLength(0);
+        int arg = 0;
+        int start = 0;
+        int at;
+        while (arg < e.argCount && (at = template.indexOf("{}", start)) >= 0) {
+            text.append(template, start, at);
+            switch (e.kinds[arg]) {
+                case KIND_LONG:
+                    text.append(e.values[arg]);
+                    break;
+                case KIND_DOUBLE:
+                    text.append(String.format(Locale.US, "%.1f", Double.longBitsToDouble(e.values[arg])));
+                    break;
+                default:
+                    text.append(e.objects[arg]);
+                    break;
+            }
+            arg++;
+            start = at + 2;
+        }
+        text.append(template, start, template.length());
+        return text.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.ecgapp.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 샘플마다 생길 수 있는 로그(범위 벗어난 값 등)를 구간당 한 번으로 줄임.
+ * 허락하지 않은 횟수는 세어 두었다가 다음 로그에 takeSuppressed() 로 붙인다.
+ * 잠금/할당 없음, 여러 스레드에서 호출해도 됨.
+ *
+ * 사용: if (LOG.isLoggable(WARN) && limiter.tryAcquire(now)) { LOG.at(...).arg(limiter.takeSuppressed()).log(); }
+ */
+public final class LogRateLimiter {
+
+    private final long intervalNanos;
+    // 다음으로 허락할 시각 (0 이면 아직 한 번도 허락하지 않음)
+    private final AtomicLong nextAllowedNanos = new AtomicLong();
+    private final LongAdder suppressed = new LongAdder();
+
+    public LogRateLimiter(long interval, TimeUnit unit) {
+        this.intervalNanos = unit.toNanos(interval);
+    }
+
+    /** @param nowNanos System.nanoTime() */
+    public boolean tryAcquire(long nowNanos) {
+        long next = nextAllowedNanos.get();
+        if (next != 0 && nowNanos - next < 0) {
+            suppressed.increment();
+            return false;
+        }
+        long following = nowNanos + intervalNanos;
+        if (nextAllowedNanos.compareAndSet(next, following == 0 ? 1 : following)) {
+            return true;
+        }
+        // 다른 스레드가 먼저 허락받음
+        suppressed.increment();
+        return false;
+    }
+
+    /** 마지막으로 꺼낸 뒤 허락하지 않은 횟수 (꺼내면 0 으로) */
+    public long takeSuppressed() {
+        return suppressed.sumThenReset();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.ecgapp.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** 누적 카운터 (여러 스레드에서 동시에 증가해도 경합이 적은 LongAdder 기반, 잠금 없음) */
+public final class Counter {
+
+    private final LongAdder value = new LongAdder();
+
+    public void increment() {
+        value.increment();
+    }
+
+    public void add(long delta) {
+        value.add(delta);
+    }
+
+    public long get() {
+        return value.sum();
+    }
+
+    void reset() {
+        value.reset();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.ecgapp.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 지연 시간 히스토그램 (HdrHistogram 과 같은 로그-선형 버킷, 나노초 단위 기록).
+ * - 2의 거듭제곱 구간마다 16개 버킷 → 상대 오차 약 6% 이내, 0 ~ Long.MAX_VALUE 전 범위
+ * - 버킷 배열은 생성 시 한 번만 할당, record() 는 잠금/할당 없음
+ * - snapshot() 은 기록과 동시에 호출해도 되며 그 시점의 근사치를 돌려준다
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 지수 4..62 구간 x 16 + 0..15 직접 버킷
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+    public void recordNanos(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketIndex(value));
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long m;
+        while (value < (m = min.get()) && !min.compareAndSet(m, value)) {
+            // 다른 스레드가 먼저 갱신 - 다시 비교
+        }
+        while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+            // 다른 스레드가 먼저 갱신 - 다시 비교
+        }
+    }
+
+    /** start = System.nanoTime() 으로 잰 시작 시각 */
+    public void recordSince(long startNanos) {
+        recordNanos(System.nanoTime() - startNanos);
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    // 버킷에 들어가는 가장 큰 값 (백분위수는 버킷 상한으로 보고해 실제보다 작게 나오지 않음)
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = index % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (long) (SUB_BUCKETS + sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + width - 1;
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.get(), min.get(), max.get());
+    }
+
+    void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        min.set(Long.MAX_VALUE);
+        max.set(Long.MIN_VALUE);
+    }
+
+    /** 한 시점의 히스토그램 (나노초) */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long min;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long min, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.min = count > 0 ? min : 0;
+            this.max = count > 0 ? max : 0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMinNanos() {
+            return min;
+        }
+
+        public long getMaxNanos() {
+            return max;
+        }
+
+        public double getMeanNanos() {
+            return count > 0 ? (double) sum / count : 0;
+        }
+
+        /** @param percentile 0 ~ 100 */
+        public long getPercentileNanos(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.ecgapp.metrics;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongSupplier;
+
+/**
+ * 이름으로 찾는 카운터 / 게이지 / 지연 히스토그램 모음.
+ * - 측정하는 쪽은 counter()/histogram() 으로 한 번 받아 필드에 두고 핫패스에서는 그 객체만 사용 (맵 조회 없음)
+ * - 게이지는 읽을 때 값을 계산 (큐 길이 등 이미 있는 상태를 그대로 노출)
+ * - toJson() / format() 은 진단 화면과 현장 로그용 (호출 시점의 값)
+ *
+ * 앱 전체는 global() 하나를 공유한다. 이름은 "영역.항목" (예: bt.samples, tcp.bytes_sent).
+ */
+public final class MetricsRegistry {
+
+    private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+    private final Map<String, Counter> counters = new ConcurrentSkipListMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentSkipListMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentSkipListMap<>();
+    private final long createdNanos = System.nanoTime();
+
+    public static MetricsRegistry global() {
+        return GLOBAL;
+    }
+
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, n -> new Counter());
+    }
+
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /** 같은 이름이 있으면 바꿈 (연결/스레드가 새로 만들어질 때 다시 등록) */
+    public void gauge(String name, LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /** supplier 가 지금 등록된 것과 같을 때만 제거 (다른 인스턴스가 다시 등록한 게이지는 유지) */
+    public void removeGauge(String name, LongSupplier supplier) {
+        gauges.remove(name, supplier);
+    }
+
+    /** 카운터와 히스토그램을 0 으로 (게이지는 현재 상태이므로 그대로) */
+    public void reset() {
+        for (Counter c : counters.values()) {
+            c.reset();
+        }
+        for (LatencyHistogram h : histograms.values()) {
+            h.reset();
+        }
+    }
+
+    private static long readGauge(LongSupplier supplier) {
+        try {
+            return supplier.getAsLong();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * {"uptime_ms":..., "counters":{...}, "gauges":{...},
+     *  "histograms":{"이름":{"count":..,"mean_ms":..,"p50_ms":..,"p90_ms":..,"p99_ms":..,"max_ms":..}}}
+     */
+    public JSONObject toJson() {
+        JSONObject root = new JSONObject();
+        try {
+            root.put("uptime_ms", (System.nanoTime() - createdNanos) / 1_000_000L);
+            JSONObject c = new JSONObject();
+            for (Map.Entry<String, Counter> e : counters.entrySet()) {
+                c.put(e.getKey(), e.getValue().get());
+            }
+            root.put("counters", c);
+            JSONObject g = new JSONObject();
+            for (Map.Entry<String, LongSupplier> e : gauges.entrySet()) {
+                g.put(e.getKey(), readGauge(e.getValue()));
+            }
+            root.put("gauges", g);
+            JSONObject h = new JSONObject();
+            for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+                LatencyHistogram.Snapshot s = e.getValue().snapshot();
+                JSONObject item = new JSONObject();
+                item.put("count", s.getCount());
+                item.put("mean_ms", millis(s.getMeanNanos()));
+                item.put("p50_ms", millis(s.getPercentileNanos(50)));
+                item.put("p90_ms", millis(s.getPercentileNanos(90)));
+                item.put("p99_ms", millis(s.getPercentileNanos(99)));
+                item.put("max_ms", millis(s.getMaxNanos()));
+                h.put(e.getKey(), item);
+            }
+            root.put("histograms", h);
+        } catch (JSONException e) {
+            // 키가 모두 문자열, 값이 모두 유한한 숫자이므로 일어나지 않음
+            throw new IllegalStateException(e);
+        }
+        return root;
+    }
+
+    /** 진단 화면용 한 줄/항목 텍스트 */
+    public String format() {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, Counter> e : counters.entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(e.getValue().get()).append('\n');
+        }
+        for (Map.Entry<String, LongSupplier> e : gauges.entrySet()) {
+            sb.append(e.getKey()).append(" = ").append(readGauge(e.getValue())).append('\n');
+        }
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            LatencyHistogram.Snapshot s = e.getValue().snapshot();
+            sb.append(e.getKey()).append(String.format(Locale.US,
+                    " n=%d p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n", s.getCount(),
+                    millis(s.getPercentileNanos(50)), millis(s.getPercentileNanos(90)),
+                    millis(s.getPercentileNanos(99)), millis(s.getMaxNanos())));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
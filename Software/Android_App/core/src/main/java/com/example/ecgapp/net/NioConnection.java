@@ -0,0 +1,338 @@
+package com.example.ecgapp.net;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * NioEventLoop 위의 비차단 TCP 연결 하나 (줄 단위 수신 + 바이트 송신).
+ * - 연결 시간 제한, 읽기, 부분 쓰기 처리를 모두 루프 스레드에서 수행
+ * - 송신은 미리 할당한 direct ByteBuffer 하나로 모음 (명령과 샘플 프레임이 같은 순서로 나감)
+ * - 커널 송신 버퍼가 차서 다 못 쓴 경우 OP_WRITE 로 이어서 쓰고, 공간이 생기면 Handler.onWritable 호출
+ *
+ * open() 을 제외한 모든 메서드는 루프 스레드에서만 호출해야 한다.
+ */
+public final class NioConnection {
+
+    private static final Logger LOG = Logger.getLogger("ECG_NIO");
+
+    public static final int DEFAULT_BUFFER_SIZE = 16 * 1024;
+    // 서버 응답 한 줄의 최대 길이 (사용자 목록 등)
+    private static final int MAX_LINE_BYTES = 1024 * 1024;
+
+    /** 연결 이벤트 (루프 스레드에서 호출) */
+    public interface Handler {
+        void onConnected(NioConnection connection);
+
+        /** 줄바꿈으로 끝나는 수신 한 줄 (줄바꿈 제외, UTF-8) */
+        void onLine(NioConnection connection, String line);
+
+        /** 송신 버퍼에 공간이 생김 (밀려 있던 데이터를 더 넣어도 됨) */
+        default void onWritable(NioConnection connection) {
+        }
+
+        /** 데이터 일부가 커널로 넘어감 (bytesSent() 가 늘어남) */
+        default void onSent(NioConnection connection) {
+        }
+
+        /** 연결 실패 또는 종료. 정상 종료(close(null) / 서버가 닫음)면 cause 는 null */
+        void onClosed(NioConnection connection, IOException cause);
+    }
+
+    private final NioEventLoop loop;
+    private final SocketChannel channel;
+    private final Handler handler;
+    private final ByteBuffer inbound;
+    // 쓰기 모드로 유지 (position = 다음에 쓸 위치), 전송할 때만 잠시 flip
+    private final ByteBuffer outbound;
+    private SelectionKey key;
+    private NioEventLoop.Timer connectTimer;
+    private boolean connected;
+    private boolean closed;
+    // 커널로 넘긴 누적 바이트
+    private long bytesSent;
+
+    private byte[] line = new byte[256];
+    private int lineLength;
+
+    private NioConnection(NioEventLoop loop, SocketChannel channel, Handler handler, int bufferSize) {
+        this.loop = loop;
+        this.channel = channel;
+        this.handler = handler;
+        this.inbound = ByteBuffer.allocateDirect(bufferSize);
+        this.outbound = ByteBuffer.allocateDirect(bufferSize);
+    }
+
+    /** 비차단 연결 시작 (어느 스레드에서 호출해도 됨). 결과는 handler 로 알림 */
+    public static void open(NioEventLoop loop, InetSocketAddress address, long connectTimeoutNanos,
+                            int bufferSize, Handler handler) {
+        loop.execute(() -> {
+            SocketChannel channel = null;
+            try {
+                channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+                NioConnection connection = new NioConnection(loop, channel, handler, bufferSize);
+                connection.start(address, connectTimeoutNanos);
+            } catch (IOException e) {
+                closeQuietly(channel);
+                handler.onClosed(null, e);
+            }
+        });
+    }
+
+    private void start(InetSocketAddress address, long connectTimeoutNanos) throws IOException {
+        if (address.isUnresolved()) {
+            throw new IOException("알 수 없는 호스트: " + address.getHostString());
+        }
+        key = channel.register(loop.selector(), 0, this);
+        if (channel.connect(address)) {
+            finishConnect();
+        } else {
+            key.interestOps(SelectionKey.OP_CONNECT);
+            connectTimer = loop.schedule(connectTimeoutNanos, () -> close(new SocketTimeoutException(
+                    "connect timed out after " + TimeUnit.NANOSECONDS.toMillis(connectTimeoutNanos) + "ms")));
+        }
+    }
+
+    void handleReady(SelectionKey readyKey) {
+        try {
+            if (readyKey.isConnectable()) {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+                finishConnect();
+            }
+            if (!closed && readyKey.isValid() && readyKey.isWritable()) {
+                flush();
+                if (!closed && outbound.position() == 0) {
+                    handler.onWritable(this);
+                }
+            }
+            if (!closed && readyKey.isValid() && readyKey.isReadable()) {
+                read();
+            }
+        } catch (IOException e) {
+            close(e);
+        }
+    }
+
+    private void finishConnect() {
+        if (connectTimer != null) {
+            connectTimer.cancel();
+            connectTimer = null;
+        }
+        connected = true;
+        key.interestOps(SelectionKey.OP_READ);
+        handler.onConnected(this);
+        // onConnected 에서 넣은 명령 전송
+        if (!closed) {
+            flushQuietly();
+        }
+    }
+
+    private void read() throws IOException {
+        int n;
+        while ((n = channel.read(inbound)) > 0) {
+            inbound.flip();
+            while (inbound.hasRemaining() && !closed) {
+                byte b = inbound.get();
+                if (b == '\n') {
+                    int length = lineLength > 0 && line[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+                    lineLength = 0;
+                    handler.onLine(this, new String(line, 0, length, StandardCharsets.UTF_8));
+                } else {
+                    if (lineLength == line.length) {
+                        if (lineLength >= MAX_LINE_BYTES) {
+                            throw new IOException("response line too long");
+                        }
+                        line = Arrays.copyOf(line, lineLength * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+            inbound.clear();
+            if (closed) {
+                return;
+            }
+        }
+        if (n < 0) {
+            // 서버가 연결을 닫음
+            close(null);
+        }
+    }
+
+    // ========== 송신 ==========
+
+    public boolean isConnected() {
+        return connected && !closed;
+    }
+
+    /** 연결 후 커널로 넘긴 누적 바이트 */
+    public long bytesSent() {
+        return bytesSent;
+    }
+
+    /** 지금까지 송신 버퍼에 넣은 누적 바이트 (bytesSent() 이상) */
+    public long bytesQueued() {
+        return bytesSent + outbound.position();
+    }
+
+    /** 송신 버퍼의 남은 공간 (바이트) */
+    public int writableBytes() {
+        return outbound.remaining();
+    }
+
+    /** 송신 버퍼 (쓰기 모드). 데이터를 넣은 뒤 flush() 호출 */
+    public ByteBuffer outbound() {
+        return outbound;
+    }
+
+    /** 텍스트 한 줄 추가 (UTF-8, 사용자 ID 에 한글 등이 올 수 있음). 공간이 없으면 false */
+    public boolean writeLine(String text) {
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            if (text.charAt(i) >= 0x80) {
+                return writeLineBytes(text.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        // ASCII 만 있는 줄 (명령/샘플 대부분): 바이트 배열 없이 바로 넣음
+        if (outbound.remaining() < length + 1) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            outbound.put((byte) text.charAt(i));
+        }
+        outbound.put((byte) '\n');
+        return true;
+    }
+
+    private boolean writeLineBytes(byte[] bytes) {
+        if (outbound.remaining() < bytes.length + 1) {
+            return false;
+        }
+        outbound.put(bytes);
+        outbound.put((byte) '\n');
+        return true;
+    }
+
+    /** 정수 한 줄 추가 (텍스트 샘플 전송, 문자열 생성 없음). 공간이 없으면 false */
+    public boolean writeIntLine(int value) {
+        return writeIntLine(outbound, value);
+    }
+
+    /** out 에 정수 한 줄 추가 (쓰기 모드 버퍼). 공간이 없으면 false */
+    public static boolean writeIntLine(ByteBuffer outbound, int value) {
+        // 부호 + 최대 10자리 + 줄바꿈
+        if (outbound.remaining() < 12) {
+            return false;
+        }
+        if (value < 0) {
+            outbound.put((byte) '-');
+            if (value == Integer.MIN_VALUE) {
+                outbound.put((byte) '2');
+                value = -147483648;
+            }
+            value = -value;
+        }
+        int start = outbound.position();
+        do {
+            outbound.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        // 뒤집기
+        for (int i = start, j = outbound.position() - 1; i < j; i++, j--) {
+            byte t = outbound.get(i);
+            outbound.put(i, outbound.get(j));
+            outbound.put(j, t);
+        }
+        outbound.put((byte) '\n');
+        return true;
+    }
+
+    /**
+     * 모아 둔 데이터를 가능한 만큼 전송. 다 못 쓰면 남은 부분을 앞으로 당기고 OP_WRITE 로 이어서 보냄.
+     * 연결 전이면 연결된 뒤 전송된다.
+     */
+    public void flush() throws IOException {
+        if (!connected || closed || outbound.position() == 0) {
+            return;
+        }
+        outbound.flip();
+        int written = 0;
+        while (outbound.hasRemaining()) {
+            int n = channel.write(outbound);
+            if (n == 0) {
+                break;
+            }
+            written += n;
+        }
+        boolean pending = outbound.hasRemaining();
+        outbound.compact();
+        int ops = pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ;
+        if (key.interestOps() != ops) {
+            key.interestOps(ops);
+        }
+        if (written > 0) {
+            bytesSent += written;
+            handler.onSent(this);
+        }
+    }
+
+    /** flush() 와 같지만 실패하면 연결을 닫고 false 반환 */
+    public boolean flushQuietly() {
+        try {
+            flush();
+            return !closed;
+        } catch (IOException e) {
+            close(e);
+            return false;
+        }
+    }
+
+    /** 연결을 닫는다 (여러 번 호출해도 한 번만 onClosed). cause 는 오류 원인 (정상 종료면 null) */
+    public void close(IOException cause) {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (connectTimer != null) {
+            connectTimer.cancel();
+            connectTimer = null;
+        }
+        if (key != null) {
+            key.cancel();
+        }
+        closeQuietly(channel);
+        if (cause != null) {
+            LOG.log(Level.FINE, "connection closed", cause);
+        }
+        handler.onClosed(this, cause);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public NioEventLoop getLoop() {
+        return loop;
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                LOG.log(Level.FINE, "채널 닫기 실패", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.ecgapp.net;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Selector 하나로 여러 NioConnection 의 연결/읽기/쓰기와 타이머를 처리하는 단일 스레드 이벤트 루프.
+ * - 연결마다 송신/수신 스레드를 만들지 않으므로 한 프로세스에서 많은 센서 세션을 다룰 수 있다
+ * - 다른 스레드의 작업은 execute() 로 넘기고, 루프 스레드에서 순서대로 실행한다
+ * - 연결 상태와 타이머는 루프 스레드에서만 건드린다 (잠금 없음)
+ */
+public final class NioEventLoop implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger("ECG_NIO");
+
+    /** 예약 작업 (cancel 은 어느 스레드에서 호출해도 됨) */
+    public static final class Timer implements Comparable<Timer> {
+        private final long dueNanos;
+        private final Runnable task;
+        private long order;
+        private volatile boolean cancelled;
+
+        private Timer(long dueNanos, Runnable task) {
+            this.dueNanos = dueNanos;
+            this.task = task;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public int compareTo(Timer other) {
+            int c = Long.compare(dueNanos - other.dueNanos, 0);
+            return c != 0 ? c : Long.compare(order, other.order);
+        }
+    }
+
+    private final Selector selector;
+    private final Thread thread;
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // 루프 스레드 전용
+    private final PriorityQueue<Timer> timers = new PriorityQueue<>();
+    private long timerOrder;
+    private volatile boolean running = true;
+
+    public NioEventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this::run, name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean inLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** 루프 스레드에서 task 실행 (루프 스레드에서 호출하면 현재 작업이 끝난 뒤 실행). 닫힌 뒤에는 버림 */
+    public void execute(Runnable task) {
+        if (!running) {
+            return;
+        }
+        tasks.add(task);
+        if (!inLoop()) {
+            selector.wakeup();
+        }
+    }
+
+    /** delayNanos 후 루프 스레드에서 task 실행 */
+    public Timer schedule(long delayNanos, Runnable task) {
+        Timer timer = new Timer(System.nanoTime() + delayNanos, task);
+        if (inLoop()) {
+            addTimer(timer);
+        } else {
+            execute(() -> addTimer(timer));
+        }
+        return timer;
+    }
+
+    private void addTimer(Timer timer) {
+        // 같은 시각의 타이머는 등록 순서대로 실행
+        timer.order = timerOrder++;
+        timers.add(timer);
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    /** 루프를 멈추고 등록된 채널을 모두 닫는다 */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        if (!inLoop()) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                long waitMillis = runDueTimers();
+                if (!tasks.isEmpty()) {
+                    selector.selectNow();
+                } else if (waitMillis < 0) {
+                    selector.select();
+                } else {
+                    selector.select(Math.max(1, waitMillis));
+                }
+                processSelectedKeys();
+                runTasks();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            LOG.log(Level.WARNING, "이벤트 루프 오류", e);
+        } finally {
+            running = false;
+            closeAll();
+        }
+    }
+
+    // 기한이 지난 타이머 실행 후 다음 타이머까지 남은 시간(ms) 반환 (없으면 -1)
+    private long runDueTimers() {
+        long now = System.nanoTime();
+        Timer next;
+        while ((next = timers.peek()) != null && now - next.dueNanos >= 0) {
+            timers.poll();
+            if (!next.cancelled) {
+                runSafely(next.task);
+            }
+        }
+        if (next == null) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toMillis(next.dueNanos - now + 999_999);
+    }
+
+    private void processSelectedKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            NioConnection connection = (NioConnection) key.attachment();
+            try {
+                if (key.isValid()) {
+                    connection.handleReady(key);
+                }
+            } catch (CancelledKeyException e) {
+                // 처리 도중 다른 곳에서 닫힘
+                connection.close(null);
+            }
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            runSafely(task);
+        }
+    }
+
+    private static void runSafely(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOG.log(Level.SEVERE, "이벤트 루프 작업 실패", e);
+        }
+    }
+
+    private void closeAll() {
+        for (SelectionKey key : selector.keys()) {
+            Object attachment = key.attachment();
+            if (attachment instanceof NioConnection) {
+                ((NioConnection) attachment).close(null);
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Selector 닫기 실패", e);
+        }
+        tasks.clear();
+        timers.clear();
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.ecgapp.net;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.logging.Logger;
+
+/**
+ * NioConnection 하나의 송신 순서를 정하는 스케줄러 (명령 레인 + 대량 데이터 레인).
+ * - 명령은 아직 송신 버퍼에 들어가지 않은 데이터보다 먼저 나간다 (우선 레인)
+ * - sendAfterData() 로 넣은 명령은 장벽: 그때까지 쌓인 데이터(미완성 프레임 포함)를 모두 보낸 뒤 나간다
+ * - 명령끼리는 넣은 순서를 지킨다 (장벽 뒤의 명령은 장벽을 앞지르지 않음)
+ * - flushPartial() 은 장벽 없이 부분 데이터만 내보낸다 (우선 명령과 앞선 데이터 뒤)
+ * - 송신 버퍼가 차면 멈추고, 연결의 onWritable 에서 pump() 를 다시 호출하면 이어서 보낸다
+ *
+ * 모든 메서드는 연결과 같은 이벤트 루프 스레드에서만 호출해야 한다.
+ */
+public final class OutboundScheduler {
+
+    private static final Logger LOG = Logger.getLogger("ECG_NIO");
+
+    /** 대량 데이터 레인 (샘플 등). 루프 스레드에서 호출 */
+    public interface DataLane {
+        /** out 의 남은 공간에 들어가는 만큼 기록. 공간이 모자라 데이터가 남았으면 true */
+        boolean writeTo(ByteBuffer out);
+
+        /** 장벽 직전 호출: 모아 둔 부분 데이터(미완성 프레임 등)를 기록. 공간이 모자라 못 썼으면 false */
+        default boolean writePartialTo(ByteBuffer out) {
+            return true;
+        }
+
+        /** 아직 기록하지 않은 데이터를 모두 버림 */
+        void discard();
+    }
+
+    private static final class Command {
+        final String line;
+        final boolean afterData;
+
+        Command(String line, boolean afterData) {
+            this.line = line;
+            this.afterData = afterData;
+        }
+    }
+
+    private final DataLane lane;
+    private final ArrayDeque<Command> commands = new ArrayDeque<>();
+    private NioConnection connection;
+    // flushPartial() 요청 후 부분 데이터를 아직 기록하지 못함
+    private boolean partialRequested;
+
+    public OutboundScheduler(DataLane lane) {
+        this.lane = lane;
+    }
+
+    /** 새 연결에 붙임 (이전 연결에 남은 명령과 데이터는 버림) */
+    public void attach(NioConnection c) {
+        connection = c;
+        commands.clear();
+        partialRequested = false;
+        lane.discard();
+    }
+
+    /** 연결이 끊김. 남은 명령과 데이터는 버림 (서버 상태가 연결마다 따로이므로) */
+    public void detach() {
+        connection = null;
+        commands.clear();
+        partialRequested = false;
+        lane.discard();
+    }
+
+    /** 우선 레인: 대기 중인 데이터보다 먼저 전송 (앞서 넣은 명령 뒤) */
+    public void send(String line) {
+        enqueue(line, false);
+    }
+
+    /** 장벽: 지금까지 쌓인 데이터를 모두 보낸 뒤 전송 */
+    public void sendAfterData(String line) {
+        enqueue(line, true);
+    }
+
+    /** 아직 보내지 않은 데이터와 그 데이터를 기다리는 장벽 명령을 버림 (측정 취소/재시작) */
+    public void discardData() {
+        lane.discard();
+        partialRequested = false;
+        for (Iterator<Command> it = commands.iterator(); it.hasNext(); ) {
+            if (it.next().afterData) {
+                it.remove();
+            }
+        }
+    }
+
+    /** 부분 데이터(미완성 프레임 등)를 다음 장벽을 기다리지 않고 전송 (대기 중인 명령과 데이터 뒤) */
+    public void flushPartial() {
+        if (connection == null) {
+            return;
+        }
+        partialRequested = true;
+        pump();
+    }
+
+    public int pendingCommands() {
+        return commands.size();
+    }
+
+    private void enqueue(String line, boolean afterData) {
+        if (connection == null) {
+            LOG.warning("Cannot send - not connected: " + line);
+            return;
+        }
+        commands.add(new Command(line, afterData));
+        pump();
+    }
+
+    /**
+     * 명령 → 데이터 → 장벽 순서로 송신 버퍼를 채우고 전송.
+     * 송신 버퍼가 커널로 다 넘어가지 않으면 멈춤 (연결이 OP_WRITE 를 기다렸다가 onWritable 호출).
+     */
+    public void pump() {
+        NioConnection c = connection;
+        if (c == null) {
+            return;
+        }
+        ByteBuffer out = c.outbound();
+        while (!c.isClosed()) {
+            Command head = commands.peek();
+            boolean blocked;
+            if (head != null && !head.afterData) {
+                blocked = !c.writeLine(head.line);
+                if (!blocked) {
+                    commands.poll();
+                }
+            } else {
+                blocked = lane.writeTo(out);
+                if (!blocked) {
+                    if (head == null) {
+                        if (!partialRequested) {
+                            break;
+                        }
+                        // 요청된 부분 데이터만 기록
+                        blocked = !lane.writePartialTo(out);
+                        if (!blocked) {
+                            partialRequested = false;
+                            break;
+                        }
+                    } else {
+                        // 장벽: 데이터가 다 나갔으므로 남은 부분 데이터 후 명령
+                        blocked = !lane.writePartialTo(out) || !c.writeLine(head.line);
+                        if (!blocked) {
+                            partialRequested = false;
+                            commands.poll();
+                        }
+                    }
+                }
+            }
+            if (blocked) {
+                boolean wasEmpty = out.position() == 0;
+                if (!c.flushQuietly() || out.position() > 0) {
+                    // 커널 송신 버퍼가 가득 참
+                    return;
+                }
+                if (wasEmpty && head != null && commands.peek() == head) {
+                    // 빈 버퍼에도 들어가지 않는 명령
+                    LOG.warning("송신 버퍼보다 긴 명령 - 버림: " + head.line);
+                    commands.poll();
+                }
+            }
+        }
+        c.flushQuietly();
+    }
+}
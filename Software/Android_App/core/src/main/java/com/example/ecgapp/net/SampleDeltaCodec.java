@@ -0,0 +1,234 @@
+package com.example.ecgapp.net;
+
+/**
+ * 샘플 프레임 payload 압축 (서버 ecg_server.py 의 decode_delta_varint / decode_delta_rice 와 짝).
+ * ECG 샘플은 이웃끼리 값이 거의 같으므로 직전 샘플과의 차이(1차 예측)를 zigzag 로 부호 없는 수로 바꿔 저장한다.
+ * 프레임마다 첫 샘플은 0 과의 차이로 저장하므로 프레임 하나가 빠져도 다음 프레임은 그대로 풀린다.
+ *
+ * - DELTA_VARINT (encoding=2): zigzag 차이를 LEB128 가변 길이(7비트씩, 작은 자리 먼저)로 나열
+ * - DELTA_RICE (encoding=3): k(1바이트) + 첫 샘플 varint + 나머지 차이를 Rice(k) 비트열로 (MSB 먼저, 마지막 바이트는 0 으로 채움)
+ *   몫 q = z >>> k 가 RICE_ESCAPE 미만이면 1 을 q 개, 0, 하위 k 비트. 아니면 1 을 RICE_ESCAPE 개 뒤 z 를 RICE_RAW_BITS 비트로
+ *
+ * 샘플은 16비트 범위여야 한다 (차이의 zigzag 는 17비트 이하). 상태가 없고 할당하지 않는다.
+ */
+public final class SampleDeltaCodec {
+
+    static final int RICE_ESCAPE = 16;
+    static final int RICE_RAW_BITS = 17;
+    static final int RICE_MAX_K = 15;
+
+    private SampleDeltaCodec() {
+    }
+
+    public static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    public static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // ---- DELTA_VARINT ----
+
+    /** samples[off..off+count) 를 DELTA_VARINT 로 기록할 때의 바이트 수 */
+    public static int varintSize(int[] samples, int off, int count) {
+        int size = 0;
+        int previous = 0;
+        for (int i = off; i < off + count; i++) {
+            size += varintLength(zigzag(samples[i] - previous));
+            previous = samples[i];
+        }
+        return size;
+    }
+
+    /** dst[pos..] 에 기록하고 끝 위치 반환 (공간은 호출자가 varintSize 로 확인) */
+    public static int encodeVarint(int[] samples, int off, int count, byte[] dst, int pos) {
+        int previous = 0;
+        for (int i = off; i < off + count; i++) {
+            pos = writeVarint(zigzag(samples[i] - previous), dst, pos);
+            previous = samples[i];
+        }
+        return pos;
+    }
+
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value >>>= 7) != 0) {
+            length++;
+        }
+        return length;
+    }
+
+    private static int writeVarint(int value, byte[] dst, int pos) {
+        while ((value & ~0x7F) != 0) {
+            dst[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dst[pos++] = (byte) value;
+        return pos;
+    }
+
+    // ---- DELTA_RICE ----
+
+    /** 두 번째 샘플부터의 zigzag 차이 평균으로 고른 Rice 매개변수 (0 ~ RICE_MAX_K) */
+    public static int riceParameter(int[] samples, int off, int count) {
+        long sum = 0;
+        for (int i = off + 1; i < off + count; i++) {
+            sum += zigzag(samples[i] - samples[i - 1]);
+        }
+        long mean = count > 1 ? sum / (count - 1) : 0;
+        int k = 0;
+        while (k < RICE_MAX_K && (1L << (k + 1)) <= mean) {
+            k++;
+        }
+        return k;
+    }
+
+    /** samples 를 매개변수 k 의 DELTA_RICE 로 기록할 때의 바이트 수 */
+    public static int riceSize(int[] samples, int off, int count, int k) {
+        if (count == 0) {
+            return 0;
+        }
+        long bits = 0;
+        for (int i = off + 1; i < off + count; i++) {
+            int q = zigzag(samples[i] - samples[i - 1]) >>> k;
+            bits += q < RICE_ESCAPE ? q + 1 + k : RICE_ESCAPE + RICE_RAW_BITS;
+        }
+        return 1 + varintLength(zigzag(samples[off])) + (int) ((bits + 7) >>> 3);
+    }
+
+    /** dst[pos..] 에 기록하고 끝 위치 반환 (공간은 호출자가 riceSize 로 확인) */
+    public static int encodeRice(int[] samples, int off, int count, int k, byte[] dst, int pos) {
+        if (count == 0) {
+            return pos;
+        }
+        dst[pos++] = (byte) k;
+        pos = writeVarint(zigzag(samples[off]), dst, pos);
+        // 코드 하나는 최대 33비트 - 8비트 미만 남은 비트와 합쳐도 long 하나에 들어감
+        long acc = 0;
+        int used = 0;
+        for (int i = off + 1; i < off + count; i++) {
+            int z = zigzag(samples[i] - samples[i - 1]);
+            int q = z >>> k;
+            if (q < RICE_ESCAPE) {
+                acc = (acc << (q + 1 + k)) | (((1L << q) - 1) << (k + 1)) | (z & ((1 << k) - 1));
+                used += q + 1 + k;
+            } else {
+                acc = (acc << (RICE_ESCAPE + RICE_RAW_BITS)) | (((1L << RICE_ESCAPE) - 1) << RICE_RAW_BITS) | z;
+                used += RICE_ESCAPE + RICE_RAW_BITS;
+            }
+            while (used >= 8) {
+                used -= 8;
+                dst[pos++] = (byte) (acc >>> used);
+            }
+        }
+        if (used > 0) {
+            dst[pos++] = (byte) (acc << (8 - used));
+        }
+        return pos;
+    }
+
+    // ---- 복원 ----
+
+    /**
+     * payload 를 count 개의 샘플로 풀어 out[outOff..] 에 기록.
+     * @throws IllegalArgumentException 모르는 인코딩, 길이 불일치, 손상된 payload
+     */
+    public static void decode(int encoding, byte[] src, int pos, int length, int count, int[] out, int outOff) {
+        int end = pos + length;
+        switch (encoding) {
+            case SampleFrameEncoder.ENCODING_PCM16:
+                if (length != count * 2) {
+                    throw new IllegalArgumentException("PCM16 length " + length + " != " + count * 2);
+                }
+                for (int i = 0; i < count; i++) {
+                    out[outOff + i] = (short) (((src[pos + 2 * i] & 0xFF) << 8) | (src[pos + 2 * i + 1] & 0xFF));
+                }
+                return;
+            case SampleFrameEncoder.ENCODING_DELTA_VARINT: {
+                int previous = 0;
+                for (int i = 0; i < count; i++) {
+                    int value = 0;
+                    int shift = 0;
+                    int b;
+                    do {
+                        if (pos >= end || shift > 28) {
+                            throw new IllegalArgumentException("truncated varint at sample " + i);
+                        }
+                        b = src[pos++];
+                        value |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while ((b & 0x80) != 0);
+                    previous += unzigzag(value);
+                    out[outOff + i] = previous;
+                }
+                if (pos != end) {
+                    throw new IllegalArgumentException((end - pos) + " trailing bytes");
+                }
+                return;
+            }
+            case SampleFrameEncoder.ENCODING_DELTA_RICE: {
+                if (count == 0) {
+                    if (length != 0) {
+                        throw new IllegalArgumentException("payload without samples");
+                    }
+                    return;
+                }
+                if (length < 2) {
+                    throw new IllegalArgumentException("truncated rice header");
+                }
+                int k = src[pos++];
+                if (k < 0 || k > RICE_MAX_K) {
+                    throw new IllegalArgumentException("rice parameter " + k);
+                }
+                // 첫 샘플 (varint)
+                int first = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (pos >= end || shift > 28) {
+                        throw new IllegalArgumentException("truncated first sample");
+                    }
+                    b = src[pos++];
+                    first |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                int previous = unzigzag(first);
+                out[outOff] = previous;
+                long bit = (long) pos * 8;
+                long endBit = (long) end * 8;
+                for (int i = 1; i < count; i++) {
+                    int q = 0;
+                    while (q < RICE_ESCAPE) {
+                        if (bit >= endBit) {
+                            throw new IllegalArgumentException("truncated rice code at sample " + i);
+                        }
+                        if (((src[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1) == 0) {
+                            bit++;
+                            break;
+                        }
+                        bit++;
+                        q++;
+                    }
+                    int n = q < RICE_ESCAPE ? k : RICE_RAW_BITS;
+                    if (bit + n > endBit) {
+                        throw new IllegalArgumentException("truncated rice code at sample " + i);
+                    }
+                    int low = 0;
+                    for (int j = 0; j < n; j++, bit++) {
+                        low = (low << 1) | ((src[(int) (bit >>> 3)] >>> (7 - (bit & 7))) & 1);
+                    }
+                    int z = q < RICE_ESCAPE ? (q << k) | low : low;
+                    previous += unzigzag(z);
+                    out[outOff + i] = previous;
+                }
+                if ((bit + 7) >>> 3 != end) {
+                    throw new IllegalArgumentException("trailing rice bytes");
+                }
+                return;
+            }
+            default:
+                throw new IllegalArgumentException("unknown encoding " + encoding);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.ecgapp.net;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * ECG 샘플 업로드용 바이너리 프레임 인코더 (서버의 SampleFrameDecoder와 짝).
+ *
+ * 프레임 구조 (big-endian, 헤더 12바이트):
+ *   magic(2) = 0xEC 0x47 | version(1) | encoding(1) | seq(4) | sample_count(2) | payload_length(2) | payload
+ *
+ * encoding=1 (PCM16)이면 payload는 부호 있는 16비트 샘플의 나열.
+ * encoding=2 (DELTA_VARINT), 3 (DELTA_RICE)은 이웃 샘플 차이를 압축한 payload (SampleDeltaCodec, BIN2 협상 시).
+ * 압축을 켜면 프레임마다 가장 작은 인코딩을 고르므로 payload는 PCM16보다 커지지 않는다.
+ * 프레임은 maxSamples개가 모이거나, 첫 샘플 이후 maxDelayNanos가 지나면 전송한다.
+ * 단일 스레드(전송 스레드/이벤트 루프) 전용이며 버퍼를 재사용하므로 정상 상태에서 할당이 없다.
+ */
+public final class SampleFrameEncoder {
+
+    public static final int MAGIC_0 = 0xEC;
+    public static final int MAGIC_1 = 0x47;
+    public static final int VERSION = 1;
+    public static final int ENCODING_PCM16 = 1;
+    public static final int ENCODING_DELTA_VARINT = 2;
+    public static final int ENCODING_DELTA_RICE = 3;
+    public static final int HEADER_SIZE = 12;
+    // CMD:FRAMING:<이름> 협상에 사용하는 포맷 이름
+    public static final String FRAMING_NAME = "BIN1";
+    // 압축 프레임(encoding 2, 3)도 받는 서버와의 협상 이름
+    public static final String FRAMING_NAME_COMPRESSED = "BIN2";
+
+    /** payload 압축 방식 */
+    public enum Compression {
+        NONE,        // PCM16
+        DELTA,       // 차이 + zigzag + varint
+        DELTA_RICE   // 위 + 프레임마다 Rice 부호화 (엔트로피 단계)
+    }
+
+    private final int[] samples;
+    private final byte[] frame;
+    private final int maxSamples;
+    private final long maxDelayNanos;
+
+    private Compression compression = Compression.NONE;
+    private int count;
+    private int sequence;
+    private long firstSampleNanos;
+    // frame 에 인코딩해 둔 샘플 수 (pendingBytes 와 writeTo 사이에서 다시 인코딩하지 않음), 없으면 -1
+    private int encodedCount = -1;
+    private int encodedLength;
+
+    public SampleFrameEncoder(int maxSamples, long maxDelayNanos) {
+        if (maxSamples < 1 || maxSamples > 0xFFFF / 2) {
+            throw new IllegalArgumentException("maxSamples out of range: " + maxSamples);
+        }
+        this.maxSamples = maxSamples;
+        this.maxDelayNanos = maxDelayNanos;
+        this.samples = new int[maxSamples];
+        this.frame = new byte[HEADER_SIZE + maxSamples * 2];
+    }
+
+    public SampleFrameEncoder(int maxSamples, long maxDelayNanos, Compression compression) {
+        this(maxSamples, maxDelayNanos);
+        setCompression(compression);
+    }
+
+    // 다음에 기록하는 프레임부터 적용 (서버가 BIN2 를 확인한 뒤에만 NONE 이외 사용)
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+        encodedCount = -1;
+    }
+
+    public Compression getCompression() {
+        return compression;
+    }
+
+    // 샘플 추가. 프레임이 가득 차면 true 반환 (호출자가 writeTo로 전송해야 함, 그 전에 다시 add 하면 예외)
+    public boolean add(int sample, long nowNanos) {
+        if (count == maxSamples) {
+            throw new IllegalStateException("frame is full - writeTo first");
+        }
+        if (count == 0) {
+            firstSampleNanos = nowNanos;
+        }
+        samples[count++] = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, sample));
+        encodedCount = -1;
+        return count >= maxSamples;
+    }
+
+    // 전송 기한이 지난 미완성 프레임이 있는지 확인
+    public boolean isDue(long nowNanos) {
+        return count > 0 && nowNanos - firstSampleNanos >= maxDelayNanos;
+    }
+
+    public boolean isFull() {
+        return count == maxSamples;
+    }
+
+    public int pendingSamples() {
+        return count;
+    }
+
+    public int nextSequence() {
+        return sequence;
+    }
+
+    // 현재 프레임을 out에 기록하고 비움. 기록한 바이트 수 반환 (flush는 호출자 책임)
+    public int writeTo(OutputStream out) throws IOException {
+        if (count == 0) {
+            return 0;
+        }
+        int length = finishFrame();
+        out.write(frame, 0, length);
+        sequence++;
+        clear();
+        return length;
+    }
+
+    // 현재 프레임을 out에 기록하고 비움 (NIO 전송용). 남은 공간이 pendingBytes() 보다 작으면 기록하지 않고 0 반환
+    public int writeTo(ByteBuffer out) {
+        if (count == 0 || out.remaining() < pendingBytes()) {
+            return 0;
+        }
+        int length = finishFrame();
+        out.put(frame, 0, length);
+        sequence++;
+        clear();
+        return length;
+    }
+
+    // 지금 프레임을 기록하면 필요한 바이트 수 (헤더 포함, 비어 있으면 0)
+    public int pendingBytes() {
+        return count == 0 ? 0 : finishFrame();
+    }
+
+    // payload 와 헤더를 채우고 프레임 길이 반환 (샘플이 그대로면 이전 결과 재사용)
+    private int finishFrame() {
+        if (encodedCount == count) {
+            return encodedLength;
+        }
+        int encoding = ENCODING_PCM16;
+        int payloadLength = count * 2;
+        int riceK = 0;
+        if (compression != Compression.NONE) {
+            int size = SampleDeltaCodec.varintSize(samples, 0, count);
+            if (size < payloadLength) {
+                encoding = ENCODING_DELTA_VARINT;
+                payloadLength = size;
+            }
+            if (compression == Compression.DELTA_RICE) {
+                riceK = SampleDeltaCodec.riceParameter(samples, 0, count);
+                size = SampleDeltaCodec.riceSize(samples, 0, count, riceK);
+                if (size < payloadLength) {
+                    encoding = ENCODING_DELTA_RICE;
+                    payloadLength = size;
+                }
+            }
+        }
+        if (encoding == ENCODING_DELTA_VARINT) {
+            SampleDeltaCodec.encodeVarint(samples, 0, count, frame, HEADER_SIZE);
+        } else if (encoding == ENCODING_DELTA_RICE) {
+            SampleDeltaCodec.encodeRice(samples, 0, count, riceK, frame, HEADER_SIZE);
+        } else {
+            for (int i = 0; i < count; i++) {
+                int pos = HEADER_SIZE + i * 2;
+                frame[pos] = (byte) (samples[i] >> 8);
+                frame[pos + 1] = (byte) samples[i];
+            }
+        }
+        frame[0] = (byte) MAGIC_0;
+        frame[1] = (byte) MAGIC_1;
+        frame[2] = (byte) VERSION;
+        frame[3] = (byte) encoding;
+        frame[4] = (byte) (sequence >>> 24);
+        frame[5] = (byte) (sequence >>> 16);
+        frame[6] = (byte) (sequence >>> 8);
+        frame[7] = (byte) sequence;
+        frame[8] = (byte) (count >>> 8);
+        frame[9] = (byte) count;
+        frame[10] = (byte) (payloadLength >>> 8);
+        frame[11] = (byte) payloadLength;
+        encodedCount = count;
+        encodedLength = HEADER_SIZE + payloadLength;
+        return encodedLength;
+    }
+
+    private void clear() {
+        count = 0;
+        encodedCount = -1;
+    }
+
+    // 아직 기록하지 않은 샘플만 버림 (시퀀스는 이어짐)
+    public void discardPending() {
+        clear();
+    }
+
+    // 재연결 시 시퀀스와 미전송 샘플 초기화
+    public void reset() {
+        clear();
+        sequence = 0;
+    }
+}
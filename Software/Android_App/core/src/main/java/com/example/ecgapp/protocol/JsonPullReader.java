@@ -0,0 +1,410 @@
+package com.example.ecgapp.protocol;
+
+import java.io.IOException;
+
+/**
+ * 한 줄 JSON 을 앞에서부터 읽는 작은 풀 파서 (android.util.JsonReader 와 같은 사용법, android.* 의존 없음).
+ * - 필요한 필드만 값으로 꺼내고 나머지는 skipValue() 로 건너뜀 (JSONObject 트리/Map 을 만들지 않음)
+ * - 파이썬 json.dumps 가 내는 NaN / Infinity 도 숫자로 받음
+ *
+ * 형식이 틀리면 IOException. 스레드 하나에서만 사용한다.
+ */
+public final class JsonPullReader {
+
+    public enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    // 중첩 위치별 상태
+    private static final int EMPTY_ARRAY = 1;
+    private static final int NONEMPTY_ARRAY = 2;
+    private static final int EMPTY_OBJECT = 3;
+    private static final int DANGLING_NAME = 4;   // 이름을 읽었고 ':' 와 값이 남음
+    private static final int NONEMPTY_OBJECT = 5;
+    private static final int EMPTY_DOCUMENT = 6;
+    private static final int NONEMPTY_DOCUMENT = 7;
+
+    private final String in;
+    private int pos;
+    private int[] stack = new int[8];
+    private int depth;
+    // peek() 결과 (구조 문자와 여는 따옴표는 이미 읽음, 값 자체는 아직)
+    private Token peeked;
+
+    public JsonPullReader(String in) {
+        this.in = in;
+        stack[depth++] = EMPTY_DOCUMENT;
+    }
+
+    public Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = stack[depth - 1];
+        switch (scope) {
+            case EMPTY_ARRAY:
+                stack[depth - 1] = NONEMPTY_ARRAY;
+                if (peekNonWhitespace() == ']') {
+                    pos++;
+                    return peeked = Token.END_ARRAY;
+                }
+                break;
+            case NONEMPTY_ARRAY: {
+                int c = nextNonWhitespace();
+                if (c == ']') {
+                    return peeked = Token.END_ARRAY;
+                }
+                if (c != ',') {
+                    throw syntaxError("',' 또는 ']' 필요");
+                }
+                break;
+            }
+            case EMPTY_OBJECT:
+            case NONEMPTY_OBJECT: {
+                int c = nextNonWhitespace();
+                if (c == '}') {
+                    return peeked = Token.END_OBJECT;
+                }
+                if (scope == NONEMPTY_OBJECT) {
+                    if (c != ',') {
+                        throw syntaxError("',' 또는 '}' 필요");
+                    }
+                    c = nextNonWhitespace();
+                }
+                if (c != '"') {
+                    throw syntaxError("필드 이름 필요");
+                }
+                stack[depth - 1] = DANGLING_NAME;
+                return peeked = Token.NAME;
+            }
+            case DANGLING_NAME:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("':' 필요");
+                }
+                stack[depth - 1] = NONEMPTY_OBJECT;
+                break;
+            case EMPTY_DOCUMENT:
+                stack[depth - 1] = NONEMPTY_DOCUMENT;
+                break;
+            default:
+                if (peekNonWhitespace() == -1) {
+                    return peeked = Token.END_DOCUMENT;
+                }
+                throw syntaxError("값 뒤에 남은 문자");
+        }
+
+        int c = nextNonWhitespace();
+        switch (c) {
+            case '{':
+                return peeked = Token.BEGIN_OBJECT;
+            case '[':
+                return peeked = Token.BEGIN_ARRAY;
+            case '"':
+                return peeked = Token.STRING;
+            case 't':
+            case 'f':
+                pos--;
+                return peeked = Token.BOOLEAN;
+            case 'n':
+                pos--;
+                return peeked = Token.NULL;
+            case -1:
+                throw syntaxError("입력이 끝남");
+            default:
+                pos--;
+                return peeked = Token.NUMBER;
+        }
+    }
+
+    /** 다음 값/이름이 있으면 true (객체/배열의 끝이면 false) */
+    public boolean hasNext() throws IOException {
+        Token t = peek();
+        return t != Token.END_OBJECT && t != Token.END_ARRAY && t != Token.END_DOCUMENT;
+    }
+
+    public void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        push(EMPTY_OBJECT);
+    }
+
+    public void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    public void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        push(EMPTY_ARRAY);
+    }
+
+    public void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    public String nextName() throws IOException {
+        expect(Token.NAME);
+        return readString();
+    }
+
+    /** 문자열 (숫자면 그 표기 그대로) */
+    public String nextString() throws IOException {
+        Token t = peek();
+        if (t == Token.STRING) {
+            peeked = null;
+            return readString();
+        }
+        if (t == Token.NUMBER) {
+            peeked = null;
+            return readLiteral();
+        }
+        throw syntaxError("문자열 필요 (" + t + ")");
+    }
+
+    /** 숫자 (따옴표 안의 숫자도 허용) */
+    public double nextDouble() throws IOException {
+        String text = nextNumberText();
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            throw syntaxError("숫자 형식 오류: " + text);
+        }
+    }
+
+    public long nextLong() throws IOException {
+        String text = nextNumberText();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            // 3000.0 처럼 소수 표기인 정수
+            double d;
+            try {
+                d = Double.parseDouble(text);
+            } catch (NumberFormatException e2) {
+                throw syntaxError("숫자 형식 오류: " + text);
+            }
+            if (d != Math.rint(d) || Double.isInfinite(d)) {
+                throw syntaxError("정수가 아님: " + text);
+            }
+            return (long) d;
+        }
+    }
+
+    public int nextInt() throws IOException {
+        long value = nextLong();
+        if (value != (int) value) {
+            throw syntaxError("int 범위 초과: " + value);
+        }
+        return (int) value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        expect(Token.BOOLEAN);
+        if (in.startsWith("true", pos)) {
+            pos += 4;
+            return true;
+        }
+        if (in.startsWith("false", pos)) {
+            pos += 5;
+            return false;
+        }
+        throw syntaxError("true/false 필요");
+    }
+
+    public void nextNull() throws IOException {
+        expect(Token.NULL);
+        if (!in.startsWith("null", pos)) {
+            throw syntaxError("null 필요");
+        }
+        pos += 4;
+    }
+
+    /** 다음 값 하나를 (중첩 포함) 만들지 않고 건너뜀 */
+    public void skipValue() throws IOException {
+        int nesting = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    nesting++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    nesting++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    nesting--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    nesting--;
+                    break;
+                case NAME:
+                case STRING:
+                    peeked = null;
+                    skipString();
+                    break;
+                case NUMBER:
+                    peeked = null;
+                    readLiteral();
+                    break;
+                case BOOLEAN:
+                    nextBoolean();
+                    break;
+                case NULL:
+                    nextNull();
+                    break;
+                default:
+                    throw syntaxError("건너뛸 값이 없음");
+            }
+        } while (nesting > 0);
+    }
+
+    private String nextNumberText() throws IOException {
+        Token t = peek();
+        if (t == Token.NUMBER) {
+            peeked = null;
+            return readLiteral();
+        }
+        if (t == Token.STRING) {
+            peeked = null;
+            return readString();
+        }
+        throw syntaxError("숫자 필요 (" + t + ")");
+    }
+
+    private void expect(Token expected) throws IOException {
+        Token t = peek();
+        if (t != expected) {
+            throw syntaxError(expected + " 필요 (" + t + ")");
+        }
+        peeked = null;
+    }
+
+    private void push(int scope) {
+        if (depth == stack.length) {
+            int[] bigger = new int[depth * 2];
+            System.arraycopy(stack, 0, bigger, 0, depth);
+            stack = bigger;
+        }
+        stack[depth++] = scope;
+    }
+
+    // 여는 따옴표 다음부터 닫는 따옴표까지 (이스케이프가 없으면 substring 한 번)
+    private String readString() throws IOException {
+        int start = pos;
+        StringBuilder sb = null;
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                if (sb == null) {
+                    return in.substring(start, pos - 1);
+                }
+                sb.append(in, start, pos - 1);
+                return sb.toString();
+            }
+            if (c == '\\') {
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(in, start, pos - 1);
+                sb.append(readEscape());
+                start = pos;
+            }
+        }
+        throw syntaxError("문자열이 끝나지 않음");
+    }
+
+    private void skipString() throws IOException {
+        while (pos < in.length()) {
+            char c = in.charAt(pos++);
+            if (c == '"') {
+                return;
+            }
+            if (c == '\\') {
+                readEscape();
+            }
+        }
+        throw syntaxError("문자열이 끝나지 않음");
+    }
+
+    private char readEscape() throws IOException {
+        if (pos >= in.length()) {
+            throw syntaxError("이스케이프가 끝나지 않음");
+        }
+        char c = in.charAt(pos++);
+        switch (c) {
+            case 'u':
+                if (pos + 4 > in.length()) {
+                    throw syntaxError("\\u 이스케이프가 끝나지 않음");
+                }
+                try {
+                    char decoded = (char) Integer.parseInt(in.substring(pos, pos + 4), 16);
+                    pos += 4;
+                    return decoded;
+                } catch (NumberFormatException e) {
+                    throw syntaxError("\\u 이스케이프 형식 오류");
+                }
+            case 'n':
+                return '\n';
+            case 't':
+                return '\t';
+            case 'r':
+                return '\r';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case '"':
+            case '\\':
+            case '/':
+                return c;
+            default:
+                throw syntaxError("알 수 없는 이스케이프: \\" + c);
+        }
+    }
+
+    // 숫자/NaN/Infinity 표기 (구분 문자 전까지)
+    private String readLiteral() throws IOException {
+        int start = pos;
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (c == ',' || c == '}' || c == ']' || c == ':' || isWhitespace(c)) {
+                break;
+            }
+            pos++;
+        }
+        if (pos == start) {
+            throw syntaxError("값 필요");
+        }
+        return in.substring(start, pos);
+    }
+
+    private int nextNonWhitespace() {
+        int c = peekNonWhitespace();
+        if (c != -1) {
+            pos++;
+        }
+        return c;
+    }
+
+    private int peekNonWhitespace() {
+        while (pos < in.length()) {
+            char c = in.charAt(pos);
+            if (!isWhitespace(c)) {
+                return c;
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException("JSON " + message + " (위치 " + pos + ")");
+    }
+}
@@ -0,0 +1,458 @@
+package com.example.ecgapp.protocol;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 서버 응답 한 줄을 JsonPullReader 로 읽어 필요한 필드만 담은 불변 객체.
+ * - type / id: 어떤 명령(CMD:#id:...)에 대한 응답인지 (구버전 서버는 보내지 않음 - getType() 이 null)
+ * - 응답 종류마다 쓰는 필드가 다르므로 없는 필드는 기본값 (문자열 null, 숫자 0, threshold 는 NaN)
+ * - commands 목록처럼 앱이 쓰지 않는 필드는 값을 만들지 않고 건너뜀
+ */
+public final class ServerMessage {
+
+    /** 응답이 답한 명령 (서버의 "type", 명령 이름 소문자) */
+    public enum Type {
+        WELCOME, FRAMING, PREFILTER, TIME, REGISTER, LOGIN, COMPLETE, PROCESS,
+        LOGOUT, USERS, DELETE, STATUS, CANCEL, VERIFY, OTHER;
+
+        static Type fromServer(String value) {
+            switch (value) {
+                case "welcome":
+                    return WELCOME;
+                case "framing":
+                    return FRAMING;
+                case "prefilter":
+                    return PREFILTER;
+                case "time":
+                    return TIME;
+                case "register":
+                    return REGISTER;
+                case "login":
+                    return LOGIN;
+                case "complete":
+                    return COMPLETE;
+                case "process":
+                    return PROCESS;
+                case "logout":
+                    return LOGOUT;
+                case "users":
+                    return USERS;
+                case "delete":
+                    return DELETE;
+                case "status":
+                    return STATUS;
+                case "cancel":
+                    return CANCEL;
+                case "verify":
+                    return VERIFY;
+                default:
+                    return OTHER;
+            }
+        }
+    }
+
+    private Type type;
+    private long requestId;
+    private String status = "error";
+    private String message = "";
+    private String mode;
+    private int requiredSamples;
+    private String framing = "";
+    private boolean prefilter;
+    private boolean requestIdsSupported;
+    private long t0;
+    private long t1;
+    private long t2;
+    private List<String> users;
+    private String userId;
+    private boolean hasUserId;
+    private String sessionId;
+    private boolean hasSessionId;
+    private boolean hasRegisteredAt;
+    private double similarity;
+    private double bestSimilarity;
+    private double threshold = Double.NaN;
+    private double heartRate;
+    private int numBeats;
+    private double qualityScore;
+    private String signatureHash = "";
+    private long serverLastSampleNanos;
+    private long serverProcessStartNanos;
+    private long serverReplyNanos;
+
+    private ServerMessage() {
+    }
+
+    /** @throws IOException 한 줄이 올바른 JSON 객체가 아님 */
+    public static ServerMessage parse(String line) throws IOException {
+        JsonPullReader reader = new JsonPullReader(line);
+        ServerMessage msg = new ServerMessage();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            switch (name) {
+                case "type": {
+                    String value = readString(reader);
+                    msg.type = value != null ? Type.fromServer(value) : null;
+                    break;
+                }
+                case "id":
+                    msg.requestId = readLong(reader);
+                    break;
+                case "status": {
+                    String value = readString(reader);
+                    msg.status = value != null ? value : "error";
+                    break;
+                }
+                case "message": {
+                    String value = readString(reader);
+                    msg.message = value != null ? value : "";
+                    break;
+                }
+                case "mode":
+                    msg.mode = readString(reader);
+                    break;
+                case "required_samples":
+                    msg.requiredSamples = (int) readLong(reader);
+                    break;
+                case "framing": {
+                    String value = readString(reader);
+                    msg.framing = value != null ? value : "";
+                    break;
+                }
+                case "prefilter":
+                    msg.prefilter = readBoolean(reader);
+                    break;
+                case "request_ids":
+                    msg.requestIdsSupported = readBoolean(reader);
+                    break;
+                case "t0":
+                    msg.t0 = readLong(reader);
+                    break;
+                case "t1":
+                    msg.t1 = readLong(reader);
+                    break;
+                case "t2":
+                    msg.t2 = readLong(reader);
+                    break;
+                case "users":
+                    msg.users = readUsers(reader);
+                    break;
+                case "user_id":
+                    msg.hasUserId = true;
+                    msg.userId = readString(reader);
+                    break;
+                case "session_id":
+                    msg.hasSessionId = true;
+                    msg.sessionId = readString(reader);
+                    break;
+                case "registered_at":
+                    msg.hasRegisteredAt = true;
+                    reader.skipValue();
+                    break;
+                case "similarity":
+                    msg.similarity = readDouble(reader, 0);
+                    break;
+                case "best_similarity":
+                    msg.bestSimilarity = readDouble(reader, 0);
+                    break;
+                case "threshold":
+                    msg.threshold = readDouble(reader, Double.NaN);
+                    break;
+                case "quality_score":
+                    msg.qualityScore = readDouble(reader, 0);
+                    break;
+                case "signature_hash": {
+                    String value = readString(reader);
+                    msg.signatureHash = value != null ? value : "";
+                    break;
+                }
+                case "summary":
+                    readSummary(reader, msg);
+                    break;
+                case "server_timing":
+                    readServerTiming(reader, msg);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+        if (reader.peek() != JsonPullReader.Token.END_DOCUMENT) {
+            throw new IOException("JSON 객체 뒤에 남은 값");
+        }
+        return msg;
+    }
+
+    // summary: {"heart_rate": ..., "num_beats": ...}
+    private static void readSummary(JsonPullReader reader, ServerMessage msg) throws IOException {
+        if (reader.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "heart_rate":
+                    msg.heartRate = readDouble(reader, 0);
+                    break;
+                case "num_beats":
+                    msg.numBeats = (int) readLong(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    // server_timing: 서버 time.monotonic_ns() 시각들 (지연 추적 중인 측정 결과에만)
+    private static void readServerTiming(JsonPullReader reader, ServerMessage msg) throws IOException {
+        if (reader.peek() != JsonPullReader.Token.BEGIN_OBJECT) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "last_sample_ns":
+                    msg.serverLastSampleNanos = readLong(reader);
+                    break;
+                case "process_start_ns":
+                    msg.serverProcessStartNanos = readLong(reader);
+                    break;
+                case "reply_ns":
+                    msg.serverReplyNanos = readLong(reader);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
+    }
+
+    // 사용자 목록: 서버는 {"user_id": ...} 객체 배열을 보냄 (문자열 배열도 허용)
+    private static List<String> readUsers(JsonPullReader reader) throws IOException {
+        if (reader.peek() != JsonPullReader.Token.BEGIN_ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> users = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonPullReader.Token.BEGIN_OBJECT) {
+                String userId = "";
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    if ("user_id".equals(reader.nextName())) {
+                        String value = readString(reader);
+                        userId = value != null ? value : "";
+                    } else {
+                        reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                users.add(userId);
+            } else {
+                String value = readString(reader);
+                if (value != null) {
+                    users.add(value);
+                }
+            }
+        }
+        reader.endArray();
+        return Collections.unmodifiableList(users);
+    }
+
+    // 문자열 필드 (숫자/불리언은 표기 그대로, null 이나 객체/배열이면 null)
+    private static String readString(JsonPullReader reader) throws IOException {
+        switch (reader.peek()) {
+            case STRING:
+            case NUMBER:
+                return reader.nextString();
+            case BOOLEAN:
+                return String.valueOf(reader.nextBoolean());
+            default:
+                reader.skipValue();
+                return null;
+        }
+    }
+
+    // 숫자 필드 (따옴표 안의 숫자 허용, 그 밖의 값이면 기본값)
+    private static double readDouble(JsonPullReader reader, double fallback) throws IOException {
+        switch (reader.peek()) {
+            case NUMBER:
+                return reader.nextDouble();
+            case STRING:
+                try {
+                    return Double.parseDouble(reader.nextString());
+                } catch (NumberFormatException e) {
+                    return fallback;
+                }
+            default:
+                reader.skipValue();
+                return fallback;
+        }
+    }
+
+    // 정수 필드: 나노초 시각은 double 로 읽으면 자릿수를 잃으므로 nextLong (그 밖의 값이면 0)
+    private static long readLong(JsonPullReader reader) throws IOException {
+        JsonPullReader.Token token = reader.peek();
+        if (token != JsonPullReader.Token.NUMBER && token != JsonPullReader.Token.STRING) {
+            reader.skipValue();
+            return 0;
+        }
+        String text = reader.nextString();
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            try {
+                double value = Double.parseDouble(text);
+                return Double.isNaN(value) ? 0 : (long) value;
+            } catch (NumberFormatException e2) {
+                return 0;
+            }
+        }
+    }
+
+    private static boolean readBoolean(JsonPullReader reader) throws IOException {
+        if (reader.peek() == JsonPullReader.Token.BOOLEAN) {
+            return reader.nextBoolean();
+        }
+        String value = readString(reader);
+        return "true".equalsIgnoreCase(value);
+    }
+
+    /** 응답이 답한 명령, 구버전 서버(type 없음)면 null */
+    public Type getType() {
+        return type;
+    }
+
+    /** 명령의 요청 번호 (CMD:#id:...), 없으면 0 */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /** 없으면 "error" */
+    public String getStatus() {
+        return status;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    /** ready 응답의 측정 종류 (register/login), 없으면 null */
+    public String getMode() {
+        return mode;
+    }
+
+    /** ready 응답의 필요한 샘플 수, 없으면 0 */
+    public int getRequiredSamples() {
+        return requiredSamples;
+    }
+
+    public String getFraming() {
+        return framing;
+    }
+
+    public boolean isPrefilter() {
+        return prefilter;
+    }
+
+    /** 환영 메시지: 서버가 CMD:#id: 요청 번호를 받아 응답에 되돌려 줌 */
+    public boolean isRequestIdsSupported() {
+        return requestIdsSupported;
+    }
+
+    public long getT0() {
+        return t0;
+    }
+
+    public long getT1() {
+        return t1;
+    }
+
+    public long getT2() {
+        return t2;
+    }
+
+    /** 사용자 목록 응답이 아니면 null */
+    public List<String> getUsers() {
+        return users;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public boolean hasUserId() {
+        return hasUserId;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public boolean hasSessionId() {
+        return hasSessionId;
+    }
+
+    public boolean hasRegisteredAt() {
+        return hasRegisteredAt;
+    }
+
+    public double getSimilarity() {
+        return similarity;
+    }
+
+    /** 로그인 실패 응답의 최고 유사도 */
+    public double getBestSimilarity() {
+        return bestSimilarity;
+    }
+
+    /** 없으면 NaN */
+    public double getThreshold() {
+        return threshold;
+    }
+
+    public double getHeartRate() {
+        return heartRate;
+    }
+
+    public int getNumBeats() {
+        return numBeats;
+    }
+
+    public double getQualityScore() {
+        return qualityScore;
+    }
+
+    public String getSignatureHash() {
+        return signatureHash;
+    }
+
+    /** server_timing 의 서버 시각들, 없으면 0 */
+    public long getServerLastSampleNanos() {
+        return serverLastSampleNanos;
+    }
+
+    public long getServerProcessStartNanos() {
+        return serverProcessStartNanos;
+    }
+
+    public long getServerReplyNanos() {
+        return serverReplyNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "ServerMessage{type=" + type + ", id=" + requestId + ", status=" + status + ", message=" + message + "}";
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.ecgapp.record;
+
+import java.nio.ByteOrder;
+
+/**
+ * 측정 녹화 파일(.ecgr) 형식 (리틀 엔디언).
+ *
+ * 헤더 32바이트:
+ *   0  "ECGR" 매직, 4 버전(u16), 6 헤더 크기(u16), 8 샘플링 주파수(i32, Hz), 12 예약,
+ *   16 생성 시각(i64, epoch ms), 24 데이터 끝(i64, 마지막으로 완성된 레코드 뒤 오프셋)
+ * 레코드: 종류(u8) + 내용 길이(u32) + 내용 (모르는 종류는 길이만큼 건너뜀)
+ *   CHUNK   - 수신 시각(i64, System.nanoTime) + 샘플 수(i32) + 샘플(i32 x n)
+ *   SESSION - 시각(i64) + 측정 종류(u8, 0 없음/1 등록/2 로그인) + 필요 샘플 수(i32) + 사용자 ID(u16 길이 + UTF-8)
+ *   VERDICT - 시각(i64) + 결과 JSON(u32 길이 + UTF-8)
+ *
+ * 데이터 끝은 레코드를 다 쓴 뒤에만 갱신하므로 앱이 중간에 죽어도 그 앞까지는 읽을 수 있다.
+ */
+final class CaptureFile {
+
+    static final int MAGIC = 0x52474345; // "ECGR" (리틀 엔디언)
+    static final short VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    static final int SAMPLE_RATE_OFFSET = 8;
+    static final int CREATED_OFFSET = 16;
+    static final int DATA_END_OFFSET = 24;
+    static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final byte CHUNK = 1;
+    static final byte SESSION = 2;
+    static final byte VERDICT = 3;
+
+    static final int RECORD_HEADER_BYTES = 1 + 4;
+    static final int CHUNK_FIXED_BYTES = 8 + 4;
+
+    private CaptureFile() {
+    }
+}
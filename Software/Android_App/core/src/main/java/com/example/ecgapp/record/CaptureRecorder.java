@@ -0,0 +1,226 @@
+package com.example.ecgapp.record;
+
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.stream.SampleSink;
+
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 샘플 스트림을 녹화 파일(.ecgr, CaptureFile 형식)에 덧붙여 쓰는 기록기 (현장 실패 재현용).
+ * - 파일을 REGION_BYTES 씩 MappedByteBuffer 로 매핑해 샘플마다 시스템 호출 없이 기록
+ * - 센서 청크(onChunkReceived)마다 CHUNK 레코드 하나 (수신 시각 포함), 청크 정보가 없으면 MAX_CHUNK_SAMPLES 개마다 나눔
+ * - 측정 시작(SESSION)과 서버 결과(VERDICT)를 같은 파일에 남김
+ *
+ * 모든 메서드는 동기화되어 있어 샘플 스레드와 클라이언트 스레드에서 함께 호출해도 된다.
+ * 기록 중 I/O 오류가 나면 기록을 멈추고 getError() 로 알린다 (샘플 스트림은 막지 않음).
+ */
+public final class CaptureRecorder implements SampleSink, Closeable {
+
+    private static final int REGION_BYTES = 256 * 1024;
+    static final int MAX_CHUNK_SAMPLES = 256;
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private MappedByteBuffer region;
+    private long regionStart;
+    private long dataEnd = CaptureFile.HEADER_BYTES;
+
+    // 기록 중인 CHUNK 레코드 (region 안의 위치, 없으면 -1)
+    private int chunkStart = -1;
+    private int chunkSamples;
+    private long pendingChunkNanos;
+
+    private long samples;
+    private boolean closed;
+    private boolean released;
+    private IOException error;
+
+    private CaptureRecorder(File file, int sampleRate) throws IOException {
+        this.file = file;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength(0);
+            this.channel = raf.getChannel();
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, CaptureFile.HEADER_BYTES);
+            header.order(CaptureFile.ORDER);
+            header.putInt(0, CaptureFile.MAGIC);
+            header.putShort(4, CaptureFile.VERSION);
+            header.putShort(6, (short) CaptureFile.HEADER_BYTES);
+            header.putInt(CaptureFile.SAMPLE_RATE_OFFSET, sampleRate);
+            header.putLong(CaptureFile.CREATED_OFFSET, System.currentTimeMillis());
+            header.putLong(CaptureFile.DATA_END_OFFSET, dataEnd);
+            mapRegion(REGION_BYTES);
+        } catch (IOException | RuntimeException e) {
+            raf.close();
+            throw e;
+        }
+    }
+
+    /** 새 파일을 만든다 (있으면 덮어씀) */
+    public static CaptureRecorder create(File file, int sampleRate) throws IOException {
+        return new CaptureRecorder(file, sampleRate);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void onChunkReceived(long receivedNanos) {
+        finishChunk();
+        pendingChunkNanos = receivedNanos;
+    }
+
+    @Override
+    public synchronized void onSample(int value) {
+        if (closed) {
+            return;
+        }
+        try {
+            if (chunkStart < 0 || chunkSamples >= MAX_CHUNK_SAMPLES || region.remaining() < 4) {
+                finishChunk();
+                beginChunk();
+            }
+            region.putInt(value);
+            chunkSamples++;
+            samples++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** 측정 시작 (서버가 ready 로 응답한 시점) */
+    public synchronized void recordSession(CaptureMode mode, String userId, int requiredSamples) {
+        if (closed) {
+            return;
+        }
+        byte[] id = (userId != null ? userId : "").getBytes(StandardCharsets.UTF_8);
+        int idLength = Math.min(id.length, 0xFFFF);
+        try {
+            finishChunk();
+            int length = 8 + 1 + 4 + 2 + idLength;
+            beginRecord(CaptureFile.SESSION, length);
+            region.putLong(System.nanoTime());
+            region.put((byte) (mode != null ? mode.ordinal() + 1 : 0));
+            region.putInt(requiredSamples);
+            region.putShort((short) idLength);
+            region.put(id, 0, idLength);
+            commit();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** 서버 결과 (Verdict.toJson 등) */
+    public synchronized void recordVerdict(JSONObject json) {
+        if (closed) {
+            return;
+        }
+        byte[] text = json.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            finishChunk();
+            beginRecord(CaptureFile.VERDICT, 8 + 4 + text.length);
+            region.putLong(System.nanoTime());
+            region.putInt(text.length);
+            region.put(text);
+            commit();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /** 지금까지 기록한 샘플 수 */
+    public synchronized long getSamples() {
+        return samples;
+    }
+
+    /** 기록을 멈추게 한 I/O 오류 (없으면 null) */
+    public synchronized IOException getError() {
+        return error;
+    }
+
+    /** 남은 청크를 마무리하고 파일을 실제 데이터 길이로 줄여 닫는다 */
+    @Override
+    public synchronized void close() throws IOException {
+        if (released) {
+            return;
+        }
+        released = true;
+        if (!closed) {
+            finishChunk();
+            closed = true;
+        }
+        try {
+            header.force();
+            region.force();
+            channel.truncate(dataEnd);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private void beginChunk() throws IOException {
+        ensure(CaptureFile.RECORD_HEADER_BYTES + CaptureFile.CHUNK_FIXED_BYTES + 4);
+        chunkStart = region.position();
+        region.put(CaptureFile.CHUNK);
+        region.putInt(0); // 길이 - 청크를 닫을 때 채움
+        region.putLong(pendingChunkNanos != 0 ? pendingChunkNanos : System.nanoTime());
+        region.putInt(0); // 샘플 수
+        chunkSamples = 0;
+        // 같은 센서 청크가 여러 레코드로 나뉘어도 다음 레코드는 실제로 나뉜 시각
+        pendingChunkNanos = 0;
+    }
+
+    private void finishChunk() {
+        if (chunkStart < 0) {
+            return;
+        }
+        region.putInt(chunkStart + 1, CaptureFile.CHUNK_FIXED_BYTES + chunkSamples * 4);
+        region.putInt(chunkStart + CaptureFile.RECORD_HEADER_BYTES + 8, chunkSamples);
+        chunkStart = -1;
+        commit();
+    }
+
+    private void beginRecord(byte type, int length) throws IOException {
+        ensure(CaptureFile.RECORD_HEADER_BYTES + length);
+        region.put(type);
+        region.putInt(length);
+    }
+
+    // 레코드 완성 - 헤더의 데이터 끝 갱신
+    private void commit() {
+        dataEnd = regionStart + region.position();
+        header.putLong(CaptureFile.DATA_END_OFFSET, dataEnd);
+    }
+
+    // 레코드 하나가 들어갈 공간이 없으면 데이터 끝에서 새 구간을 매핑 (파일이 늘어남)
+    private void ensure(int bytes) throws IOException {
+        if (region.remaining() < bytes) {
+            mapRegion(Math.max(REGION_BYTES, bytes));
+        }
+    }
+
+    private void mapRegion(int size) throws IOException {
+        regionStart = dataEnd;
+        region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, size);
+        region.order(CaptureFile.ORDER);
+    }
+
+    private void fail(IOException e) {
+        if (error == null) {
+            error = e;
+        }
+        chunkStart = -1;
+        closed = true;
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.ecgapp.record;
+
+import com.example.ecgapp.client.CaptureMode;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * CaptureRecorder 가 남긴 녹화 파일을 읽은 결과 (불변).
+ * 헤더의 데이터 끝까지만 읽으므로 기록 중 앱이 죽은 파일도 완성된 레코드까지는 읽힌다.
+ */
+public final class CaptureRecording {
+
+    /** 센서 청크 하나 (녹화 시 수신 시각, System.nanoTime 기준) */
+    public static final class Chunk {
+        private final long receivedNanos;
+        private final int[] samples;
+
+        Chunk(long receivedNanos, int[] samples) {
+            this.receivedNanos = receivedNanos;
+            this.samples = samples;
+        }
+
+        public long getReceivedNanos() {
+            return receivedNanos;
+        }
+
+        public int size() {
+            return samples.length;
+        }
+
+        public int get(int index) {
+            return samples[index];
+        }
+    }
+
+    /** 측정 시작 기록. firstSample 은 이 기록 뒤 첫 샘플의 번호 */
+    public static final class Session {
+        private final long nanos;
+        private final CaptureMode mode;
+        private final String userId;
+        private final int requiredSamples;
+        private final long firstSample;
+
+        Session(long nanos, CaptureMode mode, String userId, int requiredSamples, long firstSample) {
+            this.nanos = nanos;
+            this.mode = mode;
+            this.userId = userId;
+            this.requiredSamples = requiredSamples;
+            this.firstSample = firstSample;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        /** 알 수 없으면 null */
+        public CaptureMode getMode() {
+            return mode;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public int getRequiredSamples() {
+            return requiredSamples;
+        }
+
+        public long getFirstSample() {
+            return firstSample;
+        }
+    }
+
+    private final int sampleRate;
+    private final long createdMillis;
+    private final List<Chunk> chunks;
+    private final List<Session> sessions;
+    private final List<JSONObject> verdicts;
+    private final long sampleCount;
+
+    private CaptureRecording(int sampleRate, long createdMillis, List<Chunk> chunks, List<Session> sessions,
+                             List<JSONObject> verdicts, long sampleCount) {
+        this.sampleRate = sampleRate;
+        this.createdMillis = createdMillis;
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.sessions = Collections.unmodifiableList(sessions);
+        this.verdicts = Collections.unmodifiableList(verdicts);
+        this.sampleCount = sampleCount;
+    }
+
+    /** @throws IOException 녹화 파일이 아니거나 읽을 수 없음 */
+    public static CaptureRecording read(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            FileChannel channel = raf.getChannel();
+            long size = channel.size();
+            if (size < CaptureFile.HEADER_BYTES) {
+                throw new IOException("녹화 파일이 아님 (헤더 없음): " + file);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(CaptureFile.ORDER);
+            return parse(buffer, file);
+        }
+    }
+
+    private static CaptureRecording parse(ByteBuffer buffer, File file) throws IOException {
+        if (buffer.getInt(0) != CaptureFile.MAGIC) {
+            throw new IOException("녹화 파일이 아님 (매직 불일치): " + file);
+        }
+        int version = buffer.getShort(4);
+        if (version > CaptureFile.VERSION) {
+            throw new IOException("지원하지 않는 녹화 파일 버전 " + version + ": " + file);
+        }
+        int headerBytes = buffer.getShort(6) & 0xFFFF;
+        long dataEnd = Math.min(buffer.getLong(CaptureFile.DATA_END_OFFSET), buffer.capacity());
+        List<Chunk> chunks = new ArrayList<>();
+        List<Session> sessions = new ArrayList<>();
+        List<JSONObject> verdicts = new ArrayList<>();
+        long samples = 0;
+
+        buffer.position(headerBytes);
+        buffer.limit((int) dataEnd);
+        try {
+            while (buffer.remaining() >= CaptureFile.RECORD_HEADER_BYTES) {
+                byte type = buffer.get();
+                int length = buffer.getInt();
+                int next = buffer.position() + length;
+                if (length < 0 || next > buffer.limit()) {
+                    throw new IOException("녹화 파일 손상 (레코드 길이 " + length + "): " + file);
+                }
+                switch (type) {
+                    case CaptureFile.CHUNK: {
+                        long nanos = buffer.getLong();
+                        int[] values = new int[buffer.getInt()];
+                        for (int i = 0; i < values.length; i++) {
+                            values[i] = buffer.getInt();
+                        }
+                        chunks.add(new Chunk(nanos, values));
+                        samples += values.length;
+                        break;
+                    }
+                    case CaptureFile.SESSION: {
+                        long nanos = buffer.getLong();
+                        int mode = buffer.get();
+                        int required = buffer.getInt();
+                        String userId = readString(buffer, buffer.getShort() & 0xFFFF);
+                        CaptureMode[] modes = CaptureMode.values();
+                        sessions.add(new Session(nanos, mode > 0 && mode <= modes.length ? modes[mode - 1] : null,
+                                userId, required, samples));
+                        break;
+                    }
+                    case CaptureFile.VERDICT: {
+                        buffer.getLong();
+                        String text = readString(buffer, buffer.getInt());
+                        try {
+                            verdicts.add(new JSONObject(text));
+                        } catch (JSONException e) {
+                            throw new IOException("녹화 파일 손상 (결과 JSON): " + file, e);
+                        }
+                        break;
+                    }
+                    default:
+                        // 새 버전의 레코드 - 건너뜀
+                        break;
+                }
+                buffer.position(next);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("녹화 파일 손상: " + file, e);
+        }
+        return new CaptureRecording(buffer.getInt(CaptureFile.SAMPLE_RATE_OFFSET),
+                buffer.getLong(CaptureFile.CREATED_OFFSET), chunks, sessions, verdicts, samples);
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /** 녹화 시작 시각 (epoch ms) */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    public List<Session> getSessions() {
+        return sessions;
+    }
+
+    /** 서버 결과 (CaptureRecorder.recordVerdict 가 남긴 JSON) */
+    public List<JSONObject> getVerdicts() {
+        return verdicts;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    /** 모든 샘플을 순서대로 한 배열로 */
+    public int[] toArray() {
+        int[] all = new int[(int) sampleCount];
+        int at = 0;
+        for (Chunk chunk : chunks) {
+            System.arraycopy(chunk.samples, 0, all, at, chunk.samples.length);
+            at += chunk.samples.length;
+        }
+        return all;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.ecgapp.record;
+
+import com.example.ecgapp.stream.SampleSink;
+import com.example.ecgapp.stream.SampleSource;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 녹화 파일을 다시 재생하는 신호원 (현장 실패 재현, 실제 데이터로 파이프라인 벤치마크).
+ * 청크마다 sink.onChunkReceived(재생 시각) 후 샘플을 넘긴다.
+ * - speed 1.0: 녹화 때의 청크 간격 그대로 (2.0 이면 두 배 빠르게)
+ * - speed 0 이하: 쉬지 않고 최대 속도
+ */
+public final class RecordingReplaySource implements SampleSource {
+
+    private final CaptureRecording recording;
+    private final double speed;
+    private final Runnable onFinished;
+
+    private volatile Thread thread;
+
+    /** @param onFinished 끝까지 재생했을 때 재생 스레드에서 호출 (stop() 으로 멈추면 호출하지 않음), null 가능 */
+    public RecordingReplaySource(CaptureRecording recording, double speed, Runnable onFinished) {
+        this.recording = recording;
+        this.speed = speed;
+        this.onFinished = onFinished;
+    }
+
+    public RecordingReplaySource(CaptureRecording recording, double speed) {
+        this(recording, speed, null);
+    }
+
+    @Override
+    public synchronized void start(SampleSink sink) {
+        if (thread != null) {
+            return;
+        }
+        Thread t = new Thread(() -> run(sink), "RecordingReplaySource");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    private void run(SampleSink sink) {
+        Thread self = Thread.currentThread();
+        boolean finished = false;
+        try {
+            long replayStart = System.nanoTime();
+            long recordStart = 0;
+            boolean first = true;
+            for (CaptureRecording.Chunk chunk : recording.getChunks()) {
+                if (thread != self) {
+                    return;
+                }
+                if (first) {
+                    recordStart = chunk.getReceivedNanos();
+                    first = false;
+                } else if (speed > 0) {
+                    // 시작 기준 목표 시각까지 대기 (청크마다 쉬면 오차가 쌓이므로)
+                    long target = replayStart + (long) ((chunk.getReceivedNanos() - recordStart) / speed);
+                    long wait;
+                    while ((wait = target - System.nanoTime()) > 0) {
+                        LockSupport.parkNanos(wait);
+                        if (thread != self) {
+                            return;
+                        }
+                    }
+                }
+                sink.onChunkReceived(System.nanoTime());
+                for (int i = 0; i < chunk.size(); i++) {
+                    sink.onSample(chunk.get(i));
+                }
+            }
+            finished = true;
+        } finally {
+            synchronized (this) {
+                if (thread == self) {
+                    thread = null;
+                }
+            }
+        }
+        if (finished && onFinished != null) {
+            onFinished.run();
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            LockSupport.unpark(t);
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+}
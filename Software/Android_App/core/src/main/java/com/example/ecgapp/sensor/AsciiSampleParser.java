@@ -0,0 +1,172 @@
+package com.example.ecgapp.sensor;
+
+import com.example.ecgapp.stream.SampleSink;
+
+/**
+ * 아두이노가 보내는 "정수 + 줄바꿈" 텍스트 스트림을 바이트 단위로 해석하는 파서.
+ * - readLine/trim/Integer.parseInt 없이 숫자를 바로 int로 누적하므로 샘플당 할당이 없음
+ * - 시작 메시지("AD8232 ECG Monitor Started")는 줄 단위 상태 머신으로 감지해 건너뜀
+ * - 숫자가 아닌 줄은 문자열을 만들지 않고 개수만 집계
+ *
+ * 청크 경계에서 숫자가 잘려도 상태가 유지되므로 임의 크기로 나눠 넣어도 됨. 단일 스레드 전용.
+ */
+public final class AsciiSampleParser {
+
+    // 줄 상태
+    private static final int LINE_START = 0;   // 줄 시작 (앞쪽 공백 무시)
+    private static final int SIGN = 1;         // '-' 다음
+    private static final int DIGITS = 2;       // 숫자 누적 중
+    private static final int TRAILING = 3;     // 숫자 뒤 공백 (줄바꿈만 허용)
+    private static final int GARBAGE = 4;      // 숫자가 아닌 줄 (줄바꿈까지 건너뜀)
+
+    // Integer.parseInt 범위를 넘지 않도록 자릿수 제한
+    private static final int MAX_DIGITS = 9;
+
+    // 시작 메시지 판별용 키워드 (기존 trimmedLine.contains 조건과 동일)
+    private static final byte[] BANNER_DEVICE = {'A', 'D', '8', '2', '3', '2'};
+    private static final byte[] BANNER_STARTED = {'S', 't', 'a', 'r', 't', 'e', 'd'};
+
+    private int state = LINE_START;
+    private int value;
+    private int digits;
+    private boolean negative;
+    private int deviceMatch;
+    private int startedMatch;
+    private boolean bannerSeen;
+
+    private long sampleCount;
+    private long bannerLines;
+    private long errorLines;
+    private long emptyLines;
+
+    /**
+     * buf[offset, offset + length) 를 해석하고, 완성된 샘플마다 sink를 호출한다.
+     * @return 이번 호출에서 완성된 샘플 수
+     */
+    public int parse(byte[] buf, int offset, int length, SampleSink sink) {
+        int emitted = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            int b = buf[i];
+
+            if (b == '\n') {
+                if (endLine(sink)) {
+                    emitted++;
+                }
+                continue;
+            }
+
+            // 시작 메시지 키워드는 줄 전체에서 찾음 (숫자 줄에는 영향 없음)
+            deviceMatch = advanceMatch(BANNER_DEVICE, deviceMatch, b);
+            startedMatch = advanceMatch(BANNER_STARTED, startedMatch, b);
+            if (deviceMatch == BANNER_DEVICE.length || startedMatch == BANNER_STARTED.length) {
+                bannerSeen = true;
+            }
+
+            boolean isDigit = b >= '0' && b <= '9';
+            boolean isSpace = b == ' ' || b == '\t' || b == '\r';
+
+            switch (state) {
+                case LINE_START:
+                    if (isDigit) {
+                        value = b - '0';
+                        digits = 1;
+                        state = DIGITS;
+                    } else if (b == '-' || b == '+') {
+                        negative = b == '-';
+                        state = SIGN;
+                    } else if (!isSpace) {
+                        state = GARBAGE;
+                    }
+                    break;
+                case SIGN:
+                    if (isDigit) {
+                        value = b - '0';
+                        digits = 1;
+                        state = DIGITS;
+                    } else {
+                        state = GARBAGE;
+                    }
+                    break;
+                case DIGITS:
+                    if (isDigit) {
+                        if (++digits > MAX_DIGITS) {
+                            state = GARBAGE;
+                        } else {
+                            value = value * 10 + (b - '0');
+                        }
+                    } else if (isSpace) {
+                        state = TRAILING;
+                    } else {
+                        state = GARBAGE;
+                    }
+                    break;
+                case TRAILING:
+                    if (!isSpace) {
+                        state = GARBAGE;
+                    }
+                    break;
+                default:
+                    // GARBAGE: 줄바꿈까지 무시
+                    break;
+            }
+        }
+        return emitted;
+    }
+
+    // 줄 끝 처리. 샘플이 완성되었으면 true
+    private boolean endLine(SampleSink sink) {
+        boolean emitted = false;
+        if (bannerSeen) {
+            bannerLines++;
+        } else if (state == DIGITS || state == TRAILING) {
+            sampleCount++;
+            sink.onSample(negative ? -value : value);
+            emitted = true;
+        } else if (state == LINE_START) {
+            emptyLines++;
+        } else {
+            errorLines++;
+        }
+        resetLine();
+        return emitted;
+    }
+
+    private static int advanceMatch(byte[] keyword, int matched, int b) {
+        if (matched == keyword.length) {
+            return matched;
+        }
+        if (b == keyword[matched]) {
+            return matched + 1;
+        }
+        // 두 키워드 모두 첫 글자가 반복되지 않으므로 첫 글자만 다시 확인하면 충분
+        return b == keyword[0] ? 1 : 0;
+    }
+
+    // 연결이 바뀌었을 때 미완성 줄 버림 (집계는 유지)
+    public void resetLine() {
+        state = LINE_START;
+        value = 0;
+        digits = 0;
+        negative = false;
+        deviceMatch = 0;
+        startedMatch = 0;
+        bannerSeen = false;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+
+    public long getBannerLines() {
+        return bannerLines;
+    }
+
+    public long getErrorLines() {
+        return errorLines;
+    }
+
+    public long getEmptyLines() {
+        return emptyLines;
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ecgapp.sensor;
+
+import com.example.ecgapp.stream.SampleSink;
+
+/**
+ * 센서 링크용 바이너리 프레임 디코더 (main.ino 의 LINK_BINARY 모드와 짝).
+ *
+ * 프레임 구조 (24바이트, 16샘플):
+ *   sync(2) = 0xA5 0x5A | counter(1) | payload(20) | crc8(1)
+ * - payload: 10비트 샘플 4개를 5바이트에 MSB부터 채움 (16샘플 = 20바이트)
+ * - counter: 프레임마다 1씩 증가 (8비트), 누락 프레임/샘플 집계에 사용
+ * - crc8: counter + payload 에 대한 CRC-8 (다항식 0x07, 초기값 0)
+ *
+ * 9600bps HC-06 (약 960바이트/초) 에서 500Hz x 24/16 = 750바이트/초로 실제 샘플링 속도 유지 가능.
+ * CRC 오류 시 sync 다음 바이트부터 다시 검색하여 재동기화한다. 단일 스레드 전용, 할당 없음.
+ */
+public final class BinarySampleDecoder {
+
+    public static final int SYNC_0 = 0xA5;
+    public static final int SYNC_1 = 0x5A;
+    public static final int SAMPLES_PER_FRAME = 16;
+    public static final int PAYLOAD_SIZE = SAMPLES_PER_FRAME * 10 / 8;
+    // sync(2) + counter(1) + payload + crc(1)
+    public static final int FRAME_SIZE = 2 + 1 + PAYLOAD_SIZE + 1;
+
+    private static final int[] CRC8_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int crc = i;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x80) != 0 ? ((crc << 1) ^ 0x07) & 0xFF : (crc << 1) & 0xFF;
+            }
+            CRC8_TABLE[i] = crc;
+        }
+    }
+
+    private final byte[] frame = new byte[FRAME_SIZE];
+    private final byte[] replay = new byte[FRAME_SIZE];
+    private final int[] samples = new int[SAMPLES_PER_FRAME];
+    private int position = 0;
+    private int expectedCounter = -1;
+
+    private long frameCount;
+    private long crcErrors;
+    private long lostFrames;
+    private long sampleCount;
+    private int consecutiveCrcErrors;
+
+    /**
+     * buf[offset, offset + length) 를 해석하고, CRC가 맞는 프레임의 샘플을 sink로 전달한다.
+     * @return 이번 호출에서 전달한 샘플 수
+     */
+    public int parse(byte[] buf, int offset, int length, SampleSink sink) {
+        int emitted = 0;
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            emitted += feed(buf[i] & 0xFF, sink);
+        }
+        return emitted;
+    }
+
+    private int feed(int b, SampleSink sink) {
+        // sync 검색
+        if (position == 0) {
+            if (b == SYNC_0) {
+                frame[position++] = (byte) b;
+            }
+            return 0;
+        }
+        if (position == 1) {
+            if (b == SYNC_1) {
+                frame[position++] = (byte) b;
+            } else {
+                position = b == SYNC_0 ? 1 : 0;
+            }
+            return 0;
+        }
+
+        frame[position++] = (byte) b;
+        if (position < FRAME_SIZE) {
+            return 0;
+        }
+        position = 0;
+
+        if (crc8(frame, 2, FRAME_SIZE - 3) != (frame[FRAME_SIZE - 1] & 0xFF)) {
+            crcErrors++;
+            consecutiveCrcErrors++;
+            // 손상된 프레임: sync 다음 바이트부터 다시 검색 (재생 중에는 프레임이 완성될 수 없음)
+            int replayLength = FRAME_SIZE - 2;
+            System.arraycopy(frame, 2, replay, 0, replayLength);
+            int emitted = 0;
+            for (int i = 0; i < replayLength; i++) {
+                emitted += feed(replay[i] & 0xFF, sink);
+            }
+            return emitted;
+        }
+        consecutiveCrcErrors = 0;
+
+        int counter = frame[2] & 0xFF;
+        if (expectedCounter >= 0 && counter != expectedCounter) {
+            lostFrames += (counter - expectedCounter) & 0xFF;
+        }
+        expectedCounter = (counter + 1) & 0xFF;
+        frameCount++;
+
+        unpack10(frame, 3, samples);
+        for (int i = 0; i < SAMPLES_PER_FRAME; i++) {
+            sink.onSample(samples[i]);
+        }
+        sampleCount += SAMPLES_PER_FRAME;
+        return SAMPLES_PER_FRAME;
+    }
+
+    // 5바이트 = 10비트 샘플 4개 (MSB 우선)
+    static void unpack10(byte[] src, int offset, int[] dst) {
+        for (int i = 0, p = offset; i < dst.length; i += 4, p += 5) {
+            int b0 = src[p] & 0xFF;
+            int b1 = src[p + 1] & 0xFF;
+            int b2 = src[p + 2] & 0xFF;
+            int b3 = src[p + 3] & 0xFF;
+            int b4 = src[p + 4] & 0xFF;
+            dst[i] = (b0 << 2) | (b1 >> 6);
+            dst[i + 1] = ((b1 & 0x3F) << 4) | (b2 >> 4);
+            dst[i + 2] = ((b2 & 0x0F) << 6) | (b3 >> 2);
+            dst[i + 3] = ((b3 & 0x03) << 8) | b4;
+        }
+    }
+
+    static int crc8(byte[] data, int offset, int length) {
+        int crc = 0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = CRC8_TABLE[(crc ^ data[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    // 연결이 바뀌었을 때 미완성 프레임과 카운터 기준 초기화 (집계는 유지)
+    public void resetFrame() {
+        position = 0;
+        expectedCounter = -1;
+        consecutiveCrcErrors = 0;
+    }
+
+    public long getFrameCount() {
+        return frameCount;
+    }
+
+    public long getCrcErrors() {
+        return crcErrors;
+    }
+
+    public int getConsecutiveCrcErrors() {
+        return consecutiveCrcErrors;
+    }
+
+    public long getLostFrames() {
+        return lostFrames;
+    }
+
+    public long getLostSamples() {
+        return lostFrames * SAMPLES_PER_FRAME;
+    }
+
+    public long getSampleCount() {
+        return sampleCount;
+    }
+}
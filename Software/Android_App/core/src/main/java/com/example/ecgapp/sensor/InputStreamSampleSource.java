@@ -0,0 +1,98 @@
+package com.example.ecgapp.sensor;
+
+import com.example.ecgapp.stream.SampleSink;
+import com.example.ecgapp.stream.SampleSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 바이트 스트림(블루투스 SPP, 시리얼 포트, 녹화 파일 등)에서 센서 샘플을 읽는 신호원.
+ * 텍스트/바이너리 펌웨어는 SensorLinkDecoder 가 자동 판별한다.
+ * 스트림이 끝나거나 읽기 오류가 나면 멈추고 Listener 로 알린다.
+ */
+public final class InputStreamSampleSource implements SampleSource {
+
+    public interface Listener {
+        /** @param error 정상 종료(EOF)이면 null */
+        void onStreamEnded(IOException error);
+    }
+
+    private static final int READ_CHUNK_SIZE = 256;
+
+    private final InputStream in;
+    private final Listener listener;
+    private final SensorLinkDecoder decoder = new SensorLinkDecoder();
+
+    private volatile Thread thread;
+
+    public InputStreamSampleSource(InputStream in, Listener listener) {
+        this.in = in;
+        this.listener = listener;
+    }
+
+    @Override
+    public synchronized void start(SampleSink sink) {
+        if (thread != null) {
+            return;
+        }
+        Thread t = new Thread(() -> run(sink), "InputStreamSampleSource");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    private void run(SampleSink sink) {
+        byte[] buffer = new byte[READ_CHUNK_SIZE];
+        Thread self = Thread.currentThread();
+        IOException error = null;
+        try {
+            int n;
+            while (thread == self && (n = in.read(buffer, 0, buffer.length)) >= 0) {
+                sink.onChunkReceived(System.nanoTime());
+                decoder.parse(buffer, 0, n, sink);
+            }
+        } catch (IOException e) {
+            // stop() 으로 스트림을 닫은 경우는 오류로 보지 않음
+            if (thread == self) {
+                error = e;
+            }
+        } finally {
+            synchronized (this) {
+                if (thread == self) {
+                    thread = null;
+                }
+            }
+        }
+        if (listener != null) {
+            listener.onStreamEnded(error);
+        }
+    }
+
+    /** 읽기 중인 스레드를 깨우기 위해 스트림도 닫는다. */
+    @Override
+    public void stop() {
+        Thread t;
+        synchronized (this) {
+            t = thread;
+            thread = null;
+        }
+        if (t != null) {
+            t.interrupt();
+            try {
+                in.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+
+    // 수신 통계 (형식 오류, 프레임 누락 등)
+    public SensorLinkDecoder getDecoder() {
+        return decoder;
+    }
+}
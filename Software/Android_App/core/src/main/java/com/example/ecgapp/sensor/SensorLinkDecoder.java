@@ -0,0 +1,131 @@
+package com.example.ecgapp.sensor;
+
+import com.example.ecgapp.stream.SampleSink;
+
+/**
+ * 블루투스 센서 링크 디코더: 기존 텍스트 펌웨어와 바이너리 프레임 펌웨어를 자동 판별.
+ * - 판별 중에는 두 디코더에 같은 바이트를 넣고 샘플은 내보내지 않음
+ * - 바이너리: CRC가 맞는 프레임이 연속 2개 수신되면 확정
+ * - 텍스트: 0x80 이상 바이트 없이 숫자 줄이 8개 연속 수신되면 확정
+ * - 확정 후에도 텍스트 스트림에 0x80 이상 바이트가 오거나 바이너리 CRC 오류가 계속되면 다시 판별
+ *
+ * 단일 스레드(ConnectedThread) 전용.
+ */
+public final class SensorLinkDecoder {
+
+    public enum Mode { DETECTING, TEXT, BINARY }
+
+    private static final int TEXT_LOCK_SAMPLES = 8;
+    private static final int BINARY_LOCK_FRAMES = 2;
+    private static final int BINARY_UNLOCK_CRC_ERRORS = 8;
+
+    private static final SampleSink DISCARD = value -> { };
+
+    private final AsciiSampleParser textParser = new AsciiSampleParser();
+    private final BinarySampleDecoder binaryDecoder = new BinarySampleDecoder();
+
+    private Mode mode = Mode.DETECTING;
+    private boolean nonAsciiSeen;
+    private long detectTextSamples;
+    private long detectFrames;
+    private int modeChanges;
+
+    public int parse(byte[] buf, int offset, int length, SampleSink sink) {
+        switch (mode) {
+            case TEXT:
+                if (containsNonAscii(buf, offset, length)) {
+                    // 바이너리 펌웨어로 바뀐 것으로 보고 다시 판별
+                    startDetecting();
+                    return detect(buf, offset, length);
+                }
+                return textParser.parse(buf, offset, length, sink);
+            case BINARY: {
+                int emitted = binaryDecoder.parse(buf, offset, length, sink);
+                if (binaryDecoder.getConsecutiveCrcErrors() >= BINARY_UNLOCK_CRC_ERRORS) {
+                    startDetecting();
+                }
+                return emitted;
+            }
+            default:
+                return detect(buf, offset, length);
+        }
+    }
+
+    private int detect(byte[] buf, int offset, int length) {
+        if (containsNonAscii(buf, offset, length)) {
+            nonAsciiSeen = true;
+        }
+        long textSamplesBefore = textParser.getSampleCount();
+        long textErrorsBefore = textParser.getErrorLines();
+        long framesBefore = binaryDecoder.getFrameCount();
+
+        textParser.parse(buf, offset, length, DISCARD);
+        binaryDecoder.parse(buf, offset, length, DISCARD);
+
+        detectTextSamples += textParser.getSampleCount() - textSamplesBefore;
+        if (textParser.getErrorLines() != textErrorsBefore) {
+            // 숫자 줄은 연속으로 들어와야 텍스트로 인정
+            detectTextSamples = 0;
+        }
+        detectFrames += binaryDecoder.getFrameCount() - framesBefore;
+        if (binaryDecoder.getConsecutiveCrcErrors() > 0) {
+            detectFrames = 0;
+        }
+
+        if (detectFrames >= BINARY_LOCK_FRAMES) {
+            lock(Mode.BINARY);
+        } else if (!nonAsciiSeen && detectTextSamples >= TEXT_LOCK_SAMPLES) {
+            lock(Mode.TEXT);
+        }
+        return 0;
+    }
+
+    private void lock(Mode newMode) {
+        mode = newMode;
+        modeChanges++;
+    }
+
+    private void startDetecting() {
+        mode = Mode.DETECTING;
+        nonAsciiSeen = false;
+        detectTextSamples = 0;
+        detectFrames = 0;
+        textParser.resetLine();
+        binaryDecoder.resetFrame();
+    }
+
+    private static boolean containsNonAscii(byte[] buf, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            if (buf[i] < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    // 판별이 확정된 횟수 (펌웨어 교체 감지용)
+    public int getModeChanges() {
+        return modeChanges;
+    }
+
+    public AsciiSampleParser getTextParser() {
+        return textParser;
+    }
+
+    public BinarySampleDecoder getBinaryDecoder() {
+        return binaryDecoder;
+    }
+
+    // 형식 오류 합계 (텍스트 오류 줄 + 바이너리 CRC 오류)
+    public long getErrorCount() {
+        return textParser.getErrorLines() + binaryDecoder.getCrcErrors();
+    }
+
+    public long getBannerLines() {
+        return textParser.getBannerLines();
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.ecgapp.signal;
+
+/**
+ * DC/베이스라인 추적기: 1차 저역통과로 베이스라인을 추정하고 입력에서 뺀다.
+ * 호흡/움직임에 의한 느린 변동을 제거하면서 계산은 샘플당 곱셈 1번.
+ */
+public final class BaselineTracker implements SampleFilter {
+
+    private final double alpha;
+    private double baseline;
+
+    public BaselineTracker(double sampleRate, double cutoff) {
+        if (cutoff <= 0 || cutoff >= sampleRate / 2) {
+            throw new IllegalArgumentException("cutoff must be in (0, " + sampleRate / 2 + "): " + cutoff);
+        }
+        alpha = 1 - Math.exp(-2 * Math.PI * cutoff / sampleRate);
+    }
+
+    @Override
+    public float process(float x) {
+        baseline += alpha * (x - baseline);
+        return (float) (x - baseline);
+    }
+
+    @Override
+    public void reset(float x) {
+        baseline = x;
+    }
+
+    // 현재 추정된 베이스라인 (입력 단위)
+    public double getBaseline() {
+        return baseline;
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ecgapp.signal;
+
+/**
+ * 2차 IIR 필터 (Transposed Direct Form II).
+ * 계수는 RBJ Audio EQ Cookbook 공식을 사용. 0.5Hz 고역통과처럼 극점이 1에 가까운 경우를 위해
+ * 계수와 상태는 double로 유지한다.
+ */
+public final class Biquad implements SampleFilter {
+
+    // 2차 Butterworth
+    public static final double Q_BUTTERWORTH = Math.sqrt(0.5);
+
+    private final double b0, b1, b2, a1, a2;
+    private double s1, s2;
+
+    // a0 = 1 로 정규화된 계수
+    public Biquad(double b0, double b1, double b2, double a1, double a2) {
+        this.b0 = b0;
+        this.b1 = b1;
+        this.b2 = b2;
+        this.a1 = a1;
+        this.a2 = a2;
+    }
+
+    public static Biquad lowPass(double sampleRate, double cutoff, double q) {
+        double w0 = omega(sampleRate, cutoff);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        double a0 = 1 + alpha;
+        return new Biquad((1 - cos) / 2 / a0, (1 - cos) / a0, (1 - cos) / 2 / a0,
+                -2 * cos / a0, (1 - alpha) / a0);
+    }
+
+    public static Biquad highPass(double sampleRate, double cutoff, double q) {
+        double w0 = omega(sampleRate, cutoff);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        double a0 = 1 + alpha;
+        return new Biquad((1 + cos) / 2 / a0, -(1 + cos) / a0, (1 + cos) / 2 / a0,
+                -2 * cos / a0, (1 - alpha) / a0);
+    }
+
+    // q 가 클수록 제거 대역이 좁아짐 (대역폭 = center / q)
+    public static Biquad notch(double sampleRate, double center, double q) {
+        double w0 = omega(sampleRate, center);
+        double cos = Math.cos(w0);
+        double alpha = Math.sin(w0) / (2 * q);
+        double a0 = 1 + alpha;
+        return new Biquad(1 / a0, -2 * cos / a0, 1 / a0, -2 * cos / a0, (1 - alpha) / a0);
+    }
+
+    private static double omega(double sampleRate, double frequency) {
+        if (frequency <= 0 || frequency >= sampleRate / 2) {
+            throw new IllegalArgumentException("frequency must be in (0, " + sampleRate / 2 + "): " + frequency);
+        }
+        return 2 * Math.PI * frequency / sampleRate;
+    }
+
+    @Override
+    public float process(float x) {
+        double y = b0 * x + s1;
+        s1 = b1 * x - a1 * y + s2;
+        s2 = b2 * x - a2 * y;
+        return (float) y;
+    }
+
+    @Override
+    public void reset(float x) {
+        // 상수 입력 x 에 대한 정상 상태: y = DC 이득 * x
+        double y = getDcGain() * x;
+        s2 = b2 * x - a2 * y;
+        s1 = b1 * x - a1 * y + s2;
+    }
+
+    public double getDcGain() {
+        return (b0 + b1 + b2) / (1 + a1 + a2);
+    }
+}
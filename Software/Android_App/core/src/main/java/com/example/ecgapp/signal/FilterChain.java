@@ -0,0 +1,70 @@
+package com.example.ecgapp.signal;
+
+/**
+ * 필터 단계를 순서대로 연결한 스트리밍 필터.
+ * 첫 샘플(또는 reset() 후 첫 샘플)로 모든 단계를 정상 상태로 맞춰 시작 과도 응답을 없앤다.
+ * 단일 스레드 전용.
+ */
+public final class FilterChain implements SampleFilter {
+
+    private final SampleFilter[] stages;
+    private boolean primed;
+
+    public FilterChain(SampleFilter... stages) {
+        this.stages = stages.clone();
+    }
+
+    /**
+     * 화면 표시용: 베이스라인 제거 + 60Hz 노치 + 5샘플 이동 평균.
+     * 출력은 0 중심이므로 그래프에 그릴 때 오프셋을 더해야 한다.
+     */
+    public static FilterChain forDisplay(double sampleRate) {
+        return new FilterChain(
+                new BaselineTracker(sampleRate, 0.5),
+                Biquad.notch(sampleRate, 60.0, 30.0),
+                new MovingAverage(5));
+    }
+
+    /**
+     * 전송 전 처리용: 서버 preprocessing.py 와 같은 단계 (고역통과 0.5Hz 2차, 저역통과 45Hz 4차, 60Hz 노치).
+     * 서버는 filtfilt(영위상)를 쓰지만 여기서는 실시간이므로 한 방향(인과) 필터링이다.
+     */
+    public static FilterChain forConditioning(double sampleRate) {
+        return new FilterChain(
+                Biquad.highPass(sampleRate, 0.5, Biquad.Q_BUTTERWORTH),
+                // 4차 Butterworth = 2차 구간 두 개 (Q = 0.5412, 1.3066)
+                Biquad.lowPass(sampleRate, 45.0, 0.54119610),
+                Biquad.lowPass(sampleRate, 45.0, 1.30656296),
+                Biquad.notch(sampleRate, 60.0, 30.0));
+    }
+
+    @Override
+    public float process(float x) {
+        if (!primed) {
+            reset(x);
+        }
+        for (SampleFilter stage : stages) {
+            x = stage.process(x);
+        }
+        return x;
+    }
+
+    @Override
+    public void reset(float x) {
+        // 정상 상태에서는 같은 입력을 처리해도 상태가 변하지 않으므로 출력을 다음 단계 입력으로 사용
+        for (SampleFilter stage : stages) {
+            stage.reset(x);
+            x = stage.process(x);
+        }
+        primed = true;
+    }
+
+    // 다음 샘플로 다시 정상 상태를 맞춤 (새 측정 시작 시)
+    public void reset() {
+        primed = false;
+    }
+
+    public int getStageCount() {
+        return stages.length;
+    }
+}
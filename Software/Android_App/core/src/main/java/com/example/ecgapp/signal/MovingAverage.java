@@ -0,0 +1,48 @@
+package com.example.ecgapp.signal;
+
+import java.util.Arrays;
+
+/**
+ * 이동 평균 필터. 누적합을 유지하므로 창 크기와 관계없이 샘플당 O(1).
+ * 창이 다 차기 전에는 들어온 샘플만 평균한다 (기존 스무딩과 동일).
+ */
+public final class MovingAverage implements SampleFilter {
+
+    private final float[] window;
+    private int head;
+    private int size;
+    // float 누적 오차가 쌓이지 않도록 double로 유지
+    private double sum;
+
+    public MovingAverage(int length) {
+        if (length < 1) {
+            throw new IllegalArgumentException("length must be >= 1: " + length);
+        }
+        window = new float[length];
+    }
+
+    @Override
+    public float process(float x) {
+        if (size == window.length) {
+            sum -= window[head];
+        } else {
+            size++;
+        }
+        window[head] = x;
+        sum += x;
+        head = head + 1 == window.length ? 0 : head + 1;
+        return (float) (sum / size);
+    }
+
+    @Override
+    public void reset(float x) {
+        Arrays.fill(window, x);
+        head = 0;
+        size = window.length;
+        sum = (double) x * window.length;
+    }
+
+    public int getLength() {
+        return window.length;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.ecgapp.signal;
+
+/**
+ * 샘플 단위 스트리밍 필터 (샘플당 할당 없음, 단일 스레드 전용).
+ */
+public interface SampleFilter {
+
+    float process(float x);
+
+    /**
+     * 입력이 계속 x 였던 것처럼 내부 상태를 정상 상태로 맞춘다.
+     * 첫 샘플로 호출하면 DC 성분 때문에 생기는 시작 과도 응답을 없앨 수 있다.
+     */
+    void reset(float x);
+}
@@ -0,0 +1,223 @@
+package com.example.ecgapp.signal;
+
+/**
+ * 실시간 신호 품질 추정기 (서버 preprocessing.assess_signal_quality 의 슬라이딩 창 버전).
+ * 최근 창 안의 포화 비율, 평탄 신호, SNR, 전극 분리(ADC 한계값 연속)를 샘플마다 O(1)로 갱신한다.
+ * 합계는 정수(long)로 유지하므로 오래 실행해도 오차가 쌓이지 않는다. 단일 스레드 전용.
+ */
+public final class SignalQualityMonitor {
+
+    // 우선순위 순서 (여러 문제가 동시에 있으면 앞쪽을 보고)
+    public enum Issue { NONE, LEAD_OFF, FLAT, SATURATED, NOISY }
+
+    /** 품질 판정 기준 */
+    public static final class Thresholds {
+        // Arduino 10비트 ADC (AD8232) 기준
+        public static final Thresholds DEFAULT = new Thresholds(2, 1021, 0.05, 3.0, 5.0, 0.25);
+
+        final int railLow;
+        final int railHigh;
+        final double maxSaturationRatio;
+        final double minStd;
+        final double minSnrDb;
+        final double leadOffSeconds;
+
+        /**
+         * @param railLow            이 값 이하는 포화(하한)로 봄
+         * @param railHigh           이 값 이상은 포화(상한)로 봄
+         * @param maxSaturationRatio 창 안에서 허용하는 포화 샘플 비율
+         * @param minStd             이보다 표준편차가 작으면 평탄 신호 (ADC 단위)
+         * @param minSnrDb           이보다 SNR이 낮으면 노이즈 과다 (서버와 같은 추정식)
+         * @param leadOffSeconds     포화 값이 이 시간 이상 연속되면 전극 분리로 봄
+         */
+        public Thresholds(int railLow, int railHigh, double maxSaturationRatio,
+                          double minStd, double minSnrDb, double leadOffSeconds) {
+            this.railLow = railLow;
+            this.railHigh = railHigh;
+            this.maxSaturationRatio = maxSaturationRatio;
+            this.minStd = minStd;
+            this.minSnrDb = minSnrDb;
+            this.leadOffSeconds = leadOffSeconds;
+        }
+    }
+
+    private final Thresholds thresholds;
+    private final int[] samples;
+    private final int[] diffs;
+    // 차이값이 집계된 칸 (창의 첫 샘플, 끊김 직후 샘플은 이전 값과의 차이가 없음)
+    private final boolean[] hasDiff;
+    private final int leadOffSamples;
+    // SNR 비교는 log 없이 비율로 (10^(dB/10))
+    private final double minSnrRatio;
+
+    private int head;
+    private int count;
+    private int diffCount;
+    private boolean hasPrevious;
+    private int previous;
+
+    private long sum;
+    private long sumSquares;
+    private long diffSum;
+    private long diffSumSquares;
+    private int saturatedCount;
+    private int railRun;
+
+    /**
+     * @param windowSeconds 판정에 사용할 최근 구간 길이 (초)
+     */
+    public SignalQualityMonitor(double sampleRate, double windowSeconds, Thresholds thresholds) {
+        int window = (int) Math.round(sampleRate * windowSeconds);
+        if (window < 2) {
+            throw new IllegalArgumentException("window must hold at least 2 samples: " + window);
+        }
+        this.thresholds = thresholds;
+        this.samples = new int[window];
+        this.diffs = new int[window];
+        this.hasDiff = new boolean[window];
+        this.leadOffSamples = Math.max(1, (int) Math.round(sampleRate * thresholds.leadOffSeconds));
+        this.minSnrRatio = Math.pow(10, thresholds.minSnrDb / 10);
+    }
+
+    public void add(int x) {
+        if (count == samples.length) {
+            int old = samples[head];
+            sum -= old;
+            sumSquares -= (long) old * old;
+            if (isRail(old)) {
+                saturatedCount--;
+            }
+            if (hasDiff[head]) {
+                int oldDiff = diffs[head];
+                diffSum -= oldDiff;
+                diffSumSquares -= (long) oldDiff * oldDiff;
+                diffCount--;
+            }
+        } else {
+            count++;
+        }
+
+        samples[head] = x;
+        sum += x;
+        sumSquares += (long) x * x;
+        boolean rail = isRail(x);
+        if (rail) {
+            saturatedCount++;
+            railRun++;
+        } else {
+            railRun = 0;
+        }
+
+        // 창의 첫 샘플과 끊김 직후 샘플은 이전 값과의 차이가 없으므로 0으로 두고 집계에서 제외
+        int diff = hasPrevious ? x - previous : 0;
+        diffs[head] = diff;
+        hasDiff[head] = hasPrevious;
+        if (hasPrevious) {
+            diffSum += diff;
+            diffSumSquares += (long) diff * diff;
+            diffCount++;
+        }
+        previous = x;
+        hasPrevious = true;
+
+        head = head + 1 == samples.length ? 0 : head + 1;
+    }
+
+    /**
+     * 받지 못한 샘플(그래프 갱신에서 건너뛰거나 버린 샘플)만큼 건너뜀.
+     * 끊긴 양쪽 샘플의 차이는 노이즈로 집계하지 않고, 한계값 연속 구간은 끊김 뒤 샘플도 한계값일 때만 이어서 센다.
+     */
+    public void skip(long samples) {
+        if (samples <= 0) {
+            return;
+        }
+        hasPrevious = false;
+        if (railRun > 0) {
+            railRun = (int) Math.min(Integer.MAX_VALUE, railRun + samples);
+        }
+    }
+
+    private boolean isRail(int x) {
+        return x <= thresholds.railLow || x >= thresholds.railHigh;
+    }
+
+    // 창이 가득 차야 판정 (그 전에는 항상 NONE)
+    public boolean isReady() {
+        return count == samples.length;
+    }
+
+    public Issue getIssue() {
+        if (!isReady()) {
+            return Issue.NONE;
+        }
+        if (isLeadOff()) {
+            return Issue.LEAD_OFF;
+        }
+        double variance = variance();
+        if (variance < thresholds.minStd * thresholds.minStd) {
+            return Issue.FLAT;
+        }
+        if (getSaturationRatio() > thresholds.maxSaturationRatio) {
+            return Issue.SATURATED;
+        }
+        // 신호 파워 / (미분 분산 / 2) 가 기준보다 작으면 노이즈 과다
+        double noise = diffVariance() / 2;
+        if (noise > 0 && variance < minSnrRatio * noise) {
+            return Issue.NOISY;
+        }
+        return Issue.NONE;
+    }
+
+    // 전극 분리: AD8232 출력이 ADC 한계값에 붙어 있는 상태가 계속됨
+    public boolean isLeadOff() {
+        return railRun >= leadOffSamples;
+    }
+
+    public double getSaturationRatio() {
+        return count == 0 ? 0 : saturatedCount / (double) count;
+    }
+
+    public double getStd() {
+        return Math.sqrt(variance());
+    }
+
+    // 서버 _estimate_snr 과 같은 정의 (dB), 추정할 수 없으면 0
+    public double getSnrDb() {
+        double noise = diffVariance() / 2;
+        double variance = variance();
+        if (noise <= 0 || variance <= 0) {
+            return 0;
+        }
+        return 10 * Math.log10(variance / noise);
+    }
+
+    private double variance() {
+        if (count == 0) {
+            return 0;
+        }
+        double mean = sum / (double) count;
+        return Math.max(0, sumSquares / (double) count - mean * mean);
+    }
+
+    private double diffVariance() {
+        if (diffCount == 0) {
+            return 0;
+        }
+        double mean = diffSum / (double) diffCount;
+        return Math.max(0, diffSumSquares / (double) diffCount - mean * mean);
+    }
+
+    // 새 측정 시작 시 창 비우기
+    public void reset() {
+        head = 0;
+        count = 0;
+        diffCount = 0;
+        hasPrevious = false;
+        sum = 0;
+        sumSquares = 0;
+        diffSum = 0;
+        diffSumSquares = 0;
+        saturatedCount = 0;
+        railRun = 0;
+    }
+}
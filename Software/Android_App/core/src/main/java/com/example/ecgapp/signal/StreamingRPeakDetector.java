@@ -0,0 +1,283 @@
+package com.example.ecgapp.signal;
+
+import java.util.Arrays;
+
+/**
+ * 샘플 단위 Pan-Tompkins R-peak 검출기 (서버 r_peak_detector.py 의 실시간 버전).
+ * 밴드패스(5-15Hz) → 5점 미분 → 제곱 → 150ms 이동 적분 → 적응형 임계값 순서로 처리하며
+ * 모든 상태는 고정 크기라 샘플당 할당이 없다. 단일 스레드 전용.
+ *
+ * 이동 적분 신호의 피크는 QRS보다 늦으므로 R 위치는 직전 구간 원본 신호의 최대값으로 보정한다.
+ * 이 때문에 비트 이벤트는 실제 R-peak보다 약 0.2초 늦게 전달된다.
+ */
+public final class StreamingRPeakDetector {
+
+    public interface BeatListener {
+        /**
+         * @param sampleIndex R-peak 위치 (process 호출 순서 기준 샘플 번호)
+         * @param rrSamples   직전 비트와의 간격 (샘플 수), 첫 비트는 -1
+         */
+        void onBeat(long sampleIndex, int rrSamples);
+    }
+
+    private static final int RR_AVERAGE_BEATS = 8;
+
+    private final double sampleRate;
+    private final BeatListener listener;
+
+    // 1~3단계: 밴드패스, 미분, 제곱
+    private final FilterChain bandPass;
+    private final float[] derivativeHistory = new float[5];
+    private int derivativePos;
+    private final float derivativeGain;
+    // 4단계: 이동 적분 (150ms)
+    private final MovingAverage integrator;
+
+    // R 위치 보정용 원본 신호 (적분 창 + 여유 50ms)
+    private final float[] rawHistory;
+    private int rawPos;
+
+    // 생리학적 제약 (서버와 동일: 200ms ~ 2000ms)
+    private final int refractorySamples;
+    private final int maxRrSamples;
+    private final int learningSamples;
+
+    private long sampleIndex = -1;
+    private float mwiPrev1;
+    private float mwiPrev2;
+
+    // 5단계: 적응형 임계값 (SPKI: 신호 피크 추정, NPKI: 노이즈 피크 추정)
+    private boolean learning = true;
+    private double learnMax;
+    private double learnSum;
+    private double spki;
+    private double npki;
+
+    private long lastBeatIndex = -1;
+    private long lastPeakIndex = -1;   // 마지막 비트의 적분 신호 피크 위치 (불응기 기준)
+    // 임계값 아래 피크 중 가장 큰 것 (놓친 비트 재검색용)
+    private double searchbackPeak;
+    private long searchbackPeakIndex = -1;
+    private long searchbackBeatIndex = -1;
+
+    private final int[] rrHistory = new int[RR_AVERAGE_BEATS];
+    private int rrPos;
+    private int rrCount;
+    private long rrSum;
+    private int lastRr = -1;
+    private long beatCount;
+
+    public StreamingRPeakDetector(double sampleRate, BeatListener listener) {
+        this.sampleRate = sampleRate;
+        this.listener = listener;
+        this.bandPass = new FilterChain(
+                Biquad.highPass(sampleRate, 5.0, Biquad.Q_BUTTERWORTH),
+                Biquad.lowPass(sampleRate, 15.0, Biquad.Q_BUTTERWORTH));
+        this.derivativeGain = (float) (sampleRate / 8.0);
+        int integrationWindow = (int) Math.round(0.15 * sampleRate);
+        this.integrator = new MovingAverage(integrationWindow);
+        this.rawHistory = new float[integrationWindow + (int) Math.round(0.05 * sampleRate)];
+        this.refractorySamples = (int) Math.round(0.2 * sampleRate);
+        this.maxRrSamples = (int) Math.round(2.0 * sampleRate);
+        this.learningSamples = (int) Math.round(2.0 * sampleRate);
+    }
+
+    /**
+     * 샘플 하나를 처리한다. 비트가 확정되면 같은 호출 안에서 listener가 호출된다.
+     * @return 이번 샘플에서 비트가 확정되었으면 true
+     */
+    public boolean process(float x) {
+        sampleIndex++;
+        rawHistory[rawPos] = x;
+        rawPos = rawPos + 1 == rawHistory.length ? 0 : rawPos + 1;
+
+        float filtered = bandPass.process(x);
+
+        // 인과 5점 미분: (2x[n] + x[n-1] - x[n-3] - 2x[n-4]) * fs / 8
+        float[] d = derivativeHistory;
+        d[derivativePos] = filtered;
+        float derivative = (2 * filtered
+                + d[(derivativePos + 4) % 5]
+                - d[(derivativePos + 2) % 5]
+                - 2 * d[(derivativePos + 1) % 5]) * derivativeGain;
+        derivativePos = derivativePos + 1 == 5 ? 0 : derivativePos + 1;
+
+        float mwi = integrator.process(derivative * derivative);
+
+        boolean beat = false;
+        if (learning) {
+            learn(mwi);
+        } else if (mwiPrev1 > mwi && mwiPrev1 >= mwiPrev2) {
+            // 직전 샘플이 적분 신호의 국소 최대
+            beat = onPeak(mwiPrev1, sampleIndex - 1);
+        }
+        if (!beat && !learning) {
+            beat = searchBack();
+        }
+        mwiPrev2 = mwiPrev1;
+        mwiPrev1 = mwi;
+        return beat;
+    }
+
+    // 처음 2초: 임계값 초기값 학습 (SPKI = 최대값/3, NPKI = 평균/2)
+    private void learn(float mwi) {
+        learnMax = Math.max(learnMax, mwi);
+        learnSum += mwi;
+        if (sampleIndex + 1 >= learningSamples) {
+            spki = learnMax / 3;
+            npki = learnSum / learningSamples / 2;
+            learning = false;
+        }
+    }
+
+    private boolean onPeak(double peak, long peakIndex) {
+        // 불응기: 같은 QRS 안의 작은 피크는 무시
+        if (lastPeakIndex >= 0 && peakIndex - lastPeakIndex < refractorySamples) {
+            return false;
+        }
+        double threshold1 = npki + 0.25 * (spki - npki);
+        if (peak > threshold1) {
+            spki = 0.125 * peak + 0.875 * spki;
+            acceptBeat(peakIndex, refineIndex());
+            return true;
+        }
+
+        npki = 0.125 * peak + 0.875 * npki;
+        if (peak > threshold1 / 2 && peak > searchbackPeak) {
+            searchbackPeak = peak;
+            searchbackPeakIndex = peakIndex;
+            searchbackBeatIndex = refineIndex();
+        }
+        return false;
+    }
+
+    // 평균 RR의 166% 동안 비트가 없으면 놓친 것으로 보고 가장 큰 후보를 비트로 인정
+    private boolean searchBack() {
+        if (searchbackPeakIndex < 0 || rrCount == 0) {
+            return false;
+        }
+        long sinceBeat = sampleIndex - lastPeakIndex;
+        if (sinceBeat * 100 < rrSum * 166 / rrCount) {
+            return false;
+        }
+        spki = 0.25 * searchbackPeak + 0.75 * spki;
+        acceptBeat(searchbackPeakIndex, searchbackBeatIndex);
+        return true;
+    }
+
+    // 원본 신호 기록 구간에서 최대값 위치 (R-peak)
+    private long refineIndex() {
+        int length = (int) Math.min(rawHistory.length, sampleIndex + 1);
+        int best = 0;
+        float bestValue = Float.NEGATIVE_INFINITY;
+        for (int back = 0; back < length; back++) {
+            int pos = rawPos - 1 - back;
+            if (pos < 0) {
+                pos += rawHistory.length;
+            }
+            if (rawHistory[pos] > bestValue) {
+                bestValue = rawHistory[pos];
+                best = back;
+            }
+        }
+        return sampleIndex - best;
+    }
+
+    private void acceptBeat(long peakIndex, long beatIndex) {
+        int rr = -1;
+        if (lastBeatIndex >= 0) {
+            rr = (int) Math.min(Integer.MAX_VALUE, beatIndex - lastBeatIndex);
+            if (rr <= maxRrSamples) {
+                addRr(rr);
+            } else {
+                // 전극 분리 등으로 공백이 길었으면 평균을 새로 시작
+                clearRr();
+            }
+        }
+        lastRr = rr;
+        lastBeatIndex = beatIndex;
+        lastPeakIndex = peakIndex;
+        searchbackPeak = 0;
+        searchbackPeakIndex = -1;
+        beatCount++;
+        if (listener != null) {
+            listener.onBeat(beatIndex, rr);
+        }
+    }
+
+    private void addRr(int rr) {
+        if (rrCount == RR_AVERAGE_BEATS) {
+            rrSum -= rrHistory[rrPos];
+        } else {
+            rrCount++;
+        }
+        rrHistory[rrPos] = rr;
+        rrSum += rr;
+        rrPos = rrPos + 1 == RR_AVERAGE_BEATS ? 0 : rrPos + 1;
+    }
+
+    private void clearRr() {
+        rrPos = 0;
+        rrCount = 0;
+        rrSum = 0;
+    }
+
+    /**
+     * 건너뛴 샘플이 있을 때 호출 (화면 갱신 지연 등). 샘플 번호를 맞추고 진행 중인 RR 평균은 버린다.
+     */
+    public void skip(long samples) {
+        if (samples <= 0) {
+            return;
+        }
+        sampleIndex += samples;
+        clearRr();
+        searchbackPeakIndex = -1;
+        searchbackPeak = 0;
+    }
+
+    /**
+     * 최근 8개 RR 평균 심박수 (BPM). 비트가 없거나 마지막 비트 후 2초 이상 지났으면 0.
+     */
+    public double getHeartRate() {
+        if (rrCount == 0 || sampleIndex - lastBeatIndex > maxRrSamples) {
+            return 0;
+        }
+        return 60.0 * sampleRate * rrCount / rrSum;
+    }
+
+    public long getBeatCount() {
+        return beatCount;
+    }
+
+    public int getLastRrSamples() {
+        return lastRr;
+    }
+
+    public long getLastBeatIndex() {
+        return lastBeatIndex;
+    }
+
+    // 새 측정 시작 시 학습 단계부터 다시 시작 (비트 수는 유지)
+    public void reset() {
+        bandPass.reset();
+        integrator.reset(0f);
+        Arrays.fill(derivativeHistory, 0f);
+        derivativePos = 0;
+        Arrays.fill(rawHistory, 0f);
+        rawPos = 0;
+        sampleIndex = -1;
+        mwiPrev1 = 0;
+        mwiPrev2 = 0;
+        learning = true;
+        learnMax = 0;
+        learnSum = 0;
+        spki = 0;
+        npki = 0;
+        lastBeatIndex = -1;
+        lastPeakIndex = -1;
+        searchbackPeak = 0;
+        searchbackPeakIndex = -1;
+        lastRr = -1;
+        clearRr();
+    }
+}
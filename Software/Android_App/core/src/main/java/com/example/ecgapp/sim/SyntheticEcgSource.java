@@ -0,0 +1,271 @@
+package com.example.ecgapp.sim;
+
+import java.util.SplittableRandom;
+
+/**
+ * 합성 ECG 샘플 생성기 (기존 MainActivity.generateECGWaveform 파형을 Activity 밖으로 분리).
+ * - 인스턴스마다 SplittableRandom 시드를 가지므로 같은 시드는 항상 같은 샘플열을 만든다
+ * - P/QRS/T 파형은 한 비트 주기를 TEMPLATE_SIZE 구간으로 나눈 표로 미리 계산 (진폭만 비트마다 변동)
+ * - 노이즈: 백색, 60Hz 전원, 근전도(EMG) 버스트, 베이스라인 드리프트 (Noise 로 설정)
+ *
+ * 시간은 샘플 번호로만 진행하므로 호출 속도와 무관하다. 실시간 재생은 호출하는 쪽에서 간격을 맞추고,
+ * 부하/회귀 테스트는 fill() 로 제한 없이 생성하면 된다. 단일 스레드 전용.
+ */
+public final class SyntheticEcgSource {
+
+    /** 노이즈 설정 (진폭은 ADC 단위) */
+    public static final class Noise {
+        // 기존 더미 데이터와 비슷한 수준
+        public static final Noise DEFAULT = new Noise(10.0, 1.0, 60.0, 0.5, 0.1, 25.0, 30.0, 0.005, 0.002);
+        // 깨끗한 파형 (검출기/회귀 테스트용)
+        public static final Noise NONE = new Noise(0, 0, 60.0, 0, 0.1, 0, 0, 0, 0);
+
+        final double whitePeakToPeak;
+        final double humAmplitude;
+        final double humFrequency;
+        final double emgBurstsPerSecond;
+        final double emgBurstSeconds;
+        final double emgPeakToPeak;
+        final double driftRange;
+        final double driftChangeProbability;
+        final double driftSlew;
+
+        /**
+         * @param whitePeakToPeak        백색(균등) 노이즈 폭
+         * @param humAmplitude           전원 노이즈 진폭
+         * @param humFrequency           전원 주파수 (60Hz / 50Hz)
+         * @param emgBurstsPerSecond     근전도 버스트 평균 발생 횟수 (초당)
+         * @param emgBurstSeconds        버스트 길이 (초)
+         * @param emgPeakToPeak          버스트 중 노이즈 폭
+         * @param driftRange             베이스라인 목표값 범위 (±range/2)
+         * @param driftChangeProbability 샘플마다 베이스라인 목표가 바뀔 확률
+         * @param driftSlew              베이스라인이 목표를 따라가는 비율 (샘플당)
+         */
+        public Noise(double whitePeakToPeak, double humAmplitude, double humFrequency,
+                     double emgBurstsPerSecond, double emgBurstSeconds, double emgPeakToPeak,
+                     double driftRange, double driftChangeProbability, double driftSlew) {
+            this.whitePeakToPeak = whitePeakToPeak;
+            this.humAmplitude = humAmplitude;
+            this.humFrequency = humFrequency;
+            this.emgBurstsPerSecond = emgBurstsPerSecond;
+            this.emgBurstSeconds = emgBurstSeconds;
+            this.emgPeakToPeak = emgPeakToPeak;
+            this.driftRange = driftRange;
+            this.driftChangeProbability = driftChangeProbability;
+            this.driftSlew = driftSlew;
+        }
+    }
+
+    public static final int TEMPLATE_SIZE = 1000;
+    private static final double BASELINE = 512.0;
+    private static final int ADC_MAX = 1023;
+
+    // 한 비트 주기(정규화 시간 0~1)의 단위 진폭 파형
+    private static final float[] P_TEMPLATE = new float[TEMPLATE_SIZE];
+    private static final float[] QRS_TEMPLATE = new float[TEMPLATE_SIZE];
+    private static final float[] T_TEMPLATE = new float[TEMPLATE_SIZE];
+
+    static {
+        for (int i = 0; i < TEMPLATE_SIZE; i++) {
+            double t = i / (double) TEMPLATE_SIZE;
+            // P파 (0.0 ~ 0.15)
+            if (t < 0.15) {
+                P_TEMPLATE[i] = (float) Math.sin(Math.PI * t / 0.15);
+            }
+            // QRS 복합체 (0.15 ~ 0.25): Q, R 상승, R 하강, S
+            if (t >= 0.15 && t < 0.25) {
+                double phase = (t - 0.15) / 0.1;
+                double qrs;
+                if (phase < 0.2) {
+                    qrs = -30 * phase;
+                } else if (phase < 0.5) {
+                    qrs = 200 * (phase - 0.2) - 6;
+                } else if (phase < 0.8) {
+                    qrs = 200 * (0.5 - phase) + 54;
+                } else {
+                    qrs = -20 * (phase - 0.8);
+                }
+                QRS_TEMPLATE[i] = (float) qrs;
+            }
+            // T파 (0.25 ~ 0.7)
+            if (t >= 0.25 && t < 0.7) {
+                T_TEMPLATE[i] = (float) Math.sin(Math.PI * (t - 0.25) / 0.45);
+            }
+        }
+    }
+
+    private final SplittableRandom random;
+    private final double sampleRate;
+    private final Noise noise;
+
+    private long sampleIndex;
+
+    // 심박수 (60~85 BPM 사이에서 서서히 변동)
+    private double heartRate;
+    private double heartRateVelocity;
+
+    // 현재 비트
+    private double samplesIntoBeat;
+    private double beatSamples;
+    private double pAmplitude;
+    private double qrsAmplitude;
+    private double tAmplitude;
+    private long beatCount;
+
+    // 베이스라인 드리프트
+    private double drift;
+    private double driftTarget;
+    private long samplesUntilDriftChange;
+
+    // 60Hz: 매 샘플 sin 대신 회전 행렬로 위상 진행
+    private final double humStepCos;
+    private final double humStepSin;
+    private double humSin;
+    private double humCos = 1;
+
+    // EMG 버스트
+    private long samplesUntilBurst;
+    private int burstRemaining;
+    private final int burstLength;
+
+    public SyntheticEcgSource(long seed, double sampleRate, Noise noise) {
+        this.random = new SplittableRandom(seed);
+        this.sampleRate = sampleRate;
+        this.noise = noise;
+        double humStep = 2 * Math.PI * noise.humFrequency / sampleRate;
+        this.humStepCos = Math.cos(humStep);
+        this.humStepSin = Math.sin(humStep);
+        this.burstLength = Math.max(1, (int) Math.round(noise.emgBurstSeconds * sampleRate));
+
+        heartRate = 72.0 + (random.nextDouble() - 0.5) * 10; // 67-77 BPM 범위
+        heartRateVelocity = (random.nextDouble() - 0.5) * 0.5;
+        driftTarget = (random.nextDouble() - 0.5) * noise.driftRange;
+        samplesUntilDriftChange = geometric(noise.driftChangeProbability);
+        samplesUntilBurst = geometric(noise.emgBurstsPerSecond / sampleRate);
+        startBeat();
+    }
+
+    public SyntheticEcgSource(long seed, double sampleRate) {
+        this(seed, sampleRate, Noise.DEFAULT);
+    }
+
+    /** 다음 샘플 하나 (0~1023 ADC 값) */
+    public int next() {
+        // 심박수 변동성 (서서히 변동, 60-85 BPM 범위)
+        heartRateVelocity += (random.nextDouble() - 0.5) * 0.1;
+        heartRateVelocity = Math.max(-1.0, Math.min(1.0, heartRateVelocity));
+        heartRate = Math.max(60.0, Math.min(85.0, heartRate + heartRateVelocity * 0.01));
+
+        // 베이스라인 드리프트: 가끔 목표값을 바꾸고 목표로 서서히 이동
+        if (--samplesUntilDriftChange < 0) {
+            driftTarget = (random.nextDouble() - 0.5) * noise.driftRange;
+            samplesUntilDriftChange = geometric(noise.driftChangeProbability);
+        }
+        drift += (driftTarget - drift) * noise.driftSlew;
+
+        if (samplesIntoBeat >= beatSamples) {
+            startBeat();
+        }
+        int index = (int) (samplesIntoBeat / beatSamples * TEMPLATE_SIZE);
+        double value = BASELINE + drift
+                + pAmplitude * P_TEMPLATE[index]
+                + qrsAmplitude * QRS_TEMPLATE[index]
+                + tAmplitude * T_TEMPLATE[index];
+        samplesIntoBeat++;
+
+        // 노이즈
+        if (noise.whitePeakToPeak > 0) {
+            value += (random.nextDouble() - 0.5) * noise.whitePeakToPeak;
+        }
+        if (noise.humAmplitude > 0) {
+            value += noise.humAmplitude * humSin;
+        }
+        value += emg();
+        advanceHum();
+
+        sampleIndex++;
+        // 0~1023 범위로 클리핑
+        return (int) Math.max(0, Math.min(ADC_MAX, value));
+    }
+
+    /**
+     * buf[offset, offset + length) 를 연속 샘플로 채운다 (속도 제한 없음).
+     * @return 채운 샘플 수 (= length)
+     */
+    public int fill(int[] buf, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            buf[i] = next();
+        }
+        return length;
+    }
+
+    // 새 비트: RR 간격(±7.5%)과 파형 진폭(비트마다 ±5%, P ±10%, QRS ±3%, T ±15%)을 정함
+    private void startBeat() {
+        double rrVariation = 1.0 + (random.nextDouble() - 0.5) * 0.15;
+        beatSamples = 60.0 / heartRate * rrVariation * sampleRate;
+        samplesIntoBeat = 0;
+
+        double amplitudeVariation = 1.0 + (random.nextDouble() - 0.5) * 0.1;
+        pAmplitude = 20 * amplitudeVariation * (0.9 + random.nextDouble() * 0.2);
+        qrsAmplitude = 1.0 + (random.nextDouble() - 0.5) * 0.06;
+        tAmplitude = 40 * amplitudeVariation * (0.85 + random.nextDouble() * 0.3);
+        beatCount++;
+    }
+
+    private double emg() {
+        if (noise.emgPeakToPeak <= 0) {
+            return 0;
+        }
+        if (burstRemaining == 0) {
+            if (--samplesUntilBurst >= 0) {
+                return 0;
+            }
+            burstRemaining = burstLength;
+            samplesUntilBurst = geometric(noise.emgBurstsPerSecond / sampleRate);
+        }
+        burstRemaining--;
+        return (random.nextDouble() - 0.5) * noise.emgPeakToPeak;
+    }
+
+    private void advanceHum() {
+        double s = humSin * humStepCos + humCos * humStepSin;
+        double c = humCos * humStepCos - humSin * humStepSin;
+        humSin = s;
+        humCos = c;
+        // 반올림 오차로 진폭이 변하지 않도록 주기적으로 정규화
+        if ((sampleIndex & 1023) == 0) {
+            double norm = Math.sqrt(s * s + c * c);
+            humSin /= norm;
+            humCos /= norm;
+        }
+    }
+
+    // 확률 p 인 사건이 처음 일어날 때까지의 샘플 수 (샘플마다 난수를 뽑지 않기 위함)
+    private long geometric(double p) {
+        if (p <= 0) {
+            return Long.MAX_VALUE;
+        }
+        if (p >= 1) {
+            return 0;
+        }
+        return (long) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    public long getSampleIndex() {
+        return sampleIndex;
+    }
+
+    // 현재 비트를 포함해 시작된 비트 수
+    public long getBeatCount() {
+        return beatCount;
+    }
+
+    public double getHeartRate() {
+        return heartRate;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.ecgapp.sim;
+
+import com.example.ecgapp.stream.SamplePacer;
+import com.example.ecgapp.stream.SampleSink;
+import com.example.ecgapp.stream.SampleSource;
+
+/**
+ * SyntheticEcgSource 를 실시간 속도로 재생하는 신호원 (센서 없이 시험할 때).
+ * chunkSamples 분량의 시간이 지날 때마다 그만큼 만들어 sink 로 넘긴다 (SamplePacer: 누적 기한이라 느려지지 않고,
+ * 늦게 깨어나면 밀린 샘플을 한 번에 넘김). 실제 속도와 지터는 getPacer() 로 확인한다.
+ */
+public final class SyntheticSampleSource implements SampleSource {
+
+    private final long seed;
+    private final double sampleRate;
+    private final int chunkSamples;
+    private final SyntheticEcgSource.Noise noise;
+
+    private volatile Thread thread;
+    private volatile SamplePacer pacer;
+
+    public SyntheticSampleSource(long seed, double sampleRate, int chunkSamples, SyntheticEcgSource.Noise noise) {
+        if (chunkSamples < 1) {
+            throw new IllegalArgumentException("chunkSamples must be >= 1: " + chunkSamples);
+        }
+        this.seed = seed;
+        this.sampleRate = sampleRate;
+        this.chunkSamples = chunkSamples;
+        this.noise = noise;
+    }
+
+    public SyntheticSampleSource(long seed, double sampleRate, int chunkSamples) {
+        this(seed, sampleRate, chunkSamples, SyntheticEcgSource.Noise.DEFAULT);
+    }
+
+    @Override
+    public synchronized void start(SampleSink sink) {
+        if (thread != null) {
+            return;
+        }
+        Thread t = new Thread(() -> run(sink), "SyntheticSampleSource");
+        t.setDaemon(true);
+        thread = t;
+        t.start();
+    }
+
+    private void run(SampleSink sink) {
+        SyntheticEcgSource source = new SyntheticEcgSource(seed, sampleRate, noise);
+        SamplePacer p = new SamplePacer(sampleRate, chunkSamples);
+        pacer = p;
+        int[] chunk = new int[p.getMaxBatchSamples()];
+        Thread self = Thread.currentThread();
+        try {
+            while (thread == self) {
+                int n = p.awaitNext();
+                source.fill(chunk, 0, n);
+                sink.onChunkReceived(System.nanoTime());
+                for (int i = 0; i < n; i++) {
+                    sink.onSample(chunk[i]);
+                }
+            }
+        } catch (InterruptedException e) {
+            // stop()
+        } finally {
+            synchronized (this) {
+                if (thread == self) {
+                    thread = null;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        Thread t = thread;
+        thread = null;
+        if (t != null) {
+            t.interrupt();
+        }
+    }
+
+    /** 마지막으로 시작한 재생의 속도/지터 통계 (시작 전이면 null) */
+    public SamplePacer getPacer() {
+        return pacer;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return thread != null;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.ecgapp.spool;
+
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.client.EcgStreamingClient;
+import com.example.ecgapp.stream.SampleSink;
+
+/**
+ * 서버 없이 측정 하나 분량의 샘플을 모으는 곳 (연결이 끊긴 동안의 측정).
+ * 필요한 수가 차면 onComplete 를 한 번 호출하고 이후 샘플은 버린다. 다 찬 샘플은 SpoolStore 에 보관한다.
+ */
+public final class OfflineCapture implements SampleSink {
+
+    public interface Callback {
+        /** 샘플을 다 모음 (마지막 샘플을 넘긴 생산자 스레드에서 호출) */
+        void onComplete(OfflineCapture capture);
+    }
+
+    private final CaptureMode mode;
+    private final String userId;
+    private final int[] samples;
+    private final Callback callback;
+    private int count;
+
+    /** @param requiredSamples 0 이하이면 서버 기본값 (EcgStreamingClient.DEFAULT_REQUIRED_SAMPLES) */
+    public OfflineCapture(CaptureMode mode, String userId, int requiredSamples, Callback callback) {
+        this.mode = mode;
+        this.userId = userId != null ? userId : "";
+        this.samples = new int[requiredSamples > 0 ? requiredSamples : EcgStreamingClient.DEFAULT_REQUIRED_SAMPLES];
+        this.callback = callback;
+    }
+
+    @Override
+    public void onSample(int value) {
+        synchronized (this) {
+            if (count >= samples.length) {
+                return;
+            }
+            samples[count++] = value;
+            if (count < samples.length) {
+                return;
+            }
+        }
+        if (callback != null) {
+            callback.onComplete(this);
+        }
+    }
+
+    public CaptureMode getMode() {
+        return mode;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public synchronized int getCount() {
+        return count;
+    }
+
+    public int getRequiredSamples() {
+        return samples.length;
+    }
+
+    public synchronized boolean isComplete() {
+        return count >= samples.length;
+    }
+
+    /** 모은 샘플 (내부 배열 그대로, 앞의 getCount() 개가 유효) */
+    public int[] getSamples() {
+        return samples;
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.ecgapp.spool;
+
+import com.example.ecgapp.client.CaptureMode;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/**
+ * 오프라인 측정 보관소 (추가 전용 세그먼트 파일, 한 디렉터리).
+ * - 측정 하나 = 레코드 하나: 길이(u32) + CRC32(u32) + 내용, 세그먼트(NNNNNNNN.seg)가 segmentBytes 를 넘으면 새 파일
+ * - 샘플이 모두 16비트에 들어가면 2바이트씩 저장 (센서 ADC 값은 보통 0~4095)
+ * - 업로드가 끝난 순번은 ack 파일에 기록 (임시 파일 후 이름 변경), 모두 끝난 세그먼트는 삭제
+ * - 열 때 끝이 잘린/깨진 레코드(쓰는 중 전원 꺼짐 등)는 마지막 세그먼트에서 잘라냄
+ * - 대기 중인 측정이 maxPending 을 넘으면 가장 오래된 것부터 버림
+ *
+ * 모든 메서드는 동기화되어 있다. 파일 I/O 를 하므로 UI 스레드에서 호출하지 않는다.
+ */
+public final class SpoolStore implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger("ECG_SPOOL");
+
+    public static final long DEFAULT_SEGMENT_BYTES = 1 << 20;
+    public static final int DEFAULT_MAX_PENDING = 200;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String ACK_FILE = "ack";
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int MAX_RECORD_BYTES = 16 << 20;
+    private static final byte ENCODING_I16 = 1;
+    private static final byte ENCODING_I32 = 2;
+
+    // 대기 중인 측정의 위치 (내용은 peek 할 때 읽음)
+    private static final class Entry {
+        final long id;
+        final Segment segment;
+        final long offset;
+        final int length;
+
+        Entry(long id, Segment segment, long offset, int length) {
+            this.id = id;
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    private static final class Segment {
+        final long seq;
+        final File file;
+        long maxId;
+
+        Segment(long seq, File file) {
+            this.seq = seq;
+            this.file = file;
+        }
+    }
+
+    private final File dir;
+    private final long segmentBytes;
+    private final int maxPending;
+    private final ArrayDeque<Entry> pending = new ArrayDeque<>();
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private long ackedId;
+    private long nextId = 1;
+    private long dropped;
+    private FileChannel active;
+    private Segment activeSegment;
+    private boolean closed;
+
+    private SpoolStore(File dir, long segmentBytes, int maxPending) {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.maxPending = maxPending;
+    }
+
+    public static SpoolStore open(File dir) throws IOException {
+        return open(dir, DEFAULT_SEGMENT_BYTES, DEFAULT_MAX_PENDING);
+    }
+
+    public static SpoolStore open(File dir, long segmentBytes, int maxPending) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("보관 폴더를 만들 수 없음: " + dir);
+        }
+        SpoolStore store = new SpoolStore(dir, segmentBytes, Math.max(1, maxPending));
+        store.recover();
+        return store;
+    }
+
+    /**
+     * 측정 하나를 보관하고 디스크에 기록될 때까지 기다린다.
+     * @param count samples 앞에서부터 저장할 수
+     */
+    public synchronized SpooledCapture append(CaptureMode mode, String userId, int sampleRate,
+                                              int[] samples, int count) throws IOException {
+        ensureOpen();
+        if (pending.size() >= maxPending) {
+            long oldest = pending.peekFirst().id;
+            LOG.warning("보관소 가득 참 - 가장 오래된 측정 버림: " + oldest);
+            dropped++;
+            acknowledge(oldest);
+        }
+        int[] copy = Arrays.copyOf(samples, count);
+        SpooledCapture capture = new SpooledCapture(nextId, System.currentTimeMillis(), mode, userId, sampleRate, copy);
+        byte[] payload = encode(capture);
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length);
+        record.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+
+        FileChannel channel = activeChannel();
+        long offset = channel.size();
+        while (record.hasRemaining()) {
+            channel.write(record, offset + record.position());
+        }
+        channel.force(false);
+        activeSegment.maxId = capture.getId();
+        pending.addLast(new Entry(capture.getId(), activeSegment, offset, payload.length));
+        nextId++;
+        return capture;
+    }
+
+    /** 업로드 대기 중인 측정을 오래된 순서로 최대 max 개 (보관소에서 빼지 않음) */
+    public synchronized List<SpooledCapture> peek(int max) throws IOException {
+        ensureOpen();
+        List<SpooledCapture> out = new ArrayList<>(Math.min(max, pending.size()));
+        Iterator<Entry> it = pending.iterator();
+        while (out.size() < max && it.hasNext()) {
+            Entry e = it.next();
+            out.add(read(e));
+        }
+        return out;
+    }
+
+    /** id 까지(포함) 업로드 완료 - 더 볼 필요 없는 세그먼트는 삭제 */
+    public synchronized void acknowledge(long id) throws IOException {
+        ensureOpen();
+        if (id <= ackedId) {
+            return;
+        }
+        writeAck(id);
+        ackedId = id;
+        while (!pending.isEmpty() && pending.peekFirst().id <= id) {
+            pending.pollFirst();
+        }
+        for (Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+            Segment s = it.next();
+            if (s.maxId > ackedId) {
+                break;
+            }
+            if (s == activeSegment) {
+                active.close();
+                active = null;
+                activeSegment = null;
+            }
+            if (!s.file.delete() && s.file.exists()) {
+                LOG.warning("세그먼트 삭제 실패: " + s.file);
+            }
+            it.remove();
+        }
+    }
+
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /** 가득 차 버린 측정 수 (이 인스턴스에서) */
+    public synchronized long getDropped() {
+        return dropped;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (active != null) {
+            active.close();
+            active = null;
+            activeSegment = null;
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed) {
+            throw new IOException("보관소가 닫힘");
+        }
+    }
+
+    // ---- 파일 ----
+
+    private void recover() throws IOException {
+        ackedId = readAck();
+        nextId = ackedId + 1;
+        File[] files = dir.listFiles((d, name) -> name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            throw new IOException("보관 폴더를 읽을 수 없음: " + dir);
+        }
+        for (File f : files) {
+            String name = f.getName();
+            try {
+                long seq = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(seq, new Segment(seq, f));
+            } catch (NumberFormatException e) {
+                LOG.warning("보관소에 모르는 파일: " + f);
+            }
+        }
+        for (Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+            Segment s = it.next();
+            scan(s, !it.hasNext());
+            if (s.maxId <= ackedId) {
+                // 모두 업로드된 세그먼트 (삭제 중 종료된 경우)
+                if (!s.file.delete() && s.file.exists()) {
+                    LOG.warning("세그먼트 삭제 실패: " + s.file);
+                }
+                it.remove();
+            }
+        }
+    }
+
+    // 세그먼트의 레코드를 읽어 대기 목록 구성. 깨진 레코드부터는 무시 (마지막 세그먼트면 잘라냄)
+    private void scan(Segment s, boolean last) throws IOException {
+        try (FileChannel channel = openChannel(s.file, "rw")) {
+            long size = channel.size();
+            long offset = 0;
+            ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_BYTES);
+            while (offset + RECORD_HEADER_BYTES <= size) {
+                header.clear();
+                readFully(channel, header, offset);
+                header.flip();
+                int length = header.getInt();
+                int crc = header.getInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES || offset + RECORD_HEADER_BYTES + length > size) {
+                    break;
+                }
+                ByteBuffer payload = ByteBuffer.allocate(length);
+                readFully(channel, payload, offset + RECORD_HEADER_BYTES);
+                CRC32 check = new CRC32();
+                check.update(payload.array(), 0, length);
+                if ((int) check.getValue() != crc) {
+                    break;
+                }
+                long id = payload.getLong(0);
+                s.maxId = Math.max(s.maxId, id);
+                nextId = Math.max(nextId, id + 1);
+                if (id > ackedId) {
+                    pending.addLast(new Entry(id, s, offset, length));
+                }
+                offset += RECORD_HEADER_BYTES + length;
+            }
+            if (offset < size) {
+                LOG.warning("보관소 레코드 손상 - " + s.file.getName() + " 의 " + offset + " 바이트 이후 무시");
+                if (last) {
+                    channel.truncate(offset);
+                }
+            }
+        }
+    }
+
+    private FileChannel activeChannel() throws IOException {
+        if (active != null && active.size() < segmentBytes) {
+            return active;
+        }
+        if (active == null && !segments.isEmpty()) {
+            Segment last = segments.lastEntry().getValue();
+            if (last.file.length() < segmentBytes) {
+                activeSegment = last;
+                active = openChannel(last.file, "rw");
+                return active;
+            }
+        }
+        if (active != null) {
+            active.close();
+        }
+        long seq = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment s = new Segment(seq, new File(dir, String.format("%08d%s", seq, SEGMENT_SUFFIX)));
+        active = openChannel(s.file, "rw");
+        activeSegment = s;
+        segments.put(seq, s);
+        return active;
+    }
+
+    private SpooledCapture read(Entry e) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(e.length);
+        try (FileChannel channel = openChannel(e.segment.file, "r")) {
+            readFully(channel, payload, e.offset + RECORD_HEADER_BYTES);
+        }
+        payload.flip();
+        return decode(payload);
+    }
+
+    // FileChannel.open 은 API 26 부터라 minSdk 24 기기에서도 되는 RandomAccessFile 채널 사용
+    // (채널을 닫으면 파일도 닫힘)
+    private static FileChannel openChannel(File file, String mode) throws IOException {
+        return new RandomAccessFile(file, mode).getChannel();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long at = position;
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, at);
+            if (n < 0) {
+                throw new IOException("보관소 파일이 예상보다 짧음");
+            }
+            at += n;
+        }
+    }
+
+    private long readAck() throws IOException {
+        File f = new File(dir, ACK_FILE);
+        if (!f.exists()) {
+            return 0;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(f, "r")) {
+            return raf.length() >= 8 ? raf.readLong() : 0;
+        }
+    }
+
+    private void writeAck(long id) throws IOException {
+        File tmp = new File(dir, ACK_FILE + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(ByteBuffer.allocate(8).putLong(id).array());
+            out.getFD().sync();
+        }
+        File target = new File(dir, ACK_FILE);
+        if (!tmp.renameTo(target)) {
+            // 이름 변경으로 덮어쓰지 못하는 파일 시스템
+            if (!target.delete() || !tmp.renameTo(target)) {
+                throw new IOException("ack 파일 갱신 실패: " + target);
+            }
+        }
+    }
+
+    // ---- 레코드 내용 ----
+
+    // id(i64) 생성 시각(i64) 측정 종류(u8) 샘플링 주파수(i32) 사용자 ID(u16 + UTF-8) 샘플 수(i32) 인코딩(u8) 샘플
+    private static byte[] encode(SpooledCapture c) {
+        byte[] user = c.getUserId().getBytes(StandardCharsets.UTF_8);
+        int userLength = Math.min(user.length, 0xFFFF);
+        boolean narrow = true;
+        for (int i = 0; i < c.size() && narrow; i++) {
+            narrow = c.get(i) == (short) c.get(i);
+        }
+        int sampleBytes = narrow ? 2 : 4;
+        ByteBuffer b = ByteBuffer.allocate(8 + 8 + 1 + 4 + 2 + userLength + 4 + 1 + c.size() * sampleBytes);
+        b.putLong(c.getId());
+        b.putLong(c.getCreatedMillis());
+        b.put((byte) (c.getMode() != null ? c.getMode().ordinal() + 1 : 0));
+        b.putInt(c.getSampleRate());
+        b.putShort((short) userLength).put(user, 0, userLength);
+        b.putInt(c.size());
+        b.put(narrow ? ENCODING_I16 : ENCODING_I32);
+        for (int i = 0; i < c.size(); i++) {
+            if (narrow) {
+                b.putShort((short) c.get(i));
+            } else {
+                b.putInt(c.get(i));
+            }
+        }
+        return b.array();
+    }
+
+    private static SpooledCapture decode(ByteBuffer b) throws IOException {
+        long id = b.getLong();
+        long created = b.getLong();
+        int mode = b.get();
+        int sampleRate = b.getInt();
+        byte[] user = new byte[b.getShort() & 0xFFFF];
+        b.get(user);
+        int[] samples = new int[b.getInt()];
+        byte encoding = b.get();
+        if (encoding != ENCODING_I16 && encoding != ENCODING_I32) {
+            throw new IOException("모르는 샘플 인코딩: " + encoding);
+        }
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = encoding == ENCODING_I16 ? b.getShort() : b.getInt();
+        }
+        CaptureMode[] modes = CaptureMode.values();
+        return new SpooledCapture(id, created, mode > 0 && mode <= modes.length ? modes[mode - 1] : null,
+                new String(user, StandardCharsets.UTF_8), sampleRate, samples);
+    }
+}
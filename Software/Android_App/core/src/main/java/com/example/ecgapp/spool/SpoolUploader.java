@@ -0,0 +1,260 @@
+package com.example.ecgapp.spool;
+
+import com.example.ecgapp.client.BackpressurePolicy;
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.client.EcgClientListener;
+import com.example.ecgapp.client.EcgStreamingClient;
+import com.example.ecgapp.client.Verdict;
+import com.example.ecgapp.signal.FilterChain;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.logging.Logger;
+
+/**
+ * SpoolStore 에 보관한 측정을 서버로 다시 보내는 백그라운드 업로더.
+ * - kick() 때 대기 중인 측정이 있으면 자체 연결(EcgStreamingClient)을 열고, 한 연결에서 오래된 순서로 차례차례 보냄
+ *   (보관소에서는 BATCH_SIZE 개씩 읽음). 다 보내면 연결을 닫는다
+ * - 프로토콜은 실시간 측정과 같다 (REGISTER/LOGIN → ready → 샘플 → COMPLETE → 결과).
+ *   샘플은 제한 시간 없는 BLOCK 정책으로 빠짐없이 보냄 (서버가 읽지 않으면 읽을 때까지 기다림)
+ * - 서버가 결과를 주면(실패 판정 포함) 보관소에서 지움. 전송 중 연결이 끊기면 남겨 두고 재연결 후 다시 보냄
+ * - 연결 시도가 실패하면 연결을 닫고 다음 kick() 을 기다림 (주 연결이 살아났을 때 호출)
+ * - 연결의 큐 길이/결과 시간 지표는 spool.* 로 따로 기록 (실시간 tcp.verdict_time.* 에 섞이지 않게)
+ *
+ * 뒤늦게 보낸 로그인의 결과는 기록/알림용이며 앱의 로그인 상태를 바꾸지 않는다.
+ * 모든 작업은 업로더 스레드 하나에서 순서대로 처리한다.
+ */
+public final class SpoolUploader implements Closeable {
+
+    private static final Logger LOG = Logger.getLogger("ECG_SPOOL");
+
+    public static final int BATCH_SIZE = 10;
+    // 보관한 측정은 실시간이 아니므로 큐가 차면 공간이 날 때까지 기다림 (샘플을 하나라도 버리면 COMPLETE 를 못 보냄)
+    private static final long BLOCK_TIMEOUT_MILLIS = -1;
+    // 업로드 연결의 게이지/결과 시간 이름 (실시간 측정의 tcp.* 와 분리)
+    private static final String METRIC_PREFIX = "spool.";
+
+    /** 업로더 스레드에서 호출 (UI 갱신은 구현 쪽에서 넘김) */
+    public interface Listener {
+        /** 보관한 측정 하나를 서버가 처리함 (보관소에서 지움) */
+        default void onUploaded(SpooledCapture capture, Verdict verdict) {
+        }
+
+        default void onPendingChanged(int pending) {
+        }
+    }
+
+    private final SpoolStore store;
+    private final String host;
+    private final int port;
+    private final FilterChain sendFilter;
+    private final Listener listener;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "SpoolUploader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // ---- 업로더 스레드 전용 ----
+    private final ArrayDeque<SpooledCapture> batch = new ArrayDeque<>();
+    // close() 에서도 읽음 (샘플을 넣으며 기다리는 업로더 스레드를 깨우기 위해)
+    private volatile EcgStreamingClient client;
+    private SpooledCapture current;
+
+    private volatile boolean closed;
+    private volatile boolean uploading;
+
+    /** @param sendFilter 실시간 클라이언트와 같은 전송 필터 (별도 인스턴스), null 이면 원본 전송 */
+    public SpoolUploader(SpoolStore store, String host, int port, FilterChain sendFilter, Listener listener) {
+        this.store = store;
+        this.host = host;
+        this.port = port;
+        this.sendFilter = sendFilter;
+        this.listener = listener != null ? listener : new Listener() { };
+    }
+
+    /** 보낼 측정이 있으면 업로드 시작 (이미 업로드 중이면 무시). 아무 스레드에서나 호출 가능 */
+    public void kick() {
+        post(this::startIfPending);
+    }
+
+    public boolean isUploading() {
+        return uploading;
+    }
+
+    /** 업로드를 멈춘다 (보내던 측정은 보관소에 남음). 보관소는 닫지 않는다 */
+    @Override
+    public void close() {
+        closed = true;
+        EcgStreamingClient c = client;
+        if (c != null) {
+            // 측정을 끝내 feed() 의 대기를 풂
+            c.close();
+        }
+        post(this::stop);
+        worker.shutdown();
+    }
+
+    private void post(Runnable task) {
+        try {
+            worker.execute(task);
+        } catch (RejectedExecutionException e) {
+            // close() 후 도착한 연결 이벤트
+        }
+    }
+
+    // ---- 업로더 스레드 ----
+
+    private void startIfPending() {
+        if (closed || client != null || store.pendingCount() == 0) {
+            return;
+        }
+        LOG.info("보관한 측정 업로드 시작 (" + store.pendingCount() + "개)");
+        Events events = new Events();
+        EcgStreamingClient c = new EcgStreamingClient(host, port, sendFilter, events);
+        events.owner = c;
+        c.setMetricPrefix(METRIC_PREFIX);
+        c.setBackpressurePolicy(BackpressurePolicy.BLOCK, BLOCK_TIMEOUT_MILLIS);
+        client = c;
+        uploading = true;
+        c.start();
+    }
+
+    // 다음 측정의 REGISTER/LOGIN 을 보냄 (없으면 연결 종료)
+    private void submitNext() {
+        while (client != null) {
+            if (current == null) {
+                if (batch.isEmpty()) {
+                    try {
+                        batch.addAll(store.peek(BATCH_SIZE));
+                    } catch (IOException e) {
+                        LOG.warning("보관소 읽기 실패: " + e.getMessage());
+                        stop();
+                        return;
+                    }
+                }
+                current = batch.poll();
+                if (current == null) {
+                    LOG.info("보관한 측정 업로드 완료");
+                    stop();
+                    return;
+                }
+            }
+            SpooledCapture capture = current;
+            if (capture.getMode() == CaptureMode.LOGIN) {
+                client.login(capture.getUserId());
+                return;
+            }
+            if (capture.getMode() == CaptureMode.REGISTER && !capture.getUserId().isEmpty()) {
+                client.register(capture.getUserId());
+                return;
+            }
+            // 보낼 수 없는 측정 (모르는 종류, ID 없는 등록)
+            LOG.warning("보낼 수 없는 측정 버림: " + capture);
+            acknowledge(capture);
+            current = null;
+        }
+    }
+
+    // 서버가 ready 를 보냄 - 보관한 샘플을 필요한 수만큼 넣음 (BLOCK: 큐가 비워지는 속도에 맞춤).
+    // 연결이 끊기거나 close() 되면 측정이 끝나 isCollecting() 이 false 가 됨
+    private void feed(EcgStreamingClient c, int requiredSamples) {
+        SpooledCapture capture = current;
+        if (c != client || capture == null) {
+            return;
+        }
+        if (capture.size() < requiredSamples) {
+            LOG.warning("보관한 샘플이 서버 요구량보다 적어 버림: " + capture + " < " + requiredSamples);
+            c.cancelCapture();
+            acknowledge(capture);
+            current = null;
+            submitNext();
+            return;
+        }
+        for (int i = 0; i < requiredSamples && c.isCollecting(); i++) {
+            c.onSample(capture.get(i));
+        }
+    }
+
+    private void onVerdict(EcgStreamingClient c, Verdict verdict, boolean connected) {
+        SpooledCapture capture = current;
+        if (c != client || capture == null || verdict.getMode() == null) {
+            return;
+        }
+        if (!connected) {
+            // 전송 중 연결 끊김 - 재연결되면 같은 측정을 다시 보냄
+            LOG.info("업로드 중 연결 끊김 - 다시 시도: " + capture);
+            return;
+        }
+        acknowledge(capture);
+        current = null;
+        listener.onUploaded(capture, verdict);
+        submitNext();
+    }
+
+    private void acknowledge(SpooledCapture capture) {
+        try {
+            store.acknowledge(capture.getId());
+        } catch (IOException e) {
+            LOG.warning("보관소 갱신 실패: " + e.getMessage());
+        }
+        listener.onPendingChanged(store.pendingCount());
+    }
+
+    private void stop() {
+        EcgStreamingClient c = client;
+        client = null;
+        current = null;
+        batch.clear();
+        uploading = false;
+        if (c != null) {
+            c.close();
+        }
+    }
+
+    // 업로드용 클라이언트 이벤트 → 업로더 스레드
+    private final class Events implements EcgClientListener {
+        private volatile EcgStreamingClient owner;
+
+        @Override
+        public void onConnectionChanged(boolean connected) {
+            if (connected) {
+                EcgStreamingClient c = owner;
+                post(() -> {
+                    if (c == client) {
+                        submitNext();
+                    }
+                });
+            }
+        }
+
+        @Override
+        public void onConnectionError(String message) {
+            EcgStreamingClient c = owner;
+            post(() -> {
+                if (c == client) {
+                    LOG.info("업로드 연결 실패 - 다음 시도까지 대기: " + message);
+                    stop();
+                }
+            });
+        }
+
+        @Override
+        public void onCaptureStarted(CaptureMode mode, int requiredSamples) {
+            EcgStreamingClient c = owner;
+            post(() -> feed(c, requiredSamples));
+        }
+
+        @Override
+        public void onVerdict(Verdict verdict) {
+            EcgStreamingClient c = owner;
+            // 연결 끊김으로 인한 실패인지는 지금 판단 (재연결 전)
+            boolean connected = c != null && c.isConnected();
+            post(() -> SpoolUploader.this.onVerdict(c, verdict, connected));
+        }
+    }
+}
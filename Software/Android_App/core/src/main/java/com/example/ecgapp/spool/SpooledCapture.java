@@ -0,0 +1,61 @@
+package com.example.ecgapp.spool;
+
+import com.example.ecgapp.client.CaptureMode;
+
+/**
+ * 서버에 연결되지 않아 기기에 보관한 측정 하나 (불변, 샘플은 필터 전 원본).
+ * id 는 SpoolStore 가 붙이는 순번이며 보관 순서와 같다.
+ */
+public final class SpooledCapture {
+
+    private final long id;
+    private final long createdMillis;
+    private final CaptureMode mode;
+    private final String userId;
+    private final int sampleRate;
+    private final int[] samples;
+
+    SpooledCapture(long id, long createdMillis, CaptureMode mode, String userId, int sampleRate, int[] samples) {
+        this.id = id;
+        this.createdMillis = createdMillis;
+        this.mode = mode;
+        this.userId = userId != null ? userId : "";
+        this.sampleRate = sampleRate;
+        this.samples = samples;
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    /** 측정을 마친 시각 (epoch ms) */
+    public long getCreatedMillis() {
+        return createdMillis;
+    }
+
+    public CaptureMode getMode() {
+        return mode;
+    }
+
+    /** 빈 문자열이면 전체 검색 로그인 */
+    public String getUserId() {
+        return userId;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public int size() {
+        return samples.length;
+    }
+
+    public int get(int index) {
+        return samples[index];
+    }
+
+    @Override
+    public String toString() {
+        return "SpooledCapture{" + id + ", " + mode + ", user=" + userId + ", samples=" + samples.length + "}";
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.ecgapp.station;
+
+import com.example.ecgapp.metrics.Counter;
+import com.example.ecgapp.metrics.MetricsRegistry;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 여러 센서를 동시에 받는 관리자 (등록 스테이션 여러 곳을 태블릿 하나로 처리).
+ * - 센서마다 SensorStation 하나, 연결과 수신은 최대 maxStations 개 스레드의 고정 풀에서 실행
+ *   (블루투스 스트림은 블로킹 읽기뿐이라 연결된 센서마다 스레드 하나를 차지함 - 풀 크기가 곧 센서 수 상한)
+ * - 운영자가 고른 센서(selected)가 화면의 등록/로그인 대상. 고른 센서가 끊기면 남은 첫 센서로 넘어감
+ *
+ * 모든 메서드는 아무 스레드에서나 호출할 수 있다. Listener 는 작업 스레드에서 호출된다.
+ */
+public final class SensorHub implements Closeable {
+
+    public interface Listener {
+        /** 연결되어 수신을 시작함 (작업 스레드) */
+        void onStationConnected(SensorStation station);
+
+        /** 수신이 끝나 목록에서 빠짐. detach/close 나 스트림 끝이면 error 는 null */
+        void onStationEnded(SensorStation station, IOException error);
+
+        /** 고른 센서가 바뀜 (없으면 null) */
+        void onSelectionChanged(SensorStation selected);
+    }
+
+    private final int maxStations;
+    private final MetricsRegistry metrics;
+    private final Listener listener;
+    private final ExecutorService executor;
+    private final Counter readErrorCounter;
+
+    // 연결 순서 유지, 작업이 끝날 때 제거
+    private final Map<String, SensorStation> stations = new LinkedHashMap<>();
+    private SensorStation selected;
+    private boolean closed;
+
+    public SensorHub(int maxStations, MetricsRegistry metrics, Listener listener) {
+        if (maxStations < 1) {
+            throw new IllegalArgumentException("maxStations=" + maxStations);
+        }
+        this.maxStations = maxStations;
+        this.metrics = metrics;
+        this.listener = listener;
+        this.readErrorCounter = metrics.counter("bt.read_errors");
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory factory = r -> {
+            Thread t = new Thread(r, "SensorHub-" + threadNumber.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        };
+        this.executor = Executors.newFixedThreadPool(maxStations, factory);
+    }
+
+    /**
+     * 센서를 추가하고 작업 스레드에서 연결/수신을 시작한다. 처음 추가한 센서는 자동으로 선택된다.
+     * @param id 기기 주소 등 고유 값 (이미 있으면 그 센서를 그대로 반환)
+     * @throws IllegalStateException 센서 수 상한에 도달했거나 닫힌 경우
+     */
+    public SensorStation attach(String id, String name, SensorStation.Link link) {
+        SensorStation station;
+        boolean selectionChanged;
+        synchronized (this) {
+            if (closed) {
+                throw new IllegalStateException("closed");
+            }
+            SensorStation existing = stations.get(id);
+            if (existing != null) {
+                return existing;
+            }
+            if (stations.size() >= maxStations) {
+                throw new IllegalStateException("센서는 최대 " + maxStations + "개까지 연결할 수 있습니다");
+            }
+            station = new SensorStation(id, name, freeIndex(), link, metrics);
+            stations.put(id, station);
+            selectionChanged = selected == null;
+            if (selectionChanged) {
+                selected = station;
+            }
+        }
+        if (selectionChanged && listener != null) {
+            listener.onSelectionChanged(station);
+        }
+        try {
+            executor.execute(() -> runStation(station));
+        } catch (RejectedExecutionException e) {
+            // close() 와 겹침
+            remove(station);
+            throw new IllegalStateException("closed", e);
+        }
+        return station;
+    }
+
+    // 연결된 센서끼리 겹치지 않는 가장 작은 번호
+    private int freeIndex() {
+        boolean[] used = new boolean[maxStations + 2];
+        for (SensorStation s : stations.values()) {
+            used[s.getIndex()] = true;
+        }
+        int index = 1;
+        while (used[index]) {
+            index++;
+        }
+        return index;
+    }
+
+    private void runStation(SensorStation station) {
+        IOException error = null;
+        try {
+            station.run(() -> {
+                if (listener != null) {
+                    listener.onStationConnected(station);
+                }
+            });
+        } catch (IOException e) {
+            error = e;
+            readErrorCounter.increment();
+        } catch (RuntimeException e) {
+            // 클라이언트/tap 오류로 다른 센서의 스레드까지 잃지 않도록
+            error = new IOException(e);
+        }
+        remove(station);
+        if (listener != null) {
+            listener.onStationEnded(station, error);
+        }
+    }
+
+    private void remove(SensorStation station) {
+        SensorStation newSelection;
+        synchronized (this) {
+            if (stations.get(station.getId()) != station) {
+                return;
+            }
+            stations.remove(station.getId());
+            if (selected != station) {
+                return;
+            }
+            selected = stations.isEmpty() ? null : stations.values().iterator().next();
+            newSelection = selected;
+        }
+        if (listener != null) {
+            listener.onSelectionChanged(newSelection);
+        }
+    }
+
+    /** 수신을 멈춤. 목록에서는 작업 스레드가 끝날 때 빠지고 onStationEnded 가 호출된다 */
+    public void detach(String id) {
+        SensorStation station;
+        synchronized (this) {
+            station = stations.get(id);
+        }
+        if (station != null) {
+            station.close();
+        }
+    }
+
+    /** @return 없는 센서면 false */
+    public boolean select(String id) {
+        SensorStation station;
+        synchronized (this) {
+            station = stations.get(id);
+            if (station == null) {
+                return false;
+            }
+            if (station == selected) {
+                return true;
+            }
+            selected = station;
+        }
+        if (listener != null) {
+            listener.onSelectionChanged(station);
+        }
+        return true;
+    }
+
+    public synchronized SensorStation getSelected() {
+        return selected;
+    }
+
+    public synchronized SensorStation get(String id) {
+        return stations.get(id);
+    }
+
+    /** 연결 순서대로 (복사본) */
+    public synchronized List<SensorStation> getStations() {
+        return new ArrayList<>(stations.values());
+    }
+
+    public synchronized int size() {
+        return stations.size();
+    }
+
+    public int getMaxStations() {
+        return maxStations;
+    }
+
+    /** 모든 센서 수신을 멈추고 작업 스레드를 정리한다 (더 이상 attach 할 수 없음) */
+    @Override
+    public void close() {
+        List<SensorStation> all;
+        synchronized (this) {
+            closed = true;
+            all = new ArrayList<>(stations.values());
+        }
+        for (SensorStation station : all) {
+            station.close();
+        }
+        executor.shutdown();
+    }
+}
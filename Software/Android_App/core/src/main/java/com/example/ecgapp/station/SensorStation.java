@@ -0,0 +1,212 @@
+package com.example.ecgapp.station;
+
+import com.example.ecgapp.client.EcgStreamingClient;
+import com.example.ecgapp.metrics.Counter;
+import com.example.ecgapp.metrics.MetricsRegistry;
+import com.example.ecgapp.sensor.SensorLinkDecoder;
+import com.example.ecgapp.stream.SampleSink;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongSupplier;
+
+/**
+ * 센서 하나의 수신 경로 (한 태블릿에서 여러 센서를 동시에 받을 때 센서마다 하나, SensorHub 가 만듦).
+ * - 센서마다 파서(SensorLinkDecoder), 수신 통계, 측정 세션/업로드 연결(EcgStreamingClient)을 따로 가짐
+ * - 수신 루프는 SensorHub 의 작업 스레드에서 돌고, 샘플은 이 센서의 클라이언트와 tap(그래프 등)으로 넘김
+ * - 지표는 bt.samples 등 앱 전체 누적 카운터와 센서별 게이지 bt.s1.rate_hz 등 (연결된 동안만)
+ *
+ * 클라이언트/tap 교체와 통계 조회는 아무 스레드에서나 가능하다.
+ */
+public final class SensorStation implements SampleSink {
+
+    /** 센서 연결 방법 (블루투스 소켓 등) */
+    public interface Link {
+        /** 작업 스레드에서 호출: 연결하고 읽을 스트림을 반환 (블로킹) */
+        InputStream open() throws IOException;
+
+        /** 다른 스레드에서 호출: 연결 중이거나 읽는 중인 작업 스레드가 깨어나도록 연결을 닫음 */
+        void close();
+    }
+
+    private static final int READ_CHUNK_SIZE = 256;
+
+    private final String id;
+    private final String name;
+    private final int index;
+    private final Link link;
+    private final MetricsRegistry metrics;
+    private final SensorLinkDecoder decoder = new SensorLinkDecoder();
+    private final byte[] readBuffer = new byte[READ_CHUNK_SIZE];
+
+    private volatile EcgStreamingClient client;
+    private volatile SampleSink tap;
+    private volatile boolean connected;
+    private volatile boolean closed;
+
+    // 수신 통계 (쓰기는 수신 스레드만)
+    private final Counter sampleCounter;
+    private final Counter byteCounter;
+    private volatile long samples;
+    private volatile long bytes;
+    private volatile long rateHz;
+    private int rateWindowCount;
+    private long rateWindowStartNanos;
+
+    private final LongSupplier sampleGauge = () -> samples;
+    private final LongSupplier rateGauge = () -> rateHz;
+    private final LongSupplier parseErrorGauge;
+    private final LongSupplier lostFrameGauge;
+
+    SensorStation(String id, String name, int index, Link link, MetricsRegistry metrics) {
+        this.id = id;
+        this.name = name;
+        this.index = index;
+        this.link = link;
+        this.metrics = metrics;
+        this.sampleCounter = metrics.counter("bt.samples");
+        this.byteCounter = metrics.counter("bt.bytes");
+        this.parseErrorGauge = decoder::getErrorCount;
+        this.lostFrameGauge = () -> decoder.getBinaryDecoder().getLostFrames();
+    }
+
+    /**
+     * 작업 스레드에서 실행: 연결 후 스트림이 끝나거나 close() 될 때까지 수신.
+     * close() 로 끝나면 정상 종료, 그 밖의 읽기/연결 오류는 그대로 던진다.
+     */
+    void run(Runnable onConnected) throws IOException {
+        String prefix = "bt." + getLabel() + ".";
+        try {
+            InputStream in = link.open();
+            if (closed) {
+                return;
+            }
+            connected = true;
+            metrics.gauge(prefix + "samples", sampleGauge);
+            metrics.gauge(prefix + "rate_hz", rateGauge);
+            metrics.gauge(prefix + "parse_errors", parseErrorGauge);
+            metrics.gauge(prefix + "lost_frames", lostFrameGauge);
+            onConnected.run();
+            rateWindowStartNanos = System.nanoTime();
+            int n;
+            while (!closed && (n = in.read(readBuffer, 0, readBuffer.length)) >= 0) {
+                bytes += n;
+                byteCounter.add(n);
+                // 지연 추적: 이 청크의 샘플들을 받은 시각
+                long now = System.nanoTime();
+                EcgStreamingClient c = client;
+                if (c != null) {
+                    c.onChunkReceived(now);
+                }
+                SampleSink t = tap;
+                if (t != null) {
+                    t.onChunkReceived(now);
+                }
+                decoder.parse(readBuffer, 0, n, this);
+            }
+        } catch (IOException e) {
+            // close() 로 소켓을 닫아 깨운 경우는 오류로 보지 않음
+            if (!closed) {
+                throw e;
+            }
+        } finally {
+            connected = false;
+            rateHz = 0;
+            metrics.removeGauge(prefix + "samples", sampleGauge);
+            metrics.removeGauge(prefix + "rate_hz", rateGauge);
+            metrics.removeGauge(prefix + "parse_errors", parseErrorGauge);
+            metrics.removeGauge(prefix + "lost_frames", lostFrameGauge);
+            link.close();
+        }
+    }
+
+    // 파서가 완성된 샘플마다 호출 (수신 스레드)
+    @Override
+    public void onSample(int value) {
+        SampleSink t = tap;
+        if (t != null) {
+            t.onSample(value);
+        }
+        // 측정 중일 때만 클라이언트가 받음 (진행률/COMPLETE 는 클라이언트가 처리)
+        EcgStreamingClient c = client;
+        if (c != null) {
+            c.onSample(value);
+        }
+
+        samples++;
+        sampleCounter.increment();
+        rateWindowCount++;
+        long now = System.nanoTime();
+        if (now - rateWindowStartNanos >= 1_000_000_000L) {
+            rateHz = Math.round(rateWindowCount * 1e9 / (now - rateWindowStartNanos));
+            rateWindowCount = 0;
+            rateWindowStartNanos = now;
+        }
+    }
+
+    /** 수신을 멈춤 (SensorHub.detach/close 에서 호출). 작업 스레드는 연결이 닫히면 끝난다 */
+    void close() {
+        closed = true;
+        link.close();
+    }
+
+    /** 이 센서의 측정 세션/업로드 연결 (null 이면 서버로 보내지 않음) */
+    public void setClient(EcgStreamingClient client) {
+        this.client = client;
+    }
+
+    public EcgStreamingClient getClient() {
+        return client;
+    }
+
+    /** 수신 스레드에서 샘플마다 호출됨 (그래프, 오프라인 측정 등), 읽기마다 onChunkReceived 도. null 이면 해제 */
+    public void setTap(SampleSink tap) {
+        this.tap = tap;
+    }
+
+    /** 기기 주소 등 고유 값 */
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /** 1 부터, 연결된 센서끼리 겹치지 않음 (그래프 색, 지표 이름) */
+    public int getIndex() {
+        return index;
+    }
+
+    /** 화면/지표용 짧은 이름 (s1, s2, ...) */
+    public String getLabel() {
+        return "s" + index;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getSamples() {
+        return samples;
+    }
+
+    public long getBytes() {
+        return bytes;
+    }
+
+    /** 최근 1초 수신 속도 */
+    public long getRateHz() {
+        return rateHz;
+    }
+
+    /** 형식 오류, 프레임 누락 등 (수신 스레드가 갱신하므로 근사치) */
+    public SensorLinkDecoder getDecoder() {
+        return decoder;
+    }
+
+    @Override
+    public String toString() {
+        return getLabel() + " " + name + " (" + id + ")";
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ecgapp.stream;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 단일 생산자/단일 소비자(SPSC) 전용 int 링 버퍼.
+ * - 샘플을 int[]에 그대로 저장하므로 박싱/노드 할당이 없음
+ * - offer()는 생산자 스레드 하나, drainTo()는 소비자 스레드 하나에서만 호출해야 함
+ * - offerOverwrite()는 가득 차면 가장 오래된 값을 버림 (생산자도 head 를 옮기므로 소비자는 CAS 로 확정)
+ * - 용량은 2의 거듭제곱으로 올림 처리 (인덱스 계산을 비트 마스크로 수행)
+ */
+public final class IntRingBuffer {
+
+    private final int[] buffer;
+    private final int mask;
+
+    // 생산자가 다음에 쓸 위치 (생산자만 갱신)
+    private final AtomicLong tail = new AtomicLong();
+    // 소비자가 다음에 읽을 위치 (소비자, 그리고 offerOverwrite 의 생산자가 갱신)
+    private final AtomicLong head = new AtomicLong();
+
+    // 각 스레드가 상대편 인덱스를 매번 volatile로 읽지 않도록 캐시
+    private long cachedHead;
+    private long cachedTail;
+
+    public IntRingBuffer(int requestedCapacity) {
+        if (requestedCapacity < 2) {
+            throw new IllegalArgumentException("capacity must be >= 2: " + requestedCapacity);
+        }
+        if (requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity too large: " + requestedCapacity);
+        }
+        int capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.buffer = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    // 생산자 스레드 전용. 버퍼가 가득 차면 false 반환 (값은 저장되지 않음)
+    public boolean offer(int value) {
+        long t = tail.get();
+        if (t - cachedHead >= buffer.length) {
+            cachedHead = head.get();
+            if (t - cachedHead >= buffer.length) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = value;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // 생산자 스레드 전용. 가득 차면 가장 오래된 값을 버리고 저장. 버린 값이 있으면 true 반환
+    public boolean offerOverwrite(int value) {
+        long t = tail.get();
+        boolean dropped = false;
+        while (t - cachedHead >= buffer.length) {
+            long h = head.get();
+            if (t - h < buffer.length) {
+                cachedHead = h;
+                break;
+            }
+            // 소비자가 그 사이 가져가면 CAS 실패 → 다시 확인
+            if (head.compareAndSet(h, h + 1)) {
+                cachedHead = h + 1;
+                dropped = true;
+            }
+        }
+        buffer[(int) t & mask] = value;
+        tail.lazySet(t + 1);
+        return dropped;
+    }
+
+    // 소비자 스레드 전용. 대기 중인 샘플을 dst에 최대 dst.length개 복사하고 개수 반환
+    public int drainTo(int[] dst) {
+        return drainTo(dst, 0, dst.length);
+    }
+
+    public int drainTo(int[] dst, int offset, int maxCount) {
+        while (true) {
+            long h = head.get();
+            long available = cachedTail - h;
+            if (available < maxCount) {
+                cachedTail = tail.get();
+                available = cachedTail - h;
+            }
+            int count = (int) Math.min(available, maxCount);
+            if (count <= 0) {
+                return 0;
+            }
+
+            // 배열 끝에서 감기는 경우 두 번에 나눠 복사
+            int start = (int) h & mask;
+            int firstPart = Math.min(count, buffer.length - start);
+            System.arraycopy(buffer, start, dst, offset, firstPart);
+            if (firstPart < count) {
+                System.arraycopy(buffer, 0, dst, offset + firstPart, count - firstPart);
+            }
+            // 복사 중에 생산자가 가장 오래된 값을 덮어썼으면 head 가 바뀌어 있으므로 다시 읽음
+            if (head.compareAndSet(h, h + count)) {
+                return count;
+            }
+        }
+    }
+
+    // 소비자 스레드 전용. 대기 중인 샘플을 모두 버림
+    public void clear() {
+        head.set(tail.get());
+    }
+
+    // 어느 스레드에서나 호출 가능한 근사치 (모니터링용)
+    public int size() {
+        long h = head.get();
+        long t = tail.get();
+        return (int) Math.max(0, Math.min(t - h, buffer.length));
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.ecgapp.stream;
+
+import com.example.ecgapp.metrics.LatencyHistogram;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * 센서 없이 샘플을 실시간 속도로 내보낼 때의 시각 관리 (더미 데이터, 합성 신호원).
+ * - 청크마다 sleep 하면 늦게 깨어난 시간이 쌓여 실제 속도가 느려지므로, 시작 시각 + n / sampleRate 를
+ *   System.nanoTime() 기한으로 삼아 오차가 쌓이지 않게 한다
+ * - 늦게 깨어나면 그동안 밀린 샘플을 한 번에 내보낸다 (최대 maxBatchSamples, 그보다 더 밀리면 나머지는 건너뜀)
+ * - 기한 대비 깨어난 지연(지터)과 실제로 내보낸 속도를 기록한다
+ *
+ * awaitNext() 는 한 스레드에서만 호출한다. 통계 조회는 아무 스레드에서나 가능하다 (근사치).
+ */
+public final class SamplePacer {
+
+    /** 대기 방법 (시험에서 가짜 시계와 함께 바꿔 끼움) */
+    interface Sleeper {
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    private final double nanosPerSample;
+    private final int chunkSamples;
+    private final int maxBatchSamples;
+    private final LongSupplier clock;
+    private final Sleeper sleeper;
+
+    private long startNanos;
+    private boolean started;
+    private volatile LatencyHistogram latenessHistogram;
+
+    // 통계 (쓰기는 awaitNext 스레드만)
+    private volatile long emittedSamples;
+    private volatile long skippedSamples;
+    private volatile long lastWakeNanos;
+    private volatile long wakeups;
+    private volatile long latenessSumNanos;
+    private volatile double latenessSquareSum;
+    private volatile long maxLatenessNanos;
+
+    /**
+     * @param chunkSamples    한 번에 내보내는 샘플 수 (제때 깨어났을 때)
+     * @param maxBatchSamples 늦게 깨어났을 때 한 번에 내보내는 최대 샘플 수 (chunkSamples 이상)
+     */
+    public SamplePacer(double sampleRate, int chunkSamples, int maxBatchSamples) {
+        this(sampleRate, chunkSamples, maxBatchSamples, System::nanoTime, TimeUnit.NANOSECONDS::sleep);
+    }
+
+    /** 밀린 샘플은 최대 1초 분량까지 한 번에 내보냄 */
+    public SamplePacer(double sampleRate, int chunkSamples) {
+        this(sampleRate, chunkSamples, Math.max(chunkSamples, (int) Math.ceil(sampleRate)));
+    }
+
+    SamplePacer(double sampleRate, int chunkSamples, int maxBatchSamples, LongSupplier clock, Sleeper sleeper) {
+        if (sampleRate <= 0 || chunkSamples < 1 || maxBatchSamples < chunkSamples) {
+            throw new IllegalArgumentException("rate=" + sampleRate + ", chunk=" + chunkSamples + ", maxBatch=" + maxBatchSamples);
+        }
+        this.nanosPerSample = TimeUnit.SECONDS.toNanos(1) / sampleRate;
+        this.chunkSamples = chunkSamples;
+        this.maxBatchSamples = maxBatchSamples;
+        this.clock = clock;
+        this.sleeper = sleeper;
+    }
+
+    /** 깨어난 지연을 함께 기록할 히스토그램 (MetricsRegistry 등), null 이면 해제 */
+    public void setLatenessHistogram(LatencyHistogram histogram) {
+        latenessHistogram = histogram;
+    }
+
+    /**
+     * 다음 청크의 기한(마지막 샘플이 측정되는 시각)까지 기다린 뒤 지금 내보낼 샘플 수를 반환한다.
+     * 제때 깨어나면 chunkSamples, 늦으면 밀린 만큼 (최대 maxBatchSamples). 첫 호출 시각이 시작 시각이다.
+     */
+    public int awaitNext() throws InterruptedException {
+        long now = clock.getAsLong();
+        if (!started) {
+            started = true;
+            startNanos = now;
+        }
+        long emitted = emittedSamples;
+        long deadline = deadline(emitted + chunkSamples);
+        while (now - deadline < 0) {
+            sleeper.sleepNanos(deadline - now);
+            now = clock.getAsLong();
+        }
+        recordLateness(now - deadline);
+
+        // 기한이 지났으므로 최소 한 청크 (부동소수 반올림으로 하나 모자라게 계산되는 경우 포함)
+        long due = Math.max(chunkSamples, (long) ((now - startNanos) / nanosPerSample) - skippedSamples - emitted);
+        if (due > maxBatchSamples) {
+            // 오래 멈춰 있었음 (화면 꺼짐, GC 등) - 한꺼번에 쏟아내지 않고 시각 기준을 당김
+            skippedSamples += due - maxBatchSamples;
+            due = maxBatchSamples;
+        }
+        emittedSamples = emitted + due;
+        lastWakeNanos = now;
+        return (int) due;
+    }
+
+    private long deadline(long samples) {
+        return startNanos + (long) Math.ceil((samples + skippedSamples) * nanosPerSample);
+    }
+
+    private void recordLateness(long lateness) {
+        wakeups++;
+        latenessSumNanos += lateness;
+        latenessSquareSum += (double) lateness * lateness;
+        if (lateness > maxLatenessNanos) {
+            maxLatenessNanos = lateness;
+        }
+        LatencyHistogram h = latenessHistogram;
+        if (h != null) {
+            h.recordNanos(lateness);
+        }
+    }
+
+    public int getChunkSamples() {
+        return chunkSamples;
+    }
+
+    /** awaitNext() 가 반환할 수 있는 최대값 (버퍼 크기) */
+    public int getMaxBatchSamples() {
+        return maxBatchSamples;
+    }
+
+    public long getEmittedSamples() {
+        return emittedSamples;
+    }
+
+    /** 너무 늦게 깨어나 내보내지 않고 건너뛴 샘플 수 */
+    public long getSkippedSamples() {
+        return skippedSamples;
+    }
+
+    /** 시작부터 마지막으로 깨어날 때까지 실제로 내보낸 속도 (Hz), 아직 없으면 0 */
+    public double getAchievedRateHz() {
+        long elapsed = lastWakeNanos - startNanos;
+        return wakeups == 0 || elapsed <= 0 ? 0 : emittedSamples * 1e9 / elapsed;
+    }
+
+    /** 기한 대비 깨어난 평균 지연 */
+    public long getMeanLatenessNanos() {
+        long n = wakeups;
+        return n == 0 ? 0 : latenessSumNanos / n;
+    }
+
+    public long getMaxLatenessNanos() {
+        return maxLatenessNanos;
+    }
+
+    /** 깨어난 지연의 표준편차 (지터) */
+    public long getJitterNanos() {
+        long n = wakeups;
+        if (n < 2) {
+            return 0;
+        }
+        double mean = (double) latenessSumNanos / n;
+        return (long) Math.sqrt(Math.max(0, latenessSquareSum / n - mean * mean));
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%.1fHz (emitted %d, skipped %d, lateness mean %dus max %dus jitter %dus)",
+                getAchievedRateHz(), emittedSamples, skippedSamples, getMeanLatenessNanos() / 1000,
+                maxLatenessNanos / 1000, getJitterNanos() / 1000);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.ecgapp.stream;
+
+/**
+ * 샘플(ADC 값)을 하나씩 받는 쪽. 센서 디코더, 합성 신호원 등이 호출한다.
+ * 호출 스레드는 샘플을 만드는 쪽이 정하므로 구현은 필요한 만큼만 동기화한다.
+ */
+public interface SampleSink {
+    void onSample(int value);
+
+    /**
+     * 이어지는 onSample 들이 든 데이터를 센서에서 읽은 시각 (System.nanoTime(), 지연 추적용).
+     * 읽기 한 번마다 호출하며, 시각이 필요 없는 구현은 무시한다.
+     */
+    default void onChunkReceived(long receivedNanos) {
+    }
+}
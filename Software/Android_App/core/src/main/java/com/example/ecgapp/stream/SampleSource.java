@@ -0,0 +1,16 @@
+package com.example.ecgapp.stream;
+
+/**
+ * 샘플을 만들어 SampleSink 로 밀어 넣는 신호원 (센서 스트림, 합성 ECG 등).
+ * start() 후에는 신호원 자신의 스레드에서 sink 가 호출된다.
+ */
+public interface SampleSource {
+
+    /** 전송을 시작한다. 이미 실행 중이면 아무것도 하지 않는다. */
+    void start(SampleSink sink);
+
+    /** 전송을 멈추고 스레드가 끝날 때까지 기다리지 않고 반환한다. */
+    void stop();
+
+    boolean isRunning();
+}
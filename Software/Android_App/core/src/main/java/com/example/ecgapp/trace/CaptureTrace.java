@@ -0,0 +1,72 @@
+package com.example.ecgapp.trace;
+
+/**
+ * 측정 한 번의 앱 쪽 시각 기록 (모두 System.nanoTime(), 0 이면 아직 없음).
+ * 샘플마다 시각을 남기지 않고 첫/마지막 샘플의 수신·큐 투입·커널 송신 시각만 갱신한다 (할당 없음).
+ *
+ * 스레드 안전하지 않음 - 호출하는 쪽(EcgStreamingClient)의 잠금 안에서 사용.
+ */
+public final class CaptureTrace {
+
+    long firstReceiveNanos;
+    long lastReceiveNanos;
+    long firstEnqueueNanos;
+    long lastEnqueueNanos;
+    long firstWriteNanos;
+    long lastWriteNanos;
+
+    /**
+     * 샘플 하나를 전송 큐에 넣음.
+     * @param receiveNanos 센서에서 이 샘플이 든 청크를 읽은 시각 (모르면 0 → 큐 투입 시각으로 봄)
+     */
+    public void onEnqueued(long receiveNanos, long nowNanos) {
+        if (receiveNanos == 0) {
+            receiveNanos = nowNanos;
+        }
+        if (firstEnqueueNanos == 0) {
+            firstReceiveNanos = receiveNanos;
+            firstEnqueueNanos = nowNanos;
+        }
+        lastReceiveNanos = receiveNanos;
+        lastEnqueueNanos = nowNanos;
+    }
+
+    /** 샘플이 커널 송신 버퍼로 넘어감. last 면 측정의 마지막 샘플까지 넘어간 것 */
+    public void onWritten(long nowNanos, boolean last) {
+        if (firstWriteNanos == 0) {
+            firstWriteNanos = nowNanos;
+        }
+        if (last && lastWriteNanos == 0) {
+            lastWriteNanos = nowNanos;
+        }
+    }
+
+    public boolean isEmpty() {
+        return firstEnqueueNanos == 0;
+    }
+
+    public long getLastReceiveNanos() {
+        return lastReceiveNanos;
+    }
+
+    public void reset() {
+        firstReceiveNanos = 0;
+        lastReceiveNanos = 0;
+        firstEnqueueNanos = 0;
+        lastEnqueueNanos = 0;
+        firstWriteNanos = 0;
+        lastWriteNanos = 0;
+    }
+
+    /** 결과 계산용 복사본 (원본은 다음 측정에 재사용) */
+    public CaptureTrace copy() {
+        CaptureTrace c = new CaptureTrace();
+        c.firstReceiveNanos = firstReceiveNanos;
+        c.lastReceiveNanos = lastReceiveNanos;
+        c.firstEnqueueNanos = firstEnqueueNanos;
+        c.lastEnqueueNanos = lastEnqueueNanos;
+        c.firstWriteNanos = firstWriteNanos;
+        c.lastWriteNanos = lastWriteNanos;
+        return c;
+    }
+}
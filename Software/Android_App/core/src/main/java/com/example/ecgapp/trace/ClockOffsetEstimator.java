@@ -0,0 +1,60 @@
+package com.example.ecgapp.trace;
+
+/**
+ * NTP 방식 시계 차이 추정 (CMD:TIME 왕복).
+ * t0: 클라이언트 송신, t1: 서버 수신, t2: 서버 송신, t3: 클라이언트 수신 (각자의 단조 시계, 나노초).
+ * offset = 서버 시계 - 클라이언트 시계 = ((t1 - t0) + (t2 - t3)) / 2,
+ * 왕복 시간이 가장 짧은 측정을 채택한다 (비대칭 지연 오차가 왕복 시간의 절반 이하로 줄어듦).
+ *
+ * 스레드 안전하지 않음 - 한 스레드(클라이언트 이벤트 루프)에서만 사용.
+ */
+public final class ClockOffsetEstimator {
+
+    private long offsetNanos;
+    private long rttNanos = Long.MAX_VALUE;
+    private int samples;
+
+    /** 왕복 측정 하나 추가. 시각이 앞뒤가 맞지 않으면 버리고 false */
+    public boolean add(long t0, long t1, long t2, long t3) {
+        long rtt = (t3 - t0) - (t2 - t1);
+        if (t3 < t0 || t2 < t1 || rtt < 0) {
+            return false;
+        }
+        samples++;
+        if (rtt < rttNanos) {
+            rttNanos = rtt;
+            offsetNanos = ((t1 - t0) + (t2 - t3)) / 2;
+        }
+        return true;
+    }
+
+    public boolean hasEstimate() {
+        return samples > 0;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /** 서버 시계 - 클라이언트 시계 (hasEstimate() 가 false 면 0) */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    /** 채택한 측정의 왕복 시간 (offset 오차 상한의 두 배), 측정이 없으면 -1 */
+    public long getRttNanos() {
+        return samples > 0 ? rttNanos : -1;
+    }
+
+    /** 서버 시각을 클라이언트 System.nanoTime() 기준으로 변환 */
+    public long toLocal(long serverNanos) {
+        return serverNanos - offsetNanos;
+    }
+
+    /** 새 연결 (서버 프로세스가 바뀌면 시계 기준도 바뀜) */
+    public void reset() {
+        offsetNanos = 0;
+        rttNanos = Long.MAX_VALUE;
+        samples = 0;
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.ecgapp.trace;
+
+import org.json.JSONObject;
+
+import java.util.Locale;
+
+/**
+ * 측정 한 번의 단계별 지연 (마지막 샘플 기준, 결과가 늦게 나오는 원인 파악용).
+ * INGEST ~ DOWNLINK 을 모두 알면 합이 TOTAL 과 같다.
+ * 서버 시각(server_timing)은 ClockOffsetEstimator 로 앱 시계에 맞춘 값이므로
+ * UPLINK / DOWNLINK 는 시계 차이 측정 오차(왕복 시간의 절반 이하)만큼 틀릴 수 있다.
+ */
+public final class LatencyBreakdown {
+
+    /** 값을 구할 수 없는 단계 (서버가 시각을 보내지 않음, 시계 차이 미측정 등) */
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    public enum Stage {
+        CAPTURE("capture"),               // 첫 샘플 수신 ~ 마지막 샘플 수신 (센서 속도가 결정)
+        INGEST("ingest"),                 // 마지막 샘플 수신 ~ 전송 큐 투입 (파싱, 필터)
+        QUEUE("queue"),                   // 큐 투입 ~ 커널 송신 버퍼 (큐 대기, 프레임 묶음)
+        UPLINK("uplink"),                 // 커널 송신 ~ 서버 수신
+        SERVER_WAIT("server_wait"),       // 서버 마지막 샘플 수신 ~ 처리 시작 (COMPLETE 대기)
+        SERVER_PROCESS("server_process"), // 서버 처리 시작 ~ 응답 송신
+        DOWNLINK("downlink"),             // 서버 응답 송신 ~ 앱 수신
+        TOTAL("total");                   // 마지막 샘플 수신 ~ 결과 수신
+
+        private final String key;
+
+        Stage(String key) {
+            this.key = key;
+        }
+
+        /** 지표/JSON 이름 */
+        public String key() {
+            return key;
+        }
+    }
+
+    private final long[] nanos;
+    private final long clockOffsetNanos;
+    private final long clockRttNanos;
+
+    private LatencyBreakdown(long[] nanos, long clockOffsetNanos, long clockRttNanos) {
+        this.nanos = nanos;
+        this.clockOffsetNanos = clockOffsetNanos;
+        this.clockRttNanos = clockRttNanos;
+    }
+
+    /**
+     * @param trace         앱 쪽 시각
+     * @param serverLast    서버 응답 server_timing 의 last_sample_ns (서버 시계, 없으면 0 - 앱 쪽 단계만 계산)
+     * @param serverStart   server_timing 의 process_start_ns (없으면 0)
+     * @param serverReply   server_timing 의 reply_ns (없으면 0)
+     * @param clock         시계 차이 (측정 전이면 서버 쪽 구간 사이의 단계만 계산)
+     * @param verdictNanos  결과 응답을 받은 시각
+     */
+    public static LatencyBreakdown compute(CaptureTrace trace, long serverLast, long serverStart, long serverReply,
+                                           ClockOffsetEstimator clock, long verdictNanos) {
+        long[] n = new long[Stage.values().length];
+        boolean aligned = clock != null && clock.hasEstimate();
+
+        n[Stage.CAPTURE.ordinal()] = between(trace.firstReceiveNanos, trace.lastReceiveNanos);
+        n[Stage.INGEST.ordinal()] = between(trace.lastReceiveNanos, trace.lastEnqueueNanos);
+        n[Stage.QUEUE.ordinal()] = between(trace.lastEnqueueNanos, trace.lastWriteNanos);
+        n[Stage.UPLINK.ordinal()] = aligned && serverLast != 0
+                ? between(trace.lastWriteNanos, clock.toLocal(serverLast)) : UNKNOWN;
+        n[Stage.SERVER_WAIT.ordinal()] = between(serverLast, serverStart);
+        n[Stage.SERVER_PROCESS.ordinal()] = between(serverStart, serverReply);
+        n[Stage.DOWNLINK.ordinal()] = aligned && serverReply != 0
+                ? between(clock.toLocal(serverReply), verdictNanos) : UNKNOWN;
+        n[Stage.TOTAL.ordinal()] = between(trace.lastReceiveNanos, verdictNanos);
+        return new LatencyBreakdown(n,
+                aligned ? clock.getOffsetNanos() : UNKNOWN,
+                aligned ? clock.getRttNanos() : UNKNOWN);
+    }
+
+    // 두 시각이 모두 있으면 차이, 아니면 UNKNOWN (시계 보정 오차로 음수가 될 수 있음)
+    private static long between(long start, long end) {
+        return start == 0 || end == 0 ? UNKNOWN : end - start;
+    }
+
+    public boolean isKnown(Stage stage) {
+        return nanos[stage.ordinal()] != UNKNOWN;
+    }
+
+    /** 단계 지연 (나노초), 모르면 UNKNOWN */
+    public long getNanos(Stage stage) {
+        return nanos[stage.ordinal()];
+    }
+
+    /** 단계 지연 (밀리초), 모르면 NaN */
+    public double getMillis(Stage stage) {
+        long v = nanos[stage.ordinal()];
+        return v == UNKNOWN ? Double.NaN : v / 1e6;
+    }
+
+    /** 서버 시계 - 앱 시계 (시계 차이 미측정이면 UNKNOWN) */
+    public long getClockOffsetNanos() {
+        return clockOffsetNanos;
+    }
+
+    /** 시계 차이 측정에 쓴 왕복 시간 (미측정이면 UNKNOWN) */
+    public long getClockRttNanos() {
+        return clockRttNanos;
+    }
+
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        for (Stage stage : Stage.values()) {
+            if (isKnown(stage)) {
+                json.put(stage.key() + "_ms", getMillis(stage));
+            }
+        }
+        if (clockRttNanos != UNKNOWN) {
+            json.put("clock_rtt_ms", clockRttNanos / 1e6);
+        }
+        return json;
+    }
+
+    /** 로그용 한 줄 (예: "total=812.4ms ingest=0.1 queue=35.2 uplink=2.0 ...") */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(Locale.US, "total=%.1fms", getMillis(Stage.TOTAL)));
+        for (Stage stage : Stage.values()) {
+            if (stage != Stage.TOTAL) {
+                sb.append(' ').append(stage.key()).append('=');
+                sb.append(isKnown(stage) ? String.format(Locale.US, "%.1f", getMillis(stage)) : "?");
+            }
+        }
+        if (clockRttNanos != UNKNOWN) {
+            sb.append(String.format(Locale.US, " (clock rtt=%.1fms)", clockRttNanos / 1e6));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,598 @@
+package com.example.ecgapp.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.ecgapp.metrics.MetricsRegistry;
+import com.example.ecgapp.net.NioEventLoop;
+import com.example.ecgapp.net.SampleDeltaCodec;
+import com.example.ecgapp.net.SampleFrameEncoder;
+import com.example.ecgapp.trace.LatencyBreakdown;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 서버 프로토콜 흐름 (ready → 샘플 → COMPLETE → 결과), 응답 분류, 요청 번호로 응답 구분 검증
+ */
+public class EcgStreamingClientTest {
+
+    private static final class RecordingListener implements EcgClientListener {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        final BlockingQueue<Verdict> verdicts = new LinkedBlockingQueue<>();
+        final BlockingQueue<LatencyBreakdown> breakdowns = new LinkedBlockingQueue<>();
+        final List<Integer> progress = new ArrayList<>();
+        volatile List<String> users;
+        volatile int collected;
+
+        @Override
+        public void onConnectionChanged(boolean connected) {
+            events.add(connected ? "connected" : "disconnected");
+        }
+
+        @Override
+        public void onCaptureStarted(CaptureMode mode, int requiredSamples) {
+            events.add("started:" + mode + ":" + requiredSamples);
+        }
+
+        @Override
+        public synchronized void onCaptureProgress(CaptureMode mode, int samples, int requiredSamples) {
+            progress.add(samples);
+        }
+
+        @Override
+        public void onCaptureCollected(CaptureMode mode, int samples) {
+            collected = samples;
+        }
+
+        @Override
+        public void onLatencyBreakdown(CaptureMode mode, LatencyBreakdown breakdown) {
+            breakdowns.add(breakdown);
+        }
+
+        @Override
+        public void onVerdict(Verdict verdict) {
+            verdicts.add(verdict);
+        }
+
+        @Override
+        public void onUserList(List<String> userIds) {
+            users = userIds;
+        }
+
+        @Override
+        public void onUserDeleted(boolean success, String message) {
+            events.add("deleted:" + success);
+        }
+
+        @Override
+        public void onLoggedOut(String message) {
+            events.add("loggedOut");
+        }
+
+        @Override
+        public void onServerError(String message) {
+            events.add("error:" + message);
+        }
+    }
+
+    // 바이너리 프레임을 모르는 텍스트 전용 서버 (구버전 ecg_server.py 와 같은 응답)
+    private static void serveRegistration(ServerSocket server, AtomicInteger samplesBeforeComplete) {
+        serveRegistration(server, samplesBeforeComplete, 2500);
+    }
+
+    private static void serveRegistration(ServerSocket server, AtomicInteger samplesBeforeComplete, int requiredSamples) {
+        try (Socket s = server.accept()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            out.println("{\"status\": \"connected\", \"message\": \"ECG 서버에 연결되었습니다.\"}");
+            int samples = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("CMD:FRAMING")) {
+                    out.println("{\"status\": \"error\", \"message\": \"알 수 없는 명령어: FRAMING\"}");
+                } else if (line.startsWith("CMD:REGISTER:")) {
+                    samples = 0;
+                    out.println("{\"status\": \"ready\", \"message\": \"등록 모드 시작\", \"mode\": \"register\","
+                            + " \"user_id\": \"alice\", \"required_samples\": " + requiredSamples + "}");
+                } else if (line.equals("CMD:COMPLETE")) {
+                    samplesBeforeComplete.set(samples);
+                    out.println("{\"status\": \"success\", \"message\": \"사용자 등록 완료: alice\","
+                            + " \"user_id\": \"alice\", \"registered_at\": \"2026-01-01T00:00:00\"}");
+                } else if (!line.startsWith("CMD:")) {
+                    Integer.parseInt(line);
+                    samples++;
+                }
+            }
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊음
+        }
+    }
+
+    @Test
+    public void registrationStreamsRequiredSamplesThenCompletes() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            AtomicInteger samplesBeforeComplete = new AtomicInteger(-1);
+            Thread serverThread = new Thread(() -> serveRegistration(server, samplesBeforeComplete));
+            serverThread.start();
+
+            RecordingListener listener = new RecordingListener();
+            EcgStreamingClient client = new EcgStreamingClient("127.0.0.1", server.getLocalPort(), listener);
+            client.start();
+            try {
+                assertEquals("connected", listener.events.poll(5, TimeUnit.SECONDS));
+
+                // ready 전의 샘플은 전송하지 않음
+                client.onSample(1);
+                assertFalse(client.isCollecting());
+
+                client.register("alice");
+                // 서버가 더 작은 값을 보내도 최소 3000개
+                assertEquals("started:REGISTER:3000", listener.events.poll(5, TimeUnit.SECONDS));
+                assertTrue(client.isCollecting());
+
+                for (int i = 0; i < 3200; i++) {
+                    client.onSample(500 + (i % 100));
+                }
+                assertFalse(client.isCollecting());
+
+                Verdict verdict = listener.verdicts.poll(5, TimeUnit.SECONDS);
+                assertNotNull(verdict);
+                assertEquals(Verdict.Kind.REGISTERED, verdict.getKind());
+                assertEquals(CaptureMode.REGISTER, verdict.getMode());
+                assertEquals("alice", verdict.getUserId());
+
+                assertEquals(3000, samplesBeforeComplete.get());
+                // 수집 완료와 진행률은 커널로 넘어간 샘플 기준 (한 번에 다 넘어가면 진행률 없이 완료)
+                assertEquals(3000, listener.collected);
+                synchronized (listener) {
+                    int previous = 0;
+                    for (int sent : listener.progress) {
+                        assertTrue(sent > previous && sent < 3000);
+                        previous = sent;
+                    }
+                }
+                assertEquals(null, client.getCaptureMode());
+            } finally {
+                client.close();
+            }
+            serverThread.join(5000);
+        }
+    }
+
+    private static void serveBinaryRegistration(ServerSocket server, AtomicInteger samplesBeforeComplete) {
+        serveBinaryRegistration(server, samplesBeforeComplete, false, new ArrayList<>(), new ArrayList<>());
+    }
+
+    // 프레임과 명령 줄이 섞인 스트림을 받는 서버 (ecg_server.py 의 SampleFrameDecoder 와 같은 해석)
+    // compressed 가 false 면 구버전처럼 BIN1 만 받고 나머지 이름은 text 로 응답
+    // 협상이 끝나기 전에 보낸 텍스트 샘플도 서버처럼 같은 순서로 받음
+    private static void serveBinaryRegistration(ServerSocket server, AtomicInteger samplesBeforeComplete,
+                                                boolean compressed, List<Integer> values, List<Integer> encodings) {
+        try (Socket s = server.accept()) {
+            DataInputStream in = new DataInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            int samples = 0;
+            int expectedSeq = 0;
+            ByteArrayOutputStream line = new ByteArrayOutputStream();
+            while (true) {
+                int b = in.read();
+                if (b < 0) {
+                    return;
+                }
+                if (b == SampleFrameEncoder.MAGIC_0 && line.size() == 0) {
+                    byte[] header = new byte[SampleFrameEncoder.HEADER_SIZE - 1];
+                    in.readFully(header);
+                    int seq = ((header[3] & 0xFF) << 24) | ((header[4] & 0xFF) << 16) | ((header[5] & 0xFF) << 8) | (header[6] & 0xFF);
+                    int count = ((header[7] & 0xFF) << 8) | (header[8] & 0xFF);
+                    int length = ((header[9] & 0xFF) << 8) | (header[10] & 0xFF);
+                    if (seq != expectedSeq++) {
+                        throw new IOException("sequence gap: " + seq);
+                    }
+                    byte[] payload = new byte[length];
+                    in.readFully(payload);
+                    int[] decoded = new int[count];
+                    SampleDeltaCodec.decode(header[2], payload, 0, length, count, decoded, 0);
+                    synchronized (values) {
+                        encodings.add((int) header[2]);
+                        for (int v : decoded) {
+                            values.add(v);
+                        }
+                    }
+                    samples += count;
+                    continue;
+                }
+                if (b != '\n') {
+                    line.write(b);
+                    continue;
+                }
+                String cmd = new String(line.toByteArray(), StandardCharsets.UTF_8);
+                line.reset();
+                String reply = null;
+                if (cmd.equals("CMD:FRAMING:BIN1") || (compressed && cmd.equals("CMD:FRAMING:BIN2"))) {
+                    reply = "{\"status\": \"framing\", \"framing\": \"" + cmd.substring(12) + "\"}";
+                } else if (cmd.startsWith("CMD:FRAMING:")) {
+                    reply = "{\"status\": \"framing\", \"framing\": \"text\"}";
+                } else if (cmd.startsWith("CMD:LOGIN")) {
+                    samples = 0;
+                    reply = "{\"status\": \"ready\", \"mode\": \"login\", \"required_samples\": 3000}";
+                } else if (cmd.equals("CMD:COMPLETE")) {
+                    samplesBeforeComplete.set(samples);
+                    reply = "{\"status\": \"success\", \"message\": \"로그인 성공\", \"user_id\": \"bob\","
+                            + " \"session_id\": \"s-" + server.getLocalPort() + "\", \"similarity\": 0.95}";
+                } else if (!cmd.startsWith("CMD:")) {
+                    synchronized (values) {
+                        values.add(Integer.parseInt(cmd.trim()));
+                    }
+                    samples++;
+                }
+                if (reply != null) {
+                    out.write((reply + "\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊음
+        }
+    }
+
+    @Test
+    public void clientsShareOneEventLoopWithBinaryFraming() throws Exception {
+        try (NioEventLoop loop = new NioEventLoop("shared-loop");
+             ServerSocket serverA = new ServerSocket(0);
+             ServerSocket serverB = new ServerSocket(0)) {
+            ServerSocket[] servers = {serverA, serverB};
+            AtomicInteger[] received = {new AtomicInteger(-1), new AtomicInteger(-1)};
+            RecordingListener[] listeners = new RecordingListener[2];
+            EcgStreamingClient[] clients = new EcgStreamingClient[2];
+            for (int i = 0; i < 2; i++) {
+                final int n = i;
+                new Thread(() -> serveBinaryRegistration(servers[n], received[n])).start();
+                listeners[i] = new RecordingListener();
+                clients[i] = new EcgStreamingClient(loop, "127.0.0.1", servers[i].getLocalPort(), null, listeners[i]);
+                clients[i].start();
+            }
+            try {
+                for (int i = 0; i < 2; i++) {
+                    assertEquals("connected", listeners[i].events.poll(5, TimeUnit.SECONDS));
+                    clients[i].login(null);
+                    assertEquals("started:LOGIN:3000", listeners[i].events.poll(5, TimeUnit.SECONDS));
+                }
+                // 두 세션에 번갈아 샘플 공급 (3000개 = 64샘플 프레임 46개 + 미완성 프레임 1개)
+                for (int s = 0; s < 3100; s++) {
+                    clients[0].onSample(s);
+                    clients[1].onSample(-s);
+                }
+                for (int i = 0; i < 2; i++) {
+                    Verdict verdict = listeners[i].verdicts.poll(5, TimeUnit.SECONDS);
+                    assertNotNull(verdict);
+                    assertEquals(Verdict.Kind.LOGGED_IN, verdict.getKind());
+                    assertEquals(3000, received[i].get());
+                    assertEquals("s-" + servers[i].getLocalPort(), clients[i].getSessionId());
+                }
+            } finally {
+                clients[0].close();
+                clients[1].close();
+            }
+            // 공유 루프는 클라이언트가 닫아도 계속 동작
+            assertTrue(loop.isRunning());
+        }
+    }
+
+    @Test
+    public void compressedFramesCarryExactSamplesAndFallBackOnOlderServers() throws Exception {
+        for (boolean compressed : new boolean[] {true, false}) {
+            try (ServerSocket server = new ServerSocket(0)) {
+                AtomicInteger received = new AtomicInteger(-1);
+                List<Integer> values = new ArrayList<>();
+                List<Integer> encodings = new ArrayList<>();
+                new Thread(() -> serveBinaryRegistration(server, received, compressed, values, encodings)).start();
+                RecordingListener listener = new RecordingListener();
+                EcgStreamingClient client = new EcgStreamingClient("127.0.0.1", server.getLocalPort(), listener);
+                client.start();
+                try {
+                    assertEquals("connected", listener.events.poll(5, TimeUnit.SECONDS));
+                    client.login(null);
+                    assertEquals("started:LOGIN:3000", listener.events.poll(5, TimeUnit.SECONDS));
+                    assertEquals(compressed, client.isFrameCompressionActive());
+                    // 느리게 변하는 신호 + 가끔 큰 도약 (Rice 탈출 부호)
+                    for (int s = 0; s < 3000; s++) {
+                        client.onSample(512 + (s % 40) - (s % 500 == 0 ? 400 : 0));
+                    }
+                    assertNotNull(listener.verdicts.poll(5, TimeUnit.SECONDS));
+                    assertEquals(3000, received.get());
+                    synchronized (values) {
+                        for (int s = 0; s < 3000; s++) {
+                            assertEquals(512 + (s % 40) - (s % 500 == 0 ? 400 : 0), (int) values.get(s));
+                        }
+                        for (int encoding : encodings) {
+                            assertEquals(compressed, encoding != SampleFrameEncoder.ENCODING_PCM16);
+                        }
+                    }
+                } finally {
+                    client.close();
+                }
+            }
+        }
+    }
+
+    @Test
+    public void backpressurePoliciesKeepQueueBoundedWhileTransportStalls() throws Exception {
+        try (NioEventLoop loop = new NioEventLoop("stalled-loop"); ServerSocket server = new ServerSocket(0)) {
+            new Thread(() -> serveRegistration(server, new AtomicInteger(), 50_000)).start();
+            RecordingListener listener = new RecordingListener();
+            EcgStreamingClient client = new EcgStreamingClient(loop, "127.0.0.1", server.getLocalPort(), null, listener);
+            client.start();
+            try {
+                assertEquals("connected", listener.events.poll(5, TimeUnit.SECONDS));
+                client.register("alice");
+                assertEquals("started:REGISTER:50000", listener.events.poll(5, TimeUnit.SECONDS));
+
+                // 루프를 멈춰 전송이 밀린 상태를 만든 뒤 큐 용량보다 많이 공급
+                CountDownLatch release = new CountDownLatch(1);
+                loop.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+                client.setBackpressurePolicy(BackpressurePolicy.DROP_OLDEST, 0);
+                for (int i = 0; i < 10_000; i++) {
+                    client.onSample(i);
+                }
+                int capacity = client.getQueueHighWaterMark();
+                assertEquals(8192, capacity);
+                assertEquals(10_000 - capacity, client.getDroppedSamples());
+                assertEquals(capacity, client.getCapturedSamples());
+                assertTrue(client.isCollecting());
+
+                // 측정 실패 정책: 다음 샘플에서 측정 중단
+                client.setBackpressurePolicy(BackpressurePolicy.FAIL_CAPTURE, 0);
+                client.onSample(0);
+                assertFalse(client.isCollecting());
+                assertEquals(10_000 - capacity + 1, client.getDroppedSamples());
+                Verdict verdict = listener.verdicts.poll(5, TimeUnit.SECONDS);
+                assertNotNull(verdict);
+                assertEquals(Verdict.Kind.FAILED, verdict.getKind());
+                assertEquals(CaptureMode.REGISTER, verdict.getMode());
+                release.countDown();
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    // CMD:TIME 과 server_timing 을 지원하는 서버 (시계가 앱보다 1시간 빠름)
+    private static void serveTracedRegistration(ServerSocket server, long clockOffsetNanos) {
+        try (Socket s = server.accept()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            long firstSample = 0;
+            long lastSample = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                long now = System.nanoTime() + clockOffsetNanos;
+                if (line.startsWith("CMD:TIME:")) {
+                    out.println("{\"status\": \"time\", \"t0\": " + line.substring(9) + ", \"t1\": " + now
+                            + ", \"t2\": " + (System.nanoTime() + clockOffsetNanos) + "}");
+                } else if (line.startsWith("CMD:FRAMING")) {
+                    out.println("{\"status\": \"error\", \"message\": \"알 수 없는 명령어: FRAMING\"}");
+                } else if (line.startsWith("CMD:REGISTER:")) {
+                    firstSample = 0;
+                    out.println("{\"status\": \"ready\", \"mode\": \"register\", \"required_samples\": 3000}");
+                } else if (line.equals("CMD:COMPLETE")) {
+                    long processStart = System.nanoTime() + clockOffsetNanos;
+                    Thread.sleep(20);
+                    out.println("{\"status\": \"success\", \"message\": \"사용자 등록 완료: alice\","
+                            + " \"user_id\": \"alice\", \"registered_at\": \"2026-01-01T00:00:00\","
+                            + " \"server_timing\": {\"first_sample_ns\": " + firstSample
+                            + ", \"last_sample_ns\": " + lastSample + ", \"complete_ns\": " + now
+                            + ", \"process_start_ns\": " + processStart
+                            + ", \"reply_ns\": " + (System.nanoTime() + clockOffsetNanos) + "}}");
+                } else if (!line.startsWith("CMD:")) {
+                    if (firstSample == 0) {
+                        firstSample = now;
+                    }
+                    lastSample = now;
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // 클라이언트가 연결을 끊음
+        }
+    }
+
+    @Test
+    public void tracingAlignsServerTimestampsIntoStageBreakdown() throws Exception {
+        long hour = TimeUnit.HOURS.toNanos(1);
+        try (ServerSocket server = new ServerSocket(0)) {
+            new Thread(() -> serveTracedRegistration(server, hour)).start();
+            RecordingListener listener = new RecordingListener();
+            EcgStreamingClient client = new EcgStreamingClient("127.0.0.1", server.getLocalPort(), listener);
+            client.setTracingEnabled(true);
+            client.start();
+            try {
+                assertEquals("connected", listener.events.poll(5, TimeUnit.SECONDS));
+                client.register("alice");
+                assertEquals("started:REGISTER:3000", listener.events.poll(5, TimeUnit.SECONDS));
+                for (int chunk = 0; chunk < 30; chunk++) {
+                    client.onChunkReceived(System.nanoTime());
+                    for (int i = 0; i < 100; i++) {
+                        client.onSample(500 + i);
+                    }
+                }
+
+                LatencyBreakdown breakdown = listener.breakdowns.poll(5, TimeUnit.SECONDS);
+                assertNotNull(breakdown);
+                assertNotNull(listener.verdicts.poll(5, TimeUnit.SECONDS));
+                for (LatencyBreakdown.Stage stage : LatencyBreakdown.Stage.values()) {
+                    assertTrue(stage.key(), breakdown.isKnown(stage));
+                }
+                // 시계 차이는 왕복 시간의 절반 이내로 맞음
+                long rtt = breakdown.getClockRttNanos();
+                assertTrue(Math.abs(breakdown.getClockOffsetNanos() - hour) <= rtt / 2 + 1);
+                assertTrue(breakdown.getNanos(LatencyBreakdown.Stage.SERVER_PROCESS) >= TimeUnit.MILLISECONDS.toNanos(20));
+                assertTrue(Math.abs(breakdown.getNanos(LatencyBreakdown.Stage.UPLINK)) < TimeUnit.SECONDS.toNanos(1));
+                assertTrue(Math.abs(breakdown.getNanos(LatencyBreakdown.Stage.DOWNLINK)) < TimeUnit.SECONDS.toNanos(1));
+
+                // 마지막 샘플 기준 단계의 합 = 전체
+                long sum = 0;
+                for (LatencyBreakdown.Stage stage : LatencyBreakdown.Stage.values()) {
+                    if (stage != LatencyBreakdown.Stage.CAPTURE && stage != LatencyBreakdown.Stage.TOTAL) {
+                        sum += breakdown.getNanos(stage);
+                    }
+                }
+                assertEquals(breakdown.getNanos(LatencyBreakdown.Stage.TOTAL), sum);
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    @Test
+    public void metricPrefixSeparatesGaugesPerClient() throws Exception {
+        try (NioEventLoop loop = new NioEventLoop("test-loop")) {
+            EcgStreamingClient first = new EcgStreamingClient(loop, "127.0.0.1", 1, null, new RecordingListener());
+            EcgStreamingClient second = new EcgStreamingClient(loop, "127.0.0.1", 1, null, new RecordingListener());
+            first.setMetricPrefix("test.a.");
+            second.setMetricPrefix("test.b.");
+            first.start();
+            second.start();
+            try {
+                JSONObject gauges = MetricsRegistry.global().toJson().getJSONObject("gauges");
+                assertTrue(gauges.has("test.a.queue_depth"));
+                assertTrue(gauges.has("test.b.queue_depth"));
+                try {
+                    first.setMetricPrefix("test.c.");
+                    fail("prefix must be fixed once the client has registered its gauges");
+                } catch (IllegalStateException expected) {
+                    // start() 전에만 바꿀 수 있음
+                }
+            } finally {
+                first.close();
+                second.close();
+            }
+            JSONObject gauges = MetricsRegistry.global().toJson().getJSONObject("gauges");
+            assertFalse(gauges.has("test.a.queue_depth"));
+            assertFalse(gauges.has("test.b.queue_depth"));
+        }
+    }
+
+    @Test
+    public void dispatchesServerResponses() {
+        RecordingListener listener = new RecordingListener();
+        EcgStreamingClient client = new EcgStreamingClient("127.0.0.1", 1, listener);
+
+        client.handleResponse("{\"status\": \"success\", \"users\": [{\"user_id\": \"alice\"}, {\"user_id\": \"bob\"}]}");
+        assertEquals(Arrays.asList("alice", "bob"), listener.users);
+
+        // 측정 중이 아닐 때의 오류는 결과가 아님
+        client.handleResponse("{\"status\": \"error\", \"message\": \"로그인 상태가 아닙니다.\"}");
+        assertEquals("error:로그인 상태가 아닙니다.", listener.events.poll());
+        assertTrue(listener.verdicts.isEmpty());
+
+        client.handleResponse("{\"status\": \"auth_failed\", \"message\": \"인증 실패\", \"best_similarity\": 0.72,"
+                + " \"threshold\": 0.9}");
+        Verdict failed = listener.verdicts.poll();
+        assertEquals(Verdict.Kind.AUTH_FAILED, failed.getKind());
+        assertEquals(CaptureMode.LOGIN, failed.getMode());
+        assertEquals(0.72, failed.getSimilarity(), 1e-9);
+
+        client.handleResponse("{\"status\": \"success\", \"message\": \"로그인 성공\", \"user_id\": \"alice\","
+                + " \"session_id\": \"s-1\", \"similarity\": 0.97}");
+        assertEquals(Verdict.Kind.LOGGED_IN, listener.verdicts.poll().getKind());
+        assertEquals("s-1", client.getSessionId());
+        assertEquals("alice", client.getLoggedInUserId());
+
+        client.handleResponse("{\"status\": \"success\", \"message\": \"로그아웃 되었습니다.\"}");
+        assertEquals("loggedOut", listener.events.poll());
+        assertEquals(null, client.getSessionId());
+    }
+
+    @Test
+    public void correlatesResponsesByRequestId() throws Exception {
+        try (ServerSocket server = new ServerSocket(0)) {
+            RecordingListener listener = new RecordingListener();
+            EcgStreamingClient client = new EcgStreamingClient("127.0.0.1", server.getLocalPort(), listener);
+            client.start();
+            try (Socket s = server.accept()) {
+                BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8), true);
+                assertEquals("connected", listener.events.poll(5, TimeUnit.SECONDS));
+                // 환영 메시지 전에 나간 협상은 요청 번호 없음
+                assertEquals("CMD:FRAMING:BIN2", in.readLine());
+                out.println("{\"type\": \"welcome\", \"status\": \"connected\", \"request_ids\": true,"
+                        + " \"commands\": [\"CMD:USERS\", {\"nested\": [1, 2]}]}");
+                // 측정과 무관한 오류 (환영 메시지 처리가 끝났음을 확인)
+                out.println("{\"type\": \"verify\", \"status\": \"error\", \"message\": \"활성 세션이 없습니다.\"}");
+                assertEquals("error:활성 세션이 없습니다.", listener.events.poll(5, TimeUnit.SECONDS));
+
+                client.register("alice");
+                long captureId = client.getCaptureRequestId();
+                assertEquals("CMD:#" + captureId + ":REGISTER:alice", in.readLine());
+                out.println("{\"type\": \"register\", \"id\": " + captureId + ", \"status\": \"ready\","
+                        + " \"mode\": \"register\", \"user_id\": \"alice\", \"required_samples\": 3000}");
+                assertEquals("started:REGISTER:3000", listener.events.poll(5, TimeUnit.SECONDS));
+
+                // 측정 중 사용자 목록/삭제: 응답(오류 포함)이 측정을 끝내지 않음
+                client.requestUserList();
+                String users = in.readLine();
+                assertTrue(users, users.matches("CMD:#\\d+:USERS"));
+                long usersId = Long.parseLong(users.substring(5, users.indexOf(':', 5)));
+                assertTrue(usersId > captureId);
+                out.println("{\"type\": \"users\", \"id\": " + usersId + ", \"status\": \"success\","
+                        + " \"users\": [{\"user_id\": \"alice\"}, \"bob\"]}");
+                client.deleteUser("carol");
+                String delete = in.readLine();
+                assertTrue(delete, delete.endsWith(":DELETE:carol"));
+                out.println("{\"type\": \"delete\", \"id\": " + delete.substring(5, delete.indexOf(':', 5))
+                        + ", \"status\": \"error\", \"message\": \"등록되지 않은 사용자: carol\"}");
+                assertEquals("deleted:false", listener.events.poll(5, TimeUnit.SECONDS));
+                assertEquals(Arrays.asList("alice", "bob"), listener.users);
+                assertTrue(client.isCollecting());
+                assertEquals(CaptureMode.REGISTER, client.getCaptureMode());
+
+                // 지난 측정의 결과는 버리고 이번 측정의 결과만 전달
+                out.println("{\"type\": \"login\", \"id\": " + (captureId - 1) + ", \"status\": \"auth_failed\","
+                        + " \"message\": \"ECG 인증 실패\", \"best_similarity\": 0.5}");
+                out.println("{\"type\": \"register\", \"id\": " + captureId + ", \"status\": \"success\","
+                        + " \"message\": \"사용자 등록 완료: alice\", \"user_id\": \"alice\","
+                        + " \"registered_at\": \"2026-01-01T00:00:00\", \"summary\": {\"heart_rate\": 71.5, \"num_beats\": 7}}");
+                Verdict verdict = listener.verdicts.poll(5, TimeUnit.SECONDS);
+                assertNotNull(verdict);
+                assertEquals(Verdict.Kind.REGISTERED, verdict.getKind());
+                assertEquals(CaptureMode.REGISTER, verdict.getMode());
+                assertEquals(71.5, verdict.getHeartRate(), 1e-9);
+                assertEquals(7, verdict.getNumBeats());
+                assertTrue(listener.verdicts.isEmpty());
+                assertEquals(0, client.getCaptureRequestId());
+                assertEquals(null, client.getCaptureMode());
+            } finally {
+                client.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.ecgapp.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 레벨 차단, 출력 스레드 포맷, 링 가득 참 처리, 여러 생산자, 구간 제한 검증
+ */
+public class AsyncLoggerTest {
+
+    private static final class RecordingWriter implements AsyncLogger.Writer {
+        final List<String> lines = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+        volatile CountDownLatch gate;
+
+        @Override
+        public void write(int level, String tag, String message, Throwable error) {
+            CountDownLatch g = gate;
+            if (g != null) {
+                try {
+                    g.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            synchronized (this) {
+                lines.add(level + "/" + tag + ": " + message);
+                errors.add(error);
+            }
+        }
+    }
+
+    @Test
+    public void formatsOnWriterThreadAndSkipsDisabledLevels() {
+        RecordingWriter writer = new RecordingWriter();
+        try (AsyncLogger log = new AsyncLogger("test-log", 16, AsyncLogger.DEBUG, writer)) {
+            assertFalse(log.isLoggable(AsyncLogger.VERBOSE));
+            // 꺼진 레벨은 링을 쓰지 않음
+            AsyncLogger.Event skipped = log.at(AsyncLogger.VERBOSE, "T", "never {}");
+            assertSame(skipped, log.at(AsyncLogger.VERBOSE, "T", "never {}").arg(1).arg(2.0));
+            skipped.log();
+
+            IllegalStateException failure = new IllegalStateException("boom");
+            log.at(AsyncLogger.DEBUG, "T", "샘플 {}개, {}초, 모드 {}").arg(500).arg(1.25).arg("BIN1").log();
+            log.at(AsyncLogger.WARN, "T", "인자 부족 {} {}").arg(7).log();
+            log.at(AsyncLogger.INFO, "T", "인자 남음").arg(7).log();
+            log.log(AsyncLogger.ERROR, "T", "오류", failure);
+            assertTrue(log.flush(5000));
+
+            synchronized (writer) {
+                assertEquals(4, writer.lines.size());
+                assertEquals("3/T: 샘플 500개, 1.3초, 모드 BIN1", writer.lines.get(0));
+                assertEquals("5/T: 인자 부족 7 {}", writer.lines.get(1));
+                assertEquals("4/T: 인자 남음", writer.lines.get(2));
+                assertEquals("6/T: 오류", writer.lines.get(3));
+                assertSame(failure, writer.errors.get(3));
+            }
+            assertEquals(0, log.getDropped());
+        }
+    }
+
+    @Test
+    public void dropsWhenRingIsFullWithoutBlocking() {
+        RecordingWriter writer = new RecordingWriter();
+        writer.gate = new CountDownLatch(1);
+        try (AsyncLogger log = new AsyncLogger("test-log", 8, AsyncLogger.VERBOSE, writer)) {
+            for (int i = 0; i < 20; i++) {
+                log.at(AsyncLogger.INFO, "T", "n={}").arg(i).log();
+            }
+            // 출력 스레드가 첫 로그에서 멈춰 있어도 생산자는 바로 돌아옴
+            assertTrue(log.getDropped() >= 20 - 8);
+            writer.gate.countDown();
+            assertTrue(log.flush(5000));
+            synchronized (writer) {
+                assertEquals(20 - log.getDropped(), writer.lines.size());
+                assertEquals("4/T: n=0", writer.lines.get(0));
+            }
+        }
+    }
+
+    @Test
+    public void keepsPerThreadOrderWithConcurrentProducers() throws Exception {
+        RecordingWriter writer = new RecordingWriter();
+        int threads = 4;
+        int perThread = 20_000;
+        try (AsyncLogger log = new AsyncLogger("test-log", 1 << 16, AsyncLogger.VERBOSE, writer)) {
+            List<Thread> producers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                Thread p = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        log.at(AsyncLogger.DEBUG, "P", "{}:{}").arg(id).arg(i).log();
+                    }
+                });
+                producers.add(p);
+                p.start();
+            }
+            for (Thread p : producers) {
+                p.join();
+            }
+            assertTrue(log.flush(10_000));
+            long[] last = {-1, -1, -1, -1};
+            synchronized (writer) {
+                assertEquals(threads * perThread - log.getDropped(), writer.lines.size());
+                for (String line : writer.lines) {
+                    String[] parts = line.substring("3/P: ".length()).split(":");
+                    int id = Integer.parseInt(parts[0]);
+                    long i = Long.parseLong(parts[1]);
+                    assertTrue(i > last[id]);
+                    last[id] = i;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void rateLimiterAllowsOncePerIntervalAndCountsSuppressed() {
+        LogRateLimiter limiter = new LogRateLimiter(1, TimeUnit.SECONDS);
+        long t = 42;
+        assertTrue(limiter.tryAcquire(t));
+        for (int i = 0; i < 499; i++) {
+            assertFalse(limiter.tryAcquire(t + i * 2_000_000L));
+        }
+        assertEquals(499, limiter.takeSuppressed());
+        assertEquals(0, limiter.takeSuppressed());
+        assertTrue(limiter.tryAcquire(t + TimeUnit.SECONDS.toNanos(1)));
+        assertFalse(limiter.tryAcquire(t + TimeUnit.SECONDS.toNanos(1) + 1));
+    }
+}
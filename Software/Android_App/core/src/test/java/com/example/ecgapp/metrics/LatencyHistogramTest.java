@@ -0,0 +1,74 @@
+package com.example.ecgapp.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 로그-선형 버킷 경계, 백분위수 오차, JSON 덤프 검증
+ */
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverEveryValueWithBoundedRelativeError() {
+        int previous = -1;
+        for (long v = 0; v < 1 << 20; v++) {
+            int index = LatencyHistogram.bucketIndex(v);
+            assertTrue(index >= previous);
+            previous = index;
+            long upper = LatencyHistogram.bucketUpperBound(index);
+            assertTrue(v + " <= " + upper, v <= upper);
+            assertTrue(v + " ~ " + upper, upper - v <= Math.max(0, v / 16));
+        }
+        long max = Long.MAX_VALUE;
+        assertEquals(max, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(max)));
+    }
+
+    @Test
+    public void percentilesMatchSortedSamplesWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(7);
+        long[] values = new long[10_000];
+        for (int i = 0; i < values.length; i++) {
+            // 0.1ms ~ 1s 로그 분포
+            values[i] = (long) Math.pow(10, 5 + random.nextDouble() * 4);
+            histogram.recordNanos(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot s = histogram.snapshot();
+        assertEquals(values.length, s.getCount());
+        assertEquals(values[0], s.getMinNanos());
+        assertEquals(values[values.length - 1], s.getMaxNanos());
+        for (double p : new double[] {50, 90, 99}) {
+            long exact = values[(int) Math.ceil(values.length * p / 100) - 1];
+            long reported = s.getPercentileNanos(p);
+            assertTrue(p + ": " + reported + " vs " + exact, reported >= exact && reported <= exact + exact / 16);
+        }
+    }
+
+    @Test
+    public void registryDumpsCountersGaugesAndHistograms() throws Exception {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.counter("bt.samples").add(500);
+        registry.counter("bt.samples").increment();
+        registry.gauge("tcp.queue_depth", () -> 42);
+        registry.histogram("tcp.verdict_time.login").recordNanos(1_500_000_000L);
+
+        JSONObject json = registry.toJson();
+        assertEquals(501, json.getJSONObject("counters").getLong("bt.samples"));
+        assertEquals(42, json.getJSONObject("gauges").getLong("tcp.queue_depth"));
+        JSONObject login = json.getJSONObject("histograms").getJSONObject("tcp.verdict_time.login");
+        assertEquals(1, login.getLong("count"));
+        assertEquals(1500.0, login.getDouble("max_ms"), 1e-9);
+        assertTrue(registry.format().contains("bt.samples = 501"));
+
+        registry.reset();
+        assertEquals(0, registry.counter("bt.samples").get());
+        assertEquals(0, registry.histogram("tcp.verdict_time.login").snapshot().getCount());
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.ecgapp.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 부분 쓰기 이어 보내기, 줄 단위 수신, 연결 실패 알림 검증
+ */
+public class NioConnectionTest {
+
+    private static final long CONNECT_TIMEOUT = TimeUnit.SECONDS.toNanos(5);
+
+    @Test
+    public void partialWritesAreResumedInOrder() throws Exception {
+        // 커널 송신 버퍼보다 훨씬 큰 양을 보내고, 서버는 늦게 읽기 시작
+        final int total = 2_000_000;
+        try (ServerSocket server = new ServerSocket(0); NioEventLoop loop = new NioEventLoop("test-loop")) {
+            AtomicInteger received = new AtomicInteger();
+            AtomicReference<String> error = new AtomicReference<>();
+            Thread reader = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    Thread.sleep(300);
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    String line;
+                    int expected = 0;
+                    while (expected < total && (line = in.readLine()) != null) {
+                        if (Integer.parseInt(line) != expected - total / 2) {
+                            error.set("line " + expected + ": " + line);
+                            return;
+                        }
+                        expected++;
+                    }
+                    received.set(expected);
+                } catch (IOException | InterruptedException e) {
+                    error.set(e.toString());
+                }
+            });
+            reader.start();
+
+            AtomicInteger written = new AtomicInteger();
+            AtomicInteger writableCalls = new AtomicInteger();
+            NioConnection.open(loop, new InetSocketAddress("127.0.0.1", server.getLocalPort()), CONNECT_TIMEOUT,
+                    NioConnection.DEFAULT_BUFFER_SIZE, new NioConnection.Handler() {
+                        @Override
+                        public void onConnected(NioConnection connection) {
+                            fill(connection);
+                        }
+
+                        @Override
+                        public void onLine(NioConnection connection, String line) {
+                        }
+
+                        @Override
+                        public void onWritable(NioConnection connection) {
+                            writableCalls.incrementAndGet();
+                            fill(connection);
+                        }
+
+                        @Override
+                        public void onClosed(NioConnection connection, IOException cause) {
+                        }
+
+                        // 송신 버퍼를 채우고 전송, 커널 버퍼가 차서 남으면 onWritable 에서 이어서
+                        private void fill(NioConnection connection) {
+                            int next = written.get();
+                            do {
+                                while (next < total && connection.writeIntLine(next - total / 2)) {
+                                    next++;
+                                }
+                                connection.flushQuietly();
+                            } while (next < total && connection.outbound().position() == 0);
+                            written.set(next);
+                        }
+                    });
+
+            reader.join(15_000);
+            assertEquals(null, error.get());
+            assertEquals(total, received.get());
+            assertTrue("송신 버퍼가 한 번은 가득 차야 함", writableCalls.get() > 0);
+        }
+    }
+
+    @Test
+    public void deliversLinesAcrossReadsAndCommandsInOrder() throws Exception {
+        try (ServerSocket server = new ServerSocket(0); NioEventLoop loop = new NioEventLoop("test-loop")) {
+            BlockingQueue<String> lines = new LinkedBlockingQueue<>();
+            CountDownLatch closed = new CountDownLatch(1);
+            Thread peer = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                    PrintWriter out = new PrintWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
+                    // 명령을 받은 순서대로 한 줄씩 되돌려 줌 (한 줄을 두 번에 나눠 보냄)
+                    for (int i = 0; i < 2; i++) {
+                        String cmd = in.readLine();
+                        out.print("{\"echo\": \"" + cmd.substring(0, 3));
+                        out.flush();
+                        Thread.sleep(20);
+                        out.print(cmd.substring(3) + "\", \"msg\": \"사용자\"}\r\n");
+                        out.flush();
+                    }
+                } catch (IOException | InterruptedException e) {
+                    lines.add("error: " + e);
+                }
+            });
+            peer.start();
+
+            NioConnection.open(loop, new InetSocketAddress("127.0.0.1", server.getLocalPort()), CONNECT_TIMEOUT,
+                    1024, new NioConnection.Handler() {
+                        @Override
+                        public void onConnected(NioConnection connection) {
+                            connection.writeLine("CMD:FIRST");
+                            connection.writeLine("CMD:SECOND");
+                        }
+
+                        @Override
+                        public void onLine(NioConnection connection, String line) {
+                            lines.add(line);
+                        }
+
+                        @Override
+                        public void onClosed(NioConnection connection, IOException cause) {
+                            closed.countDown();
+                        }
+                    });
+
+            assertEquals("{\"echo\": \"CMD:FIRST\", \"msg\": \"사용자\"}", lines.poll(5, TimeUnit.SECONDS));
+            assertEquals("{\"echo\": \"CMD:SECOND\", \"msg\": \"사용자\"}", lines.poll(5, TimeUnit.SECONDS));
+            // 서버가 닫으면 정상 종료로 알림
+            assertTrue(closed.await(5, TimeUnit.SECONDS));
+            peer.join(5000);
+        }
+    }
+
+    @Test
+    public void writesNonAsciiCommandsAsUtf8() throws Exception {
+        try (ServerSocket server = new ServerSocket(0); NioEventLoop loop = new NioEventLoop("test-loop")) {
+            BlockingQueue<String> received = new LinkedBlockingQueue<>();
+            Thread peer = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        received.add(line);
+                    }
+                } catch (IOException e) {
+                    received.add("error: " + e);
+                }
+            });
+            peer.start();
+
+            AtomicReference<Boolean> oversized = new AtomicReference<>();
+            NioConnection.open(loop, new InetSocketAddress("127.0.0.1", server.getLocalPort()), CONNECT_TIMEOUT,
+                    64, new NioConnection.Handler() {
+                        @Override
+                        public void onConnected(NioConnection connection) {
+                            connection.writeLine("CMD:REGISTER:홍길동");
+                            connection.flushQuietly();
+                            // 글자 수(20)로는 들어가지만 UTF-8 바이트 수(60)로는 남은 공간을 넘는 줄
+                            connection.writeLine("CMD:DELETE:id");
+                            oversized.set(connection.writeLine("가나다라마바사아자차카타파하가나다라마바"));
+                            connection.flushQuietly();
+                            connection.close(null);
+                        }
+
+                        @Override
+                        public void onLine(NioConnection connection, String line) {
+                        }
+
+                        @Override
+                        public void onClosed(NioConnection connection, IOException cause) {
+                        }
+                    });
+
+            assertEquals("CMD:REGISTER:홍길동", received.poll(5, TimeUnit.SECONDS));
+            assertEquals("CMD:DELETE:id", received.poll(5, TimeUnit.SECONDS));
+            peer.join(5000);
+            assertEquals(Boolean.FALSE, oversized.get());
+            assertEquals(null, received.poll());
+        }
+    }
+
+    @Test
+    public void reportsConnectFailure() throws Exception {
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        try (NioEventLoop loop = new NioEventLoop("test-loop")) {
+            BlockingQueue<IOException> failures = new LinkedBlockingQueue<>();
+            NioConnection.open(loop, new InetSocketAddress("127.0.0.1", port), CONNECT_TIMEOUT,
+                    1024, new NioConnection.Handler() {
+                        @Override
+                        public void onConnected(NioConnection connection) {
+                        }
+
+                        @Override
+                        public void onLine(NioConnection connection, String line) {
+                        }
+
+                        @Override
+                        public void onClosed(NioConnection connection, IOException cause) {
+                            failures.add(cause != null ? cause : new IOException("closed without cause"));
+                        }
+                    });
+            IOException failure = failures.poll(5, TimeUnit.SECONDS);
+            assertNotNull(failure);
+            assertTrue(failure.toString(), !"closed without cause".equals(failure.getMessage()));
+        }
+    }
+}
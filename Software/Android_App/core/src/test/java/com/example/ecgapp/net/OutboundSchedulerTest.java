@@ -0,0 +1,167 @@
+package com.example.ecgapp.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 명령 우선 레인, 데이터 뒤 장벽, 데이터 버리기 순서 검증
+ */
+public class OutboundSchedulerTest {
+
+    // 커널 송신/수신 버퍼보다 훨씬 많은 데이터 (명령이 나갈 때 데이터가 아직 남아 있도록)
+    private static final int DATA_LINES = 2_000_000;
+
+    // 0, 1, 2, ... 를 한 줄씩 보내고, 장벽 직전에 미완성 데이터로 -1 을 보냄
+    private static final class CountingLane implements OutboundScheduler.DataLane {
+        int next;
+        int end;
+        boolean partial;
+
+        @Override
+        public boolean writeTo(ByteBuffer out) {
+            while (next < end) {
+                if (!NioConnection.writeIntLine(out, next)) {
+                    return true;
+                }
+                next++;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean writePartialTo(ByteBuffer out) {
+            if (partial && !NioConnection.writeIntLine(out, -1)) {
+                return false;
+            }
+            partial = false;
+            return true;
+        }
+
+        @Override
+        public void discard() {
+            next = end;
+            partial = false;
+        }
+    }
+
+    // 연결되면 루프 스레드에서 script 실행, 서버는 잠시 뒤부터 stopLine 까지 읽은 줄을 반환
+    private static List<String> run(String stopLine, Consumer<OutboundScheduler> script) throws Exception {
+        try (ServerSocket server = new ServerSocket(0); NioEventLoop loop = new NioEventLoop("test-loop")) {
+            List<String> lines = new ArrayList<>();
+            Thread reader = new Thread(() -> {
+                try (Socket s = server.accept()) {
+                    Thread.sleep(200);
+                    BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.US_ASCII));
+                    String line;
+                    while ((line = in.readLine()) != null) {
+                        lines.add(line);
+                        if (line.equals(stopLine)) {
+                            return;
+                        }
+                    }
+                } catch (IOException | InterruptedException e) {
+                    lines.add("error: " + e);
+                }
+            });
+            reader.start();
+
+            CountingLane lane = new CountingLane();
+            OutboundScheduler scheduler = new OutboundScheduler(lane);
+            NioConnection.open(loop, new InetSocketAddress("127.0.0.1", server.getLocalPort()),
+                    TimeUnit.SECONDS.toNanos(5), NioConnection.DEFAULT_BUFFER_SIZE, new NioConnection.Handler() {
+                        @Override
+                        public void onConnected(NioConnection connection) {
+                            scheduler.attach(connection);
+                            lane.end = DATA_LINES;
+                            lane.partial = true;
+                            scheduler.pump();
+                            script.accept(scheduler);
+                        }
+
+                        @Override
+                        public void onLine(NioConnection connection, String line) {
+                        }
+
+                        @Override
+                        public void onWritable(NioConnection connection) {
+                            scheduler.pump();
+                        }
+
+                        @Override
+                        public void onClosed(NioConnection connection, IOException cause) {
+                        }
+                    });
+            reader.join(20_000);
+            assertFalse("reader timed out", reader.isAlive());
+            return lines;
+        }
+    }
+
+    @Test
+    public void commandsOvertakeDataAndBarrierWaitsForAllData() throws Exception {
+        List<String> lines = run("CMD:AFTER", scheduler -> {
+            scheduler.send("CMD:STATUS");
+            scheduler.sendAfterData("CMD:COMPLETE");
+            // 장벽 뒤에 넣은 명령은 장벽을 앞지르지 않음
+            scheduler.send("CMD:AFTER");
+        });
+
+        int status = lines.indexOf("CMD:STATUS");
+        assertTrue("명령이 남은 데이터보다 먼저 나가야 함", status >= 0 && status < DATA_LINES);
+        int expected = 0;
+        for (int i = 0; i < lines.size() - 3; i++) {
+            if (i != status) {
+                assertEquals(String.valueOf(expected++), lines.get(i));
+            }
+        }
+        assertEquals(DATA_LINES, expected);
+        assertEquals("-1", lines.get(lines.size() - 3));
+        assertEquals("CMD:COMPLETE", lines.get(lines.size() - 2));
+        assertEquals("CMD:AFTER", lines.get(lines.size() - 1));
+    }
+
+    @Test
+    public void flushPartialWaitsBehindCommandsAndQueuedData() throws Exception {
+        List<String> lines = run("-1", scheduler -> {
+            scheduler.flushPartial();
+            scheduler.send("CMD:STATUS");
+        });
+
+        int status = lines.indexOf("CMD:STATUS");
+        assertTrue("명령이 부분 데이터보다 먼저 나가야 함", status >= 0 && status < DATA_LINES);
+        // 부분 데이터는 이미 쌓인 데이터를 앞지르지 않음
+        assertEquals(DATA_LINES + 2, lines.size());
+        assertEquals(String.valueOf(DATA_LINES - 1), lines.get(lines.size() - 2));
+    }
+
+    @Test
+    public void discardDropsPendingDataAndItsBarrier() throws Exception {
+        List<String> lines = run("CMD:CANCEL", scheduler -> {
+            scheduler.sendAfterData("CMD:COMPLETE");
+            scheduler.discardData();
+            scheduler.send("CMD:CANCEL");
+        });
+
+        assertEquals("CMD:CANCEL", lines.get(lines.size() - 1));
+        assertFalse(lines.contains("CMD:COMPLETE"));
+        assertFalse(lines.contains("-1"));
+        // 이미 송신 버퍼에 들어간 데이터만 나감
+        assertTrue(lines.size() - 1 < DATA_LINES);
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.ecgapp.net;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.ecgapp.sim.SyntheticEcgSource;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 차이 + zigzag + varint / Rice 압축 왕복 (무작위 신호 여러 종류), 손상 검출, 실제에 가까운 ECG 의 압축률 검증
+ */
+public class SampleDeltaCodecTest {
+
+    // 프레임 하나를 인코딩 후 헤더를 해석해 다시 풂
+    private static int[] roundTrip(SampleFrameEncoder encoder, int[] samples) throws IOException {
+        for (int value : samples) {
+            encoder.add(value, 0);
+        }
+        int expectedLength = encoder.pendingBytes();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(expectedLength, encoder.writeTo(out));
+        byte[] frame = out.toByteArray();
+        assertEquals(expectedLength, frame.length);
+        int count = ((frame[8] & 0xFF) << 8) | (frame[9] & 0xFF);
+        int length = ((frame[10] & 0xFF) << 8) | (frame[11] & 0xFF);
+        assertEquals(samples.length, count);
+        assertEquals(frame.length - SampleFrameEncoder.HEADER_SIZE, length);
+        // 압축해도 PCM16 보다 크지 않음
+        assertTrue(length <= count * 2);
+        int[] decoded = new int[count];
+        SampleDeltaCodec.decode(frame[3], frame, SampleFrameEncoder.HEADER_SIZE, length, count, decoded, 0);
+        return decoded;
+    }
+
+    private static int[] randomSignal(Random random, int kind, int count) {
+        int[] samples = new int[count];
+        int value = random.nextInt(1024);
+        for (int i = 0; i < count; i++) {
+            switch (kind) {
+                case 0: // 느리게 변하는 10비트 신호
+                    value = Math.max(0, Math.min(1023, value + random.nextInt(9) - 4));
+                    break;
+                case 1: // 16비트 전 범위 (최대 차이, Rice 탈출)
+                    value = random.nextBoolean() ? Short.MIN_VALUE + random.nextInt(4) : Short.MAX_VALUE - random.nextInt(4);
+                    break;
+                case 2: // 일정 값
+                    break;
+                default: // 작은 변화 + 가끔 큰 도약
+                    value += random.nextInt(100) == 0 ? random.nextInt(4001) - 2000 : random.nextInt(3) - 1;
+                    value = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+                    break;
+            }
+            samples[i] = value;
+        }
+        return samples;
+    }
+
+    @Test
+    public void randomSignalsRoundTripInEveryMode() throws IOException {
+        Random random = new Random(20260101);
+        for (SampleFrameEncoder.Compression compression : SampleFrameEncoder.Compression.values()) {
+            SampleFrameEncoder encoder = new SampleFrameEncoder(256, 0, compression);
+            for (int trial = 0; trial < 2000; trial++) {
+                int[] samples = randomSignal(random, trial % 4, 1 + random.nextInt(256));
+                assertArrayEquals(compression + " trial " + trial, samples, roundTrip(encoder, samples));
+            }
+        }
+    }
+
+    @Test
+    public void clampsOutOfRangeSamplesLikePcm16() throws IOException {
+        SampleFrameEncoder encoder = new SampleFrameEncoder(8, 0, SampleFrameEncoder.Compression.DELTA_RICE);
+        int[] decoded = roundTrip(encoder, new int[] {100_000, -100_000, 5});
+        assertArrayEquals(new int[] {Short.MAX_VALUE, Short.MIN_VALUE, 5}, decoded);
+    }
+
+    @Test
+    public void zigzagMapsSmallMagnitudesToSmallCodes() {
+        assertEquals(0, SampleDeltaCodec.zigzag(0));
+        assertEquals(1, SampleDeltaCodec.zigzag(-1));
+        assertEquals(2, SampleDeltaCodec.zigzag(1));
+        assertEquals(3, SampleDeltaCodec.zigzag(-2));
+        Random random = new Random(7);
+        for (int i = 0; i < 10_000; i++) {
+            int v = random.nextInt();
+            assertEquals(v, SampleDeltaCodec.unzigzag(SampleDeltaCodec.zigzag(v)));
+        }
+    }
+
+    @Test
+    public void rejectsTruncatedPayloads() {
+        int[] samples = randomSignal(new Random(3), 3, 64);
+        for (int encoding : new int[] {SampleFrameEncoder.ENCODING_DELTA_VARINT, SampleFrameEncoder.ENCODING_DELTA_RICE}) {
+            byte[] payload = new byte[256];
+            int length = encoding == SampleFrameEncoder.ENCODING_DELTA_VARINT
+                    ? SampleDeltaCodec.encodeVarint(samples, 0, 64, payload, 0)
+                    : SampleDeltaCodec.encodeRice(samples, 0, 64, SampleDeltaCodec.riceParameter(samples, 0, 64), payload, 0);
+            int[] out = new int[64];
+            SampleDeltaCodec.decode(encoding, payload, 0, length, 64, out, 0);
+            assertArrayEquals(samples, out);
+            try {
+                SampleDeltaCodec.decode(encoding, payload, 0, length - 2, 64, out, 0);
+                fail("encoding " + encoding + ": expected IllegalArgumentException");
+            } catch (IllegalArgumentException expected) {
+                // 잘린 payload
+            }
+        }
+    }
+
+    @Test
+    public void compressesEcgAtLeastThreeTimesVersusText() throws IOException {
+        // 앱과 같은 500Hz, 10비트 범위 합성 ECG (잡음 포함) 30초
+        SyntheticEcgSource source = new SyntheticEcgSource(42, 500);
+        int[] samples = new int[15_000];
+        source.fill(samples, 0, samples.length);
+
+        long textBytes = 0;
+        for (int value : samples) {
+            textBytes += String.valueOf(value).length() + 1;
+        }
+        long[] frameBytes = new long[SampleFrameEncoder.Compression.values().length];
+        for (SampleFrameEncoder.Compression compression : SampleFrameEncoder.Compression.values()) {
+            SampleFrameEncoder encoder = new SampleFrameEncoder(64, 0, compression);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            for (int i = 0; i < samples.length; i += 64) {
+                int[] chunk = Arrays.copyOfRange(samples, i, Math.min(samples.length, i + 64));
+                for (int value : chunk) {
+                    encoder.add(value, 0);
+                }
+                encoder.writeTo(out);
+            }
+            frameBytes[compression.ordinal()] = out.size();
+        }
+        double pcm = (double) textBytes / frameBytes[SampleFrameEncoder.Compression.NONE.ordinal()];
+        double delta = (double) textBytes / frameBytes[SampleFrameEncoder.Compression.DELTA.ordinal()];
+        double rice = (double) textBytes / frameBytes[SampleFrameEncoder.Compression.DELTA_RICE.ordinal()];
+        String ratios = String.format("text/pcm16 %.2f, text/delta %.2f, text/rice %.2f", pcm, delta, rice);
+        assertTrue(ratios, delta > pcm);
+        assertTrue(ratios, rice >= delta);
+        assertTrue(ratios, rice >= 3.0);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ecgapp.net;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 가득 찬 프레임을 송신 버퍼에 쓰지 못했을 때 샘플을 잃거나 덮어쓰지 않는지 검증
+ */
+public class SampleFrameEncoderTest {
+
+    @Test
+    public void fullFrameStaysPendingWhenBufferHasNoRoom() {
+        SampleFrameEncoder encoder = new SampleFrameEncoder(4, 0);
+        for (int i = 0; i < 3; i++) {
+            assertFalse(encoder.add(i, 0));
+        }
+        assertTrue(encoder.add(3, 0));
+        assertTrue(encoder.isFull());
+
+        int length = encoder.pendingBytes();
+        assertEquals(SampleFrameEncoder.HEADER_SIZE + 8, length);
+        ByteBuffer small = ByteBuffer.allocate(length - 1);
+        assertEquals(0, encoder.writeTo(small));
+        assertEquals(0, small.position());
+        assertEquals(4, encoder.pendingSamples());
+
+        ByteBuffer out = ByteBuffer.allocate(64);
+        assertEquals(length, encoder.writeTo(out));
+        assertFalse(encoder.isFull());
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, out.getShort(SampleFrameEncoder.HEADER_SIZE + i * 2));
+        }
+    }
+
+    @Test
+    public void addRefusesSampleOnceFrameIsFull() {
+        SampleFrameEncoder encoder = new SampleFrameEncoder(2, 0);
+        encoder.add(1, 0);
+        encoder.add(2, 0);
+        try {
+            encoder.add(3, 0);
+            fail("add on a full frame must not overrun the sample buffer");
+        } catch (IllegalStateException expected) {
+            // 호출자가 writeTo 로 비워야 함
+        }
+        assertEquals(2, encoder.pendingSamples());
+    }
+}
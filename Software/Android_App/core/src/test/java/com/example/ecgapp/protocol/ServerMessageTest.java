@@ -0,0 +1,133 @@
+package com.example.ecgapp.protocol;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * ecg_server.py 응답 형태의 파싱: type/id, 중첩 객체, 이스케이프, NaN, 건너뛰는 필드, 형식 오류
+ */
+public class ServerMessageTest {
+
+    @Test
+    public void parsesTypedCaptureResult() throws IOException {
+        ServerMessage msg = ServerMessage.parse("{\"status\": \"success\", \"message\": \"사용자 등록 완료: alice\","
+                + " \"user_id\": \"alice\", \"registered_at\": \"2026-01-01T00:00:00\", \"quality_score\": 87.5,"
+                + " \"signature_hash\": \"9f2c\", \"feature_vector\": [0.1, -2e-3, [1, {\"x\": null}]],"
+                + " \"summary\": {\"heart_rate\": 72.4, \"num_beats\": 7, \"quality\": \"good\"},"
+                + " \"server_timing\": {\"trigger\": \"complete\", \"last_sample_ns\": 9007199254740993,"
+                + " \"process_start_ns\": 9007199254740995, \"reply_ns\": 9007199254741001},"
+                + " \"type\": \"register\", \"id\": 12}");
+        assertEquals(ServerMessage.Type.REGISTER, msg.getType());
+        assertEquals(12, msg.getRequestId());
+        assertEquals("success", msg.getStatus());
+        assertEquals("alice", msg.getUserId());
+        assertTrue(msg.hasUserId());
+        assertTrue(msg.hasRegisteredAt());
+        assertFalse(msg.hasSessionId());
+        assertEquals(87.5, msg.getQualityScore(), 1e-9);
+        assertEquals("9f2c", msg.getSignatureHash());
+        assertEquals(72.4, msg.getHeartRate(), 1e-9);
+        assertEquals(7, msg.getNumBeats());
+        assertTrue(Double.isNaN(msg.getThreshold()));
+        // 나노초 시각은 double 을 거치지 않음 (2^53 보다 큰 값도 정확히)
+        assertEquals(9007199254740993L, msg.getServerLastSampleNanos());
+        assertEquals(9007199254740995L, msg.getServerProcessStartNanos());
+        assertEquals(9007199254741001L, msg.getServerReplyNanos());
+        assertNull(msg.getUsers());
+    }
+
+    @Test
+    public void parsesLegacyResponsesWithoutType() throws IOException {
+        ServerMessage ready = ServerMessage.parse("{\"status\": \"ready\", \"message\": \"로그인 모드 시작\","
+                + " \"mode\": \"login\", \"user_id\": null, \"required_samples\": 3000}");
+        assertNull(ready.getType());
+        assertEquals(0, ready.getRequestId());
+        assertEquals("login", ready.getMode());
+        assertEquals(3000, ready.getRequiredSamples());
+        assertNull(ready.getUserId());
+        assertTrue(ready.hasUserId());
+
+        ServerMessage users = ServerMessage.parse("{\"status\":\"success\",\"users\":[{\"user_id\":\"alice\","
+                + "\"registered_at\":\"x\"},\"bob\",{\"other\":1}]}");
+        assertEquals(Arrays.asList("alice", "bob", ""), users.getUsers());
+
+        // 필드가 없으면 기본값
+        ServerMessage empty = ServerMessage.parse(" { } ");
+        assertEquals("error", empty.getStatus());
+        assertEquals("", empty.getMessage());
+    }
+
+    @Test
+    public void handlesEscapesAndNonFiniteNumbers() throws IOException {
+        ServerMessage msg = ServerMessage.parse("{\"type\": \"login\", \"status\": \"auth_failed\","
+                + " \"message\": \"\\\"\\uc2e4\\ud328\\\"\\n\\\\ \\/\", \"best_similarity\": NaN,"
+                + " \"threshold\": 0.9, \"similarity\": -Infinity, \"unknown\": true}");
+        assertEquals(ServerMessage.Type.LOGIN, msg.getType());
+        assertEquals("\"실패\"\n\\ /", msg.getMessage());
+        assertTrue(Double.isNaN(msg.getBestSimilarity()));
+        assertEquals(Double.NEGATIVE_INFINITY, msg.getSimilarity(), 0);
+        assertEquals(0.9, msg.getThreshold(), 1e-9);
+
+        ServerMessage time = ServerMessage.parse("{\"type\": \"time\", \"status\": \"time\", \"t0\": -5,"
+                + " \"t1\": 123456789012345678, \"t2\": \"123456789012345679\"}");
+        assertEquals(-5, time.getT0());
+        assertEquals(123456789012345678L, time.getT1());
+        assertEquals(123456789012345679L, time.getT2());
+
+        assertEquals(ServerMessage.Type.OTHER, ServerMessage.parse("{\"type\": \"nope\"}").getType());
+    }
+
+    @Test
+    public void rejectsMalformedLines() {
+        String[] lines = {
+                "",
+                "[1, 2]",
+                "{\"status\": \"ok\"",
+                "{\"status\" \"ok\"}",
+                "{\"status\": \"ok\",}x",
+                "{\"status\": \"ok\"} {}",
+                "{\"message\": \"\\x\"}",
+                "{\"message\": \"끝나지 않음}",
+                "{\"a\": [1, 2}",
+                "not json",
+        };
+        for (String line : lines) {
+            try {
+                ServerMessage.parse(line);
+                fail("expected IOException: " + line);
+            } catch (IOException expected) {
+                // 형식 오류
+            }
+        }
+    }
+
+    @Test
+    public void pullReaderWalksNestedValues() throws IOException {
+        JsonPullReader reader = new JsonPullReader("{\"a\": [1, 2.5, \"x\", null, false], \"b\": {}, \"c\": 3000.0}");
+        reader.beginObject();
+        assertEquals("a", reader.nextName());
+        reader.beginArray();
+        assertEquals(1, reader.nextInt());
+        assertEquals(2.5, reader.nextDouble(), 0);
+        assertEquals("x", reader.nextString());
+        assertEquals(JsonPullReader.Token.NULL, reader.peek());
+        reader.nextNull();
+        assertFalse(reader.nextBoolean());
+        assertFalse(reader.hasNext());
+        reader.endArray();
+        assertEquals("b", reader.nextName());
+        reader.skipValue();
+        assertEquals("c", reader.nextName());
+        assertEquals(3000, reader.nextLong());
+        reader.endObject();
+        assertEquals(JsonPullReader.Token.END_DOCUMENT, reader.peek());
+    }
+}
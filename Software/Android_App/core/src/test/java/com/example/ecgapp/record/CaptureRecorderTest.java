@@ -0,0 +1,158 @@
+package com.example.ecgapp.record;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.stream.SampleSink;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 녹화 파일 왕복 (청크 시각, 측정 정보, 결과), 매핑 구간 확장, 비정상 종료 복구, 재생 속도 검증
+ */
+public class CaptureRecorderTest {
+
+    private static File tempFile() throws IOException {
+        File file = File.createTempFile("capture", ".ecgr");
+        file.deleteOnExit();
+        return file;
+    }
+
+    private static final class RecordingSink implements SampleSink {
+        final List<Integer> samples = new ArrayList<>();
+        final List<Long> chunkTimes = new ArrayList<>();
+
+        @Override
+        public synchronized void onSample(int value) {
+            samples.add(value);
+        }
+
+        @Override
+        public synchronized void onChunkReceived(long receivedNanos) {
+            chunkTimes.add(receivedNanos);
+        }
+    }
+
+    @Test
+    public void roundTripsChunksSessionAndVerdict() throws IOException {
+        File file = tempFile();
+        try (CaptureRecorder recorder = CaptureRecorder.create(file, 500)) {
+            recorder.recordSession(CaptureMode.LOGIN, "홍길동", 3000);
+            recorder.onChunkReceived(1_000);
+            recorder.onSample(510);
+            recorder.onSample(-3);
+            recorder.onChunkReceived(5_000);
+            recorder.onSample(4095);
+            recorder.recordVerdict(new JSONObject().put("kind", "AUTH_FAILED").put("similarity", 0.72));
+            assertEquals(3, recorder.getSamples());
+        }
+
+        CaptureRecording recording = CaptureRecording.read(file);
+        assertEquals(500, recording.getSampleRate());
+        assertTrue(recording.getCreatedMillis() > 0);
+        assertArrayEquals(new int[] {510, -3, 4095}, recording.toArray());
+        assertEquals(2, recording.getChunks().size());
+        assertEquals(1_000, recording.getChunks().get(0).getReceivedNanos());
+        assertEquals(5_000, recording.getChunks().get(1).getReceivedNanos());
+
+        CaptureRecording.Session session = recording.getSessions().get(0);
+        assertEquals(CaptureMode.LOGIN, session.getMode());
+        assertEquals("홍길동", session.getUserId());
+        assertEquals(3000, session.getRequiredSamples());
+        assertEquals(0, session.getFirstSample());
+        assertEquals("AUTH_FAILED", recording.getVerdicts().get(0).optString("kind", ""));
+        assertEquals(0.72, recording.getVerdicts().get(0).optDouble("similarity", 0), 1e-9);
+    }
+
+    @Test
+    public void growsAcrossMappedRegionsAndSurvivesMissingClose() throws IOException {
+        File file = tempFile();
+        int total = 200_000; // 800KB 이상 - 매핑 구간 여러 개
+        CaptureRecorder recorder = CaptureRecorder.create(file, 500);
+        for (int i = 0; i < total; i++) {
+            if (i % 50 == 0) {
+                recorder.onChunkReceived(1 + i);
+            }
+            recorder.onSample(i);
+        }
+        // close() 전 (앱이 죽은 상황): 완성된 청크까지 읽힘
+        recorder.onChunkReceived(1 + total);
+        CaptureRecording partial = CaptureRecording.read(file);
+        assertEquals(total, partial.getSampleCount());
+        recorder.close();
+
+        CaptureRecording recording = CaptureRecording.read(file);
+        int[] samples = recording.toArray();
+        assertEquals(total, samples.length);
+        for (int i = 0; i < total; i++) {
+            assertEquals(i, samples[i]);
+        }
+        // 청크 정보를 준 위치에서만 나뉨
+        assertEquals(total / 50, recording.getChunks().size());
+        assertTrue(file.length() < total * 4L + total / 50 * 20L);
+    }
+
+    @Test
+    public void rejectsForeignFiles() throws IOException {
+        File file = tempFile();
+        java.nio.file.Files.write(file.toPath(), new byte[64]);
+        try {
+            CaptureRecording.read(file);
+            throw new AssertionError("expected IOException");
+        } catch (IOException expected) {
+            // 매직 불일치
+        }
+    }
+
+    @Test
+    public void replaysUnthrottledAndAtRecordedPace() throws Exception {
+        File file = tempFile();
+        long chunkNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        try (CaptureRecorder recorder = CaptureRecorder.create(file, 500)) {
+            for (int c = 0; c < 10; c++) {
+                recorder.onChunkReceived(1 + c * chunkNanos);
+                for (int i = 0; i < 10; i++) {
+                    recorder.onSample(c * 10 + i);
+                }
+            }
+        }
+        CaptureRecording recording = CaptureRecording.read(file);
+
+        // 최대 속도
+        RecordingSink fast = new RecordingSink();
+        CountDownLatch fastDone = new CountDownLatch(1);
+        new RecordingReplaySource(recording, 0, fastDone::countDown).start(fast);
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+        synchronized (fast) {
+            assertEquals(100, fast.samples.size());
+            assertEquals(10, fast.chunkTimes.size());
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i, (int) fast.samples.get(i));
+            }
+        }
+
+        // 1배속: 청크 간격(20ms x 9)을 지킴
+        RecordingSink paced = new RecordingSink();
+        CountDownLatch pacedDone = new CountDownLatch(1);
+        RecordingReplaySource source = new RecordingReplaySource(recording, 1.0, pacedDone::countDown);
+        source.start(paced);
+        assertTrue(pacedDone.await(5, TimeUnit.SECONDS));
+        assertFalse(source.isRunning());
+        synchronized (paced) {
+            long span = paced.chunkTimes.get(9) - paced.chunkTimes.get(0);
+            assertTrue("span " + span, span >= 9 * chunkNanos);
+            assertTrue("span " + span, span < 9 * chunkNanos + TimeUnit.MILLISECONDS.toNanos(150));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.ecgapp.sensor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.example.ecgapp.stream.SampleSink;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * AsciiSampleParser 검증: 아두이노 출력을 녹화한 것과 같은 바이트 스트림 사용
+ */
+public class AsciiSampleParserTest {
+
+    // main.ino 의 setup()/loop() 출력 형태 (println = CRLF)
+    private static final String RECORDED_STREAM =
+            "AD8232 ECG Monitor Started\r\n"
+            + "512\r\n"
+            + "518\r\n"
+            + "1023\r\n"
+            + "0\r\n"
+            + "497\r\n";
+
+    private static final class CollectingSink implements SampleSink {
+        int[] values = new int[16];
+        int count;
+
+        @Override
+        public void onSample(int value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    public void parsesRecordedStreamAndSkipsBanner() {
+        AsciiSampleParser parser = new AsciiSampleParser();
+        CollectingSink sink = new CollectingSink();
+        byte[] data = bytes(RECORDED_STREAM);
+
+        int emitted = parser.parse(data, 0, data.length, sink);
+
+        assertEquals(5, emitted);
+        assertArrayEquals(new int[]{512, 518, 1023, 0, 497}, sink.toArray());
+        assertEquals(1, parser.getBannerLines());
+        assertEquals(0, parser.getErrorLines());
+        assertEquals(5, parser.getSampleCount());
+    }
+
+    @Test
+    public void sameResultForEveryChunkSize() {
+        byte[] data = bytes(RECORDED_STREAM);
+        for (int chunk = 1; chunk <= data.length; chunk++) {
+            AsciiSampleParser parser = new AsciiSampleParser();
+            CollectingSink sink = new CollectingSink();
+            for (int off = 0; off < data.length; off += chunk) {
+                parser.parse(data, off, Math.min(chunk, data.length - off), sink);
+            }
+            assertArrayEquals("chunk=" + chunk, new int[]{512, 518, 1023, 0, 497}, sink.toArray());
+            assertEquals("chunk=" + chunk, 1, parser.getBannerLines());
+        }
+    }
+
+    @Test
+    public void countsGarbageWithoutEmitting() {
+        AsciiSampleParser parser = new AsciiSampleParser();
+        CollectingSink sink = new CollectingSink();
+        byte[] data = bytes("12a\r\n\r\n--5\n 77 \n4x4\n1234567890123\n\n-8\n+9\n");
+
+        parser.parse(data, 0, data.length, sink);
+
+        assertArrayEquals(new int[]{77, -8, 9}, sink.toArray());
+        assertEquals(4, parser.getErrorLines());
+        assertEquals(2, parser.getEmptyLines());
+        assertEquals(0, parser.getBannerLines());
+    }
+
+    @Test
+    public void bannerKeywordAnywhereInLineIsSkipped() {
+        AsciiSampleParser parser = new AsciiSampleParser();
+        CollectingSink sink = new CollectingSink();
+        byte[] data = bytes("Monitor Started\n>>AD8232<<\nAAD8232\nStarte\n300\n");
+
+        parser.parse(data, 0, data.length, sink);
+
+        assertArrayEquals(new int[]{300}, sink.toArray());
+        assertEquals(3, parser.getBannerLines());
+        assertEquals(1, parser.getErrorLines());
+    }
+
+    @Test
+    public void resetLineDropsPartialSample() {
+        AsciiSampleParser parser = new AsciiSampleParser();
+        CollectingSink sink = new CollectingSink();
+        byte[] partial = bytes("51");
+        byte[] rest = bytes("2\n600\n");
+
+        parser.parse(partial, 0, partial.length, sink);
+        parser.resetLine();
+        parser.parse(rest, 0, rest.length, sink);
+
+        assertArrayEquals(new int[]{2, 600}, sink.toArray());
+    }
+}
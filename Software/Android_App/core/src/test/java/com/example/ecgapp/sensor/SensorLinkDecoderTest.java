@@ -0,0 +1,161 @@
+package com.example.ecgapp.sensor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.example.ecgapp.stream.SampleSink;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 바이너리 프레임 디코딩/재동기화 및 텍스트/바이너리 자동 판별 검증
+ */
+public class SensorLinkDecoderTest {
+
+    private static final class CollectingSink implements SampleSink {
+        int[] values = new int[64];
+        int count;
+
+        @Override
+        public void onSample(int value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            values[count++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, count);
+        }
+    }
+
+    // main.ino 의 sendFrame() 과 같은 인코딩
+    private static byte[] frame(int counter, int[] samples, int from) {
+        byte[] f = new byte[BinarySampleDecoder.FRAME_SIZE];
+        f[0] = (byte) BinarySampleDecoder.SYNC_0;
+        f[1] = (byte) BinarySampleDecoder.SYNC_1;
+        f[2] = (byte) counter;
+        for (int i = 0, p = 3; i < BinarySampleDecoder.SAMPLES_PER_FRAME; i += 4, p += 5) {
+            int s0 = samples[from + i] & 0x3FF;
+            int s1 = samples[from + i + 1] & 0x3FF;
+            int s2 = samples[from + i + 2] & 0x3FF;
+            int s3 = samples[from + i + 3] & 0x3FF;
+            f[p] = (byte) (s0 >> 2);
+            f[p + 1] = (byte) (((s0 & 0x03) << 6) | (s1 >> 4));
+            f[p + 2] = (byte) (((s1 & 0x0F) << 4) | (s2 >> 6));
+            f[p + 3] = (byte) (((s2 & 0x3F) << 2) | (s3 >> 8));
+            f[p + 4] = (byte) s3;
+        }
+        f[f.length - 1] = (byte) BinarySampleDecoder.crc8(f, 2, f.length - 3);
+        return f;
+    }
+
+    private static int[] samples(int count) {
+        int[] s = new int[count];
+        for (int i = 0; i < count; i++) {
+            s[i] = (i * 97 + 13) % 1024;
+        }
+        return s;
+    }
+
+    private static byte[] binaryStream(int[] samples, int frames, int firstCounter) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < frames; i++) {
+            out.write(frame(firstCounter + i, samples, i * BinarySampleDecoder.SAMPLES_PER_FRAME),
+                    0, BinarySampleDecoder.FRAME_SIZE);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void decodesPacked10BitFrames() {
+        int[] expected = samples(BinarySampleDecoder.SAMPLES_PER_FRAME * 3);
+        expected[0] = 0;
+        expected[1] = 1023;
+        byte[] data = binaryStream(expected, 3, 250);
+        BinarySampleDecoder decoder = new BinarySampleDecoder();
+        CollectingSink sink = new CollectingSink();
+
+        decoder.parse(data, 0, data.length, sink);
+
+        assertArrayEquals(expected, sink.toArray());
+        assertEquals(3, decoder.getFrameCount());
+        assertEquals(0, decoder.getLostFrames()); // 카운터 255 -> 0 순환 포함
+    }
+
+    @Test
+    public void resynchronizesAfterCorruptionAndCountsLostFrames() {
+        int n = BinarySampleDecoder.SAMPLES_PER_FRAME;
+        int[] all = samples(n * 4);
+        byte[] data = binaryStream(all, 4, 0);
+        // 두 번째 프레임 payload 손상 + 앞에 잡음 바이트
+        data[BinarySampleDecoder.FRAME_SIZE + 7] ^= 0x40;
+        byte[] noisy = new byte[data.length + 3];
+        noisy[0] = (byte) 0xA5;
+        noisy[1] = 0x11;
+        noisy[2] = (byte) 0xA5;
+        System.arraycopy(data, 0, noisy, 3, data.length);
+
+        BinarySampleDecoder decoder = new BinarySampleDecoder();
+        CollectingSink sink = new CollectingSink();
+        decoder.parse(noisy, 0, noisy.length, sink);
+
+        int[] expected = new int[n * 3];
+        System.arraycopy(all, 0, expected, 0, n);
+        System.arraycopy(all, n * 2, expected, n, n * 2);
+        assertArrayEquals(expected, sink.toArray());
+        assertEquals(1, decoder.getCrcErrors());
+        assertEquals(1, decoder.getLostFrames());
+        assertEquals(n, decoder.getLostSamples());
+    }
+
+    @Test
+    public void autoDetectsLegacyTextFirmware() {
+        StringBuilder sb = new StringBuilder("AD8232 ECG Monitor Started\r\n");
+        for (int i = 0; i < 40; i++) {
+            sb.append(500 + i).append("\r\n");
+        }
+        byte[] data = sb.toString().getBytes(StandardCharsets.US_ASCII);
+        SensorLinkDecoder decoder = new SensorLinkDecoder();
+        CollectingSink sink = new CollectingSink();
+
+        for (int off = 0; off < data.length; off += 7) {
+            decoder.parse(data, off, Math.min(7, data.length - off), sink);
+        }
+
+        assertEquals(SensorLinkDecoder.Mode.TEXT, decoder.getMode());
+        // 판별 중 샘플은 버려지고 이후 샘플은 순서대로 전달됨
+        int[] got = sink.toArray();
+        assertEquals(539, got[got.length - 1]);
+        for (int i = 1; i < got.length; i++) {
+            assertEquals(got[i - 1] + 1, got[i]);
+        }
+    }
+
+    @Test
+    public void autoDetectsBinaryFirmwareAfterTextBanner() {
+        int n = BinarySampleDecoder.SAMPLES_PER_FRAME;
+        int[] all = samples(n * 6);
+        byte[] banner = "AD8232 ECG Monitor Started\r\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] frames = binaryStream(all, 6, 0);
+        byte[] data = new byte[banner.length + frames.length];
+        System.arraycopy(banner, 0, data, 0, banner.length);
+        System.arraycopy(frames, 0, data, banner.length, frames.length);
+
+        SensorLinkDecoder decoder = new SensorLinkDecoder();
+        CollectingSink sink = new CollectingSink();
+        for (int off = 0; off < data.length; off += 10) {
+            decoder.parse(data, off, Math.min(10, data.length - off), sink);
+        }
+
+        assertEquals(SensorLinkDecoder.Mode.BINARY, decoder.getMode());
+        int[] got = sink.toArray();
+        int[] tail = Arrays.copyOfRange(all, all.length - got.length, all.length);
+        assertArrayEquals(tail, got);
+        assertEquals(n * 4, got.length);
+    }
+}
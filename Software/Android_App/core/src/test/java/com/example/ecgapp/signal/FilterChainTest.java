@@ -0,0 +1,86 @@
+package com.example.ecgapp.signal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 스트리밍 필터 응답 검증 (로컬 JVM 테스트)
+ */
+public class FilterChainTest {
+
+    private static final double FS = 500.0;
+
+    // 과도 응답이 지난 뒤 출력의 최대 진폭
+    private static double steadyAmplitude(SampleFilter filter, double frequency, double amplitude, double offset) {
+        double peak = 0;
+        for (int i = 0; i < 5000; i++) {
+            float y = filter.process((float) (offset + amplitude * Math.sin(2 * Math.PI * frequency * i / FS)));
+            if (i >= 4000) {
+                peak = Math.max(peak, Math.abs(y));
+            }
+        }
+        return peak;
+    }
+
+    @Test
+    public void movingAverageMatchesNaiveWindow() {
+        MovingAverage filter = new MovingAverage(5);
+        float[] input = new float[40];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (i * 37) % 101;
+        }
+
+        for (int i = 0; i < input.length; i++) {
+            int from = Math.max(0, i - 4);
+            float sum = 0;
+            for (int j = from; j <= i; j++) {
+                sum += input[j];
+            }
+            assertEquals(sum / (i - from + 1), filter.process(input[i]), 1e-4f);
+        }
+    }
+
+    @Test
+    public void primedChainHasNoStartupTransient() {
+        // ADC 중앙값(512)으로 시작해도 고역통과 출력이 튀지 않아야 함
+        FilterChain chain = FilterChain.forConditioning(FS);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0f, chain.process(512f), 1e-3f);
+        }
+
+        FilterChain display = FilterChain.forDisplay(FS);
+        assertEquals(0f, display.process(700f), 1e-3f);
+    }
+
+    @Test
+    public void conditioningPassesEcgBandAndRejectsNoise() {
+        assertEquals(100.0, steadyAmplitude(FilterChain.forConditioning(FS), 10.0, 100.0, 512.0), 3.0);
+        // 60Hz 전원 노이즈와 100Hz 근전도 노이즈는 크게 감쇠
+        assertTrue(steadyAmplitude(FilterChain.forConditioning(FS), 60.0, 100.0, 512.0) < 5.0);
+        assertTrue(steadyAmplitude(FilterChain.forConditioning(FS), 100.0, 100.0, 512.0) < 10.0);
+    }
+
+    @Test
+    public void baselineTrackerRemovesSlowDrift() {
+        BaselineTracker tracker = new BaselineTracker(FS, 0.5);
+        tracker.reset(500f);
+        float y = 0;
+        for (int i = 0; i < 5000; i++) {
+            // 0.05Hz 호흡성 변동
+            y = tracker.process((float) (500 + 50 * Math.sin(2 * Math.PI * 0.05 * i / FS)));
+        }
+        assertTrue(Math.abs(y) < 6f);
+    }
+
+    @Test
+    public void biquadResetMatchesSteadyState() {
+        Biquad lowPass = Biquad.lowPass(FS, 45.0, Biquad.Q_BUTTERWORTH);
+        assertEquals(1.0, lowPass.getDcGain(), 1e-9);
+        lowPass.reset(300f);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(300f, lowPass.process(300f), 1e-3f);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.ecgapp.signal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * 슬라이딩 창 품질 판정 검증 (로컬 JVM 테스트)
+ */
+public class SignalQualityMonitorTest {
+
+    private static final double FS = 500.0;
+
+    private static SignalQualityMonitor monitor() {
+        return new SignalQualityMonitor(FS, 2.0, SignalQualityMonitor.Thresholds.DEFAULT);
+    }
+
+    // 72 BPM, R 진폭 300, 약한 노이즈
+    private static int ecg(int i, Random random) {
+        double t = (i % 417) / FS;
+        double v = 512 + 300 * Math.exp(-Math.pow((t - 0.2) / 0.012, 2))
+                + 60 * Math.exp(-Math.pow((t - 0.48) / 0.06, 2));
+        return (int) Math.round(v + 2 * random.nextGaussian());
+    }
+
+    @Test
+    public void cleanSignalPasses() {
+        SignalQualityMonitor monitor = monitor();
+        Random random = new Random(1);
+        for (int i = 0; i < 999; i++) {
+            monitor.add(ecg(i, random));
+        }
+        assertFalse(monitor.isReady());
+        monitor.add(ecg(999, random));
+        for (int i = 1000; i < 5000; i++) {
+            monitor.add(ecg(i, random));
+            assertEquals(SignalQualityMonitor.Issue.NONE, monitor.getIssue());
+        }
+        assertTrue(monitor.getSnrDb() > 5);
+    }
+
+    @Test
+    public void detectsFlatSignal() {
+        SignalQualityMonitor monitor = monitor();
+        for (int i = 0; i < 1000; i++) {
+            monitor.add(500 + (i % 2));
+        }
+        assertEquals(SignalQualityMonitor.Issue.FLAT, monitor.getIssue());
+    }
+
+    @Test
+    public void detectsLeadOffAndRecovers() {
+        SignalQualityMonitor monitor = monitor();
+        Random random = new Random(2);
+        for (int i = 0; i < 1000; i++) {
+            monitor.add(ecg(i, random));
+        }
+        for (int i = 0; i < 200; i++) {
+            monitor.add(1023);
+        }
+        assertEquals(SignalQualityMonitor.Issue.LEAD_OFF, monitor.getIssue());
+
+        // 전극이 다시 붙어도 창 안에 포화 구간이 남아 있는 동안은 포화로 보고
+        monitor.add(ecg(0, random));
+        assertEquals(SignalQualityMonitor.Issue.SATURATED, monitor.getIssue());
+        for (int i = 0; i < 1000; i++) {
+            monitor.add(ecg(i, random));
+        }
+        assertEquals(SignalQualityMonitor.Issue.NONE, monitor.getIssue());
+    }
+
+    @Test
+    public void detectsNoisySignal() {
+        SignalQualityMonitor monitor = monitor();
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            monitor.add(512 + (int) Math.round(80 * random.nextGaussian()));
+        }
+        assertEquals(SignalQualityMonitor.Issue.NOISY, monitor.getIssue());
+    }
+
+    @Test
+    public void gapsDoNotCountAsNoise() {
+        // 느린 파형에서는 끊김 양쪽 값의 차이가 커서, 이를 차이값으로 세면 SNR이 크게 떨어짐
+        SignalQualityMonitor continuous = monitor();
+        SignalQualityMonitor gapped = monitor();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            int x = (int) Math.round(512 + 200 * Math.sin(2 * Math.PI * 1.2 * i / FS) + 3 * random.nextGaussian());
+            continuous.add(x);
+            // 그래프 갱신이 밀려 60샘플 중 50샘플씩 빠지는 경우
+            int phase = i % 60;
+            if (phase < 10) {
+                gapped.add(x);
+            } else if (phase == 10) {
+                gapped.skip(50);
+            }
+        }
+        assertEquals(SignalQualityMonitor.Issue.NONE, gapped.getIssue());
+        assertEquals(continuous.getSnrDb(), gapped.getSnrDb(), 1.5);
+    }
+
+    @Test
+    public void leadOffRunContinuesAcrossGap() {
+        SignalQualityMonitor monitor = monitor();
+        Random random = new Random(6);
+        for (int i = 0; i < 1000; i++) {
+            monitor.add(ecg(i, random));
+        }
+        // 0.25초(125샘플) 기준: 끊김 양쪽이 모두 한계값이면 이어진 구간으로 봄
+        for (int i = 0; i < 60; i++) {
+            monitor.add(1023);
+        }
+        monitor.skip(40);
+        assertFalse(monitor.isLeadOff());
+        for (int i = 0; i < 30; i++) {
+            monitor.add(1023);
+        }
+        assertTrue(monitor.isLeadOff());
+
+        // 끊김 뒤 샘플이 정상이면 구간이 끊김
+        monitor.add(ecg(0, random));
+        monitor.skip(200);
+        monitor.add(1023);
+        assertFalse(monitor.isLeadOff());
+    }
+
+    @Test
+    public void slidingSumsMatchRecomputedWindow() {
+        SignalQualityMonitor monitor = new SignalQualityMonitor(FS, 0.1, SignalQualityMonitor.Thresholds.DEFAULT);
+        int[] input = new int[600];
+        Random random = new Random(4);
+        for (int i = 0; i < input.length; i++) {
+            input[i] = random.nextInt(1024);
+            monitor.add(input[i]);
+        }
+        int window = 50;
+        double mean = 0;
+        for (int i = input.length - window; i < input.length; i++) {
+            mean += input[i];
+        }
+        mean /= window;
+        double variance = 0;
+        for (int i = input.length - window; i < input.length; i++) {
+            variance += (input[i] - mean) * (input[i] - mean);
+        }
+        assertEquals(Math.sqrt(variance / window), monitor.getStd(), 1e-6);
+    }
+}
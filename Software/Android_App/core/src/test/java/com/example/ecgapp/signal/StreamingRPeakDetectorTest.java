@@ -0,0 +1,127 @@
+package com.example.ecgapp.signal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 합성 ECG로 실시간 R-peak 검출 검증 (로컬 JVM 테스트)
+ */
+public class StreamingRPeakDetectorTest {
+
+    private static final double FS = 500.0;
+
+    // P, QRS, T 가우시안 합으로 만든 단순 ECG (ADC 단위, 512 중심)
+    private static float ecg(int i, int[] beats, double baselineAmplitude, double noise, Random random) {
+        double t = i / FS;
+        double v = 512 + baselineAmplitude * Math.sin(2 * Math.PI * 0.3 * t);
+        for (int beat : beats) {
+            double dt = (i - beat) / FS;
+            if (dt < -0.3 || dt > 0.5) {
+                continue;
+            }
+            v += 25 * Math.exp(-Math.pow((dt + 0.18) / 0.025, 2));    // P
+            v -= 30 * Math.exp(-Math.pow((dt + 0.03) / 0.01, 2));     // Q
+            v += 300 * Math.exp(-Math.pow(dt / 0.012, 2));            // R
+            v -= 60 * Math.exp(-Math.pow((dt - 0.03) / 0.012, 2));    // S
+            v += 60 * Math.exp(-Math.pow((dt - 0.28) / 0.06, 2));     // T
+        }
+        return (float) (v + noise * random.nextGaussian());
+    }
+
+    private static int[] beatPositions(int count, int first, int rr) {
+        int[] beats = new int[count];
+        for (int i = 0; i < count; i++) {
+            beats[i] = first + i * rr;
+        }
+        return beats;
+    }
+
+    @Test
+    public void detectsBeatsAndHeartRate() {
+        int rr = 417; // 약 72 BPM
+        int[] beats = beatPositions(30, 200, rr);
+        List<Long> detected = new ArrayList<>();
+        List<Integer> intervals = new ArrayList<>();
+        StreamingRPeakDetector detector = new StreamingRPeakDetector(FS, (index, rrSamples) -> {
+            detected.add(index);
+            intervals.add(rrSamples);
+        });
+        Random random = new Random(1);
+        int total = beats[beats.length - 1] + 300;
+        for (int i = 0; i < total; i++) {
+            detector.process(ecg(i, beats, 40, 3, random));
+        }
+
+        // 학습 구간(2초) 이후 비트는 모두 검출되고 R 위치는 ±10ms 이내
+        int expected = 0;
+        for (int beat : beats) {
+            if (beat > FS * 2 + 100) {
+                expected++;
+            }
+        }
+        assertTrue("detected " + detected.size(), detected.size() >= expected);
+        assertTrue("detected " + detected.size(), detected.size() <= expected + 1);
+        for (long index : detected.subList(1, detected.size())) {
+            long nearest = Long.MAX_VALUE;
+            for (int beat : beats) {
+                nearest = Math.min(nearest, Math.abs(index - beat));
+            }
+            assertTrue("offset " + nearest, nearest <= 5);
+        }
+        assertEquals(-1, (int) intervals.get(0));
+        assertEquals(rr, intervals.get(intervals.size() - 1), 5);
+        assertEquals(60.0 * FS / rr, detector.getHeartRate(), 1.0);
+        assertEquals(detected.size(), detector.getBeatCount());
+    }
+
+    @Test
+    public void reportsNoHeartRateWhenSignalStops() {
+        int[] beats = beatPositions(12, 200, 400);
+        StreamingRPeakDetector detector = new StreamingRPeakDetector(FS, null);
+        Random random = new Random(2);
+        int end = beats[beats.length - 1] + 200;
+        for (int i = 0; i < end; i++) {
+            detector.process(ecg(i, beats, 0, 2, random));
+        }
+        assertTrue(detector.getHeartRate() > 0);
+
+        // 전극 분리: 평탄한 신호 3초
+        long beatsBefore = detector.getBeatCount();
+        for (int i = 0; i < FS * 3; i++) {
+            detector.process(512f);
+        }
+        assertEquals(0.0, detector.getHeartRate(), 0.0);
+        assertEquals(beatsBefore, detector.getBeatCount());
+    }
+
+    @Test
+    public void recoversMissedBeatWithSearchBack() {
+        // 한 비트의 진폭이 크게 작아져도 평균 RR 기준 재검색으로 찾음
+        int rr = 400;
+        int[] beats = beatPositions(20, 200, rr);
+        List<Long> detected = new ArrayList<>();
+        StreamingRPeakDetector detector = new StreamingRPeakDetector(FS, (index, rrSamples) -> detected.add(index));
+        Random random = new Random(3);
+        int weakBeat = beats[12];
+        int total = beats[beats.length - 1] + 300;
+        for (int i = 0; i < total; i++) {
+            float v = ecg(i, beats, 0, 1, random);
+            if (Math.abs(i - weakBeat) < 60) {
+                v = 512 + (v - 512) * 0.35f;
+            }
+            detector.process(v);
+        }
+
+        boolean found = false;
+        for (long index : detected) {
+            found |= Math.abs(index - weakBeat) <= 5;
+        }
+        assertTrue(found);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ecgapp.spool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.ecgapp.client.CaptureMode;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 보관소 왕복, 다시 열기, 업로드 완료 처리와 세그먼트 정리, 잘린 레코드 복구, 용량 초과 검증
+ */
+public class SpoolStoreTest {
+
+    private static File tempDir() throws IOException {
+        File dir = Files.createTempDirectory("spool").toFile();
+        dir.deleteOnExit();
+        return dir;
+    }
+
+    private static int[] ramp(int count, int offset) {
+        int[] samples = new int[count];
+        for (int i = 0; i < count; i++) {
+            samples[i] = offset + i;
+        }
+        return samples;
+    }
+
+    private static File[] segments(File dir) {
+        return dir.listFiles((d, name) -> name.endsWith(".seg"));
+    }
+
+    @Test
+    public void roundTripsCapturesAcrossReopen() throws IOException {
+        File dir = tempDir();
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            store.append(CaptureMode.REGISTER, "홍길동", 500, ramp(3000, 100), 3000);
+            // 16비트를 넘는 값은 32비트로 저장
+            store.append(CaptureMode.LOGIN, null, 500, new int[] {-70000, 0, 70000, 9}, 3);
+            assertEquals(2, store.pendingCount());
+        }
+
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            List<SpooledCapture> pending = store.peek(10);
+            assertEquals(2, pending.size());
+            SpooledCapture first = pending.get(0);
+            assertEquals(CaptureMode.REGISTER, first.getMode());
+            assertEquals("홍길동", first.getUserId());
+            assertEquals(500, first.getSampleRate());
+            assertEquals(3000, first.size());
+            assertEquals(100, first.get(0));
+            assertEquals(3099, first.get(2999));
+            assertTrue(first.getCreatedMillis() > 0);
+
+            SpooledCapture second = pending.get(1);
+            assertTrue(second.getId() > first.getId());
+            assertEquals(CaptureMode.LOGIN, second.getMode());
+            assertEquals("", second.getUserId());
+            assertEquals(3, second.size());
+            assertEquals(-70000, second.get(0));
+            assertEquals(70000, second.get(2));
+
+            // 새 순번은 기존 것 다음
+            SpooledCapture third = store.append(CaptureMode.LOGIN, "kim", 500, ramp(10, 0), 10);
+            assertTrue(third.getId() > second.getId());
+        }
+    }
+
+    @Test
+    public void acknowledgeDropsCapturesAndDeletesFinishedSegments() throws IOException {
+        File dir = tempDir();
+        // 측정 하나(약 6KB)마다 세그먼트가 넘침
+        try (SpoolStore store = SpoolStore.open(dir, 4096, 100)) {
+            long[] ids = new long[4];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = store.append(CaptureMode.LOGIN, "u" + i, 500, ramp(3000, i), 3000).getId();
+            }
+            assertEquals(4, segments(dir).length);
+
+            store.acknowledge(ids[1]);
+            assertEquals(2, store.pendingCount());
+            assertEquals(2, segments(dir).length);
+            assertEquals("u2", store.peek(1).get(0).getUserId());
+        }
+        try (SpoolStore store = SpoolStore.open(dir, 4096, 100)) {
+            assertEquals(2, store.pendingCount());
+            List<SpooledCapture> pending = store.peek(10);
+            store.acknowledge(pending.get(1).getId());
+            assertEquals(0, store.pendingCount());
+            assertEquals(0, segments(dir).length);
+        }
+        try (SpoolStore store = SpoolStore.open(dir, 4096, 100)) {
+            assertEquals(0, store.pendingCount());
+            assertTrue(store.peek(10).isEmpty());
+        }
+    }
+
+    @Test
+    public void truncatesTornTailOnOpen() throws IOException {
+        File dir = tempDir();
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            store.append(CaptureMode.LOGIN, "a", 500, ramp(100, 0), 100);
+            store.append(CaptureMode.LOGIN, "b", 500, ramp(100, 0), 100);
+        }
+        File segment = segments(dir)[0];
+        long intact = segment.length();
+        // 세 번째 레코드를 쓰던 중 전원이 꺼진 상황 + 두 번째 레코드 내용 손상 없음
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(intact);
+            raf.writeInt(400);
+            raf.writeInt(0x1234);
+            raf.write(new byte[50]);
+        }
+
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            assertEquals(2, store.pendingCount());
+            assertEquals(intact, segment.length());
+            store.append(CaptureMode.LOGIN, "c", 500, ramp(100, 0), 100);
+            List<SpooledCapture> pending = store.peek(10);
+            assertEquals(3, pending.size());
+            assertEquals("c", pending.get(2).getUserId());
+        }
+
+        // 마지막 레코드 내용이 깨지면(CRC 불일치) 그 레코드부터 버림
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "rw")) {
+            raf.seek(raf.length() - 1);
+            raf.write(0x7F);
+        }
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            assertEquals(2, store.pendingCount());
+        }
+    }
+
+    @Test
+    public void dropsOldestWhenFull() throws IOException {
+        File dir = tempDir();
+        try (SpoolStore store = SpoolStore.open(dir, SpoolStore.DEFAULT_SEGMENT_BYTES, 2)) {
+            store.append(CaptureMode.LOGIN, "a", 500, ramp(10, 0), 10);
+            store.append(CaptureMode.LOGIN, "b", 500, ramp(10, 0), 10);
+            store.append(CaptureMode.LOGIN, "c", 500, ramp(10, 0), 10);
+            assertEquals(2, store.pendingCount());
+            assertEquals(1, store.getDropped());
+            List<SpooledCapture> pending = store.peek(10);
+            assertEquals("b", pending.get(0).getUserId());
+            assertEquals("c", pending.get(1).getUserId());
+        }
+        assertFalse(new File(dir, "ack.tmp").exists());
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.ecgapp.spool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.example.ecgapp.client.CaptureMode;
+import com.example.ecgapp.client.Verdict;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 보관한 측정을 한 연결에서 차례로 보내고, 처리된 것만 보관소에서 지우는지 검증
+ */
+public class SpoolUploaderTest {
+
+    private static void serveCaptures(ServerSocket server, List<String> captures, CountDownLatch closed) {
+        serveCaptures(server, 3000, 0, captures, closed);
+    }
+
+    // 측정마다 "명령:첫 샘플:샘플 수" 를 남기는 서버 (연결 하나). ready 를 보낸 뒤 stallMillis 동안 읽지 않음
+    private static void serveCaptures(ServerSocket server, int requiredSamples, long stallMillis,
+                                      List<String> captures, CountDownLatch closed) {
+        try (Socket s = server.accept()) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
+            PrintWriter out = new PrintWriter(s.getOutputStream(), true);
+            out.println("{\"status\": \"connected\", \"message\": \"ECG 서버에 연결되었습니다.\"}");
+            String command = null;
+            int first = 0;
+            int samples = 0;
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("CMD:REGISTER:") || line.startsWith("CMD:LOGIN")) {
+                    command = line.substring(4);
+                    samples = 0;
+                    String mode = line.startsWith("CMD:REGISTER:") ? "register" : "login";
+                    out.println("{\"status\": \"ready\", \"mode\": \"" + mode + "\", \"required_samples\": "
+                            + requiredSamples + "}");
+                    if (stallMillis > 0) {
+                        Thread.sleep(stallMillis);
+                    }
+                } else if (line.equals("CMD:CANCEL")) {
+                    command = null;
+                    out.println("{\"status\": \"cancelled\", \"message\": \"측정 취소\"}");
+                } else if (line.equals("CMD:COMPLETE")) {
+                    captures.add(command + ":" + first + ":" + samples);
+                    if (command.startsWith("REGISTER:")) {
+                        String user = command.substring("REGISTER:".length());
+                        out.println("{\"status\": \"success\", \"message\": \"사용자 등록 완료: " + user + "\","
+                                + " \"user_id\": \"" + user + "\", \"registered_at\": \"2026-01-01T00:00:00\"}");
+                    } else {
+                        out.println("{\"status\": \"auth_failed\", \"message\": \"인증 실패\", \"best_similarity\": 0.4}");
+                    }
+                } else if (line.startsWith("CMD:")) {
+                    out.println("{\"status\": \"error\", \"message\": \"알 수 없는 명령어: " + line.substring(4) + "\"}");
+                } else {
+                    int value = Integer.parseInt(line);
+                    if (samples++ == 0) {
+                        first = value;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // 클라이언트가 연결을 끊음
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closed.countDown();
+    }
+
+    private static int[] constant(int count, int value) {
+        int[] samples = new int[count];
+        java.util.Arrays.fill(samples, value);
+        return samples;
+    }
+
+    @Test
+    public void uploadsPendingCapturesInOrderOverOneConnection() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        dir.deleteOnExit();
+        try (SpoolStore store = SpoolStore.open(dir);
+             ServerSocket server = new ServerSocket(0)) {
+            store.append(CaptureMode.REGISTER, "alice", 500, constant(3000, 11), 3000);
+            // 서버 요구량보다 적음 - 보내지 않고 버림
+            store.append(CaptureMode.LOGIN, "bob", 500, constant(100, 22), 100);
+            store.append(CaptureMode.LOGIN, "", 500, constant(3200, 33), 3200);
+
+            List<String> captures = new CopyOnWriteArrayList<>();
+            CountDownLatch closed = new CountDownLatch(1);
+            Thread serverThread = new Thread(() -> serveCaptures(server, captures, closed));
+            serverThread.start();
+
+            List<Verdict> verdicts = new CopyOnWriteArrayList<>();
+            CountDownLatch drained = new CountDownLatch(1);
+            SpoolUploader uploader = new SpoolUploader(store, "127.0.0.1", server.getLocalPort(), null,
+                    new SpoolUploader.Listener() {
+                        @Override
+                        public void onUploaded(SpooledCapture capture, Verdict verdict) {
+                            verdicts.add(verdict);
+                        }
+
+                        @Override
+                        public void onPendingChanged(int pending) {
+                            if (pending == 0) {
+                                drained.countDown();
+                            }
+                        }
+                    });
+            try {
+                uploader.kick();
+                assertTrue(drained.await(10, TimeUnit.SECONDS));
+                // 다 보내면 연결을 닫음
+                assertTrue(closed.await(5, TimeUnit.SECONDS));
+                assertFalse(uploader.isUploading());
+            } finally {
+                uploader.close();
+            }
+
+            assertEquals(2, captures.size());
+            assertEquals("REGISTER:alice:11:3000", captures.get(0));
+            assertEquals("LOGIN:33:3000", captures.get(1));
+            assertEquals(2, verdicts.size());
+            assertEquals(Verdict.Kind.REGISTERED, verdicts.get(0).getKind());
+            assertEquals(Verdict.Kind.AUTH_FAILED, verdicts.get(1).getKind());
+            assertEquals(0, store.pendingCount());
+            serverThread.join(5000);
+        }
+    }
+
+    @Test
+    public void waitsForStalledServerInsteadOfDroppingSamples() throws Exception {
+        // 서버가 ready 후 한동안 읽지 않아 커널 버퍼와 샘플 큐가 모두 참 - 샘플을 버리면 COMPLETE 를 못 보냄
+        final int required = 1_000_000;
+        File dir = Files.createTempDirectory("spool").toFile();
+        dir.deleteOnExit();
+        try (SpoolStore store = SpoolStore.open(dir);
+             ServerSocket server = new ServerSocket()) {
+            server.setReceiveBufferSize(4096);
+            server.bind(new InetSocketAddress("127.0.0.1", 0));
+            store.append(CaptureMode.REGISTER, "lee", 500, constant(required, 12345), required);
+
+            List<String> captures = new CopyOnWriteArrayList<>();
+            CountDownLatch closed = new CountDownLatch(1);
+            Thread serverThread = new Thread(() -> serveCaptures(server, required, 2500, captures, closed));
+            serverThread.start();
+
+            List<Verdict> verdicts = new CopyOnWriteArrayList<>();
+            CountDownLatch drained = new CountDownLatch(1);
+            SpoolUploader uploader = new SpoolUploader(store, "127.0.0.1", server.getLocalPort(), null,
+                    new SpoolUploader.Listener() {
+                        @Override
+                        public void onUploaded(SpooledCapture capture, Verdict verdict) {
+                            verdicts.add(verdict);
+                        }
+
+                        @Override
+                        public void onPendingChanged(int pending) {
+                            if (pending == 0) {
+                                drained.countDown();
+                            }
+                        }
+                    });
+            try {
+                uploader.kick();
+                assertTrue(drained.await(20, TimeUnit.SECONDS));
+                assertTrue(closed.await(5, TimeUnit.SECONDS));
+            } finally {
+                uploader.close();
+            }
+
+            assertEquals(1, captures.size());
+            assertEquals("REGISTER:lee:12345:" + required, captures.get(0));
+            assertEquals(1, verdicts.size());
+            assertEquals(Verdict.Kind.REGISTERED, verdicts.get(0).getKind());
+            serverThread.join(5000);
+        }
+    }
+
+    @Test
+    public void keepsCapturesWhenServerIsUnreachable() throws Exception {
+        File dir = Files.createTempDirectory("spool").toFile();
+        dir.deleteOnExit();
+        int port;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            port = probe.getLocalPort();
+        }
+        try (SpoolStore store = SpoolStore.open(dir)) {
+            store.append(CaptureMode.LOGIN, "kim", 500, constant(3000, 1), 3000);
+            SpoolUploader uploader = new SpoolUploader(store, "127.0.0.1", port, null, null);
+            try {
+                uploader.kick();
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                // 연결 실패 후 업로드를 멈추고 다음 kick 을 기다림
+                Thread.sleep(100);
+                while (uploader.isUploading() && System.nanoTime() < deadline) {
+                    Thread.sleep(20);
+                }
+                assertFalse(uploader.isUploading());
+                assertEquals(1, store.pendingCount());
+            } finally {
+                uploader.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.ecgapp.station;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.example.ecgapp.metrics.MetricsRegistry;
+import com.example.ecgapp.sensor.SensorLinkDecoder;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 센서 여러 개를 동시에 받을 때 센서별 파서/통계/tap 이 섞이지 않는지, 상한, 분리, 선택 이동 검증
+ */
+public class SensorHubTest {
+
+    // 파이프로 흉내 낸 센서 (테스트가 쓰는 쪽을 가짐)
+    private static final class PipeLink implements SensorStation.Link {
+        final PipedOutputStream out = new PipedOutputStream();
+        final PipedInputStream in;
+        volatile boolean closed;
+
+        PipeLink() throws IOException {
+            in = new PipedInputStream(out, 64 * 1024);
+        }
+
+        @Override
+        public InputStream open() {
+            return in;
+        }
+
+        // 소켓을 닫은 것처럼 읽는 쪽을 깨움 (PipedInputStream.close() 만으로는 대기 중인 read 가 깨지 않음)
+        @Override
+        public void close() {
+            closed = true;
+            try {
+                out.close();
+            } catch (IOException ignored) {
+            }
+        }
+
+        void sendText(int from, int count) throws IOException {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < count; i++) {
+                sb.append(from + i).append("\r\n");
+            }
+            out.write(sb.toString().getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+        }
+    }
+
+    private static final class RecordingListener implements SensorHub.Listener {
+        final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onStationConnected(SensorStation station) {
+            events.add("connected:" + station.getLabel());
+        }
+
+        @Override
+        public void onStationEnded(SensorStation station, IOException error) {
+            events.add("ended:" + station.getLabel() + (error != null ? ":error" : ""));
+        }
+
+        @Override
+        public void onSelectionChanged(SensorStation selected) {
+            events.add("selected:" + (selected != null ? selected.getLabel() : "none"));
+        }
+
+        String next() throws InterruptedException {
+            String event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            return event;
+        }
+    }
+
+    // 텍스트 펌웨어로 판별될 때까지 보냄 (판별이 끝난 청크의 샘플은 버려짐) - 이후 샘플 수 기준값 반환
+    private static long lockText(PipeLink link, SensorStation station) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (station.getDecoder().getMode() != SensorLinkDecoder.Mode.TEXT && System.nanoTime() < deadline) {
+            link.sendText(0, 10);
+            Thread.sleep(20);
+        }
+        assertEquals(SensorLinkDecoder.Mode.TEXT, station.getDecoder().getMode());
+        return station.getSamples();
+    }
+
+    private static void awaitSamples(SensorStation station, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (station.getSamples() < expected && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(expected, station.getSamples());
+    }
+
+    @Test
+    public void stationsReceiveConcurrentlyIntoTheirOwnSinks() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        try (SensorHub hub = new SensorHub(3, new MetricsRegistry(), listener)) {
+            PipeLink linkA = new PipeLink();
+            PipeLink linkB = new PipeLink();
+            SensorStation a = hub.attach("00:11", "HC-06", linkA);
+            assertEquals("selected:s1", listener.next());
+            SensorStation b = hub.attach("00:22", "HC-06-2", linkB);
+            assertSame(a, hub.attach("00:11", "HC-06", linkA));
+            assertEquals(2, hub.size());
+            assertEquals(1, a.getIndex());
+            assertEquals(2, b.getIndex());
+
+            long baseA = lockText(linkA, a);
+            long baseB = lockText(linkB, b);
+            List<Integer> valuesA = new CopyOnWriteArrayList<>();
+            List<Integer> valuesB = new CopyOnWriteArrayList<>();
+            a.setTap(valuesA::add);
+            b.setTap(valuesB::add);
+
+            // 두 센서가 번갈아 보냄 - 각 센서의 파서/통계/tap 은 자기 스트림만 봄
+            for (int round = 0; round < 10; round++) {
+                linkA.sendText(1000 + round * 50, 50);
+                linkB.sendText(round * 50, 50);
+            }
+            awaitSamples(a, baseA + 500);
+            awaitSamples(b, baseB + 500);
+            assertTrue(a.isConnected());
+            assertEquals(500, valuesA.size());
+            assertEquals(500, valuesB.size());
+            for (int i = 0; i < 500; i++) {
+                assertEquals(1000 + i, (int) valuesA.get(i));
+                assertEquals(i, (int) valuesB.get(i));
+            }
+            assertEquals(0, a.getDecoder().getErrorCount());
+            assertEquals(0, b.getDecoder().getErrorCount());
+        }
+    }
+
+    @Test
+    public void enforcesStationLimitAndFreesSlotsOnDetach() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        try (SensorHub hub = new SensorHub(2, new MetricsRegistry(), listener)) {
+            PipeLink linkA = new PipeLink();
+            hub.attach("a", "HC-06", linkA);
+            hub.attach("b", "HC-06", new PipeLink());
+            try {
+                hub.attach("c", "HC-06", new PipeLink());
+                fail("expected IllegalStateException");
+            } catch (IllegalStateException expected) {
+                // 상한 초과
+            }
+
+            // 고른 센서를 떼면 남은 센서로 선택이 넘어가고 번호가 비어 새 센서가 씀
+            hub.detach("a");
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (hub.size() > 1 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, hub.size());
+            assertTrue(linkA.closed);
+            assertEquals("b", hub.getSelected().getId());
+            SensorStation c = hub.attach("c", "HC-06", new PipeLink());
+            assertEquals(1, c.getIndex());
+            assertTrue(hub.select("c"));
+            assertFalse(hub.select("a"));
+            assertSame(c, hub.getSelected());
+        }
+    }
+
+    @Test
+    public void reportsReadErrorsPerStation() throws Exception {
+        RecordingListener listener = new RecordingListener();
+        try (SensorHub hub = new SensorHub(2, new MetricsRegistry(), listener)) {
+            PipeLink healthy = new PipeLink();
+            hub.attach("ok", "HC-06", healthy);
+            assertEquals("selected:s1", listener.next());
+            assertEquals("connected:s1", listener.next());
+            hub.attach("bad", "HC-06", new SensorStation.Link() {
+                @Override
+                public InputStream open() throws IOException {
+                    throw new IOException("connect failed");
+                }
+
+                @Override
+                public void close() {
+                }
+            });
+            assertEquals("ended:s2:error", listener.next());
+            assertEquals(1, hub.size());
+
+            // 다른 센서는 영향 없음
+            SensorStation ok = hub.get("ok");
+            long base = lockText(healthy, ok);
+            healthy.sendText(0, 20);
+            awaitSamples(ok, base + 20);
+
+            // 센서 쪽에서 연결을 끊음 (스트림 끝) - 오류 아님, 선택 해제
+            healthy.out.close();
+            assertEquals("selected:none", listener.next());
+            assertEquals("ended:s1", listener.next());
+            assertNull(hub.getSelected());
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.ecgapp.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 가득 찼을 때의 offer / offerOverwrite 동작, 배열 끝에서 감기는 drainTo, 생산자/소비자 스레드 사이의 순서 검증
+ */
+public class IntRingBufferTest {
+
+    @Test
+    public void capacityIsRoundedUpToPowerOfTwo() {
+        assertEquals(8, new IntRingBuffer(5).capacity());
+        assertEquals(8192, new IntRingBuffer(8192).capacity());
+    }
+
+    @Test
+    public void offerRejectsWhenFullAndKeepsQueuedValues() {
+        IntRingBuffer ring = new IntRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+        assertEquals(4, ring.size());
+
+        int[] out = new int[8];
+        assertEquals(4, ring.drainTo(out));
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, out[i]);
+        }
+        assertTrue(ring.isEmpty());
+        assertTrue(ring.offer(5));
+    }
+
+    @Test
+    public void drainWrapsAroundArrayEnd() {
+        IntRingBuffer ring = new IntRingBuffer(8);
+        int[] out = new int[8];
+        int next = 0;
+        int expected = 0;
+        // 읽기/쓰기 위치가 배열 끝을 여러 번 넘도록 조금씩 넣고 뺌
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 5; i++) {
+                assertTrue(ring.offer(next++));
+            }
+            int n = ring.drainTo(out, 0, 3 + round % 3);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected++, out[i]);
+            }
+            n = ring.drainTo(out);
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected++, out[i]);
+            }
+        }
+        assertEquals(next, expected);
+    }
+
+    @Test
+    public void consumerReceivesEverySampleInOrder() throws Exception {
+        IntRingBuffer ring = new IntRingBuffer(64);
+        final int total = 200_000;
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= total; i++) {
+                while (!ring.offer(i)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        int[] batch = new int[16];
+        int last = 0;
+        while (last < total) {
+            int n = ring.drainTo(batch);
+            if (n == 0) {
+                Thread.yield();
+            }
+            for (int i = 0; i < n; i++) {
+                // 가득 찬 동안 기다렸으므로 빠짐없이 순서대로
+                assertEquals(last + 1, batch[i]);
+                last = batch[i];
+            }
+        }
+        producer.join();
+        assertTrue(ring.isEmpty());
+    }
+
+    @Test
+    public void offerRejectsWhenFullAndOverwriteKeepsNewest() {
+        IntRingBuffer ring = new IntRingBuffer(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(ring.offer(i));
+        }
+        assertFalse(ring.offer(4));
+
+        assertTrue(ring.offerOverwrite(4));
+        assertTrue(ring.offerOverwrite(5));
+        assertEquals(4, ring.size());
+
+        int[] out = new int[8];
+        assertEquals(4, ring.drainTo(out));
+        assertEquals(2, out[0]);
+        assertEquals(5, out[3]);
+        assertFalse(ring.offerOverwrite(6));
+    }
+
+    @Test
+    public void overwritingProducerNeverReordersOrDuplicatesForConsumer() throws Exception {
+        IntRingBuffer ring = new IntRingBuffer(64);
+        final int total = 2_000_000;
+        AtomicBoolean done = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            for (int i = 1; i <= total; i++) {
+                ring.offerOverwrite(i);
+            }
+            done.set(true);
+        });
+        producer.start();
+
+        int[] batch = new int[16];
+        int last = 0;
+        long received = 0;
+        while (!done.get() || !ring.isEmpty()) {
+            int n = ring.drainTo(batch);
+            for (int i = 0; i < n; i++) {
+                // 버려진 값은 건너뛰어도 되지만 순서가 바뀌거나 같은 값이 두 번 나오면 안 됨
+                assertTrue(batch[i] + " after " + last, batch[i] > last);
+                last = batch[i];
+            }
+            received += n;
+        }
+        producer.join();
+        assertEquals(total, last);
+        assertTrue(received <= total);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.ecgapp.stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import com.example.ecgapp.sim.SyntheticEcgSource;
+import com.example.ecgapp.sim.SyntheticSampleSource;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 가짜 시계로 기한 계산(누적 오차 없음), 밀린 샘플 몰아 내보내기, 건너뛰기를 검증하고
+ * 실제 시계로 500Hz 가 유지되는지 확인
+ */
+public class SamplePacerTest {
+
+    // sleep 하면 요청한 시간 + oversleep 만큼 시계가 흐름
+    private static final class FakeClock {
+        final AtomicLong now = new AtomicLong(1_000_000_000L);
+        long oversleepNanos;
+
+        SamplePacer pacer(double rate, int chunk, int maxBatch) {
+            return new SamplePacer(rate, chunk, maxBatch, now::get, nanos -> now.addAndGet(nanos + oversleepNanos));
+        }
+    }
+
+    @Test
+    public void lateWakeupsDoNotAccumulateDrift() throws InterruptedException {
+        FakeClock clock = new FakeClock();
+        // 매번 1ms 늦게 깨어남 - 청크(20ms)마다 sleep 하던 방식이면 5% 느려짐
+        clock.oversleepNanos = 1_000_000L;
+        long start = clock.now.get();
+        SamplePacer pacer = clock.pacer(500, 10, 500);
+        long emitted = 0;
+        while (emitted < 5000) {
+            emitted += pacer.awaitNext();
+        }
+        double seconds = (clock.now.get() - start) / 1e9;
+        // 10초 분량을 10초 + 마지막 지연 안에 내보냄
+        assertEquals(10.0, seconds, 0.01);
+        assertEquals(500.0, pacer.getAchievedRateHz(), 1.0);
+        assertEquals(0, pacer.getSkippedSamples());
+        assertEquals(1_000_000L, pacer.getMaxLatenessNanos());
+    }
+
+    @Test
+    public void catchesUpInOneBatchAfterAStall() throws InterruptedException {
+        FakeClock clock = new FakeClock();
+        SamplePacer pacer = clock.pacer(500, 10, 500);
+        assertEquals(10, pacer.awaitNext());
+        // 100ms 멈춤 (GC 등) - 그동안 쌓인 50 샘플을 한 번에
+        clock.now.addAndGet(100_000_000L);
+        assertEquals(50, pacer.awaitNext());
+        assertEquals(10, pacer.awaitNext());
+        assertEquals(70, pacer.getEmittedSamples());
+        assertEquals(0, pacer.getSkippedSamples());
+        assertTrue(pacer.getMaxLatenessNanos() >= 80_000_000L);
+    }
+
+    @Test
+    public void skipsWhatExceedsMaxBatch() throws InterruptedException {
+        FakeClock clock = new FakeClock();
+        SamplePacer pacer = clock.pacer(500, 10, 100);
+        pacer.awaitNext();
+        // 2초 멈춤 - 1000 샘플이 밀렸지만 최대 100 만 내보내고 나머지는 건너뜀
+        clock.now.addAndGet(2_000_000_000L);
+        assertEquals(100, pacer.awaitNext());
+        assertEquals(900, pacer.getSkippedSamples());
+        // 이후에는 다시 제 속도
+        long before = clock.now.get();
+        assertEquals(10, pacer.awaitNext());
+        assertEquals(20_000_000L, clock.now.get() - before, 2_000_000L);
+    }
+
+    @Test
+    public void syntheticSourceKeepsRealTimeRate() throws InterruptedException {
+        AtomicLong samples = new AtomicLong();
+        SyntheticSampleSource source = new SyntheticSampleSource(1, 500, 10, SyntheticEcgSource.Noise.DEFAULT);
+        source.start(value -> samples.incrementAndGet());
+        long start = System.nanoTime();
+        Thread.sleep(1500);
+        long elapsed = System.nanoTime() - start;
+        source.stop();
+        // 재생 스레드가 하던 청크를 마칠 때까지
+        Thread.sleep(100);
+
+        SamplePacer pacer = source.getPacer();
+        assertNotNull(pacer);
+        assertEquals(pacer.getEmittedSamples(), samples.get());
+        assertEquals(pacer.toString(), 500.0, pacer.getAchievedRateHz(), 10.0);
+        // 시작 지연을 빼고도 1.5초 분량에 가까움
+        assertEquals(750.0, samples.get(), 40.0);
+        assertTrue(elapsed >= 1_500_000_000L);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.ecgapp.trace;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * 왕복 시간이 가장 짧은 측정 채택, 잘못된 측정 버림, 서버 시각 변환 검증
+ */
+public class ClockOffsetEstimatorTest {
+
+    private static final long OFFSET = 5_000_000_000L; // 서버가 5초 빠름
+
+    // 앱 시각 t0 에 보내 uplink 뒤 서버 수신, serverTime 만큼 처리, downlink 뒤 앱 수신
+    private static boolean probe(ClockOffsetEstimator clock, long t0, long uplink, long serverTime, long downlink) {
+        long t1 = t0 + uplink + OFFSET;
+        long t2 = t1 + serverTime;
+        long t3 = t0 + uplink + serverTime + downlink;
+        return clock.add(t0, t1, t2, t3);
+    }
+
+    @Test
+    public void keepsShortestRoundTrip() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        assertFalse(clock.hasEstimate());
+        assertEquals(-1, clock.getRttNanos());
+
+        // 비대칭 지연이 큰 측정 (오차 = (uplink - downlink) / 2)
+        assertTrue(probe(clock, 1_000, 9_000_000, 100_000, 1_000_000));
+        assertEquals(OFFSET + 4_000_000, clock.getOffsetNanos());
+        assertEquals(10_000_000, clock.getRttNanos());
+
+        // 왕복이 짧은 측정으로 교체, 긴 측정은 무시
+        assertTrue(probe(clock, 50_000_000, 300_000, 100_000, 100_000));
+        assertTrue(probe(clock, 90_000_000, 5_000_000, 100_000, 5_000_000));
+        assertEquals(OFFSET + 100_000, clock.getOffsetNanos());
+        assertEquals(400_000, clock.getRttNanos());
+        assertEquals(3, clock.getSamples());
+
+        assertEquals(1_000_000_000L - 100_000, clock.toLocal(OFFSET + 1_000_000_000L));
+    }
+
+    @Test
+    public void rejectsInconsistentProbes() {
+        ClockOffsetEstimator clock = new ClockOffsetEstimator();
+        // 응답을 요청보다 먼저 받음
+        assertFalse(clock.add(100, 200, 300, 50));
+        // 서버 처리 시간이 왕복보다 김
+        assertFalse(clock.add(100, 200, 1_000, 300));
+        assertFalse(clock.hasEstimate());
+
+        assertTrue(clock.add(100, OFFSET + 150, OFFSET + 160, 210));
+        clock.reset();
+        assertFalse(clock.hasEstimate());
+        assertEquals(0, clock.getOffsetNanos());
+    }
+}
@@ -0,0 +1,20 @@
+// 서버 부하 측정 도구 (JVM 전용, 가상 스레드 사용을 위해 Java 21)
+// 실행: ./gradlew :loadgen:run --args="--host 192.168.0.10 --clients 1000 --mode login"
+plugins {
+    application
+}
+
+java {
+    toolchain {
+        languageVersion = JavaLanguageVersion.of(21)
+    }
+}
+
+dependencies {
+    // 합성 ECG, 바이너리 프레임 인코더
+    implementation(project(":core"))
+}
+
+application {
+    mainClass = "com.example.ecgapp.loadgen.LoadGenerator"
+}
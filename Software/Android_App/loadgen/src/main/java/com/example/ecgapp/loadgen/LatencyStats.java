@@ -0,0 +1,59 @@
+package com.example.ecgapp.loadgen;
+
+import java.util.Arrays;
+
+/**
+ * 실행이 끝난 뒤 한 번 계산하는 지연 분포 (나노초 값을 정렬해 백분위를 구함).
+ */
+final class LatencyStats {
+
+    private long[] values = new long[64];
+    private int count;
+    private boolean sorted;
+
+    void add(long nanos) {
+        if (nanos < 0) {
+            return;
+        }
+        if (count == values.length) {
+            values = Arrays.copyOf(values, count * 2);
+        }
+        values[count++] = nanos;
+        sorted = false;
+    }
+
+    int count() {
+        return count;
+    }
+
+    // p: 0~1 (nearest-rank), 값이 없으면 -1
+    long percentile(double p) {
+        if (count == 0) {
+            return -1;
+        }
+        if (!sorted) {
+            Arrays.sort(values, 0, count);
+            sorted = true;
+        }
+        int rank = (int) Math.ceil(p * count);
+        return values[Math.max(0, Math.min(count - 1, rank - 1))];
+    }
+
+    long max() {
+        return percentile(1.0);
+    }
+
+    // "p50 12.3ms  p99 ..." 형식
+    String format() {
+        if (count == 0) {
+            return "-";
+        }
+        return String.format("p50 %s  p90 %s  p99 %s  p99.9 %s  max %s  (n=%d)",
+                millis(percentile(0.50)), millis(percentile(0.90)), millis(percentile(0.99)),
+                millis(percentile(0.999)), millis(max()), count);
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.1fms", nanos / 1e6);
+    }
+}
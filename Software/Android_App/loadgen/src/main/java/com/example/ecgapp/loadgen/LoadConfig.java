@@ -0,0 +1,82 @@
+package com.example.ecgapp.loadgen;
+
+import java.time.Duration;
+
+/**
+ * 부하 생성 설정 (명령행 인자).
+ *
+ * @param speed 1.0 = 실시간(500Hz), 10.0 = 10배속, 0 = 속도 제한 없음
+ */
+record LoadConfig(
+        String host,
+        int port,
+        int clients,
+        Duration ramp,
+        Mode mode,
+        double speed,
+        boolean binaryFraming,
+        Duration timeout,
+        long seed,
+        String userPrefix) {
+
+    enum Mode { REGISTER, LOGIN }
+
+    static final int SAMPLING_RATE = 500; // ecg_server.py SAMPLING_RATE
+
+    static LoadConfig parse(String[] args) {
+        String host = "127.0.0.1";
+        int port = 9999; // ecg_server.py PORT
+        int clients = 100;
+        Duration ramp = Duration.ofSeconds(10);
+        Mode mode = Mode.LOGIN;
+        double speed = 1.0;
+        boolean binary = true;
+        Duration timeout = Duration.ofSeconds(120);
+        long seed = 1;
+        String prefix = "load";
+
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (name.equals("--help") || name.equals("-h")) {
+                throw new IllegalArgumentException(usage());
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("값이 없는 옵션: " + name + "\n" + usage());
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--host" -> host = value;
+                case "--port" -> port = Integer.parseInt(value);
+                case "--clients" -> clients = Integer.parseInt(value);
+                case "--ramp-seconds" -> ramp = Duration.ofMillis((long) (Double.parseDouble(value) * 1000));
+                case "--mode" -> mode = Mode.valueOf(value.toUpperCase());
+                case "--speed" -> speed = Double.parseDouble(value);
+                case "--framing" -> binary = value.equalsIgnoreCase("bin1");
+                case "--timeout-seconds" -> timeout = Duration.ofSeconds(Long.parseLong(value));
+                case "--seed" -> seed = Long.parseLong(value);
+                case "--user-prefix" -> prefix = value;
+                default -> throw new IllegalArgumentException("알 수 없는 옵션: " + name + "\n" + usage());
+            }
+        }
+        if (clients < 1 || speed < 0) {
+            throw new IllegalArgumentException("clients >= 1, speed >= 0 이어야 합니다.\n" + usage());
+        }
+        return new LoadConfig(host, port, clients, ramp, mode, speed, binary, timeout, seed, prefix);
+    }
+
+    static String usage() {
+        return """
+                사용법: loadgen [옵션]
+                  --host <ip>             서버 주소 (기본 127.0.0.1)
+                  --port <port>           서버 포트 (기본 9999)
+                  --clients <n>           동시 접속 휴대폰 수 (기본 100)
+                  --ramp-seconds <s>      모든 클라이언트가 접속을 시작할 때까지의 시간 (기본 10)
+                  --mode register|login   등록 또는 로그인(전체 검색) (기본 login)
+                  --speed <x>             1 = 실시간 500Hz, 0 = 속도 제한 없음 (기본 1)
+                  --framing bin1|text     샘플 전송 방식 (기본 bin1, 미지원 서버는 자동으로 text)
+                  --timeout-seconds <s>   응답 대기 제한 (기본 120)
+                  --seed <n>              합성 ECG 시드 (클라이언트 i 는 seed + i)
+                  --user-prefix <id>      등록 모드 사용자 ID 접두사 (기본 load)
+                """;
+    }
+}
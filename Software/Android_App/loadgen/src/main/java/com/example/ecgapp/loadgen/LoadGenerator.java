@@ -0,0 +1,125 @@
+package com.example.ecgapp.loadgen;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ECG 서버(ecg_server.py) 부하 생성기: 클라이언트 하나당 가상 스레드 하나로 휴대폰 N대를 흉내낸다.
+ * 각 휴대폰은 SyntheticEcgSource 파형을 실시간(또는 배속)으로 보내고 최종 판정까지의 시간을 잰다.
+ *
+ * 결과: 처리량, 판정 지연 백분위(p50/p99/p99.9), ready 응답 지연(서버 대기열 지표), 실패 단계별 집계.
+ * 예) ./gradlew :loadgen:run --args="--host 192.168.0.10 --clients 1000 --ramp-seconds 30"
+ */
+public final class LoadGenerator {
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        LoadConfig config;
+        try {
+            config = LoadConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        System.exit(run(config) ? 0 : 1);
+    }
+
+    // 모든 클라이언트가 판정을 받았으면 true
+    static boolean run(LoadConfig config) throws InterruptedException {
+        String runId = Long.toString(System.currentTimeMillis() % 1_000_000_000L, 36);
+        System.out.printf("부하 생성: %s:%d, 클라이언트 %d, 램프업 %ds, 모드 %s, 배속 %s, 전송 %s%n",
+                config.host(), config.port(), config.clients(), config.ramp().toSeconds(),
+                config.mode(), config.speed() > 0 ? config.speed() + "x" : "제한 없음",
+                config.binaryFraming() ? "BIN1" : "text");
+        if (config.mode() == LoadConfig.Mode.REGISTER) {
+            System.out.printf("등록 사용자 ID: %s-%s-<번호> (서버 DB에 남음)%n", config.userPrefix(), runId);
+        }
+
+        AtomicInteger active = new AtomicInteger();
+        long start = System.nanoTime();
+        long rampNanos = config.ramp().toNanos();
+        List<Future<PhoneResult>> futures = new ArrayList<>(config.clients());
+        List<PhoneResult> results = new ArrayList<>(config.clients());
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.clients(); i++) {
+                long startAt = start + rampNanos * i / config.clients();
+                String userId = config.userPrefix() + "-" + runId + "-" + i;
+                futures.add(executor.submit(new SimulatedPhone(config, i, userId, startAt, active)));
+            }
+            // 진행 상황 (5초마다)
+            int done = 0;
+            for (Future<PhoneResult> future : futures) {
+                while (true) {
+                    try {
+                        results.add(future.get(5, TimeUnit.SECONDS));
+                        done++;
+                        break;
+                    } catch (TimeoutException e) {
+                        System.out.printf("[%5.1fs] 완료 %d / %d, 접속 중 %d%n",
+                                (System.nanoTime() - start) / 1e9, done, config.clients(), active.get());
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e.getCause());
+                    }
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        return report(results, elapsed);
+    }
+
+    private static boolean report(List<PhoneResult> results, long elapsedNanos) {
+        LatencyStats connect = new LatencyStats();
+        LatencyStats ready = new LatencyStats();
+        LatencyStats verdict = new LatencyStats();
+        Map<String, Integer> statuses = new TreeMap<>();
+        Map<PhoneResult.Failure, Integer> failures = new EnumMap<>(PhoneResult.Failure.class);
+        long samples = 0;
+        int verdicts = 0;
+        String firstError = null;
+
+        for (PhoneResult r : results) {
+            connect.add(r.connectNanos());
+            ready.add(r.readyNanos());
+            samples += r.samplesSent();
+            if (r.hasVerdict()) {
+                verdicts++;
+                verdict.add(r.verdictNanos());
+                statuses.merge(r.verdictStatus(), 1, Integer::sum);
+            } else {
+                failures.merge(r.failure(), 1, Integer::sum);
+                if (firstError == null) {
+                    firstError = r.detail();
+                }
+            }
+        }
+
+        double seconds = elapsedNanos / 1e9;
+        System.out.println();
+        System.out.printf("경과 시간        %.1fs%n", seconds);
+        System.out.printf("판정 수신        %d / %d (%.2f/s)%n", verdicts, results.size(), verdicts / seconds);
+        System.out.printf("전송 샘플        %d (%.0f samples/s)%n", samples, samples / seconds);
+        System.out.printf("판정 상태        %s%n", statuses.isEmpty() ? "-" : statuses);
+        System.out.printf("실패             %s%n", failures.isEmpty() ? "없음" : failures);
+        if (firstError != null) {
+            System.out.printf("  첫 오류: %s%n", firstError);
+        }
+        System.out.printf("연결 지연        %s%n", connect.format());
+        System.out.printf("ready 지연       %s%n", ready.format());
+        System.out.printf("판정 지연        %s%n", verdict.format());
+        return failures.isEmpty();
+    }
+}
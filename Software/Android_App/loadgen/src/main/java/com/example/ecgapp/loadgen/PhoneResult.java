@@ -0,0 +1,29 @@
+package com.example.ecgapp.loadgen;
+
+/**
+ * 가상 휴대폰 한 대의 측정 결과. 시간은 모두 나노초, 해당 단계에 도달하지 못했으면 -1.
+ *
+ * @param connectNanos  TCP 연결 시간
+ * @param readyNanos    REGISTER/LOGIN 명령 후 "ready" 응답까지 (서버 명령 처리 대기)
+ * @param streamNanos   샘플 전송 시간
+ * @param verdictNanos  마지막 샘플 전송 후 최종 응답까지 (서버 처리 + 대기열)
+ * @param verdictStatus 최종 응답의 status (success, auth_failed, error ...)
+ * @param failure       실패한 경우 단계, 성공하면 null
+ */
+record PhoneResult(
+        int index,
+        long connectNanos,
+        long readyNanos,
+        long streamNanos,
+        long verdictNanos,
+        int samplesSent,
+        String verdictStatus,
+        Failure failure,
+        String detail) {
+
+    enum Failure { CONNECT, HANDSHAKE, REJECTED, STREAM, TIMEOUT }
+
+    boolean hasVerdict() {
+        return failure == null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.ecgapp.loadgen;
+
+import com.example.ecgapp.net.SampleFrameEncoder;
+import com.example.ecgapp.protocol.ServerMessage;
+import com.example.ecgapp.sim.SyntheticEcgSource;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 가상 휴대폰 한 대: 앱(TcpClientSender)과 같은 순서로 서버와 대화한다.
+ * 접속 → (FRAMING:BIN1) → REGISTER/LOGIN → ready → 샘플 전송 → COMPLETE → 최종 응답.
+ * 가상 스레드 하나에서 블로킹 소켓으로 실행되므로 수천 대를 동시에 띄울 수 있다.
+ */
+final class SimulatedPhone implements Callable<PhoneResult> {
+
+    // 앱과 같은 전송 단위 (SampleFrameEncoder: 50샘플 또는 100ms)
+    private static final int CHUNK_SAMPLES = 50;
+    private static final long FRAME_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final int CONNECT_TIMEOUT_MS = 10_000;
+
+    // 최종 판정이 아닌 중간 응답
+    private static final Set<String> INTERMEDIATE = Set.of("connected", "framing", "prefilter", "ready", "cancelled", "info");
+
+    private final LoadConfig config;
+    private final int index;
+    private final String userId;
+    private final long startAtNanos;
+    private final AtomicInteger active;
+
+    SimulatedPhone(LoadConfig config, int index, String userId, long startAtNanos, AtomicInteger active) {
+        this.config = config;
+        this.index = index;
+        this.userId = userId;
+        this.startAtNanos = startAtNanos;
+        this.active = active;
+    }
+
+    @Override
+    public PhoneResult call() throws InterruptedException {
+        // 램프업: 정해진 시각까지 대기 (가상 스레드라 비용이 거의 없음)
+        long wait = startAtNanos - System.nanoTime();
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+        active.incrementAndGet();
+        try {
+            return run();
+        } finally {
+            active.decrementAndGet();
+        }
+    }
+
+    private PhoneResult run() throws InterruptedException {
+        long connectNanos = -1;
+        long readyNanos = -1;
+        long streamNanos = -1;
+        int sent = 0;
+        PhoneResult.Failure stage = PhoneResult.Failure.CONNECT;
+
+        try (Socket socket = new Socket()) {
+            long t0 = System.nanoTime();
+            socket.connect(new InetSocketAddress(config.host(), config.port()), CONNECT_TIMEOUT_MS);
+            connectNanos = System.nanoTime() - t0;
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout((int) Math.min(Integer.MAX_VALUE, config.timeout().toMillis()));
+
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 8192);
+
+            stage = PhoneResult.Failure.HANDSHAKE;
+            readLine(in); // 환영 메시지
+
+            boolean binary = false;
+            if (config.binaryFraming()) {
+                sendCommand(out, "FRAMING:" + SampleFrameEncoder.FRAMING_NAME);
+                // 지원하지 않는 서버는 error 로 응답 → 텍스트로 전송
+                binary = "framing".equals(ServerMessage.parse(readLine(in)).getStatus());
+            }
+
+            String command = config.mode() == LoadConfig.Mode.REGISTER ? "REGISTER:" + userId : "LOGIN";
+            long commandSent = System.nanoTime();
+            sendCommand(out, command);
+            String ready = readLine(in);
+            ServerMessage readyMessage = ServerMessage.parse(ready);
+            if (!"ready".equals(readyMessage.getStatus())) {
+                return new PhoneResult(index, connectNanos, -1, -1, -1, 0, readyMessage.getStatus(),
+                        PhoneResult.Failure.REJECTED, ready);
+            }
+            readyNanos = System.nanoTime() - commandSent;
+            int required = readyMessage.getRequiredSamples() > 0 ? readyMessage.getRequiredSamples() : 3000;
+
+            stage = PhoneResult.Failure.STREAM;
+            long streamStart = System.nanoTime();
+            sent = stream(out, binary, required, streamStart);
+            long lastSample = System.nanoTime();
+            streamNanos = lastSample - streamStart;
+
+            stage = PhoneResult.Failure.TIMEOUT;
+            sendCommand(out, "COMPLETE");
+            // 버퍼가 차면 서버가 COMPLETE 전에 처리하므로, 판정은 이미 와 있을 수도 있다
+            while (true) {
+                String status = ServerMessage.parse(readLine(in)).getStatus();
+                if (!INTERMEDIATE.contains(status)) {
+                    return new PhoneResult(index, connectNanos, readyNanos, streamNanos,
+                            System.nanoTime() - lastSample, sent, status, null, null);
+                }
+            }
+        } catch (SocketTimeoutException e) {
+            return new PhoneResult(index, connectNanos, readyNanos, streamNanos, -1, sent, null,
+                    stage == PhoneResult.Failure.CONNECT ? stage : PhoneResult.Failure.TIMEOUT, e.toString());
+        } catch (IOException e) {
+            return new PhoneResult(index, connectNanos, readyNanos, streamNanos, -1, sent, null,
+                    stage == PhoneResult.Failure.TIMEOUT ? PhoneResult.Failure.STREAM : stage, e.toString());
+        }
+    }
+
+    // 샘플 전송: speed 배속에 맞춰 CHUNK_SAMPLES 단위로 보냄 (speed 0 = 제한 없음)
+    private int stream(OutputStream out, boolean binary, int required, long streamStart)
+            throws IOException, InterruptedException {
+        SyntheticEcgSource source = new SyntheticEcgSource(config.seed() + index, LoadConfig.SAMPLING_RATE);
+        SampleFrameEncoder encoder = binary ? new SampleFrameEncoder(CHUNK_SAMPLES, FRAME_DELAY_NANOS) : null;
+        int[] chunk = new int[CHUNK_SAMPLES];
+        StringBuilder text = binary ? null : new StringBuilder(CHUNK_SAMPLES * 5);
+        double nanosPerSample = config.speed() > 0
+                ? TimeUnit.SECONDS.toNanos(1) / (LoadConfig.SAMPLING_RATE * config.speed())
+                : 0;
+
+        int sent = 0;
+        while (sent < required) {
+            int n = Math.min(CHUNK_SAMPLES, required - sent);
+            // 이 청크의 마지막 샘플이 측정되는 시각까지 대기 (누적 시각 기준이라 오차가 쌓이지 않음)
+            if (nanosPerSample > 0) {
+                long deadline = streamStart + (long) ((sent + n) * nanosPerSample);
+                long wait = deadline - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+            }
+            source.fill(chunk, 0, n);
+            if (binary) {
+                long now = System.nanoTime();
+                for (int i = 0; i < n; i++) {
+                    if (encoder.add(chunk[i], now)) {
+                        encoder.writeTo(out);
+                    }
+                }
+                if (encoder.pendingSamples() > 0) {
+                    encoder.writeTo(out);
+                }
+            } else {
+                text.setLength(0);
+                for (int i = 0; i < n; i++) {
+                    text.append(chunk[i]).append('\n');
+                }
+                out.write(text.toString().getBytes(StandardCharsets.US_ASCII));
+            }
+            out.flush();
+            sent += n;
+        }
+        return sent;
+    }
+
+    private static void sendCommand(OutputStream out, String command) throws IOException {
+        out.write(("CMD:" + command + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private static String readLine(BufferedReader in) throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            throw new IOException("서버가 연결을 닫았습니다");
+        }
+        return line;
+    }
+}
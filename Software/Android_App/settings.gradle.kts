@@ -11,6 +11,10 @@ pluginManagement {
         gradlePluginPortal()
     }
 }
+plugins {
+    // loadgen 모듈의 Java 21 툴체인 자동 설치
+    id("org.gradle.toolchains.foojay-resolver-convention") version "0.8.0"
+}
 dependencyResolutionManagement {
     repositoriesMode.set(RepositoriesMode.FAIL_ON_PROJECT_REPOS)
     repositories {
@@ -23,3 +27,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "ECGapp"
 include(":app")
+include(":core")
+include(":loadgen")
+include(":benchmarks")
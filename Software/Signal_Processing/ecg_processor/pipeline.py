@@ -34,12 +34,13 @@ class ECGSignaturePipeline:
         # 최소 필요 샘플 수 (정확도 향상을 위해 6초 분량, 6-8개 심박)
         self.min_samples = int(6 * sampling_rate)  # 6초 (3000 샘플)
         
-    def process(self, ecg_signal: np.ndarray) -> Dict:
+    def process(self, ecg_signal: np.ndarray, prefiltered: bool = False) -> Dict:
         """
         ECG 신호에서 디지털 서명 생성
         
         Args:
             ecg_signal: 원본 ECG 신호 (1D numpy array 또는 list)
+            prefiltered: True이면 앱에서 전처리 필터를 이미 적용한 신호
             
         Returns:
             처리 결과 딕셔너리
@@ -71,7 +72,7 @@ class ECGSignaturePipeline:
                 return result
             
             # ========== 1. 전처리 ==========
-            preprocessed_ecg, quality_info = self.preprocessor.process(ecg)
+            preprocessed_ecg, quality_info = self.preprocessor.process(ecg, prefiltered=prefiltered)
             result['preprocessing'] = {
                 'quality': quality_info,
                 'signal_length': len(preprocessed_ecg)
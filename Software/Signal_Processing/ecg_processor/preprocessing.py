@@ -23,12 +23,13 @@ class ECGPreprocessor:
         self.fs = sampling_rate
         self.nyquist = sampling_rate / 2
         
-    def process(self, ecg_signal: np.ndarray) -> Tuple[np.ndarray, dict]:
+    def process(self, ecg_signal: np.ndarray, prefiltered: bool = False) -> Tuple[np.ndarray, dict]:
         """
         전체 전처리 파이프라인 실행
         
         Args:
             ecg_signal: 원본 ECG 신호
+            prefiltered: True이면 클라이언트가 이미 같은 필터를 적용한 신호 (필터 단계 생략)
             
         Returns:
             processed_signal: 전처리된 신호
@@ -37,14 +38,15 @@ class ECGPreprocessor:
         # 1. 신호를 float으로 변환
         ecg = np.array(ecg_signal, dtype=np.float64)
         
-        # 2. 베이스라인 원더링 제거 (High-pass filter, 0.5Hz)
-        ecg = self.remove_baseline_wander(ecg)
-        
-        # 3. 고주파 노이즈 제거 (Low-pass filter, 45Hz)
-        ecg = self.remove_high_frequency_noise(ecg)
-        
-        # 4. 파워라인 노이즈 제거 (Notch filter, 60Hz)
-        ecg = self.remove_powerline_noise(ecg)
+        if not prefiltered:
+            # 2. 베이스라인 원더링 제거 (High-pass filter, 0.5Hz)
+            ecg = self.remove_baseline_wander(ecg)
+            
+            # 3. 고주파 노이즈 제거 (Low-pass filter, 45Hz)
+            ecg = self.remove_high_frequency_noise(ecg)
+            
+            # 4. 파워라인 노이즈 제거 (Notch filter, 60Hz)
+            ecg = self.remove_powerline_noise(ecg)
         
         # 5. 신호 품질 검사
         quality_info = self.assess_signal_quality(ecg)
@@ -1,7 +1,7 @@
 #!/usr/bin/env python3
 """
 ECG 디지털 서명 인증 서버
-- Android 앱에서 TCP로 ECG 데이터(정수 문자열)를 받음
+- Android 앱에서 TCP로 ECG 데이터(정수 문자열 또는 바이너리 프레임)를 받음
 - ECG 서명 생성 파이프라인으로 처리
 - 사용자 등록/로그인/로그아웃 기능
 - 처리 결과를 JSON 형태로 응답
@@ -14,7 +14,9 @@ ECG 디지털 서명 인증 서버
 """
 
 import socket
+import struct
 import threading
+import time
 import json
 import numpy as np
 from collections import deque
@@ -64,11 +66,12 @@ class ECGProcessor:
         self.data_buffer.append(value)
         return len(self.data_buffer) >= self.buffer_size
     
-    def process(self, min_samples: int = None) -> dict:
+    def process(self, min_samples: int = None, prefiltered: bool = False) -> dict:
         """버퍼에 있는 ECG 데이터 처리
         
         Args:
             min_samples: 최소 필요 샘플 수 (None이면 buffer_size 사용)
+            prefiltered: 앱에서 필터링한 샘플이면 True (전처리 필터 생략)
         """
         min_required = min_samples if min_samples is not None else self.buffer_size
         
@@ -88,14 +91,14 @@ class ECGProcessor:
                 self.data_buffer.popleft()
         
         if self.pipeline is not None:
-            return self._process_with_pipeline(ecg_data)
+            return self._process_with_pipeline(ecg_data, prefiltered)
         else:
             return self._process_basic(ecg_data)
     
-    def _process_with_pipeline(self, ecg_data: np.ndarray) -> dict:
+    def _process_with_pipeline(self, ecg_data: np.ndarray, prefiltered: bool = False) -> dict:
         """파이프라인을 사용한 전체 ECG 처리"""
         try:
-            result = self.pipeline.process(ecg_data)
+            result = self.pipeline.process(ecg_data, prefiltered=prefiltered)
             
             response = {
                 "status": result["status"],
@@ -161,6 +164,156 @@ class ECGProcessor:
         self.data_buffer.clear()
 
 
+RICE_ESCAPE = 16
+RICE_RAW_BITS = 17
+
+
+def _unzigzag(value: int) -> int:
+    return (value >> 1) ^ -(value & 1)
+
+
+def _read_varint(payload: bytes, pos: int):
+    """LEB128 가변 길이 정수 하나를 읽어 (값, 다음 위치) 반환. 잘렸으면 None"""
+    value = 0
+    shift = 0
+    while pos < len(payload) and shift <= 28:
+        b = payload[pos]
+        pos += 1
+        value |= (b & 0x7F) << shift
+        shift += 7
+        if not b & 0x80:
+            return value, pos
+    return None
+
+
+def decode_delta_varint(payload: bytes, count: int):
+    """encoding=2: 이웃 샘플 차이의 zigzag varint 나열 (첫 샘플은 0 과의 차이). 손상 시 None"""
+    samples = []
+    previous = 0
+    pos = 0
+    for _ in range(count):
+        read = _read_varint(payload, pos)
+        if read is None:
+            return None
+        value, pos = read
+        previous += _unzigzag(value)
+        samples.append(previous)
+    return samples if pos == len(payload) else None
+
+
+def decode_delta_rice(payload: bytes, count: int):
+    """encoding=3: k(1바이트) + 첫 샘플 varint + 나머지 차이의 Rice(k) 비트열 (MSB 먼저). 손상 시 None
+
+    몫 q 가 RICE_ESCAPE 미만이면 1 을 q 개, 0, 하위 k 비트. 아니면 1 을 RICE_ESCAPE 개 뒤 zigzag 값 RICE_RAW_BITS 비트.
+    """
+    if count == 0:
+        return [] if not payload else None
+    if len(payload) < 2 or payload[0] > 15:
+        return None
+    k = payload[0]
+    read = _read_varint(payload, 1)
+    if read is None:
+        return None
+    first, pos = read
+    previous = _unzigzag(first)
+    samples = [previous]
+    bits = int.from_bytes(payload[pos:], 'big')
+    remaining = (len(payload) - pos) * 8
+
+    def take(n):
+        nonlocal remaining
+        if n > remaining:
+            raise ValueError("truncated")
+        remaining -= n
+        return (bits >> remaining) & ((1 << n) - 1)
+
+    try:
+        for _ in range(count - 1):
+            q = 0
+            while q < RICE_ESCAPE and take(1):
+                q += 1
+            z = (q << k) | take(k) if q < RICE_ESCAPE else take(RICE_RAW_BITS)
+            previous += _unzigzag(z)
+            samples.append(previous)
+    except ValueError:
+        return None
+    # 마지막 바이트의 채움 비트만 남아야 함
+    return samples if remaining < 8 else None
+
+
+class SampleFrameDecoder:
+    """바이너리 샘플 프레임 디코더 (Android SampleFrameEncoder와 짝)
+
+    CMD:FRAMING:BIN1 (또는 압축 프레임 BIN2) 협상 이후 클라이언트는 샘플을 텍스트 줄 대신 프레임으로 전송한다.
+    프레임 구조 (big-endian, 헤더 12바이트):
+        magic(2)=0xEC 0x47 | version(1) | encoding(1) | seq(4) | sample_count(2) | payload_length(2) | payload
+    encoding=1 (PCM16): payload는 부호 있는 16비트 샘플의 나열
+    encoding=2 (DELTA_VARINT), 3 (DELTA_RICE): 이웃 샘플 차이 압축 (Android SampleDeltaCodec)
+    """
+
+    MAGIC = b'\xec\x47'
+    VERSION = 1
+    ENCODING_PCM16 = 1
+    ENCODING_DELTA_VARINT = 2
+    ENCODING_DELTA_RICE = 3
+    HEADER = struct.Struct('>2sBBIHH')
+
+    def __init__(self):
+        self.expected_seq = None
+        self.frame_count = 0
+        self.lost_frames = 0
+        self.bad_frames = 0
+
+    def is_frame_start(self, reader) -> bool:
+        """다음 바이트가 프레임 시작인지 확인 (텍스트 명령은 'C'로 시작하므로 구분 가능)"""
+        return reader.peek(1)[:1] == self.MAGIC[:1]
+
+    def read_frame(self, reader):
+        """프레임 하나를 읽어 샘플 리스트 반환. 스트림이 끝나면 None 반환"""
+        header = reader.read(self.HEADER.size)
+        if len(header) < self.HEADER.size:
+            return None
+
+        magic, version, encoding, seq, count, payload_length = self.HEADER.unpack(header)
+        payload = reader.read(payload_length)
+        if len(payload) < payload_length:
+            return None
+
+        if magic != self.MAGIC or version != self.VERSION:
+            self.bad_frames += 1
+            print(f"[프레임] 잘못된 헤더 무시 (magic={magic.hex()}, version={version})")
+            return []
+
+        samples = self.decode_payload(encoding, count, payload)
+        if samples is None:
+            self.bad_frames += 1
+            print(f"[프레임] 지원하지 않는 인코딩 또는 길이 불일치 (encoding={encoding}, count={count}, len={payload_length})")
+            return []
+
+        # 시퀀스 번호로 누락 프레임 확인
+        if self.expected_seq is not None and seq != self.expected_seq:
+            lost = (seq - self.expected_seq) & 0xFFFFFFFF
+            self.lost_frames += lost
+            print(f"[프레임] 시퀀스 불연속: 예상 {self.expected_seq}, 수신 {seq} ({lost}개 누락)")
+        self.expected_seq = (seq + 1) & 0xFFFFFFFF
+        self.frame_count += 1
+        return samples
+
+    def decode_payload(self, encoding: int, count: int, payload: bytes):
+        if encoding == self.ENCODING_PCM16:
+            if len(payload) != count * 2:
+                return None
+            return list(struct.unpack(f'>{count}h', payload))
+        if encoding == self.ENCODING_DELTA_VARINT:
+            return decode_delta_varint(payload, count)
+        if encoding == self.ENCODING_DELTA_RICE:
+            return decode_delta_rice(payload, count)
+        return None
+
+    def reset(self):
+        self.expected_seq = None
+
+
 class ClientHandler(threading.Thread):
     """클라이언트 연결 처리 스레드"""
     
@@ -174,6 +327,23 @@ class ClientHandler(threading.Thread):
         self.running = True
         self.sample_count = 0
         
+        # 샘플 전송 방식 (CMD:FRAMING:BIN1/BIN2 협상 시 바이너리 프레임)
+        self.binary_framing = False
+        self.frame_decoder = SampleFrameDecoder()
+        
+        # 앱에서 전처리 필터를 적용한 샘플인지 (CMD:PREFILTER:ON)
+        self.prefiltered = False
+        
+        # 지연 추적 (CMD:TIME 수신 시 활성화): 시각은 모두 time.monotonic_ns()
+        self.trace = False
+        self.recv_ns = 0            # 지금 처리 중인 줄/프레임을 읽은 시각
+        self.trace_times = {}       # 측정 하나의 단계별 시각 (결과 응답에 server_timing 으로 첨부)
+        
+        # 응답 구분: 지금 답하는 명령의 이름(type)과 요청 번호(CMD:#<id>:...), 측정 결과는 측정을 시작한 명령의 번호
+        self.reply_type = None
+        self.request_id = None
+        self.capture_request_id = None
+        
         # 현재 모드 및 세션
         self.current_mode = "idle"  # idle, collecting, register, login
         self.pending_user_id = None
@@ -185,15 +355,27 @@ class ClientHandler(threading.Thread):
         self.send_welcome_message()
         
         try:
-            with self.client_socket.makefile('r', encoding='utf-8') as reader:
+            # 텍스트 줄과 바이너리 프레임이 섞일 수 있으므로 바이트 단위로 읽음
+            with self.client_socket.makefile('rb') as reader:
                 while self.running:
-                    line = reader.readline()
+                    if self.binary_framing and self.frame_decoder.is_frame_start(reader):
+                        samples = self.frame_decoder.read_frame(reader)
+                        self.recv_ns = time.monotonic_ns()
+                        if samples is None:
+                            print(f"[종료] 클라이언트 연결 종료: {self.client_address}")
+                            break
+                        for ecg_value in samples:
+                            self.handle_ecg_sample(ecg_value)
+                        continue
                     
-                    if not line:
+                    raw_line = reader.readline()
+                    
+                    if not raw_line:
                         print(f"[종료] 클라이언트 연결 종료: {self.client_address}")
                         break
+                    self.recv_ns = time.monotonic_ns()
                     
-                    line = line.strip()
+                    line = raw_line.decode('utf-8', errors='replace').strip()
                     if not line:
                         continue
                     
@@ -215,8 +397,10 @@ class ClientHandler(threading.Thread):
     def send_welcome_message(self):
         """연결 시 환영 메시지 전송"""
         welcome = {
+            "type": "welcome",
             "status": "connected",
             "message": "ECG 인증 서버에 연결되었습니다.",
+            "request_ids": True,
             "commands": [
                 "CMD:REGISTER:<user_id> - 사용자 등록 모드",
                 "CMD:LOGIN - 로그인 모드 (ECG 데이터 전송)",
@@ -225,7 +409,11 @@ class ClientHandler(threading.Thread):
                 "CMD:STATUS - 현재 상태 확인",
                 "CMD:USERS - 등록된 사용자 목록",
                 "CMD:DELETE:<user_id> - 사용자 삭제",
-                "CMD:CANCEL - 현재 작업 취소"
+                "CMD:CANCEL - 현재 작업 취소",
+                "CMD:FRAMING:BIN1|BIN2 - 바이너리 프레임 샘플 전송 (BIN2: 차이 압축 프레임 포함)",
+                "CMD:PREFILTER:ON|OFF - 앱에서 필터링한 샘플 전송 (서버 필터 생략)",
+                "CMD:TIME:<t0> - 시계 차이 측정 (지연 추적 활성화)",
+                "CMD:#<id>:<명령> - 요청 번호 (응답에 type 과 id 로 되돌려 줌)"
             ],
             "session": self.session_id,
             "logged_in_user": self.logged_in_user
@@ -233,13 +421,27 @@ class ClientHandler(threading.Thread):
         self.send_response(welcome)
     
     def handle_command(self, command: str):
-        """명령어 처리"""
-        parts = command.strip().split(":", 1)
+        """명령어 처리 (CMD:#<id>:<명령> 이면 응답에 요청 번호를 붙임)"""
+        command = command.strip()
+        request_id = None
+        if command.startswith("#"):
+            id_part, _, command = command[1:].partition(":")
+            request_id = int(id_part) if id_part.isdigit() else None
+        parts = command.split(":", 1)
         cmd = parts[0].upper()
         arg = parts[1] if len(parts) > 1 else None
         
-        print(f"[명령] {cmd} (인자: {arg})")
+        print(f"[명령] {cmd} (인자: {arg}, 요청: {request_id})")
         
+        self.reply_type = cmd.lower()
+        self.request_id = request_id
+        try:
+            self.dispatch_command(cmd, arg)
+        finally:
+            self.reply_type = None
+            self.request_id = None
+    
+    def dispatch_command(self, cmd: str, arg):
         if cmd == "REGISTER":
             self.start_register_mode(arg)
         elif cmd == "LOGIN":
@@ -258,6 +460,12 @@ class ClientHandler(threading.Thread):
             self.verify_session()
         elif cmd == "COMPLETE":
             self.handle_complete_command()
+        elif cmd == "FRAMING":
+            self.set_framing(arg)
+        elif cmd == "PREFILTER":
+            self.set_prefilter(arg)
+        elif cmd == "TIME":
+            self.sync_time(arg)
         else:
             self.send_response({
                 "status": "error",
@@ -290,8 +498,10 @@ class ClientHandler(threading.Thread):
         
         self.current_mode = "register"
         self.pending_user_id = user_id
+        self.capture_request_id = self.request_id
         self.processor.clear_buffer()
         self.sample_count = 0
+        self.trace_times = {}
         
         self.send_response({
             "status": "ready",
@@ -305,8 +515,10 @@ class ClientHandler(threading.Thread):
         """로그인 모드 시작"""
         self.current_mode = "login"
         self.pending_user_id = user_id.strip() if user_id else None
+        self.capture_request_id = self.request_id
         self.processor.clear_buffer()
         self.sample_count = 0
+        self.trace_times = {}
         
         msg = f"로그인 모드 시작 (사용자: {self.pending_user_id})" if self.pending_user_id else "로그인 모드 시작 (전체 검색)"
         
@@ -371,7 +583,9 @@ class ClientHandler(threading.Thread):
         """현재 모드 취소"""
         self.current_mode = "idle"
         self.pending_user_id = None
+        self.capture_request_id = None
         self.processor.clear_buffer()
+        self.trace_times = {}
         
         self.send_response({
             "status": "cancelled",
@@ -389,8 +603,55 @@ class ClientHandler(threading.Thread):
                 "message": "활성 세션이 없습니다."
             })
     
+    def set_framing(self, framing: str):
+        """샘플 전송 방식 협상 (BIN1: 바이너리 프레임, BIN2: 압축 프레임도 허용, 그 외: 텍스트 줄)
+
+        디코더는 협상과 무관하게 모든 encoding 을 풀 수 있으며, 응답의 framing 값으로 클라이언트가 사용할 형식을 확정한다.
+        """
+        requested = (framing or "").strip().upper()
+        self.binary_framing = requested in ("BIN1", "BIN2")
+        self.frame_decoder.reset()
+        
+        self.send_response({
+            "status": "framing",
+            "framing": requested.lower() if self.binary_framing else "text",
+            "message": ("압축 프레임 전송 활성화" if requested == "BIN2" else "바이너리 프레임 전송 활성화")
+                       if self.binary_framing else "텍스트 전송 유지"
+        })
+    
+    def set_prefilter(self, value: str):
+        """앱 필터 적용 여부 설정 (ON: 전처리 필터 생략, 품질 검사는 그대로 수행)"""
+        self.prefiltered = (value or "").strip().upper() == "ON"
+        
+        self.send_response({
+            "status": "prefilter",
+            "prefilter": self.prefiltered,
+            "message": "앱 필터링 샘플 수신 (서버 필터 생략)" if self.prefiltered else "원본 샘플 수신 (서버 필터 적용)"
+        })
+    
+    def sync_time(self, t0: str):
+        """NTP 방식 시계 차이 측정: 클라이언트 송신 시각 t0 에 서버 수신(t1)/송신(t2) 시각을 붙여 되돌려 줌"""
+        self.trace = True
+        t1 = self.recv_ns
+        self.send_response({
+            "status": "time",
+            "t0": int(t0) if t0 and t0.strip().lstrip('-').isdigit() else 0,
+            "t1": t1,
+            "t2": time.monotonic_ns()
+        }, log=False)
+    
+    def mark_processing(self, trigger: str):
+        """결과 응답 준비: 측정을 시작한 명령으로 답하고, 추적 중이면 처리 시작 시각 기록 (server_timing 으로 첨부)"""
+        self.reply_type = self.current_mode if self.current_mode in ("register", "login") else "process"
+        self.request_id = self.capture_request_id
+        if self.trace and self.trace_times:
+            self.trace_times["trigger"] = trigger
+            self.trace_times["process_start_ns"] = time.monotonic_ns()
+    
     def handle_complete_command(self):
         """데이터 수집 완료 신호 처리"""
+        if self.trace and self.trace_times:
+            self.trace_times["complete_ns"] = self.recv_ns
         if self.current_mode not in ["register", "login"]:
             # 이미 처리가 완료되어 idle 상태일 수 있음 (버퍼 가득 차서 자동 처리된 경우)
             # 오류 대신 무시하거나 info 메시지 전송
@@ -419,7 +680,8 @@ class ClientHandler(threading.Thread):
         print(f"[강제 처리] 버퍼 데이터로 처리 시작 ({buffer_count}개 샘플, 최소 {min_required}개 요구)")
         
         # ECG 처리 (최소 샘플 수로 처리 허용)
-        result = self.processor.process(min_samples=min_required)
+        self.mark_processing("complete")
+        result = self.processor.process(min_samples=min_required, prefiltered=self.prefiltered)
         
         if result["status"] == "success":
             # 모드에 따른 처리
@@ -431,37 +693,47 @@ class ClientHandler(threading.Thread):
             self.send_response(result)
     
     def handle_ecg_data(self, line: str):
-        """ECG 데이터 처리"""
+        """ECG 데이터 처리 (텍스트 한 줄)"""
         try:
             ecg_value = int(line)
-            self.sample_count += 1
+        except ValueError:
+            # 숫자가 아닌 데이터는 무시
+            return
+        self.handle_ecg_sample(ecg_value)
+    
+    def handle_ecg_sample(self, ecg_value: int):
+        """ECG 샘플 하나 처리 (텍스트/바이너리 공통)"""
+        self.sample_count += 1
+        if self.trace:
+            if "first_sample_ns" not in self.trace_times:
+                self.trace_times["first_sample_ns"] = self.recv_ns
+            self.trace_times["last_sample_ns"] = self.recv_ns
+        
+        # 100개마다 상태 출력
+        if self.sample_count % 100 == 0:
+            print(f"[수신] 샘플 #{self.sample_count}, 버퍼: {self.processor.get_buffer_status()}, 모드: {self.current_mode}")
+        
+        # 버퍼에 추가
+        if self.processor.add_sample(ecg_value):
+            print(f"\n[처리] 버퍼 가득 참. 모드: {self.current_mode}")
             
-            # 100개마다 상태 출력
-            if self.sample_count % 100 == 0:
-                print(f"[수신] 샘플 #{self.sample_count}, 버퍼: {self.processor.get_buffer_status()}, 모드: {self.current_mode}")
+            # ECG 처리
+            self.mark_processing("buffer_full")
+            result = self.processor.process(prefiltered=self.prefiltered)
             
-            # 버퍼에 추가
-            if self.processor.add_sample(ecg_value):
-                print(f"\n[처리] 버퍼 가득 참. 모드: {self.current_mode}")
-                
-                # ECG 처리
-                result = self.processor.process()
-                
-                if result["status"] == "success":
-                    # 모드에 따른 처리
-                    if self.current_mode == "register":
-                        self.complete_registration(result)
-                    elif self.current_mode == "login":
-                        self.complete_login(result)
-                    else:
-                        # 일반 처리 (서명만 생성)
-                        self.send_response(result)
+            if result["status"] == "success":
+                # 모드에 따른 처리
+                if self.current_mode == "register":
+                    self.complete_registration(result)
+                elif self.current_mode == "login":
+                    self.complete_login(result)
                 else:
+                    # 일반 처리 (서명만 생성)
                     self.send_response(result)
-                    
-        except ValueError:
-            # 숫자가 아닌 데이터는 무시
-            pass
+            else:
+                self.send_response(result)
+            self.reply_type = None
+            self.request_id = None
     
     def complete_registration(self, ecg_result: dict):
         """등록 완료 처리"""
@@ -484,6 +756,7 @@ class ClientHandler(threading.Thread):
         
         self.current_mode = "idle"
         self.pending_user_id = None
+        self.capture_request_id = None
         
         self.send_response(result)
     
@@ -503,15 +776,26 @@ class ClientHandler(threading.Thread):
         
         self.current_mode = "idle"
         self.pending_user_id = None
+        self.capture_request_id = None
         
         self.send_response(result)
     
-    def send_response(self, data: dict):
-        """JSON 응답 전송"""
+    def send_response(self, data: dict, log: bool = True):
+        """JSON 응답 전송 (답하는 명령의 type/id, 측정 결과면 추적 시각 첨부)"""
         try:
+            if self.reply_type and "type" not in data:
+                data = dict(data, type=self.reply_type)
+                if self.request_id is not None:
+                    data["id"] = self.request_id
+            if "process_start_ns" in self.trace_times:
+                timing = dict(self.trace_times)
+                timing["reply_ns"] = time.monotonic_ns()
+                data = dict(data, server_timing=timing)
+                self.trace_times = {}
             json_str = json.dumps(data, ensure_ascii=False)
             self.client_socket.sendall((json_str + '\n').encode('utf-8'))
-            print(f"[전송] {data.get('status', 'unknown')}: {data.get('message', '')[:50]}")
+            if log:
+                print(f"[전송] {data.get('status', 'unknown')}: {data.get('message', '')[:50]}")
         except Exception as e:
             print(f"[에러] 응답 전송 실패: {e}")
     